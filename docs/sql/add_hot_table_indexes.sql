@@ -0,0 +1,210 @@
+-- 热点表的复合索引，对应的查询：
+-- user_behavior : WHERE user_id = ? AND behavior_type = ? GROUP BY video_id ORDER BY MAX(create_time)  (观看历史)
+--                 DELETE ... WHERE user_id = ? AND behavior_type = ? [AND video_id = ?]            (清空/删除历史)
+--                 新索引覆盖 video_id，分组不再回表；替换 migrate_user_behavior_watch_history.sql 中的 idx_user_type_time
+-- video         : Video 有 @TableLogic，所有查询都带 is_deleted = 0，等值列放在排序列之前
+--                 WHERE uploader_id = ? AND is_deleted = 0 ORDER BY create_time DESC            (个人主页/作品列表)
+--                 WHERE is_hot = 1 AND is_deleted = 0 ORDER BY create_time DESC LIMIT ?        (热门兜底推荐)
+--                 WHERE is_deleted = 0 ORDER BY create_time DESC LIMIT ?                       (视频列表)
+--                 WHERE is_deleted = 0 AND update_time >= ? ORDER BY update_time, id LIMIT ?   (搜索索引补齐)
+-- comment       : WHERE video_id = ? ORDER BY like_count DESC, create_time DESC LIMIT ?       (评论列表)
+-- notification  : WHERE user_id = ? ORDER BY create_time DESC LIMIT ?                         (通知列表，未读相关已有 idx_user_read_time)
+-- video_like / video_favorite : WHERE user_id = ? ORDER BY create_time DESC LIMIT ?           (我的点赞/收藏，唯一键以 video_id 开头用不上)
+-- recommendation_result       : WHERE user_id = ? AND type = ? ORDER BY score DESC LIMIT ?     (推荐结果，表由离线任务创建，不存在时跳过)
+-- 在 update_notification_unread.sql、migrate_user_behavior_watch_history.sql 之后执行；可重复执行
+-- 均为 InnoDB 在线加索引 (ALGORITHM=INPLACE, LOCK=NONE)，建索引期间不阻塞读写
+-- 查询与索引的对应关系由 QueryPlanTests 检查：新增查询走全表扫描时测试失败
+SET @db := DATABASE();
+
+SET @idx_sql := (
+  SELECT IF(
+    NOT EXISTS(
+      SELECT 1
+      FROM information_schema.statistics
+      WHERE table_schema = @db
+        AND table_name = 'user_behavior'
+        AND index_name = 'idx_user_type_video_time'
+    ),
+    "ALTER TABLE user_behavior ADD INDEX idx_user_type_video_time (user_id, behavior_type, video_id, create_time), ALGORITHM=INPLACE, LOCK=NONE",
+    "SELECT 1"
+  )
+);
+PREPARE stmt FROM @idx_sql;
+EXECUTE stmt;
+DEALLOCATE PREPARE stmt;
+
+SET @idx_sql := (
+  SELECT IF(
+    EXISTS(
+      SELECT 1
+      FROM information_schema.statistics
+      WHERE table_schema = @db
+        AND table_name = 'user_behavior'
+        AND index_name = 'idx_user_type_time'
+    ),
+    "ALTER TABLE user_behavior DROP INDEX idx_user_type_time, ALGORITHM=INPLACE, LOCK=NONE",
+    "SELECT 1"
+  )
+);
+PREPARE stmt FROM @idx_sql;
+EXECUTE stmt;
+DEALLOCATE PREPARE stmt;
+
+SET @idx_sql := (
+  SELECT IF(
+    NOT EXISTS(
+      SELECT 1
+      FROM information_schema.statistics
+      WHERE table_schema = @db
+        AND table_name = 'video'
+        AND index_name = 'idx_uploader_deleted_time'
+    ),
+    "ALTER TABLE video ADD INDEX idx_uploader_deleted_time (uploader_id, is_deleted, create_time), ALGORITHM=INPLACE, LOCK=NONE",
+    "SELECT 1"
+  )
+);
+PREPARE stmt FROM @idx_sql;
+EXECUTE stmt;
+DEALLOCATE PREPARE stmt;
+
+SET @idx_sql := (
+  SELECT IF(
+    NOT EXISTS(
+      SELECT 1
+      FROM information_schema.statistics
+      WHERE table_schema = @db
+        AND table_name = 'video'
+        AND index_name = 'idx_hot_deleted_time'
+    ),
+    "ALTER TABLE video ADD INDEX idx_hot_deleted_time (is_hot, is_deleted, create_time), ALGORITHM=INPLACE, LOCK=NONE",
+    "SELECT 1"
+  )
+);
+PREPARE stmt FROM @idx_sql;
+EXECUTE stmt;
+DEALLOCATE PREPARE stmt;
+
+SET @idx_sql := (
+  SELECT IF(
+    NOT EXISTS(
+      SELECT 1
+      FROM information_schema.statistics
+      WHERE table_schema = @db
+        AND table_name = 'video'
+        AND index_name = 'idx_deleted_time'
+    ),
+    "ALTER TABLE video ADD INDEX idx_deleted_time (is_deleted, create_time), ALGORITHM=INPLACE, LOCK=NONE",
+    "SELECT 1"
+  )
+);
+PREPARE stmt FROM @idx_sql;
+EXECUTE stmt;
+DEALLOCATE PREPARE stmt;
+
+SET @idx_sql := (
+  SELECT IF(
+    NOT EXISTS(
+      SELECT 1
+      FROM information_schema.statistics
+      WHERE table_schema = @db
+        AND table_name = 'video'
+        AND index_name = 'idx_deleted_update_time'
+    ),
+    "ALTER TABLE video ADD INDEX idx_deleted_update_time (is_deleted, update_time), ALGORITHM=INPLACE, LOCK=NONE",
+    "SELECT 1"
+  )
+);
+PREPARE stmt FROM @idx_sql;
+EXECUTE stmt;
+DEALLOCATE PREPARE stmt;
+
+SET @idx_sql := (
+  SELECT IF(
+    NOT EXISTS(
+      SELECT 1
+      FROM information_schema.statistics
+      WHERE table_schema = @db
+        AND table_name = 'comment'
+        AND index_name = 'idx_video_like_time'
+    ),
+    "ALTER TABLE comment ADD INDEX idx_video_like_time (video_id, like_count, create_time), ALGORITHM=INPLACE, LOCK=NONE",
+    "SELECT 1"
+  )
+);
+PREPARE stmt FROM @idx_sql;
+EXECUTE stmt;
+DEALLOCATE PREPARE stmt;
+
+SET @idx_sql := (
+  SELECT IF(
+    NOT EXISTS(
+      SELECT 1
+      FROM information_schema.statistics
+      WHERE table_schema = @db
+        AND table_name = 'notification'
+        AND index_name = 'idx_user_time'
+    ),
+    "ALTER TABLE notification ADD INDEX idx_user_time (user_id, create_time), ALGORITHM=INPLACE, LOCK=NONE",
+    "SELECT 1"
+  )
+);
+PREPARE stmt FROM @idx_sql;
+EXECUTE stmt;
+DEALLOCATE PREPARE stmt;
+
+SET @idx_sql := (
+  SELECT IF(
+    NOT EXISTS(
+      SELECT 1
+      FROM information_schema.statistics
+      WHERE table_schema = @db
+        AND table_name = 'video_like'
+        AND index_name = 'idx_user_time'
+    ),
+    "ALTER TABLE video_like ADD INDEX idx_user_time (user_id, create_time), ALGORITHM=INPLACE, LOCK=NONE",
+    "SELECT 1"
+  )
+);
+PREPARE stmt FROM @idx_sql;
+EXECUTE stmt;
+DEALLOCATE PREPARE stmt;
+
+SET @idx_sql := (
+  SELECT IF(
+    NOT EXISTS(
+      SELECT 1
+      FROM information_schema.statistics
+      WHERE table_schema = @db
+        AND table_name = 'video_favorite'
+        AND index_name = 'idx_user_time'
+    ),
+    "ALTER TABLE video_favorite ADD INDEX idx_user_time (user_id, create_time), ALGORITHM=INPLACE, LOCK=NONE",
+    "SELECT 1"
+  )
+);
+PREPARE stmt FROM @idx_sql;
+EXECUTE stmt;
+DEALLOCATE PREPARE stmt;
+
+SET @idx_sql := (
+  SELECT IF(
+    EXISTS(
+      SELECT 1
+      FROM information_schema.tables
+      WHERE table_schema = @db
+        AND table_name = 'recommendation_result'
+    )
+    AND NOT EXISTS(
+      SELECT 1
+      FROM information_schema.statistics
+      WHERE table_schema = @db
+        AND table_name = 'recommendation_result'
+        AND index_name = 'idx_user_type_score'
+    ),
+    "ALTER TABLE recommendation_result ADD INDEX idx_user_type_score (user_id, type, score), ALGORITHM=INPLACE, LOCK=NONE",
+    "SELECT 1"
+  )
+);
+PREPARE stmt FROM @idx_sql;
+EXECUTE stmt;
+DEALLOCATE PREPARE stmt;
@@ -0,0 +1,126 @@
+-- 私信会话模型：会话表 + 收件箱 + 消息的会话序号
+-- dm_conversation : 两个用户之间唯一一行，id = "较小uid_较大uid"，发送时 SELECT ... FOR UPDATE 分配 seq
+-- dm_inbox        : 每个用户的每个会话一行，保存最新消息摘要和未读数，收件箱列表/未读总数不再扫消息表
+-- dm_message      : 新增 conversation_id + seq，会话内按 seq 游标翻页
+-- 可重复执行；回填针对迁移前已有的消息
+SET @db := DATABASE();
+
+CREATE TABLE IF NOT EXISTS `dm_conversation` (
+  `id` varchar(64) NOT NULL COMMENT '会话ID: 较小uid_较大uid',
+  `user_low` bigint(20) NOT NULL COMMENT '较小的用户ID',
+  `user_high` bigint(20) NOT NULL COMMENT '较大的用户ID',
+  `last_seq` bigint(20) NOT NULL DEFAULT 0 COMMENT '最新消息序号',
+  `low_sent_count` int(11) NOT NULL DEFAULT 0 COMMENT 'user_low 发出的消息数',
+  `high_sent_count` int(11) NOT NULL DEFAULT 0 COMMENT 'user_high 发出的消息数',
+  `last_message_id` bigint(20) DEFAULT NULL COMMENT '最新消息ID',
+  `update_time` datetime DEFAULT CURRENT_TIMESTAMP COMMENT '最近消息时间',
+  PRIMARY KEY (`id`)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COMMENT='私信会话表';
+
+CREATE TABLE IF NOT EXISTS `dm_inbox` (
+  `id` bigint(20) NOT NULL AUTO_INCREMENT COMMENT '主键',
+  `user_id` bigint(20) NOT NULL COMMENT '收件箱所属用户',
+  `peer_id` bigint(20) NOT NULL COMMENT '会话对方',
+  `conversation_id` varchar(64) NOT NULL COMMENT '会话ID',
+  `last_seq` bigint(20) NOT NULL DEFAULT 0 COMMENT '最新消息序号',
+  `last_message_id` bigint(20) DEFAULT NULL COMMENT '最新消息ID',
+  `last_sender_id` bigint(20) DEFAULT NULL COMMENT '最新消息发送者',
+  `last_msg_type` tinyint(4) DEFAULT NULL COMMENT '最新消息类型 1文字 2视频',
+  `last_preview` varchar(255) DEFAULT NULL COMMENT '最新消息摘要',
+  `unread_count` int(11) NOT NULL DEFAULT 0 COMMENT '该会话未读数',
+  `update_time` datetime DEFAULT CURRENT_TIMESTAMP COMMENT '最近消息时间',
+  PRIMARY KEY (`id`),
+  UNIQUE KEY `uk_user_peer` (`user_id`, `peer_id`) COMMENT '每个用户的每个会话一行，写入时按它合并',
+  KEY `idx_user_time` (`user_id`, `update_time`) COMMENT '收件箱按时间倒序'
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COMMENT='私信收件箱';
+
+SET @col_sql := (
+  SELECT IF(
+    NOT EXISTS(
+      SELECT 1
+      FROM information_schema.columns
+      WHERE table_schema = @db
+        AND table_name = 'dm_message'
+        AND column_name = 'conversation_id'
+    ),
+    "ALTER TABLE dm_message ADD COLUMN conversation_id VARCHAR(64) DEFAULT NULL COMMENT '会话ID' AFTER receiver_id, ADD COLUMN seq BIGINT DEFAULT NULL COMMENT '会话内序号' AFTER conversation_id",
+    "SELECT 1"
+  )
+);
+PREPARE stmt FROM @col_sql;
+EXECUTE stmt;
+DEALLOCATE PREPARE stmt;
+
+-- 回填历史消息的会话ID与序号 (MySQL 8 窗口函数)
+UPDATE dm_message
+SET conversation_id = CONCAT(LEAST(sender_id, receiver_id), '_', GREATEST(sender_id, receiver_id))
+WHERE conversation_id IS NULL;
+
+UPDATE dm_message m
+JOIN (
+  SELECT id, ROW_NUMBER() OVER (PARTITION BY conversation_id ORDER BY create_time, id) AS rn
+  FROM dm_message
+) t ON t.id = m.id
+SET m.seq = t.rn
+WHERE m.seq IS NULL;
+
+SET @idx_sql := (
+  SELECT IF(
+    NOT EXISTS(
+      SELECT 1
+      FROM information_schema.statistics
+      WHERE table_schema = @db
+        AND table_name = 'dm_message'
+        AND index_name = 'uk_conv_seq'
+    ),
+    "ALTER TABLE dm_message ADD UNIQUE KEY uk_conv_seq (conversation_id, seq)",
+    "SELECT 1"
+  )
+);
+PREPARE stmt FROM @idx_sql;
+EXECUTE stmt;
+DEALLOCATE PREPARE stmt;
+
+-- 回填会话表
+INSERT INTO dm_conversation (id, user_low, user_high, last_seq, low_sent_count, high_sent_count, last_message_id, update_time)
+SELECT conversation_id,
+       MIN(LEAST(sender_id, receiver_id)),
+       MAX(GREATEST(sender_id, receiver_id)),
+       MAX(seq),
+       SUM(sender_id < receiver_id),
+       SUM(sender_id > receiver_id),
+       MAX(id),
+       MAX(create_time)
+FROM dm_message
+GROUP BY conversation_id
+ON DUPLICATE KEY UPDATE
+  last_seq = VALUES(last_seq),
+  low_sent_count = VALUES(low_sent_count),
+  high_sent_count = VALUES(high_sent_count),
+  last_message_id = VALUES(last_message_id),
+  update_time = VALUES(update_time);
+
+-- 回填收件箱：双方各一行，未读数为对方发来且未读的消息数
+INSERT INTO dm_inbox (user_id, peer_id, conversation_id, last_seq, last_message_id, last_sender_id,
+                      last_msg_type, last_preview, unread_count, update_time)
+SELECT u.user_id, u.peer_id, m.conversation_id, m.seq, m.id, m.sender_id, m.msg_type,
+       IF(m.msg_type = 2, '分享了一个视频', LEFT(TRIM(m.content), 120)),
+       u.unread, m.create_time
+FROM (
+  SELECT user_id, peer_id, MAX(id) AS last_id, SUM(unread) AS unread
+  FROM (
+    SELECT sender_id AS user_id, receiver_id AS peer_id, id, 0 AS unread FROM dm_message
+    UNION ALL
+    SELECT receiver_id, sender_id, id, IF(is_read = 0, 1, 0) FROM dm_message
+  ) d
+  GROUP BY user_id, peer_id
+) u
+JOIN dm_message m ON m.id = u.last_id
+ON DUPLICATE KEY UPDATE
+  last_seq = VALUES(last_seq),
+  last_message_id = VALUES(last_message_id),
+  last_sender_id = VALUES(last_sender_id),
+  last_msg_type = VALUES(last_msg_type),
+  last_preview = VALUES(last_preview),
+  unread_count = VALUES(unread_count),
+  update_time = VALUES(update_time);
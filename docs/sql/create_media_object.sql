@@ -0,0 +1,51 @@
+-- 按内容哈希去重上传的视频文件
+-- media_object : 每个存储后端内每份内容一行，(storage, content_hash) 唯一
+-- video        : 新增 content_hash，相同内容的视频共用同一个文件，并直接沿用已处理完的元数据
+-- 可重复执行
+SET @db := DATABASE();
+
+CREATE TABLE IF NOT EXISTS `media_object` (
+  `id` bigint(20) NOT NULL AUTO_INCREMENT,
+  `storage` varchar(16) NOT NULL COMMENT '存储后端 oss / local',
+  `content_hash` char(64) NOT NULL COMMENT '内容 SHA-256',
+  `size` bigint(20) NOT NULL COMMENT '文件大小(字节)',
+  `url` varchar(512) NOT NULL COMMENT '访问地址',
+  `ref_count` int(11) NOT NULL DEFAULT 1 COMMENT '引用该文件的视频数',
+  `create_time` datetime DEFAULT CURRENT_TIMESTAMP,
+  PRIMARY KEY (`id`),
+  UNIQUE KEY `uk_storage_hash` (`storage`, `content_hash`)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COMMENT='媒体文件(内容去重)';
+
+SET @col_sql := (
+  SELECT IF(
+    NOT EXISTS(
+      SELECT 1
+      FROM information_schema.columns
+      WHERE table_schema = @db
+        AND table_name = 'video'
+        AND column_name = 'content_hash'
+    ),
+    "ALTER TABLE video ADD COLUMN content_hash CHAR(64) DEFAULT NULL COMMENT '内容 SHA-256' AFTER cover_url",
+    "SELECT 1"
+  )
+);
+PREPARE stmt FROM @col_sql;
+EXECUTE stmt;
+DEALLOCATE PREPARE stmt;
+
+SET @idx_sql := (
+  SELECT IF(
+    NOT EXISTS(
+      SELECT 1
+      FROM information_schema.statistics
+      WHERE table_schema = @db
+        AND table_name = 'video'
+        AND index_name = 'idx_content_hash'
+    ),
+    "ALTER TABLE video ADD INDEX idx_content_hash (content_hash)",
+    "SELECT 1"
+  )
+);
+PREPARE stmt FROM @idx_sql;
+EXECUTE stmt;
+DEALLOCATE PREPARE stmt;
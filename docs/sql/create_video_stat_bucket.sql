@@ -0,0 +1,30 @@
+-- 全站计数的增量汇总，供 /api/analysis/* 使用，不再每次对 video_stat 求和
+-- granularity 0: 累计总数 (bucket_time 固定为 1970-01-01)；1: 按天；2: 按小时
+-- 由 SyncBufferToDBUtil 在计数缓冲落库的同一个事务里累加 (与 video_stat 的增量一致)，时间桶取落库时间
+-- 发布顺序：执行本脚本 (建表并用 video_stat 初始化总数) -> 发布新版本 -> 再执行一次本脚本 (重新校准总数，补上两步之间的增量)
+-- 按天/按小时的数据从新版本发布后开始累计；可重复执行
+CREATE TABLE IF NOT EXISTS `video_stat_bucket` (
+  `id` bigint(20) NOT NULL AUTO_INCREMENT COMMENT '主键',
+  `granularity` tinyint(4) NOT NULL COMMENT '0累计 1天 2小时',
+  `bucket_time` datetime NOT NULL COMMENT '时间桶起点',
+  `play_count` bigint(20) NOT NULL DEFAULT 0,
+  `like_count` bigint(20) NOT NULL DEFAULT 0,
+  `comment_count` bigint(20) NOT NULL DEFAULT 0,
+  `share_count` bigint(20) NOT NULL DEFAULT 0,
+  `favorite_count` bigint(20) NOT NULL DEFAULT 0,
+  PRIMARY KEY (`id`),
+  UNIQUE KEY `uk_granularity_time` (`granularity`, `bucket_time`) COMMENT '累加时按它合并，也是查询走的索引'
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COMMENT='全站计数汇总';
+
+-- 用 video_stat 覆盖累计总数 (不是累加)，重复执行结果不变
+INSERT INTO video_stat_bucket (granularity, bucket_time, play_count, like_count, comment_count, share_count, favorite_count)
+SELECT 0, '1970-01-01 00:00:00',
+       COALESCE(SUM(play_count), 0), COALESCE(SUM(like_count), 0), COALESCE(SUM(comment_count), 0),
+       COALESCE(SUM(share_count), 0), COALESCE(SUM(favorite_count), 0)
+FROM video_stat
+ON DUPLICATE KEY UPDATE
+  play_count = VALUES(play_count),
+  like_count = VALUES(like_count),
+  comment_count = VALUES(comment_count),
+  share_count = VALUES(share_count),
+  favorite_count = VALUES(favorite_count);
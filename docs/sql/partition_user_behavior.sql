@@ -0,0 +1,67 @@
+-- 行为流水分区 + 汇总表
+-- user_behavior        : 每次播放/点赞/收藏/评论/转发一行，只追加。按 create_time 每月一个 RANGE 分区，
+--                        过期分区由 BehaviorRetentionService 导出为压缩文件 (供离线推荐的 Spark 任务读取) 后整个 DROP，
+--                        新月份的分区也由它提前从 pmax 中拆出来
+-- user_behavior_rollup : 每个 (用户, 行为类型, 视频) 一行，次数 + 首次/最近时间；观看历史等在线查询只读这张表
+-- 在 add_hot_table_indexes.sql 之后执行；可重复执行
+-- 注意：第一次分区是整表重建 (COPY)，期间阻塞写入；表已经很大时改用 pt-online-schema-change / gh-ost 执行同样的 ALTER
+-- 发布顺序：执行本脚本 (建汇总表) -> 发布新版本 (开始双写汇总表) -> 再执行一次本脚本 (用流水重算汇总，补上两步之间的行为)
+SET @db := DATABASE();
+
+CREATE TABLE IF NOT EXISTS `user_behavior_rollup` (
+  `id` bigint(20) NOT NULL AUTO_INCREMENT COMMENT '主键',
+  `user_id` bigint(20) NOT NULL COMMENT '用户ID',
+  `behavior_type` tinyint(4) NOT NULL COMMENT '1播放 2点赞 3收藏 4评论 5转发',
+  `video_id` bigint(20) NOT NULL COMMENT '视频ID',
+  `event_count` int(11) NOT NULL DEFAULT 0 COMMENT '行为次数',
+  `first_time` datetime NOT NULL COMMENT '首次发生时间',
+  `last_time` datetime NOT NULL COMMENT '最近发生时间',
+  PRIMARY KEY (`id`),
+  UNIQUE KEY `uk_user_type_video` (`user_id`, `behavior_type`, `video_id`) COMMENT '写入时按它累加',
+  KEY `idx_user_type_last` (`user_id`, `behavior_type`, `last_time`) COMMENT '观看历史按最近时间倒序'
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COMMENT='用户行为汇总';
+
+-- 分区键必须包含在主键里：主键改为 (id, create_time)，create_time 改为非空
+-- 已有数据全部放进 p_legacy (上界为本月 1 日)，之后每月一个分区，pmax 兜底
+SET @m0 := DATE_FORMAT(CURDATE(), '%Y-%m-01');
+SET @m1 := DATE_ADD(@m0, INTERVAL 1 MONTH);
+SET @m2 := DATE_ADD(@m0, INTERVAL 2 MONTH);
+SET @m3 := DATE_ADD(@m0, INTERVAL 3 MONTH);
+
+SET @part_sql := (
+  SELECT IF(
+    NOT EXISTS(
+      SELECT 1
+      FROM information_schema.partitions
+      WHERE table_schema = @db
+        AND table_name = 'user_behavior'
+        AND partition_name IS NOT NULL
+    ),
+    CONCAT(
+      "ALTER TABLE user_behavior ",
+      "MODIFY create_time DATETIME NOT NULL DEFAULT CURRENT_TIMESTAMP COMMENT '创建时间', ",
+      "DROP PRIMARY KEY, ADD PRIMARY KEY (id, create_time) ",
+      "PARTITION BY RANGE COLUMNS(create_time) (",
+      "PARTITION p_legacy VALUES LESS THAN ('", @m0, "'), ",
+      "PARTITION p", DATE_FORMAT(@m0, '%Y%m'), " VALUES LESS THAN ('", @m1, "'), ",
+      "PARTITION p", DATE_FORMAT(@m1, '%Y%m'), " VALUES LESS THAN ('", @m2, "'), ",
+      "PARTITION p", DATE_FORMAT(@m2, '%Y%m'), " VALUES LESS THAN ('", @m3, "'), ",
+      "PARTITION pmax VALUES LESS THAN (MAXVALUE))"
+    ),
+    "SELECT 1"
+  )
+);
+PREPARE stmt FROM @part_sql;
+EXECUTE stmt;
+DEALLOCATE PREPARE stmt;
+
+-- 用流水重算汇总：取较大的次数、较早的首次时间、较晚的最近时间，重复执行不会重复累加；
+-- 过期分区已归档删除后再执行也不会把汇总改小
+INSERT INTO user_behavior_rollup (user_id, behavior_type, video_id, event_count, first_time, last_time)
+SELECT user_id, behavior_type, video_id, COUNT(*), MIN(create_time), MAX(create_time)
+FROM user_behavior
+GROUP BY user_id, behavior_type, video_id
+ON DUPLICATE KEY UPDATE
+  event_count = GREATEST(event_count, VALUES(event_count)),
+  first_time = LEAST(first_time, VALUES(first_time)),
+  last_time = GREATEST(last_time, VALUES(last_time));
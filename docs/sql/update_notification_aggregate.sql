@@ -0,0 +1,9 @@
+-- 通知聚合：同一接收人、同一类型、同一目标在一个时间窗口内的通知合并为一条
+-- actor_count      : 窗口内参与的操作人数（“A 等 99 人赞了你的视频”）
+-- latest_actor_ids : 最近的几个操作人ID，逗号分隔，最新的在前
+-- agg_key          : 聚合键 userId:type:targetType:targetId:windowIndex，非聚合通知为 NULL
+ALTER TABLE `notification`
+ADD COLUMN `actor_count` INT NOT NULL DEFAULT 1 COMMENT '聚合的操作人数',
+ADD COLUMN `latest_actor_ids` VARCHAR(255) DEFAULT NULL COMMENT '最近操作人ID列表',
+ADD COLUMN `agg_key` VARCHAR(128) DEFAULT NULL COMMENT '聚合键',
+ADD INDEX `idx_agg_key` (`agg_key`);
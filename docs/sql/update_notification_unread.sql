@@ -0,0 +1,38 @@
+-- 未读数查询与批量已读所需索引
+-- 未读计数已缓存到 Redis（notification:unread:{uid} / dm:unread:{uid}），
+-- 这两个索引用于缓存重建、定时校准以及分批标记已读
+SET @db := DATABASE();
+
+SET @idx_sql := (
+  SELECT IF(
+    NOT EXISTS(
+      SELECT 1
+      FROM information_schema.statistics
+      WHERE table_schema = @db
+        AND table_name = 'notification'
+        AND index_name = 'idx_user_read_time'
+    ),
+    "ALTER TABLE notification ADD INDEX idx_user_read_time (user_id, is_read, create_time)",
+    "SELECT 1"
+  )
+);
+PREPARE stmt FROM @idx_sql;
+EXECUTE stmt;
+DEALLOCATE PREPARE stmt;
+
+SET @idx_sql := (
+  SELECT IF(
+    NOT EXISTS(
+      SELECT 1
+      FROM information_schema.statistics
+      WHERE table_schema = @db
+        AND table_name = 'dm_message'
+        AND index_name = 'idx_receiver_read'
+    ),
+    "ALTER TABLE dm_message ADD INDEX idx_receiver_read (receiver_id, is_read, sender_id)",
+    "SELECT 1"
+  )
+);
+PREPARE stmt FROM @idx_sql;
+EXECUTE stmt;
+DEALLOCATE PREPARE stmt;
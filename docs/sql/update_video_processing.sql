@@ -0,0 +1,40 @@
+-- 视频上传后的后台处理（时长/分辨率、封面、HLS 切片）
+-- process_status: 0待处理 1处理中 2已完成 3失败；video 表本身就是任务队列，由定时扫描领取
+-- 存量视频默认记为已完成；需要补处理时执行 UPDATE video SET process_status = 0, process_attempts = 0 WHERE ...
+-- 可重复执行
+SET @db := DATABASE();
+
+SET @col_sql := (
+  SELECT IF(
+    NOT EXISTS(
+      SELECT 1
+      FROM information_schema.columns
+      WHERE table_schema = @db
+        AND table_name = 'video'
+        AND column_name = 'process_status'
+    ),
+    "ALTER TABLE video ADD COLUMN process_status TINYINT NOT NULL DEFAULT 2 COMMENT '处理状态 0待处理 1处理中 2已完成 3失败' AFTER status, ADD COLUMN process_attempts INT NOT NULL DEFAULT 0 COMMENT '已尝试处理次数' AFTER process_status, ADD COLUMN duration_ms BIGINT DEFAULT NULL COMMENT '时长(毫秒)' AFTER process_attempts, ADD COLUMN width INT DEFAULT NULL COMMENT '宽度' AFTER duration_ms, ADD COLUMN height INT DEFAULT NULL COMMENT '高度' AFTER width, ADD COLUMN hls_url VARCHAR(512) DEFAULT NULL COMMENT 'HLS 主播放列表地址' AFTER height",
+    "SELECT 1"
+  )
+);
+PREPARE stmt FROM @col_sql;
+EXECUTE stmt;
+DEALLOCATE PREPARE stmt;
+
+-- 定时扫描：WHERE process_status = 0 OR (process_status = 1 AND update_time < ?)
+SET @idx_sql := (
+  SELECT IF(
+    NOT EXISTS(
+      SELECT 1
+      FROM information_schema.statistics
+      WHERE table_schema = @db
+        AND table_name = 'video'
+        AND index_name = 'idx_process_status'
+    ),
+    "ALTER TABLE video ADD INDEX idx_process_status (process_status, update_time)",
+    "SELECT 1"
+  )
+);
+PREPARE stmt FROM @idx_sql;
+EXECUTE stmt;
+DEALLOCATE PREPARE stmt;
@@ -6,10 +6,12 @@ import { useRouter } from "next/navigation";
 import { toast } from "sonner";
 import {
   getCurrentUserId,
-  getDmSessionMessages,
+  getDmSessionMessagesByCursor,
+  markDmSessionRead,
   getUserProfile,
   getVideoById,
   sendDm,
+  subscribePush,
 } from "@/services/videoService";
 import type { Video } from "@/types/video";
 import { Input } from "@/components/ui/input";
@@ -81,10 +83,11 @@ export default function DmSessionPage({
     try {
       const [profile, session] = await Promise.all([
         getUserProfile(String(targetId)),
-        getDmSessionMessages(targetId, 1, 50),
+        getDmSessionMessagesByCursor(targetId, null, 50),
       ]);
       setTargetName(profile?.username || `用户 ${targetId}`);
       setMessages(session.list || []);
+      void markDmSessionRead(targetId).catch(() => {});
     } catch (e) {
       console.error("Failed to load dm session", e);
     } finally {
@@ -96,6 +99,17 @@ export default function DmSessionPage({
     void loadSession();
   }, [loadSession]);
 
+  React.useEffect(() => {
+    if (!authUser) return;
+    return subscribePush({
+      dm: (data) => {
+        if (data?.senderId === targetId) {
+          void loadSession();
+        }
+      },
+    });
+  }, [authUser, loadSession, targetId]);
+
   React.useEffect(() => {
     const ids = Array.from(
       new Set(
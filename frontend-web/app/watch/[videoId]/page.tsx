@@ -5,6 +5,7 @@ import Link from "next/link";
 import { useRouter } from "next/navigation";
 import { getVideoById } from "@/services/videoService";
 import type { Video } from "@/types/video";
+import { playableUrl } from "@/lib/utils";
 
 export default function WatchPage({
   params,
@@ -55,7 +56,7 @@ export default function WatchPage({
           <div className="mx-auto w-full max-w-lg">
             <div className="rounded-xl overflow-hidden bg-black">
               <video
-                src={video.videoUrl}
+                src={playableUrl(video)}
                 controls
                 autoPlay
                 playsInline
@@ -31,6 +31,7 @@ import { Input } from "@/components/ui/input";
 import { Label } from "@/components/ui/label";
 import {
   getNotificationUnreadCount,
+  subscribePush,
   getNotifications,
   markAllNotificationsRead,
 } from "@/services/videoService";
@@ -106,10 +107,21 @@ export function AppTopbar() {
   React.useEffect(() => {
     if (!authUser) return;
     refreshUnreadCount();
+    // 新通知由服务端推送；轮询只作为推送断开时的兜底
+    const unsubscribe = subscribePush({
+      notification: (data) => {
+        if (typeof data?.unread === "number") {
+          setUnreadCount(data.unread);
+        } else {
+          void refreshUnreadCount();
+        }
+      },
+    });
     const timer = window.setInterval(() => {
       refreshUnreadCount();
-    }, 30000);
+    }, 120000);
     return () => {
+      unsubscribe();
       window.clearInterval(timer);
     };
   }, [authUser, refreshUnreadCount]);
@@ -161,7 +173,9 @@ export function AppTopbar() {
   }
 
   const renderNotificationText = React.useCallback((n: NotificationItem) => {
-    const actor = n.actorUsername || `用户${n.actorId}`;
+    const name = n.actorUsername || `用户${n.actorId}`;
+    const others = (n.actorCount ?? 1) - 1;
+    const actor = others > 0 ? `${name} 等 ${others + 1} 人` : name;
     if (n.type === 1) return `${actor} 关注了你`;
     if (n.type === 2) {
       return n.targetType === 2 ? `${actor} 赞了你的视频` : `${actor} 赞了你的评论`;
@@ -4,6 +4,7 @@ import { useState, useRef, useEffect, useCallback } from "react";
 import { motion, AnimatePresence } from "framer-motion";
 import { Heart, Play } from "lucide-react";
 import type { Video } from "@/types/video";
+import { playableUrl } from "@/lib/utils";
 import { incrementVideoView, getCurrentUserId } from "@/services/videoService";
 import { toast } from "sonner";
 import Link from "next/link";
@@ -304,7 +305,7 @@ export function VideoItem({ video, isActive, onLike }: VideoItemProps) {
       >
         <video
           ref={videoRef}
-          src={video.videoUrl}
+          src={playableUrl(video)}
           playsInline
           muted
           className="w-full h-full object-contain"
@@ -4,3 +4,17 @@ import { twMerge } from "tailwind-merge"
 export function cn(...inputs: ClassValue[]) {
   return twMerge(clsx(inputs))
 }
+
+/**
+ * 优先播放 HLS 切片（从小切片开始加载，无需下载整个文件）；
+ * 浏览器不支持原生 HLS 时回退到原始视频地址
+ */
+export function playableUrl(video: { videoUrl: string; hlsUrl?: string }) {
+  if (video.hlsUrl && typeof document !== "undefined") {
+    const probe = document.createElement("video")
+    if (probe.canPlayType("application/vnd.apple.mpegurl")) {
+      return video.hlsUrl
+    }
+  }
+  return video.videoUrl
+}
@@ -41,6 +41,8 @@ type VideoVO = {
   title: string;
   videoUrl: string;
   coverUrl: string;
+  hlsUrl?: string;
+  durationMs?: number;
   playCount: number;
   likeCount: number;
   commentCount: number;
@@ -216,6 +218,7 @@ function mapVideoVOToVideo(item: VideoVO): Video {
   return {
     id,
     videoUrl: item.videoUrl || "/vid.mp4",
+    hlsUrl: item.hlsUrl || undefined,
     thumbnailUrl: item.coverUrl || "/vid.mp4",
     title: item.title ?? `视频 ${id}`,
     description: item.description || "",
@@ -848,3 +851,115 @@ export async function getDmSessionMessages(
     total: data?.total ?? 0,
   };
 }
+
+export async function getDmSessionMessagesByCursor(
+  targetId: number,
+  cursor?: number | null,
+  size: number = 50,
+): Promise<{ list: DmMessage[]; nextCursor: number | null; hasMore: boolean }> {
+  if (!Number.isFinite(targetId)) throw new Error("Invalid targetId");
+
+  const params = new URLSearchParams({ size: String(size) });
+  if (cursor != null) params.set("cursor", String(cursor));
+
+  const data = await requestOpenApi<{
+    list?: DmMessage[];
+    nextCursor?: number | null;
+    hasMore?: boolean;
+  }>(`/api/dm/session/${targetId}/messages?${params.toString()}`, {
+    method: "GET",
+  });
+
+  return {
+    list: data?.list ?? [],
+    nextCursor: data?.nextCursor ?? null,
+    hasMore: Boolean(data?.hasMore),
+  };
+}
+
+export type DmInboxItem = {
+  peerId: number;
+  peerUsername?: string;
+  peerAvatar?: string;
+  lastSeq?: number;
+  lastSenderId?: number;
+  lastMsgType?: number;
+  lastPreview?: string | null;
+  unreadCount?: number;
+  updateTime?: string;
+};
+
+export async function getDmInbox(
+  page: number = 1,
+  size: number = 20,
+): Promise<{ list: DmInboxItem[]; total: number }> {
+  const params = new URLSearchParams({
+    page: String(page),
+    size: String(size),
+  });
+
+  const data = await requestOpenApi<PageResult<DmInboxItem>>(
+    `/api/dm/inbox?${params.toString()}`,
+    { method: "GET" },
+  );
+
+  return {
+    list: data?.list ?? [],
+    total: data?.total ?? 0,
+  };
+}
+
+export async function getDmUnreadCount(): Promise<number> {
+  const data = await requestOpenApi<number>("/api/dm/unread/count", {
+    method: "GET",
+  });
+  return Number(data ?? 0);
+}
+
+export async function markDmSessionRead(targetId: number): Promise<void> {
+  if (!Number.isFinite(targetId)) return;
+  await requestOpenApi<void>(`/api/dm/session/${targetId}/read`, {
+    method: "POST",
+  });
+}
+
+export type PushEventHandlers = {
+  notification?: (data: { unread?: number | null }) => void;
+  dm?: (data: {
+    senderId: number;
+    messageId?: number;
+    msgType?: number;
+    preview?: string | null;
+    unread?: number | null;
+  }) => void;
+};
+
+// 订阅服务端 SSE 推送；EventSource 断线后会自动重连。返回取消订阅函数
+export function subscribePush(handlers: PushEventHandlers): () => void {
+  if (typeof window === "undefined" || typeof EventSource === "undefined") {
+    return () => {};
+  }
+  const token = getAuthToken();
+  if (!token) return () => {};
+
+  const params = new URLSearchParams({ token });
+  const source = new EventSource(
+    joinUrl(API_BASE_URL, `/api/push/subscribe?${params.toString()}`),
+  );
+
+  const bind = (name: keyof PushEventHandlers) => {
+    source.addEventListener(name, (e) => {
+      const handler = handlers[name];
+      if (!handler) return;
+      try {
+        handler(JSON.parse((e as MessageEvent).data));
+      } catch (err) {
+        console.error("Failed to handle push event", err);
+      }
+    });
+  };
+  bind("notification");
+  bind("dm");
+
+  return () => source.close();
+}
@@ -11,5 +11,7 @@ export type NotificationItem = {
   targetId: number;
   content?: string | null;
   isRead: number;
+  actorCount?: number;
+  latestActorNames?: string[];
   createTime: string;
 };
@@ -2,6 +2,8 @@
 export interface Video {
   id: string;
   videoUrl: string;
+  // HLS 主播放列表（后台切片完成后才有）
+  hlsUrl?: string;
   thumbnailUrl?: string;
   title: string;
   description?: string;
@@ -0,0 +1,243 @@
+package teektok.benchmark;
+
+import com.baomidou.mybatisplus.core.MybatisConfiguration;
+import com.baomidou.mybatisplus.core.metadata.TableInfoHelper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.ibatis.builder.MapperBuilderAssistant;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.test.util.ReflectionTestUtils;
+import teektok.config.ExecutorProperties;
+import teektok.dto.recommend.RecommendVideoVO;
+import teektok.entity.Relation;
+import teektok.entity.User;
+import teektok.entity.Video;
+import teektok.entity.VideoStat;
+import teektok.mapper.RelationMapper;
+import teektok.mapper.UserMapper;
+import teektok.mapper.VideoMapper;
+import teektok.mapper.VideoStatMapper;
+import teektok.service.impl.RecommendServiceImpl;
+import teektok.service.impl.VideoServiceImpl;
+import teektok.utils.BaseContext;
+import teektok.utils.FanOut;
+import teektok.utils.HotKeyCache;
+import teektok.utils.SlotPipeline;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * 列表页组装：视频/作者/统计/交互状态拼成 VO 的 CPU 开销
+ * Mapper 和 Redis 都是替身，数据全部命中缓存，测的是批量查询结果的解析、Map 构建和 VO 拷贝
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FeedAssemblyBenchmark {
+
+    private static final long USER_ID = 100L;
+
+    @Param({"10", "50"})
+    public int pageSize;
+
+    private VideoServiceImpl videoService;
+    private RecommendServiceImpl recommendService;
+    private Method buildVideoVOs;
+    private Method buildVOs;
+    private Method hydrateRealTimeInfo;
+    private Method batchGetVideoStatsFromRedis;
+    private List<Long> videoIds;
+    private List<RecommendVideoVO> cachedFeed;
+
+    @Setup(Level.Trial)
+    @SuppressWarnings("unchecked")
+    public void setUp() throws Exception {
+        // LambdaQueryWrapper 需要实体的列缓存，正常由 MyBatis-Plus 启动时初始化
+        TableInfoHelper.initTableInfo(new MapperBuilderAssistant(new MybatisConfiguration(), ""), Relation.class);
+
+        videoIds = new ArrayList<>();
+        Map<Long, Video> videos = new HashMap<>();
+        Map<Long, User> users = new HashMap<>();
+        Map<Long, VideoStat> stats = new HashMap<>();
+        for (long id = 1; id <= pageSize; id++) {
+            videoIds.add(id);
+            Video video = new Video();
+            video.setId(id);
+            video.setTitle("video-" + id);
+            video.setVideoUrl("/uploads/2024/01/" + id + ".mp4");
+            video.setCoverUrl("/uploads/2024/01/" + id + ".jpg");
+            video.setDescription("description of video " + id);
+            // 每个作者两条视频
+            video.setUploaderId(1000 + id / 2);
+            video.setDurationMs(15_000L);
+            videos.put(id, video);
+
+            User user = new User();
+            user.setId(video.getUploaderId());
+            user.setUsername("user-" + video.getUploaderId());
+            user.setAvatar("/avatar/" + video.getUploaderId() + ".png");
+            users.put(user.getId(), user);
+
+            VideoStat stat = new VideoStat();
+            stat.setVideoId(id);
+            stat.setPlayCount(id * 100);
+            stat.setLikeCount(id * 10);
+            stat.setCommentCount(id);
+            stat.setShareCount(id);
+            stat.setFavoriteCount(id);
+            stats.put(id, stat);
+        }
+
+        Map<String, Function<Object[], Object>> videoAnswers = Map.of(
+                "selectBatchIds", args -> pick(videos, (Collection<Long>) args[0]));
+        VideoMapper videoMapper = Stubs.mapper(VideoMapper.class, videoAnswers);
+        UserMapper userMapper = Stubs.mapper(UserMapper.class, Map.of(
+                "selectBatchIds", args -> pick(users, (Collection<Long>) args[0])));
+        VideoStatMapper videoStatMapper = Stubs.mapper(VideoStatMapper.class, Map.of(
+                "selectBatchIds", args -> pick(stats, (Collection<Long>) args[0])));
+        RelationMapper relationMapper = Stubs.mapper(RelationMapper.class, Map.of(
+                "selectList", args -> {
+                    Relation relation = new Relation();
+                    relation.setUserId(USER_ID);
+                    relation.setTargetId(1001L);
+                    return List.of(relation);
+                }));
+
+        // 一半视频点过赞，统计 Hash 全部命中
+        Set<String> liked = new HashSet<>();
+        for (long id = 1; id <= pageSize; id += 2) liked.add(String.valueOf(id));
+        Stubs.RedisTemplate redis = new Stubs.RedisTemplate((command, args) -> switch (command) {
+            case "exists" -> Boolean.TRUE;
+            case "sIsMember" -> liked.contains(new String((byte[]) args[1]));
+            case "hGetAll" -> statHash(stats.get(Long.valueOf(((String) args[0]).substring("video:stat:".length()))));
+            case "hMGet" -> {
+                VideoStat stat = stats.get(Long.valueOf(((String) args[0]).substring("video:stat:".length())));
+                yield List.of(String.valueOf(stat.getLikeCount()), String.valueOf(stat.getCommentCount()),
+                        String.valueOf(stat.getShareCount()), String.valueOf(stat.getFavoriteCount()));
+            }
+            default -> null;
+        }, liked);
+
+        SlotPipeline slotPipeline = new SlotPipeline();
+        ReflectionTestUtils.setField(slotPipeline, "stringRedisTemplate", redis);
+
+        // 在调用线程上直接执行，只测组装本身的 CPU 开销，不含线程切换
+        FanOut fanOut = new FanOut();
+        ReflectionTestUtils.setField(fanOut, "fanoutExecutor", (Executor) Runnable::run);
+        ReflectionTestUtils.setField(fanOut, "properties", new ExecutorProperties());
+        ReflectionTestUtils.setField(fanOut, "meterRegistry", new SimpleMeterRegistry());
+
+        videoService = new VideoServiceImpl();
+        ReflectionTestUtils.setField(videoService, "baseMapper", videoMapper);
+        ReflectionTestUtils.setField(videoService, "userMapper", userMapper);
+        ReflectionTestUtils.setField(videoService, "videoStatMapper", videoStatMapper);
+        ReflectionTestUtils.setField(videoService, "relationMapper", relationMapper);
+        ReflectionTestUtils.setField(videoService, "stringRedisTemplate", redis);
+        ReflectionTestUtils.setField(videoService, "slotPipeline", slotPipeline);
+        ReflectionTestUtils.setField(videoService, "hotKeyCache", new HotKeyCache());
+        ReflectionTestUtils.setField(videoService, "fanOut", fanOut);
+
+        recommendService = new RecommendServiceImpl();
+        ReflectionTestUtils.setField(recommendService, "videoMapper", videoMapper);
+        ReflectionTestUtils.setField(recommendService, "userMapper", userMapper);
+        ReflectionTestUtils.setField(recommendService, "videoStatMapper", videoStatMapper);
+        ReflectionTestUtils.setField(recommendService, "relationMapper", relationMapper);
+        ReflectionTestUtils.setField(recommendService, "stringRedisTemplate", redis);
+        ReflectionTestUtils.setField(recommendService, "slotPipeline", slotPipeline);
+
+        buildVideoVOs = VideoServiceImpl.class.getDeclaredMethod("buildVideoVOs", List.class, long.class);
+        buildVideoVOs.setAccessible(true);
+        buildVOs = RecommendServiceImpl.class.getDeclaredMethod("buildVOs", List.class, Long.class);
+        buildVOs.setAccessible(true);
+        hydrateRealTimeInfo = RecommendServiceImpl.class.getDeclaredMethod("hydrateRealTimeInfo", List.class, Long.class);
+        hydrateRealTimeInfo.setAccessible(true);
+        batchGetVideoStatsFromRedis = VideoServiceImpl.class.getDeclaredMethod("batchGetVideoStatsFromRedis", List.class);
+        batchGetVideoStatsFromRedis.setAccessible(true);
+
+        cachedFeed = (List<RecommendVideoVO>) buildVOs.invoke(recommendService, videoIds, USER_ID);
+        BaseContext.setCurrentId(USER_ID);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        BaseContext.removeCurrentId();
+    }
+
+    /**
+     * 点赞/收藏/历史列表：VideoServiceImpl.buildVideoVOs
+     */
+    @Benchmark
+    public Object videoList() throws Exception {
+        // JMH 的工作线程不一定是 Setup 线程，每次调用前设置当前用户
+        BaseContext.setCurrentId(USER_ID);
+        return buildVideoVOs.invoke(videoService, videoIds, (long) pageSize);
+    }
+
+    /**
+     * 推荐流缓存未命中：RecommendServiceImpl.buildVOs
+     */
+    @Benchmark
+    public Object recommendBuild() throws Exception {
+        return buildVOs.invoke(recommendService, videoIds, USER_ID);
+    }
+
+    /**
+     * 推荐流缓存命中后回填实时状态：RecommendServiceImpl.hydrateRealTimeInfo
+     */
+    @Benchmark
+    public Object recommendHydrate() throws Exception {
+        hydrateRealTimeInfo.invoke(recommendService, cachedFeed, USER_ID);
+        return cachedFeed;
+    }
+
+    /**
+     * 统计 Hash 解析成 VideoStat：VideoServiceImpl.batchGetVideoStatsFromRedis
+     */
+    @Benchmark
+    public Object statHashParsing() throws Exception {
+        return batchGetVideoStatsFromRedis.invoke(videoService, videoIds);
+    }
+
+    private static <T> List<T> pick(Map<Long, T> source, Collection<Long> ids) {
+        List<T> list = new ArrayList<>(ids.size());
+        for (Long id : ids) {
+            T value = source.get(id);
+            if (value != null) list.add(value);
+        }
+        return list;
+    }
+
+    private static Map<String, String> statHash(VideoStat stat) {
+        Map<String, String> hash = new HashMap<>();
+        hash.put("playCount", String.valueOf(stat.getPlayCount()));
+        hash.put("likeCount", String.valueOf(stat.getLikeCount()));
+        hash.put("commentCount", String.valueOf(stat.getCommentCount()));
+        hash.put("shareCount", String.valueOf(stat.getShareCount()));
+        hash.put("favoriteCount", String.valueOf(stat.getFavoriteCount()));
+        return hash;
+    }
+}
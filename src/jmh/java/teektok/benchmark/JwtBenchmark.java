@@ -0,0 +1,46 @@
+package teektok.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import teektok.utils.JwtUtils;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 每个请求都要经过的 JWT 校验 (拦截器) 以及登录时的签发
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JwtBenchmark {
+
+    private String token;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        token = JwtUtils.createToken(Map.of("userId", 100L, "role", 0));
+    }
+
+    @Benchmark
+    public String createToken() {
+        return JwtUtils.createToken(Map.of("userId", 100L, "role", 0));
+    }
+
+    @Benchmark
+    public Object parseToken() {
+        return JwtUtils.parseToken(token);
+    }
+}
@@ -0,0 +1,183 @@
+package teektok.benchmark;
+
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.WriteListener;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.context.support.StaticApplicationContext;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.mock.web.MockServletContext;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.util.FileSystemUtils;
+import org.springframework.web.servlet.HandlerMapping;
+import org.springframework.web.servlet.resource.ResourceHttpRequestHandler;
+import teektok.config.MediaProperties;
+import teektok.controller.MediaController;
+import teektok.utils.MediaFileCache;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 本地媒体的 Range 请求：播放器拖动进度时的单段读取
+ * controller*      : MediaController (文件句柄缓存 + FileChannel.transferTo)
+ * resourceHandler* : 改造前的 ResourceHttpRequestHandler (/uploads/** 静态资源映射，每次打开文件、按 ResourceRegion 拷贝)
+ * *Range 单线程平均耗时；*RangeThreads 为 THREADS 个线程并发时的吞吐，体现句柄缓存在并发下的开销
+ * 响应体只计数不保存 (MockHttpServletResponse 自带的输出流逐字节写入，会掩盖两者的差别)；
+ * 没有 socket，所以不包含 sendfile 省下的用户态拷贝 (线上只会更有利于 MediaController)
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MediaRangeBenchmark {
+
+    private static final int FILE_SIZE = 8 * 1024 * 1024;
+
+    @Param({"65536", "1048576"})
+    public int rangeSize;
+
+    private static final int THREADS = 4;
+
+    private static final String PATH = "2024/01/a.mp4";
+
+    private Path dir;
+    private MediaController controller;
+    private MediaFileCache cache;
+    private ResourceHttpRequestHandler resourceHandler;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        dir = Files.createTempDirectory("teektok-jmh");
+        Files.createDirectories(dir.resolve("2024/01"));
+        byte[] content = new byte[FILE_SIZE];
+        new Random(42).nextBytes(content);
+        Files.write(dir.resolve(PATH), content);
+
+        MediaProperties properties = new MediaProperties();
+        properties.setLocalDir(dir.toString());
+        cache = new MediaFileCache(properties);
+        controller = new MediaController();
+        ReflectionTestUtils.setField(controller, "mediaProperties", properties);
+        ReflectionTestUtils.setField(controller, "mediaFileCache", cache);
+
+        // 与改造前 WebConfig.addResourceHandlers 的配置相同
+        String location = dir.normalize().toAbsolutePath().toUri().toString();
+        resourceHandler = new ResourceHttpRequestHandler();
+        resourceHandler.setLocationValues(List.of(location.endsWith("/") ? location : location + "/"));
+        resourceHandler.setServletContext(new MockServletContext());
+        resourceHandler.setApplicationContext(new StaticApplicationContext());
+        resourceHandler.afterPropertiesSet();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        cache.closeAll();
+        FileSystemUtils.deleteRecursively(dir);
+    }
+
+    @Benchmark
+    public long controllerRange() throws Exception {
+        return viaController();
+    }
+
+    @Benchmark
+    public long resourceHandlerRange() throws Exception {
+        return viaResourceHandler();
+    }
+
+    @Benchmark
+    @Threads(THREADS)
+    @BenchmarkMode(Mode.Throughput)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public long controllerRangeThreads() throws Exception {
+        return viaController();
+    }
+
+    @Benchmark
+    @Threads(THREADS)
+    @BenchmarkMode(Mode.Throughput)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public long resourceHandlerRangeThreads() throws Exception {
+        return viaResourceHandler();
+    }
+
+    private long viaController() throws Exception {
+        CountingResponse response = new CountingResponse();
+        controller.serve(rangeRequest(), response);
+        return response.written();
+    }
+
+    private long viaResourceHandler() throws Exception {
+        MockHttpServletRequest request = rangeRequest();
+        request.setAttribute(HandlerMapping.PATH_WITHIN_HANDLER_MAPPING_ATTRIBUTE, PATH);
+        CountingResponse response = new CountingResponse();
+        resourceHandler.handleRequest(request, response);
+        return response.written();
+    }
+
+    private MockHttpServletRequest rangeRequest() {
+        long start = ThreadLocalRandom.current().nextInt(FILE_SIZE - rangeSize);
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/uploads/" + PATH);
+        request.addHeader("Range", "bytes=" + start + "-" + (start + rangeSize - 1));
+        return request;
+    }
+
+    /**
+     * 只统计写出的字节数，按块写入
+     */
+    private static class CountingResponse extends MockHttpServletResponse {
+
+        private long written;
+
+        private final ServletOutputStream out = new ServletOutputStream() {
+            @Override
+            public void write(int b) {
+                written++;
+            }
+
+            @Override
+            public void write(byte[] b, int off, int len) {
+                written += len;
+            }
+
+            @Override
+            public boolean isReady() {
+                return true;
+            }
+
+            @Override
+            public void setWriteListener(WriteListener listener) {
+            }
+        };
+
+        @Override
+        public ServletOutputStream getOutputStream() {
+            setCommitted(true);
+            return out;
+        }
+
+        long written() {
+            return written;
+        }
+    }
+}
@@ -0,0 +1,139 @@
+package teektok.benchmark;
+
+import org.apache.lucene.store.FSDirectory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.util.FileSystemUtils;
+import teektok.utils.SearchIndex;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 用户搜索：合成用户名 (默认 100 万) 上，全文索引 SearchIndex 与 LIKE '%kw%' 取第一页 (20 条) 的对比
+ * LIKE 基线在内存数组上按 id 倒序逐个 contains，取满一页即停，与 MySQL 执行 ORDER BY id DESC LIMIT 20 的方式相同，
+ * 但没有磁盘 IO 和行解析，是 LIKE 的下限：
+ * common : 高频关键词 (约千分之一的用户名包含)，LIKE 扫几万行就能取满一页
+ * rare   : 只有一两个用户名包含的关键词，LIKE 要扫完整张表
+ * 索引建在临时目录 (与线上相同的 FSDirectory)，每组参数构建一次，构建耗时打印在输出中
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class SearchIndexBenchmark {
+
+    private static final String SURNAMES = "王李张刘陈杨黄赵吴周徐孙马朱胡郭何高林罗";
+    private static final String GIVEN = "伟芳娜敏静丽强磊军洋勇艳杰娟涛明超秀霞平刚桂英华玉兰飞鹏宇浩然子轩梓涵一诺欣怡";
+    private static final String[] WORDS = {"cat", "dog", "sky", "sun", "moon", "star", "tiger", "panda", "coco", "lucky"};
+    private static final int PAGE_SIZE = 20;
+
+    @Param({"1000000"})
+    public int users;
+
+    @Param({"common", "rare"})
+    public String keywordKind;
+
+    private Path dir;
+    private SearchIndex index;
+    // names[i] 是 id = i + 1 的用户名
+    private String[] names;
+    private String keyword;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        Random random = new Random(42);
+        names = new String[users];
+        for (int i = 0; i < users; i++) {
+            names[i] = randomName(random);
+        }
+        // rare：取中间位置的一个英文用户名 (词 + 随机数)，几乎不会与其他用户名重复
+        keyword = "common".equals(keywordKind) ? "张伟" : null;
+        for (int i = users / 2; keyword == null && i < users; i++) {
+            if (names[i].indexOf('_') > 0) {
+                keyword = names[i];
+            }
+        }
+
+        dir = Files.createTempDirectory("search-index-bench");
+        index = new SearchIndex(FSDirectory.open(dir));
+        long started = System.nanoTime();
+        for (int i = 0; i < users; i++) {
+            index.upsert(SearchIndex.USER, i + 1, names[i]);
+        }
+        index.commit(Map.of());
+        index.refresh();
+        System.out.printf("%n构建 %d 个用户的索引耗时 %d ms，关键词 %s 命中 %d 个%n", users,
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started), keyword, likeCount());
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        index.close();
+        FileSystemUtils.deleteRecursively(dir);
+    }
+
+    @Benchmark
+    public SearchIndex.Hits indexSearch() {
+        return index.search(SearchIndex.USER, keyword, null, null, PAGE_SIZE);
+    }
+
+    @Benchmark
+    public List<SearchIndex.Hit> indexSuggest() {
+        return index.suggest(SearchIndex.USER, keyword.substring(0, 2), 10);
+    }
+
+    @Benchmark
+    public long[] likeScan() {
+        long[] page = new long[PAGE_SIZE];
+        int found = 0;
+        for (int i = names.length - 1; i >= 0 && found < PAGE_SIZE; i--) {
+            if (names[i].contains(keyword)) {
+                page[found++] = i + 1;
+            }
+        }
+        return page;
+    }
+
+    private int likeCount() {
+        int count = 0;
+        for (String name : names) {
+            if (name.contains(keyword)) count++;
+        }
+        return count;
+    }
+
+    // 七成中文名 (姓 + 一到两个字，部分带数字)，三成英文名 (词_数字)
+    private static String randomName(Random random) {
+        if (random.nextInt(10) < 7) {
+            StringBuilder name = new StringBuilder()
+                    .append(SURNAMES.charAt(random.nextInt(SURNAMES.length())))
+                    .append(GIVEN.charAt(random.nextInt(GIVEN.length())));
+            if (random.nextBoolean()) {
+                name.append(GIVEN.charAt(random.nextInt(GIVEN.length())));
+            }
+            if (random.nextInt(4) == 0) {
+                name.append(random.nextInt(1000));
+            }
+            return name.toString();
+        }
+        return WORDS[random.nextInt(WORDS.length)] + "_" + random.nextInt(10_000_000);
+    }
+}
@@ -0,0 +1,82 @@
+package teektok.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import teektok.config.RedisConfig;
+import teektok.dto.recommend.RecommendVideoVO;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 推荐页缓存的 Jackson 序列化 (RedisConfig 中的 RedisTemplate 值序列化器)
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SerializationBenchmark {
+
+    @Param({"10", "50"})
+    public int pageSize;
+
+    private RedisSerializer<Object> serializer;
+    private List<RecommendVideoVO> feed;
+    private byte[] feedBytes;
+
+    @Setup(Level.Trial)
+    @SuppressWarnings("unchecked")
+    public void setUp() {
+        // 连接工厂不启动，只取 RedisTemplate 上配置好的值序列化器
+        serializer = (RedisSerializer<Object>) new RedisConfig().redisTemplate(new LettuceConnectionFactory())
+                .getValueSerializer();
+
+        feed = new ArrayList<>();
+        for (long id = 1; id <= pageSize; id++) {
+            RecommendVideoVO vo = new RecommendVideoVO();
+            vo.setId(id);
+            vo.setTitle("video-" + id);
+            vo.setVideoUrl("/uploads/2024/01/" + id + ".mp4");
+            vo.setCoverUrl("/uploads/2024/01/" + id + ".jpg");
+            vo.setDescription("description of video " + id);
+            vo.setUploaderId(1000 + id);
+            vo.setUploaderName("user-" + (1000 + id));
+            vo.setUploaderAvatar("/avatar/" + (1000 + id) + ".png");
+            vo.setDurationMs(15_000L);
+            vo.setIsFollowed(false);
+            vo.setIsLiked(id % 2 == 0);
+            vo.setIsFavorited(false);
+            vo.setLikeCount(id * 10);
+            vo.setCommentCount(id);
+            vo.setShareCount(id);
+            vo.setFavoriteCount(id);
+            feed.add(vo);
+        }
+        feedBytes = serializer.serialize(feed);
+    }
+
+    @Benchmark
+    public byte[] serializeFeed() {
+        return serializer.serialize(feed);
+    }
+
+    @Benchmark
+    public Object deserializeFeed() {
+        return serializer.deserialize(feedBytes);
+    }
+}
@@ -0,0 +1,68 @@
+package teektok.benchmark;
+
+import org.apache.ibatis.builder.xml.XMLMapperBuilder;
+import org.apache.ibatis.io.Resources;
+import org.apache.ibatis.mapping.BoundSql;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.session.Configuration;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.InputStream;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 计数回写的 SQL 拼装：VideoStatMapper.batchUpdateStat 的动态 SQL (CASE WHEN) 随一批视频数增长的开销
+ * 只解析 Mapper XML 并生成 BoundSql，不连数据库
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class StatSqlBenchmark {
+
+    private static final String MAPPER = "mapper/VideoStatMapper.xml";
+
+    @Param({"100", "1000"})
+    public int batchSize;
+
+    private MappedStatement batchUpdateStat;
+    private Map<String, Object> params;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        Configuration configuration = new Configuration();
+        try (InputStream in = Resources.getResourceAsStream(MAPPER)) {
+            new XMLMapperBuilder(in, configuration, MAPPER, configuration.getSqlFragments()).parse();
+        }
+        batchUpdateStat = configuration.getMappedStatement("teektok.mapper.VideoStatMapper.batchUpdateStat");
+
+        Map<Long, Integer> stats = new LinkedHashMap<>();
+        for (long id = 1; id <= batchSize; id++) {
+            stats.put(id, (int) (id % 7) + 1);
+        }
+        params = new HashMap<>();
+        params.put("stats", stats);
+        params.put("field", "like_count");
+    }
+
+    @Benchmark
+    public BoundSql batchUpdateStat() {
+        return batchUpdateStat.getBoundSql(params);
+    }
+}
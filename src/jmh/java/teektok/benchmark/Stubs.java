@@ -0,0 +1,96 @@
+package teektok.benchmark;
+
+import org.springframework.data.redis.connection.StringRedisConnection;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.SetOperations;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+
+/**
+ * 离线替身：Mapper 和 Redis 都返回预先准备好的数据，基准只测 Java 侧的组装/解析开销
+ */
+final class Stubs {
+
+    private Stubs() {
+    }
+
+    /**
+     * Mapper 替身：按方法名返回结果，没有登记的方法返回空列表 / null
+     */
+    @SuppressWarnings("unchecked")
+    static <M> M mapper(Class<M> type, Map<String, Function<Object[], Object>> answers) {
+        return (M) Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type}, (proxy, method, args) -> {
+            if (method.getDeclaringClass() == Object.class) {
+                return objectMethod(proxy, method, args);
+            }
+            Function<Object[], Object> answer = answers.get(method.getName());
+            if (answer != null) return answer.apply(args);
+            return List.class.isAssignableFrom(method.getReturnType()) ? Collections.emptyList() : null;
+        });
+    }
+
+    /**
+     * StringRedisTemplate 替身
+     * Pipeline 中的每条命令交给 responder 生成返回值 (方法名, 参数) -> 结果；opsForSet().members 返回 members
+     */
+    static class RedisTemplate extends StringRedisTemplate {
+
+        private final BiFunction<String, Object[], Object> responder;
+        private final Set<String> members;
+
+        RedisTemplate(BiFunction<String, Object[], Object> responder, Set<String> members) {
+            this.responder = responder;
+            this.members = members;
+        }
+
+        @Override
+        public List<Object> executePipelined(RedisCallback<?> action) {
+            List<Object> results = new ArrayList<>();
+            StringRedisConnection connection = (StringRedisConnection) Proxy.newProxyInstance(
+                    StringRedisConnection.class.getClassLoader(),
+                    new Class<?>[]{StringRedisConnection.class},
+                    (proxy, method, args) -> {
+                        if (method.getDeclaringClass() == Object.class) {
+                            return objectMethod(proxy, method, args);
+                        }
+                        results.add(responder.apply(method.getName(), args));
+                        return null;
+                    });
+            action.doInRedis(connection);
+            return results;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public SetOperations<String, String> opsForSet() {
+            return (SetOperations<String, String>) Proxy.newProxyInstance(
+                    SetOperations.class.getClassLoader(),
+                    new Class<?>[]{SetOperations.class},
+                    (proxy, method, args) -> {
+                        if (method.getDeclaringClass() == Object.class) {
+                            return objectMethod(proxy, method, args);
+                        }
+                        if ("members".equals(method.getName())) return members;
+                        if ("isMember".equals(method.getName())) return members.contains(String.valueOf(args[1]));
+                        return null;
+                    });
+        }
+    }
+
+    private static Object objectMethod(Object proxy, Method method, Object[] args) {
+        return switch (method.getName()) {
+            case "equals" -> proxy == args[0];
+            case "hashCode" -> System.identityHashCode(proxy);
+            default -> "stub";
+        };
+    }
+}
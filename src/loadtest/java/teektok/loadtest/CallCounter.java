@@ -0,0 +1,70 @@
+package teektok.loadtest;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 按接口统计 SQL 条数和 Redis 命令数
+ * 请求线程上的调用记到当前接口；线程池、定时任务里的调用 (异步日志、计数回写等) 记到 BACKGROUND
+ */
+public class CallCounter {
+
+    public static final String BACKGROUND = "(background)";
+
+    private final ThreadLocal<Calls> current = new ThreadLocal<>();
+    private final Map<String, Calls> byEndpoint = new ConcurrentHashMap<>();
+
+    public void begin(String endpoint) {
+        Calls calls = byEndpoint.computeIfAbsent(endpoint, k -> new Calls());
+        calls.requests.increment();
+        current.set(calls);
+    }
+
+    public void end() {
+        current.remove();
+    }
+
+    public void sql() {
+        target().sql.increment();
+    }
+
+    public void redis() {
+        target().redis.increment();
+    }
+
+    private Calls target() {
+        Calls calls = current.get();
+        return calls != null ? calls : byEndpoint.computeIfAbsent(BACKGROUND, k -> new Calls());
+    }
+
+    /**
+     * 预热结束后清零，只统计正式压测阶段
+     */
+    public void reset() {
+        byEndpoint.clear();
+    }
+
+    public Map<String, Calls> snapshot() {
+        return new TreeMap<>(byEndpoint);
+    }
+
+    public static class Calls {
+        final LongAdder requests = new LongAdder();
+        final LongAdder sql = new LongAdder();
+        final LongAdder redis = new LongAdder();
+
+        public long requests() {
+            return requests.sum();
+        }
+
+        public long sql() {
+            return sql.sum();
+        }
+
+        public long redis() {
+            return redis.sum();
+        }
+    }
+}
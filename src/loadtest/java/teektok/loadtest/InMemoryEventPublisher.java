@@ -0,0 +1,55 @@
+package teektok.loadtest;
+
+import teektok.service.BehaviorEventPubliser;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Kafka 替身：只按事件类型计数，不序列化也不发送
+ */
+public class InMemoryEventPublisher implements BehaviorEventPubliser {
+
+    private final Map<String, LongAdder> events = new ConcurrentHashMap<>();
+
+    @Override
+    public void publishPlayEvent(Long videoId, Long userId) {
+        record("play");
+    }
+
+    @Override
+    public void publishLikeEvent(Long videoId, Long userId) {
+        record("like");
+    }
+
+    @Override
+    public void publishFavoriteEvent(Long videoId, Long userId) {
+        record("favorite");
+    }
+
+    @Override
+    public void publishCommentEvent(Long videoId, Long userId, String content) {
+        record("comment");
+    }
+
+    @Override
+    public void publishShareEvent(Long videoId, Long userId) {
+        record("share");
+    }
+
+    private void record(String type) {
+        events.computeIfAbsent(type, k -> new LongAdder()).increment();
+    }
+
+    public void reset() {
+        events.clear();
+    }
+
+    public Map<String, Long> snapshot() {
+        Map<String, Long> result = new TreeMap<>();
+        events.forEach((type, count) -> result.put(type, count.sum()));
+        return result;
+    }
+}
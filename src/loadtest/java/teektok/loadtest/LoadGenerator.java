@@ -0,0 +1,180 @@
+package teektok.loadtest;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 闭环压测：concurrency 个虚拟用户各自循环发请求，请求类型按权重抽取，视频 ID 按 Zipf 分布抽取 (少数热门视频占大部分流量)
+ * 延迟为客户端测得的完整往返时间
+ */
+public class LoadGenerator {
+
+    public static final String RECOMMEND = "recommend";
+    public static final String LIST = "list";
+    public static final String PLAY = "play";
+    public static final String LIKE = "like";
+
+    private final String baseUrl;
+    private final Map<String, Integer> mix;
+    private final int totalWeight;
+    private final ZipfSampler videoSampler;
+    private final ZipfSampler pageSampler;
+    private final int[] videoIdByRank;
+    private final String[] tokens;
+    private final HttpClient client;
+
+    /**
+     * @param videoIdByRank Zipf 名次 -> 视频 ID (下标 0 不用)，打乱后热门视频不集中在 ID 最小的一段
+     * @param tokens        用户 ID -> JWT (下标 0 不用)
+     */
+    public LoadGenerator(String baseUrl, Map<String, Integer> mix, double zipfExponent, int[] videoIdByRank, String[] tokens) {
+        this.baseUrl = baseUrl;
+        this.mix = mix;
+        this.totalWeight = mix.values().stream().mapToInt(Integer::intValue).sum();
+        this.videoSampler = new ZipfSampler(videoIdByRank.length - 1, zipfExponent);
+        // 翻页深度同样是长尾：绝大多数请求停留在前几页
+        this.pageSampler = new ZipfSampler(20, 1.5);
+        this.videoIdByRank = videoIdByRank;
+        this.tokens = tokens;
+        this.client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(5))
+                .build();
+    }
+
+    /**
+     * 运行 seconds 秒，返回每种请求的结果
+     */
+    public Map<String, EndpointResult> run(int concurrency, int seconds) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(seconds);
+        List<Map<String, EndpointResult>> perWorker = new ArrayList<>();
+        ExecutorService workers = Executors.newFixedThreadPool(concurrency);
+        for (int i = 0; i < concurrency; i++) {
+            Map<String, EndpointResult> results = newResults();
+            perWorker.add(results);
+            workers.execute(() -> {
+                while (System.nanoTime() < deadline) {
+                    String type = pickType();
+                    long start = System.nanoTime();
+                    boolean ok = send(type);
+                    results.get(type).record(System.nanoTime() - start, ok);
+                }
+            });
+        }
+        workers.shutdown();
+        workers.awaitTermination(seconds + 60L, TimeUnit.SECONDS);
+
+        Map<String, EndpointResult> merged = newResults();
+        for (Map<String, EndpointResult> results : perWorker) {
+            results.forEach((type, r) -> merged.get(type).merge(r));
+        }
+        merged.values().forEach(r -> r.seconds = seconds);
+        return merged;
+    }
+
+    private Map<String, EndpointResult> newResults() {
+        Map<String, EndpointResult> results = new LinkedHashMap<>();
+        for (String type : mix.keySet()) {
+            results.put(type, new EndpointResult());
+        }
+        return results;
+    }
+
+    private String pickType() {
+        int r = ThreadLocalRandom.current().nextInt(totalWeight);
+        for (Map.Entry<String, Integer> e : mix.entrySet()) {
+            r -= e.getValue();
+            if (r < 0) return e.getKey();
+        }
+        throw new IllegalStateException();
+    }
+
+    private boolean send(String type) {
+        int userId = 1 + ThreadLocalRandom.current().nextInt(tokens.length - 1);
+        HttpRequest.Builder builder = switch (type) {
+            case RECOMMEND -> get("/api/recommend/" + userId + "?page=" + pageSampler.next() + "&size=10");
+            case LIST -> get("/api/video/list?page=" + pageSampler.next() + "&size=10");
+            case PLAY -> post("/api/behavior/play", videoIdByRank[videoSampler.next()]);
+            case LIKE -> post("/api/behavior/like", videoIdByRank[videoSampler.next()]);
+            default -> throw new IllegalArgumentException("未知的请求类型: " + type);
+        };
+        try {
+            HttpResponse<String> response = client.send(builder.header("token", tokens[userId]).build(),
+                    HttpResponse.BodyHandlers.ofString());
+            return response.statusCode() == 200 && response.body().contains("\"code\":200");
+        } catch (Exception e) {
+            return false;
+        }
+    }
+
+    private HttpRequest.Builder get(String path) {
+        return HttpRequest.newBuilder(URI.create(baseUrl + path)).timeout(Duration.ofSeconds(10)).GET();
+    }
+
+    private HttpRequest.Builder post(String path, int videoId) {
+        return HttpRequest.newBuilder(URI.create(baseUrl + path))
+                .timeout(Duration.ofSeconds(10))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString("{\"videoId\":" + videoId + "}"));
+    }
+
+    /**
+     * 单类请求的延迟样本 (纳秒) 与错误数
+     */
+    public static class EndpointResult {
+        private long[] latencies = new long[1024];
+        private int count;
+        private long errors;
+        private int seconds;
+
+        void record(long nanos, boolean ok) {
+            if (count == latencies.length) {
+                latencies = Arrays.copyOf(latencies, count * 2);
+            }
+            latencies[count++] = nanos;
+            if (!ok) errors++;
+        }
+
+        void merge(EndpointResult other) {
+            for (int i = 0; i < other.count; i++) {
+                record(other.latencies[i], true);
+            }
+            errors += other.errors;
+        }
+
+        public int count() {
+            return count;
+        }
+
+        public long errors() {
+            return errors;
+        }
+
+        public double throughput() {
+            return seconds == 0 ? 0 : (double) count / seconds;
+        }
+
+        /**
+         * 第 p 百分位延迟 (毫秒)
+         */
+        public double percentileMillis(double p) {
+            if (count == 0) return 0;
+            long[] sorted = Arrays.copyOf(latencies, count);
+            Arrays.sort(sorted);
+            int idx = (int) Math.ceil(p / 100.0 * count) - 1;
+            return sorted[Math.max(0, Math.min(idx, count - 1))] / 1_000_000.0;
+        }
+    }
+}
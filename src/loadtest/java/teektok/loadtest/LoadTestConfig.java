@@ -0,0 +1,108 @@
+package teektok.loadtest;
+
+import io.lettuce.core.event.command.CommandListener;
+import io.lettuce.core.event.command.CommandStartedEvent;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.apache.ibatis.executor.statement.StatementHandler;
+import org.apache.ibatis.plugin.Interceptor;
+import org.apache.ibatis.plugin.Intercepts;
+import org.apache.ibatis.plugin.Invocation;
+import org.apache.ibatis.plugin.Signature;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.context.annotation.Profile;
+import org.springframework.core.Ordered;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.HandlerMapping;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+import teektok.service.BehaviorEventPubliser;
+
+import java.sql.Connection;
+
+/**
+ * 压测 Profile 的替身与统计
+ * 1. Kafka 换成内存发布器 (InMemoryEventPublisher)，只计数不发送
+ * 2. 每条 SQL (StatementHandler.prepare，分页的 count 也算一条) 和每条 Redis 命令 (Lettuce CommandListener) 记到当前接口
+ */
+@Configuration
+@Profile("loadtest")
+public class LoadTestConfig implements WebMvcConfigurer {
+
+    private final CallCounter callCounter = new CallCounter();
+
+    @Bean
+    public CallCounter callCounter() {
+        return callCounter;
+    }
+
+    @Bean
+    @Primary
+    public BehaviorEventPubliser inMemoryEventPublisher() {
+        return new InMemoryEventPublisher();
+    }
+
+    @Bean
+    public Interceptor sqlCountingInterceptor() {
+        return new SqlCountingInterceptor(callCounter);
+    }
+
+    /**
+     * 连接建立前挂上命令监听 (监听器只对之后创建的连接生效)
+     */
+    @Bean
+    public static BeanPostProcessor redisCommandCounter(ObjectProvider<CallCounter> counter) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (bean instanceof LettuceConnectionFactory factory && factory.getNativeClient() != null) {
+                    factory.getNativeClient().addListener(new CommandListener() {
+                        @Override
+                        public void commandStarted(CommandStartedEvent event) {
+                            counter.getObject().redis();
+                        }
+                    });
+                }
+                return bean;
+            }
+        };
+    }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(new HandlerInterceptor() {
+            @Override
+            public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+                Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+                callCounter.begin(request.getMethod() + " " + (pattern != null ? pattern : request.getRequestURI()));
+                return true;
+            }
+
+            @Override
+            public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+                callCounter.end();
+            }
+        }).order(Ordered.HIGHEST_PRECEDENCE);
+    }
+
+    @Intercepts(@Signature(type = StatementHandler.class, method = "prepare", args = {Connection.class, Integer.class}))
+    static class SqlCountingInterceptor implements Interceptor {
+
+        private final CallCounter counter;
+
+        SqlCountingInterceptor(CallCounter counter) {
+            this.counter = counter;
+        }
+
+        @Override
+        public Object intercept(Invocation invocation) throws Throwable {
+            counter.sql();
+            return invocation.proceed();
+        }
+    }
+}
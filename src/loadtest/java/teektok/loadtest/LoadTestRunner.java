@@ -0,0 +1,239 @@
+package teektok.loadtest;
+
+import com.github.fppt.jedismock.RedisServer;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import teektok.teektokApplication;
+import teektok.utils.JwtUtils;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * 本地压测入口 (mvn -Ploadtest -DskipTests verify)
+ * 1. 启动进程内 Redis (jedis-mock)，以 loadtest Profile 启动应用 (H2 + 内存 Kafka 替身，随机端口)
+ * 2. 造数：用户、视频 (作者和热度按 Zipf 分布)、统计、关注关系、离线/实时推荐结果
+ * 3. 预热后按流量配比压测，输出各接口的吞吐、p50/p99 延迟、每个请求的 SQL 条数和 Redis 命令数
+ * loadtest.redis-modes 依次以共享原生连接 (shared) 和连接池 (pooled) 各跑一轮，对比 Redis 连接方式的影响
+ * loadtest.thread-modes 对比平台线程 (platform，Tomcat 默认 200 线程) 与虚拟线程 (virtual，需要 JDK 21)
+ */
+public class LoadTestRunner {
+
+    private static final Map<String, String> ENDPOINTS = Map.of(
+            LoadGenerator.RECOMMEND, "GET /api/recommend/{userId}",
+            LoadGenerator.LIST, "GET /api/video/list",
+            LoadGenerator.PLAY, "POST /api/behavior/play",
+            LoadGenerator.LIKE, "POST /api/behavior/like");
+
+    private final int duration = Integer.getInteger("loadtest.duration", 30);
+    private final int warmup = Integer.getInteger("loadtest.warmup", 10);
+    private final int concurrency = Integer.getInteger("loadtest.concurrency", 32);
+    private final int users = Integer.getInteger("loadtest.users", 1000);
+    private final int videos = Integer.getInteger("loadtest.videos", 5000);
+    private final double zipf = Double.parseDouble(System.getProperty("loadtest.zipf", "1.1"));
+    private final Map<String, Integer> mix = parseMix(System.getProperty("loadtest.mix", "recommend:40,list:30,play:20,like:10"));
+    private final List<String> redisModes = List.of(System.getProperty("loadtest.redis-modes", "shared,pooled").split(","));
+    private final List<String> threadModes = List.of(System.getProperty("loadtest.thread-modes", "platform").split(","));
+    private final String reportFile = System.getProperty("loadtest.report");
+
+    public static void main(String[] args) throws Exception {
+        new LoadTestRunner().run();
+        // Lettuce / Kafka 等非守护线程不影响退出
+        System.exit(0);
+    }
+
+    private void run() throws Exception {
+        StringBuilder report = new StringBuilder();
+        report.append(String.format("压测配置: 时长 %ds (预热 %ds), 并发 %d, 用户 %d, 视频 %d, Zipf s=%.2f, 配比 %s%n",
+                duration, warmup, concurrency, users, videos, zipf, mix));
+
+        for (String threads : threadModes) {
+            if ("virtual".equals(threads.trim()) && Runtime.version().feature() < 21) {
+                report.append(String.format("%n虚拟线程需要 JDK 21，当前 JDK %d，跳过 virtual%n", Runtime.version().feature()));
+                continue;
+            }
+            for (String mode : redisModes) {
+                report.append(runMode(mode.trim(), threads.trim()));
+            }
+        }
+
+        System.out.println();
+        System.out.println(report);
+        if (reportFile != null) {
+            Path path = Path.of(reportFile);
+            Files.createDirectories(path.getParent());
+            Files.writeString(path, report);
+            System.out.println("压测报告已写入 " + path);
+        }
+    }
+
+    private String runMode(String mode, String threads) throws Exception {
+        RedisServer redis = RedisServer.newRedisServer().start();
+        ConfigurableApplicationContext context = null;
+        try {
+            context = new SpringApplicationBuilder(teektokApplication.class)
+                    .profiles("loadtest")
+                    .properties(
+                            "loadtest.redis-port=" + redis.getBindPort(),
+                            "loadtest.db=teektok_" + mode + "_" + threads,
+                            "teektok.redis.client.share-native-connection=" + "shared".equals(mode),
+                            "spring.threads.virtual.enabled=" + "virtual".equals(threads))
+                    .run();
+
+            int[] videoIdByRank = seed(context.getBean(JdbcTemplate.class));
+            String[] tokens = new String[users + 1];
+            for (int uid = 1; uid <= users; uid++) {
+                tokens[uid] = JwtUtils.createToken(Map.of("userId", (long) uid));
+            }
+
+            int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+            LoadGenerator generator = new LoadGenerator("http://127.0.0.1:" + port, mix, zipf, videoIdByRank, tokens);
+            CallCounter callCounter = context.getBean(CallCounter.class);
+            InMemoryEventPublisher events = context.getBean(InMemoryEventPublisher.class);
+
+            String label = mode + "/" + threads;
+            System.out.printf("[%s] 预热 %ds ...%n", label, warmup);
+            generator.run(concurrency, warmup);
+            callCounter.reset();
+            events.reset();
+
+            System.out.printf("[%s] 压测 %ds ...%n", label, duration);
+            Map<String, LoadGenerator.EndpointResult> results = generator.run(concurrency, duration);
+            return format(mode, threads, results, callCounter.snapshot(), events.snapshot());
+        } finally {
+            if (context != null) context.close();
+            redis.stop();
+        }
+    }
+
+    /**
+     * 造数，返回 Zipf 名次 -> 视频 ID
+     */
+    private int[] seed(JdbcTemplate jdbc) {
+        Random random = new Random(42);
+        LocalDateTime now = LocalDateTime.now();
+
+        List<Object[]> userRows = new ArrayList<>();
+        for (int uid = 1; uid <= users; uid++) {
+            userRows.add(new Object[]{uid, "user" + uid, "e10adc3949ba59abbe56e057f20f883e", "/avatar/" + uid + ".png"});
+        }
+        jdbc.batchUpdate("INSERT INTO `user` (id, username, password, avatar, status) VALUES (?, ?, ?, ?, 1)", userRows);
+
+        // 作者是前 10% 的用户，作品数按 Zipf 分布
+        int creators = Math.max(1, users / 10);
+        ZipfSampler creatorSampler = new ZipfSampler(creators, 1.0);
+        List<Integer> ranks = new ArrayList<>();
+        for (int vid = 1; vid <= videos; vid++) ranks.add(vid);
+        Collections.shuffle(ranks, random);
+        int[] videoIdByRank = new int[videos + 1];
+        int[] rankOfVideo = new int[videos + 1];
+        for (int i = 0; i < videos; i++) {
+            videoIdByRank[i + 1] = ranks.get(i);
+            rankOfVideo[ranks.get(i)] = i + 1;
+        }
+
+        List<Object[]> videoRows = new ArrayList<>();
+        List<Object[]> statRows = new ArrayList<>();
+        for (int vid = 1; vid <= videos; vid++) {
+            int rank = rankOfVideo[vid];
+            Timestamp created = Timestamp.valueOf(now.minusMinutes(videos - vid));
+            videoRows.add(new Object[]{vid, "video " + vid, "/uploads/loadtest/" + vid + ".mp4",
+                    "/uploads/loadtest/" + vid + ".jpg", "load test video " + vid, creatorSampler.next(),
+                    rank <= videos / 20 ? 1 : 0, 15_000 + random.nextInt(45_000), created, created});
+            long plays = 1_000_000L / rank;
+            statRows.add(new Object[]{vid, plays, plays / 10, plays / 50, plays / 100, plays / 80});
+        }
+        jdbc.batchUpdate("INSERT INTO video (id, title, video_url, cover_url, description, uploader_id, status, is_hot, "
+                + "process_status, duration_ms, create_time, update_time) VALUES (?, ?, ?, ?, ?, ?, 1, ?, 2, ?, ?, ?)", videoRows);
+        jdbc.batchUpdate("INSERT INTO video_stat (video_id, play_count, like_count, comment_count, share_count, favorite_count) "
+                + "VALUES (?, ?, ?, ?, ?, ?)", statRows);
+
+        // 每个用户关注 20 个作者；每个用户 50 条离线推荐，20% 的用户另有 20 条实时推荐
+        ZipfSampler videoSampler = new ZipfSampler(videos, zipf);
+        List<Object[]> relationRows = new ArrayList<>();
+        List<Object[]> recommendRows = new ArrayList<>();
+        for (int uid = 1; uid <= users; uid++) {
+            Set<Integer> followed = new LinkedHashSet<>();
+            for (int i = 0; i < 20 && followed.size() < creators; i++) {
+                followed.add(creatorSampler.next());
+            }
+            for (Integer target : followed) {
+                relationRows.add(new Object[]{uid, target});
+            }
+            addRecommendations(recommendRows, uid, "OFFLINE", 50, videoSampler, videoIdByRank);
+            if (uid % 5 == 0) {
+                addRecommendations(recommendRows, uid, "REALTIME", 20, videoSampler, videoIdByRank);
+            }
+        }
+        jdbc.batchUpdate("INSERT INTO relation (user_id, target_id) VALUES (?, ?)", relationRows);
+        jdbc.batchUpdate("INSERT INTO recommendation_result (user_id, movie_id, score, `rank`, `type`) VALUES (?, ?, ?, ?, ?)",
+                recommendRows);
+        return videoIdByRank;
+    }
+
+    private static void addRecommendations(List<Object[]> rows, int uid, String type, int count,
+                                           ZipfSampler videoSampler, int[] videoIdByRank) {
+        Set<Integer> picked = new LinkedHashSet<>();
+        for (int i = 0; i < count * 3 && picked.size() < count; i++) {
+            picked.add(videoIdByRank[videoSampler.next()]);
+        }
+        int rank = 1;
+        for (Integer vid : picked) {
+            rows.add(new Object[]{uid, vid, 1.0 - rank / 100.0, rank, type});
+            rank++;
+        }
+    }
+
+    private String format(String mode, String threads, Map<String, LoadGenerator.EndpointResult> results,
+                          Map<String, CallCounter.Calls> calls, Map<String, Long> events) {
+        StringBuilder sb = new StringBuilder();
+        sb.append(String.format("%n== Redis 连接方式: %s, 线程: %s ==%n", mode, threads));
+        sb.append(String.format("%-10s %9s %7s %10s %9s %9s %9s %11s%n",
+                "接口", "请求数", "错误", "吞吐/s", "p50(ms)", "p99(ms)", "SQL/请求", "Redis/请求"));
+        long total = 0;
+        for (Map.Entry<String, LoadGenerator.EndpointResult> e : results.entrySet()) {
+            LoadGenerator.EndpointResult r = e.getValue();
+            CallCounter.Calls c = calls.get(ENDPOINTS.get(e.getKey()));
+            long served = c == null ? 0 : c.requests();
+            sb.append(String.format("%-10s %9d %7d %10.1f %9.2f %9.2f %9.2f %11.2f%n",
+                    e.getKey(), r.count(), r.errors(), r.throughput(),
+                    r.percentileMillis(50), r.percentileMillis(99),
+                    served == 0 ? 0.0 : (double) c.sql() / served,
+                    served == 0 ? 0.0 : (double) c.redis() / served));
+            total += r.count();
+        }
+        sb.append(String.format("合计吞吐: %.1f req/s%n", (double) total / duration));
+
+        CallCounter.Calls background = calls.get(CallCounter.BACKGROUND);
+        if (background != null) {
+            sb.append(String.format("后台任务 (异步日志/计数回写/缓存预热): SQL %d 条, Redis 命令 %d 条%n",
+                    background.sql(), background.redis()));
+        }
+        sb.append("行为事件 (Kafka 替身): ").append(events).append(System.lineSeparator());
+        return sb.toString();
+    }
+
+    private static Map<String, Integer> parseMix(String spec) {
+        Map<String, Integer> mix = new LinkedHashMap<>();
+        for (String part : spec.split(",")) {
+            String[] kv = part.trim().split(":");
+            if (!ENDPOINTS.containsKey(kv[0])) {
+                throw new IllegalArgumentException("未知的请求类型: " + kv[0] + "，可选 " + ENDPOINTS.keySet());
+            }
+            mix.put(kv[0], Integer.parseInt(kv[1]));
+        }
+        return mix;
+    }
+}
@@ -0,0 +1,32 @@
+package teektok.loadtest;
+
+import java.util.Arrays;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Zipf 分布抽样：第 k 名被抽中的概率与 1 / k^s 成正比
+ * 预先算好累积分布，抽样时二分查找；返回 1 ~ n 的名次
+ */
+public class ZipfSampler {
+
+    private final double[] cdf;
+
+    public ZipfSampler(int n, double exponent) {
+        cdf = new double[n];
+        double sum = 0;
+        for (int k = 1; k <= n; k++) {
+            sum += 1.0 / Math.pow(k, exponent);
+            cdf[k - 1] = sum;
+        }
+        for (int i = 0; i < n; i++) {
+            cdf[i] /= sum;
+        }
+    }
+
+    public int next() {
+        double u = ThreadLocalRandom.current().nextDouble();
+        int idx = Arrays.binarySearch(cdf, u);
+        if (idx < 0) idx = -idx - 1;
+        return Math.min(idx, cdf.length - 1) + 1;
+    }
+}
@@ -0,0 +1,18 @@
+package teektok.VO;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * 游标分页结果：客户端把 nextCursor 原样带回即可取下一页
+ */
+@Data
+@AllArgsConstructor
+public class CursorResult<T> {
+
+    private List<T> list;
+    private Long nextCursor;
+    private boolean hasMore;
+}
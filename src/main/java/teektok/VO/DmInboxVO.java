@@ -0,0 +1,20 @@
+package teektok.VO;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+@Data
+public class DmInboxVO {
+    private Long peerId;
+    private String peerUsername;
+    private String peerAvatar;
+    private Long lastSeq;
+    private Long lastSenderId;
+    private Integer lastMsgType;
+    private String lastPreview;
+    private Integer unreadCount;
+    @JsonFormat(pattern = "yyyy-MM-dd HH:mm:ss", timezone = "GMT+8")
+    private LocalDateTime updateTime;
+}
@@ -4,6 +4,7 @@ import com.fasterxml.jackson.annotation.JsonFormat;
 import lombok.Data;
 
 import java.time.LocalDateTime;
+import java.util.List;
 
 @Data
 public class NotificationVO {
@@ -16,6 +17,14 @@ public class NotificationVO {
     private Long targetId;
     private String content;
     private Integer isRead;
+    /**
+     * 聚合的操作人数，如 “A 等 99 人赞了你的视频” 中的 100
+     */
+    private Integer actorCount;
+    /**
+     * 最近几个操作人的昵称，最新的在前
+     */
+    private List<String> latestActorNames;
     @JsonFormat(pattern = "yyyy-MM-dd HH:mm:ss", timezone = "GMT+8")
     private LocalDateTime createTime;
 }
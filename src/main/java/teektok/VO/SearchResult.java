@@ -0,0 +1,18 @@
+package teektok.VO;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * 搜索结果的一页：游标不透明 (按相关度排序，不是 id)，客户端把 nextCursor 原样带回即可取下一页
+ */
+@Data
+@AllArgsConstructor
+public class SearchResult<T> {
+
+    private List<T> list;
+    private String nextCursor;
+    private boolean hasMore;
+}
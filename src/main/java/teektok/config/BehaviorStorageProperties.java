@@ -0,0 +1,39 @@
+package teektok.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * 行为流水 (user_behavior) 的分区维护与归档，见 BehaviorRetentionService
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "teektok.behavior.storage")
+public class BehaviorStorageProperties {
+
+    /**
+     * 关闭后不建新分区也不归档 (表未分区时任务本身也会跳过)
+     */
+    private boolean maintenanceEnabled = true;
+
+    /**
+     * 维护任务执行时间，默认每天 03:30
+     */
+    private String maintenanceCron = "0 30 3 * * ?";
+
+    /**
+     * 流水在库中保留的整月数 (不含当月)，更早的分区归档后删除
+     */
+    private int retentionMonths = 6;
+
+    /**
+     * 提前建好的未来月份分区数
+     */
+    private int futureMonths = 2;
+
+    /**
+     * 归档目录，每个分区一个 gzip 压缩的 TSV 文件：{archiveDir}/user_behavior/{分区名}.tsv.gz
+     */
+    private String archiveDir = "./data/archive";
+}
@@ -0,0 +1,34 @@
+package teektok.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * 热点缓存 (HotKeyCache) 参数
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "teektok.cache")
+public class CacheProperties {
+
+    /**
+     * 逻辑过期后旧值继续保留的时间（秒）：这段时间内只有一个请求回源重建，其余请求直接返回旧值
+     */
+    private long staleSeconds = 600;
+
+    /**
+     * 数据不存在时空值的缓存时间（秒），防止穿透
+     */
+    private long nullTtlSeconds = 300;
+
+    /**
+     * 重建锁的有效期（秒），应大于一次回源的耗时
+     */
+    private long rebuildLockSeconds = 10;
+
+    /**
+     * 同一实例内等待其他线程加载结果的最长时间（毫秒），超时后自己回源
+     */
+    private long loadWaitMillis = 3000;
+}
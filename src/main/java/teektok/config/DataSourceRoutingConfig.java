@@ -0,0 +1,84 @@
+package teektok.config;
+
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import teektok.utils.ReplicaRoutingDataSource;
+
+import javax.sql.DataSource;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 读写分离 (teektok.datasource.routing.enabled=true 时生效，否则沿用 Spring Boot 自动配置的单数据源)
+ * 1. 主库连接池仍由 spring.datasource / spring.datasource.hikari 配置；从库连接池复制主库的 Hikari 参数，只替换地址与账号，并设为只读
+ * 2. 对外的 DataSource 是 LazyConnectionDataSourceProxy：第一条语句执行时才取真实连接，
+ *    此时事务已标记只读的 (@Transactional(readOnly = true)) 从 ReplicaRoutingDataSource 取连接，其余一律走主库
+ * 3. 非事务的查询也走主库：只有显式声明只读事务的方法才会读到从库，不会在不知情的情况下读到延迟数据
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "teektok.datasource.routing", name = "enabled", havingValue = "true")
+public class DataSourceRoutingConfig {
+
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primaryDataSource(DataSourceProperties properties) {
+        HikariDataSource dataSource = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        dataSource.setPoolName("primary");
+        return dataSource;
+    }
+
+    @Bean
+    public ReplicaRoutingDataSource replicaRoutingDataSource(@Qualifier("primaryDataSource") HikariDataSource primary,
+                                                             DataSourceRoutingProperties properties,
+                                                             StringRedisTemplate stringRedisTemplate,
+                                                             MeterRegistry meterRegistry) {
+        if (properties.getReplicas().isEmpty()) {
+            throw new RuntimeException("已开启读写分离但未配置从库 teektok.datasource.routing.replicas");
+        }
+        Map<String, DataSource> replicas = new LinkedHashMap<>();
+        for (int i = 0; i < properties.getReplicas().size(); i++) {
+            DataSourceRoutingProperties.Replica replica = properties.getReplicas().get(i);
+            String name = replica.getName() != null ? replica.getName() : "replica-" + i;
+            if ("primary".equals(name) || replicas.containsKey(name)) {
+                throw new RuntimeException("从库名称重复: " + name);
+            }
+
+            HikariConfig config = new HikariConfig();
+            primary.copyStateTo(config);
+            config.setPoolName(name);
+            config.setJdbcUrl(replica.getUrl());
+            if (replica.getUsername() != null) {
+                config.setUsername(replica.getUsername());
+                config.setPassword(replica.getPassword());
+            }
+            config.setReadOnly(true);
+            // 从库不可用时不影响启动，由延迟检查摘除
+            config.setInitializationFailTimeout(-1);
+            // 从库连接池不是 Bean，Spring Boot 不会为它注册 hikaricp.* 指标；主库已注册时会连同 MetricsTrackerFactory 一起复制过来
+            if (config.getMetricsTrackerFactory() == null) {
+                config.setMetricRegistry(meterRegistry);
+            }
+            replicas.put(name, new HikariDataSource(config));
+        }
+        return new ReplicaRoutingDataSource(primary, replicas, properties, stringRedisTemplate, meterRegistry);
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(@Qualifier("primaryDataSource") HikariDataSource primary,
+                                 ReplicaRoutingDataSource replicaRoutingDataSource) {
+        LazyConnectionDataSourceProxy proxy = new LazyConnectionDataSourceProxy(primary);
+        proxy.setReadOnlyDataSource(replicaRoutingDataSource);
+        return proxy;
+    }
+}
@@ -0,0 +1,67 @@
+package teektok.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 读写分离参数 (主库仍是 spring.datasource，这里只配从库)，见 DataSourceRoutingConfig
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "teektok.datasource.routing")
+public class DataSourceRoutingProperties {
+
+    /**
+     * 关闭时所有语句都走主库
+     */
+    private boolean enabled = false;
+
+    /**
+     * 从库列表，只读事务在健康的从库间轮询
+     */
+    private List<Replica> replicas = new ArrayList<>();
+
+    /**
+     * 用户写库后这段时间内 (毫秒) 的只读事务仍走主库，保证读到自己刚写的数据；应大于 maxLagSeconds
+     * 写标记存在 Redis 中，对所有实例生效
+     */
+    private long stickyMillis = 5000;
+
+    /**
+     * 复制延迟超过该值 (秒) 的从库不再接收读请求，延迟恢复后自动加回
+     */
+    private long maxLagSeconds = 3;
+
+    /**
+     * 复制延迟检查间隔 (毫秒)
+     */
+    private long lagCheckIntervalMs = 5000;
+
+    /**
+     * 查询复制延迟的语句：默认读取 SHOW REPLICA STATUS 的 Seconds_Behind_Source (MySQL 8.0.22 以下为 SHOW SLAVE STATUS)；
+     * 也可以是只返回一列秒数的语句 (如 pt-heartbeat 表)，两个未配置复制的本地实例联调时可用 SELECT 0
+     */
+    private String lagQuery = "SHOW REPLICA STATUS";
+
+    @Data
+    public static class Replica {
+
+        /**
+         * 用于日志与指标标签
+         */
+        private String name;
+
+        private String url;
+
+        /**
+         * 不填时与主库相同
+         */
+        private String username;
+
+        private String password;
+    }
+}
@@ -0,0 +1,39 @@
+package teektok.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * 线程池参数 (common* 只在虚拟线程模式 spring.threads.virtual.enabled=true 下生效，需要 JDK 21)
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "teektok.executor")
+public class ExecutorProperties {
+
+    /**
+     * 同时执行的任务上限 (信号量许可数)。任务多为写库，应与数据库连接池大小相当，不宜远大于它
+     */
+    private int commonConcurrency = 16;
+
+    /**
+     * 等待许可的任务上限，超出后由提交线程自己执行
+     */
+    private int commonMaxWaiting = 2000;
+
+    /**
+     * FanOut 并行查询的线程数 (虚拟线程模式下为并发上限)。每个并行查询可能各占一个数据库连接，需结合连接池大小设置
+     */
+    private int fanoutPoolSize = 32;
+
+    /**
+     * FanOut 排队上限，超出后由调用线程直接执行
+     */
+    private int fanoutQueueCapacity = 256;
+
+    /**
+     * FanOut 单个调用的默认超时 (毫秒)，超时后使用降级值
+     */
+    private long fanoutTimeoutMillis = 1000;
+}
@@ -0,0 +1,83 @@
+package teektok.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 上传后的视频处理（ffprobe 解析时长/分辨率、截取封面、HLS 切片）
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "teektok.media.processing")
+public class MediaProcessingProperties {
+
+    /**
+     * 关闭后新视频直接标记为已完成，不做任何处理
+     */
+    private boolean enabled = true;
+
+    private String ffmpegPath = "ffmpeg";
+    private String ffprobePath = "ffprobe";
+
+    /**
+     * 同时处理的视频数（转码很吃 CPU，不宜过大）
+     */
+    private int concurrency = 2;
+
+    /**
+     * 扫描待处理视频的间隔（毫秒）：补处理重启前未完成、提交失败或需要重试的任务
+     */
+    private long pollIntervalMs = 30000;
+
+    private int batchSize = 20;
+
+    /**
+     * 单个 ffmpeg/ffprobe 进程的超时时间（秒）
+     */
+    private long timeoutSeconds = 600;
+
+    private int maxAttempts = 3;
+
+    /**
+     * 处理中超过该时间（分钟）视为实例宕机，允许重新领取
+     */
+    private long staleMinutes = 60;
+
+    /**
+     * 封面截取位置（秒），视频过短时取中间帧
+     */
+    private double coverOffsetSeconds = 1;
+
+    /**
+     * 是否切片为 HLS（仅本地存储）
+     */
+    private boolean hlsEnabled = false;
+
+    private int hlsSegmentSeconds = 4;
+
+    /**
+     * HLS 清晰度档位；高于源视频分辨率的档位会被跳过
+     */
+    private List<Rendition> renditions = new ArrayList<>(List.of(new Rendition(720, 2500), new Rendition(480, 1000)));
+
+    @Data
+    public static class Rendition {
+        private int height;
+        /**
+         * 视频码率（kbps）
+         */
+        private int videoBitrate;
+
+        public Rendition() {
+        }
+
+        public Rendition(int height, int videoBitrate) {
+            this.height = height;
+            this.videoBitrate = videoBitrate;
+        }
+    }
+}
@@ -10,5 +10,53 @@ import org.springframework.stereotype.Component;
 public class MediaProperties {
     private String baseUrl;
     private String localDir;
-}
 
+    /**
+     * 视频存储后端：oss（阿里云）或 local（本地目录，离线开发/测试用）
+     */
+    private String storage = "oss";
+
+    /**
+     * 超过该大小（字节）的文件走 OSS 分片上传，否则单次 PutObject
+     */
+    private long multipartThreshold = 64L * 1024 * 1024;
+
+    /**
+     * 分片大小（字节），也是每个上传占用的最大堆内存
+     */
+    private int partSize = 8 * 1024 * 1024;
+
+    /**
+     * 同时进行的上传数上限
+     */
+    private int uploadConcurrency = 4;
+
+    /**
+     * 等待上传名额的最长时间（毫秒），超时直接拒绝
+     */
+    private long uploadAcquireTimeoutMs = 3000;
+
+    /**
+     * 分片上传允许的最大文件大小（字节）
+     */
+    private long maxUploadSize = 2L * 1024 * 1024 * 1024;
+
+    /**
+     * 分片上传会话的有效期（小时），过期后未完成的分片被清理
+     */
+    private int uploadSessionTtlHours = 24;
+
+    /**
+     * /uploads/** 缓存的已打开文件句柄数
+     */
+    private int openFileCacheSize = 256;
+
+    /**
+     * /uploads/** 响应的 Cache-Control max-age（秒）；文件名是随机 UUID，内容不会变
+     */
+    private long cacheMaxAgeSeconds = 7 * 24 * 3600;
+
+    public boolean isLocalStorage() {
+        return "local".equalsIgnoreCase(storage);
+    }
+}
@@ -0,0 +1,27 @@
+package teektok.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import teektok.utils.AliyunOSSOperator;
+import teektok.utils.LocalMediaOperator;
+import teektok.utils.MediaStorage;
+import teektok.utils.MeteredMediaStorage;
+
+@Configuration
+public class MediaStorageConfig {
+
+    /**
+     * 按 teektok.media.storage 选择存储后端，业务代码注入 MediaStorage 即可
+     */
+    @Bean
+    @Primary
+    public MediaStorage mediaStorage(MediaProperties mediaProperties,
+                                     AliyunOSSOperator aliyunOSSOperator,
+                                     LocalMediaOperator localMediaOperator,
+                                     MeterRegistry meterRegistry) {
+        MediaStorage backend = mediaProperties.isLocalStorage() ? localMediaOperator : aliyunOSSOperator;
+        return new MeteredMediaStorage(backend, meterRegistry);
+    }
+}
@@ -0,0 +1,25 @@
+package teektok.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Data
+@Component
+@ConfigurationProperties(prefix = "teektok.notification")
+public class NotificationProperties {
+    /**
+     * 聚合时间窗口（分钟）：同一窗口内同一目标的点赞/关注通知合并为一条
+     */
+    private long aggregateWindowMinutes = 60;
+
+    /**
+     * 每条聚合通知保留的最近操作人数量
+     */
+    private int latestActorLimit = 3;
+
+    /**
+     * 内存中最多缓冲的待写入通知数，超出后退化为同步写入，防止内存无限增长
+     */
+    private int maxPending = 10000;
+}
@@ -0,0 +1,35 @@
+package teektok.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Data
+@Component
+@ConfigurationProperties(prefix = "teektok.push")
+public class PushProperties {
+    /**
+     * SSE 连接超时（毫秒），超时后由浏览器 EventSource 自动重连
+     */
+    private long timeoutMs = 30 * 60 * 1000L;
+
+    /**
+     * 心跳间隔（毫秒），防止代理/负载均衡断开空闲连接
+     */
+    private long heartbeatIntervalMs = 25000;
+
+    /**
+     * 每个连接最多积压的待发送事件数，超出后丢弃最旧的事件
+     */
+    private int queueCapacity = 64;
+
+    /**
+     * 每个用户最多同时保持的连接数（多标签页），超出后关闭最早的连接
+     */
+    private int maxConnectionsPerUser = 5;
+
+    /**
+     * 跨节点投递使用的 Redis 频道
+     */
+    private String channel = "teektok:push";
+}
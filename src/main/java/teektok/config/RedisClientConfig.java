@@ -0,0 +1,107 @@
+package teektok.config;
+
+import io.lettuce.core.ClientOptions;
+import io.lettuce.core.TimeoutOptions;
+import io.lettuce.core.event.command.CommandFailedEvent;
+import io.lettuce.core.event.command.CommandListener;
+import io.lettuce.core.event.command.CommandStartedEvent;
+import io.lettuce.core.event.command.CommandSucceededEvent;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.commonspool2.CommonsObjectPool2Metrics;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.data.redis.LettuceClientOptionsBuilderCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.connection.lettuce.LettuceConnection;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Redis 客户端配置
+ * 1. 普通命令共用一条原生连接 (Lettuce 线程安全，并发命令在同一条连接上自动流水线发送)，不占连接池
+ * 2. 连接池 (spring.data.redis.lettuce.pool) 只给 Pipeline / 事务 / 阻塞命令使用
+ * 3. 命令超时 spring.data.redis.timeout，连接超时 spring.data.redis.connect-timeout；断线时快速失败
+ * 4. 指标：连接池借用等待时间/活跃数/等待线程数 (commons.pool2.*)，执行中的命令数 (teektok.redis.commands.inflight)
+ */
+@Configuration
+public class RedisClientConfig {
+
+    @Bean
+    public LettuceClientOptionsBuilderCustomizer lettuceClientOptionsCustomizer(RedisClientProperties properties) {
+        return builder -> builder
+                .timeoutOptions(TimeoutOptions.enabled())
+                .disconnectedBehavior(properties.isRejectWhenDisconnected()
+                        ? ClientOptions.DisconnectedBehavior.REJECT_COMMANDS
+                        : ClientOptions.DisconnectedBehavior.ACCEPT_COMMANDS)
+                .requestQueueSize(properties.getRequestQueueSize());
+    }
+
+    @Bean
+    public static BeanPostProcessor lettuceConnectionFactoryPostProcessor(
+            ObjectProvider<RedisClientProperties> properties, ObjectProvider<MeterRegistry> meterRegistry) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessBeforeInitialization(Object bean, String beanName) {
+                if (bean instanceof LettuceConnectionFactory factory) {
+                    RedisClientProperties props = properties.getObject();
+                    factory.setShareNativeConnection(props.isShareNativeConnection());
+                    factory.setPipeliningFlushPolicy(props.getPipelineFlushSize() > 0
+                            ? LettuceConnection.PipeliningFlushPolicy.buffered(props.getPipelineFlushSize())
+                            : LettuceConnection.PipeliningFlushPolicy.flushOnClose());
+                }
+                return bean;
+            }
+
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (bean instanceof LettuceConnectionFactory factory && factory.getNativeClient() != null) {
+                    MeterRegistry registry = meterRegistry.getIfAvailable();
+                    if (registry != null) {
+                        factory.getNativeClient().addListener(new InflightCommands(registry));
+                    }
+                }
+                return bean;
+            }
+        };
+    }
+
+    /**
+     * 连接池指标：通过 JMX 读取 commons-pool2 连接池 (Lettuce 连接池即 GenericObjectPool)
+     */
+    @Bean
+    public CommonsObjectPool2Metrics redisPoolMetrics() {
+        return new CommonsObjectPool2Metrics();
+    }
+
+    /**
+     * 统计已发出但还没返回的命令数
+     */
+    static class InflightCommands implements CommandListener {
+
+        private final AtomicInteger inflight = new AtomicInteger();
+
+        InflightCommands(MeterRegistry registry) {
+            Gauge.builder("teektok.redis.commands.inflight", inflight, AtomicInteger::get)
+                    .description("已发送到 Redis 但尚未返回的命令数")
+                    .register(registry);
+        }
+
+        @Override
+        public void commandStarted(CommandStartedEvent event) {
+            inflight.incrementAndGet();
+        }
+
+        @Override
+        public void commandSucceeded(CommandSucceededEvent event) {
+            inflight.decrementAndGet();
+        }
+
+        @Override
+        public void commandFailed(CommandFailedEvent event) {
+            inflight.decrementAndGet();
+        }
+    }
+}
@@ -0,0 +1,35 @@
+package teektok.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * Lettuce 客户端参数 (超时、连接池等通用参数在 spring.data.redis 下配置)
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "teektok.redis.client")
+public class RedisClientProperties {
+
+    /**
+     * 普通命令走共享的原生连接 (多线程复用一条连接，Lettuce 自动把并发命令合并写出)；
+     * 连接池只给 Pipeline、事务、阻塞命令使用。关闭后所有命令都从连接池借连接。
+     */
+    private boolean shareNativeConnection = true;
+
+    /**
+     * Pipeline 每攒多少条命令写一次 socket；0 表示整个 Pipeline 结束时一次写出
+     */
+    private int pipelineFlushSize = 0;
+
+    /**
+     * 连接断开时是否直接拒绝命令 (快速失败走降级)；否则先排队等重连
+     */
+    private boolean rejectWhenDisconnected = true;
+
+    /**
+     * 每条连接排队等待发送的命令上限，防止 Redis 卡住时请求在内存里无限堆积
+     */
+    private int requestQueueSize = 10000;
+}
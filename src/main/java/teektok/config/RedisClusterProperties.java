@@ -0,0 +1,24 @@
+package teektok.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * Redis Key 布局相关参数 (单机 Redis 迁移到 Redis Cluster)
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "teektok.redis")
+public class RedisClusterProperties {
+
+    /**
+     * 启动后是否把旧格式的用户集合 Key 迁移为带 hash tag 的新 Key (仅单机 Redis 执行)
+     */
+    private boolean migrateLegacyKeys = true;
+
+    /**
+     * 迁移时 SCAN 每批返回的 Key 数
+     */
+    private int migrationScanCount = 500;
+}
@@ -7,20 +7,29 @@ import com.fasterxml.jackson.databind.jsontype.impl.LaissezFaireSubTypeValidator
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.connection.RedisConnection;
 import org.springframework.data.redis.connection.RedisConnectionFactory;
 import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.StringRedisTemplate;
 import org.springframework.data.redis.serializer.Jackson2JsonRedisSerializer;
 import org.springframework.data.redis.serializer.StringRedisSerializer;
+import teektok.utils.MeteredRedisConnection;
 
 /**
  * Redis 配置类
+ * 两个 Template 拿到的连接都经过 MeteredRedisConnection，请求内的 Redis 命令数、往返次数计入 RequestMetrics
  */
 @Configuration
 public class RedisConfig {
 
     @Bean
     public RedisTemplate<String, Object> redisTemplate(RedisConnectionFactory connectionFactory) {
-        RedisTemplate<String, Object> template = new RedisTemplate<>();
+        RedisTemplate<String, Object> template = new RedisTemplate<>() {
+            @Override
+            protected RedisConnection preProcessConnection(RedisConnection connection, boolean existingConnection) {
+                return MeteredRedisConnection.wrap(super.preProcessConnection(connection, existingConnection));
+            }
+        };
         template.setConnectionFactory(connectionFactory);
 
         // 配置 ObjectMapper
@@ -49,4 +58,17 @@ public class RedisConfig {
 
         return template;
     }
-}
\ No newline at end of file
+
+    /**
+     * 替换 Spring Boot 默认的 StringRedisTemplate
+     */
+    @Bean
+    public StringRedisTemplate stringRedisTemplate(RedisConnectionFactory connectionFactory) {
+        return new StringRedisTemplate(connectionFactory) {
+            @Override
+            protected RedisConnection preProcessConnection(RedisConnection connection, boolean existingConnection) {
+                return MeteredRedisConnection.wrap(super.preProcessConnection(connection, existingConnection));
+            }
+        };
+    }
+}
@@ -0,0 +1,34 @@
+package teektok.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * 单请求 SQL / Redis 调用统计参数
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "teektok.request-metrics")
+public class RequestMetricsProperties {
+
+    /**
+     * 是否统计每个 /api/** 请求的 SQL 条数、Redis 命令数、往返次数和耗时
+     */
+    private boolean enabled = true;
+
+    /**
+     * 是否在响应头 X-Request-Metrics 中返回统计结果 (仅建议开发环境开启)
+     */
+    private boolean responseHeader = false;
+
+    /**
+     * 单个请求的 SQL 执行次数预算，超出时打印告警；0 表示不检查
+     */
+    private int sqlBudget = 10;
+
+    /**
+     * 单个请求的 Redis 往返次数预算 (一个 Pipeline 算一次)，超出时打印告警；0 表示不检查
+     */
+    private int redisRoundTripBudget = 10;
+}
@@ -0,0 +1,39 @@
+package teektok.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * 用户名 / 视频标题全文索引，见 SearchIndexService
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "teektok.search")
+public class SearchProperties {
+
+    /**
+     * 关闭后不建索引，用户搜索退回 LIKE 查询，视频搜索与联想不可用
+     */
+    private boolean enabled = true;
+
+    /**
+     * 索引目录，每个实例独占一个 (Lucene 写锁不允许多个进程共用)
+     */
+    private String indexDir = "./data/search-index";
+
+    /**
+     * 各实例之间同步索引变更的 Redis 频道
+     */
+    private String channel = "teektok:search";
+
+    /**
+     * 从数据库补齐索引的间隔 (毫秒)，补上订阅断开期间漏掉的变更；首次补齐 (空索引时即全量构建) 完成前搜索不可用
+     */
+    private long catchUpIntervalMs = 60000;
+
+    /**
+     * 补齐时每批读取的行数
+     */
+    private int batchSize = 1000;
+}
@@ -1,17 +1,52 @@
 package teektok.config;
 
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.thread.Threading;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import teektok.utils.BoundedVirtualThreadExecutor;
 
 import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionHandler;
 import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
 
+/**
+ * 每个线程池都注册 executor.* 指标 (tag name=Bean 名)：executor.queued 队列深度、executor.active 活跃线程数、
+ * executor.pool.size、executor.completed 等；teektok.executor.rejected 为触发拒绝策略的次数
+ * (CallerRunsPolicy 下即由提交线程自己执行的任务数，说明线程池已饱和)
+ * spring.threads.virtual.enabled=true (JDK 21) 时 Tomcat 请求线程与 @Scheduled 由 Spring Boot 切到虚拟线程，
+ * commonExecutor / fanoutExecutor 换成 BoundedVirtualThreadExecutor；pushExecutor / mediaExecutor 仍是平台线程池 (并发度本身就要受限)
+ */
 @Configuration
 public class ThreadPoolConfig {
 
+    @Autowired
+    private MediaProcessingProperties mediaProcessingProperties;
+
+    @Autowired
+    private ExecutorProperties executorProperties;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private Environment environment;
+
     @Bean("commonExecutor")
-    public ThreadPoolExecutor commonExecutor() {
+    public Executor commonExecutor() {
+        if (Threading.VIRTUAL.isActive(environment)) {
+            return virtual("commonExecutor", "common-vt-",
+                    executorProperties.getCommonConcurrency(), executorProperties.getCommonMaxWaiting());
+        }
+
         // 参数说明：
         // 核心线程数：CPU核数 * 2 (IO密集型通常设置较大)
         int corePoolSize = Runtime.getRuntime().availableProcessors() * 2;
@@ -22,13 +57,99 @@ public class ThreadPoolConfig {
         // 空闲线程存活时间
         long keepAliveTime = 60;
 
-        return new ThreadPoolExecutor(
+        return monitor("commonExecutor", new ThreadPoolExecutor(
                 corePoolSize,
                 maxPoolSize,
                 keepAliveTime,
                 TimeUnit.SECONDS,
                 new ArrayBlockingQueue<>(queueCapacity),
-                new ThreadPoolExecutor.CallerRunsPolicy() // 拒绝策略：由调用线程处理（防止丢任务）
+                counting("commonExecutor", new ThreadPoolExecutor.CallerRunsPolicy()) // 拒绝策略：由调用线程处理（防止丢任务）
+        ));
+    }
+
+    @Bean("fanoutExecutor")
+    public Executor fanoutExecutor() {
+        // FanOut 并行查询：任务很短且调用方在等结果，排队满时由调用方自己执行 (退化为串行)
+        int poolSize = executorProperties.getFanoutPoolSize();
+        if (Threading.VIRTUAL.isActive(environment)) {
+            return virtual("fanoutExecutor", "fanout-vt-", poolSize, executorProperties.getFanoutQueueCapacity());
+        }
+
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(
+                poolSize,
+                poolSize,
+                60,
+                TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(executorProperties.getFanoutQueueCapacity()),
+                counting("fanoutExecutor", new ThreadPoolExecutor.CallerRunsPolicy())
         );
+        executor.allowCoreThreadTimeOut(true);
+        return monitor("fanoutExecutor", executor);
+    }
+
+    @Bean("pushExecutor")
+    public ThreadPoolExecutor pushExecutor() {
+        // SSE 写出线程：连接本身不占线程，只有在有事件待发送时才借用线程写 socket
+        // 队列满时直接拒绝：不能让 Redis 订阅线程或请求线程去写慢客户端的 socket，事件留在连接自己的队列里稍后再发
+        int corePoolSize = Math.max(2, Runtime.getRuntime().availableProcessors());
+
+        return monitor("pushExecutor", new ThreadPoolExecutor(
+                corePoolSize,
+                corePoolSize,
+                60,
+                TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(2000),
+                counting("pushExecutor", new ThreadPoolExecutor.AbortPolicy())
+        ));
+    }
+
+    @Bean("mediaExecutor")
+    public ThreadPoolExecutor mediaExecutor() {
+        // 视频处理线程：每个任务会拉起 ffmpeg 子进程，线程数即并发转码数
+        // 队列满时直接拒绝，视频保持“待处理”状态，由定时扫描补上
+        int poolSize = Math.max(1, mediaProcessingProperties.getConcurrency());
+
+        return monitor("mediaExecutor", new ThreadPoolExecutor(
+                poolSize,
+                poolSize,
+                60,
+                TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(100),
+                counting("mediaExecutor", new ThreadPoolExecutor.AbortPolicy())
+        ));
+    }
+
+    /**
+     * 每个任务一个虚拟线程，信号量限制并发；指标名与线程池一致，看板不用改
+     */
+    private Executor virtual(String name, String threadNamePrefix, int concurrency, int maxWaiting) {
+        Counter rejected = rejectedCounter(name);
+        BoundedVirtualThreadExecutor executor = new BoundedVirtualThreadExecutor(threadNamePrefix,
+                concurrency, maxWaiting, rejected::increment);
+        Gauge.builder("executor.active", executor, BoundedVirtualThreadExecutor::getActiveCount)
+                .tag("name", name).register(meterRegistry);
+        Gauge.builder("executor.queued", executor, BoundedVirtualThreadExecutor::getWaitingCount)
+                .tag("name", name).register(meterRegistry);
+        return executor;
+    }
+
+    private ThreadPoolExecutor monitor(String name, ThreadPoolExecutor executor) {
+        new ExecutorServiceMetrics(executor, name, Tags.empty()).bindTo(meterRegistry);
+        return executor;
+    }
+
+    private RejectedExecutionHandler counting(String name, RejectedExecutionHandler policy) {
+        Counter rejected = rejectedCounter(name);
+        return (task, executor) -> {
+            rejected.increment();
+            policy.rejectedExecution(task, executor);
+        };
+    }
+
+    private Counter rejectedCounter(String name) {
+        return Counter.builder("teektok.executor.rejected")
+                .description("触发拒绝策略的任务数")
+                .tag("name", name)
+                .register(meterRegistry);
     }
-}
\ No newline at end of file
+}
@@ -3,24 +3,24 @@ package teektok.config;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Configuration;
-import org.springframework.web.servlet.config.annotation.ResourceHandlerRegistry;
 import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+import teektok.interceptor.RequestMetricsInterceptor;
 import teektok.interceptor.TokenInterceptor;
 
-import java.nio.file.Path;
-import java.nio.file.Paths;
-
 @Configuration
 public class WebConfig implements WebMvcConfigurer {
     @Autowired
     private TokenInterceptor tokenInterceptor;
 
     @Autowired
-    private MediaProperties mediaProperties;
+    private RequestMetricsInterceptor requestMetricsInterceptor;
 
     @Override
     public void addInterceptors(InterceptorRegistry registry) {
+        // 先注册：统计范围覆盖后面的拦截器
+        registry.addInterceptor(requestMetricsInterceptor)
+                .addPathPatterns("/api/**");
         registry.addInterceptor(tokenInterceptor)
                 .addPathPatterns("/api/**")
                 .excludePathPatterns(
@@ -30,14 +30,4 @@ public class WebConfig implements WebMvcConfigurer {
                     "/api/analysis/**"
                 );
     }
-
-    @Override
-    public void addResourceHandlers(ResourceHandlerRegistry registry) {
-        String localDir = mediaProperties.getLocalDir();
-        if (localDir == null || localDir.isBlank()) return;
-
-        Path dir = Paths.get(localDir).normalize().toAbsolutePath();
-        String location = dir.toUri().toString();
-        registry.addResourceHandler("/uploads/**").addResourceLocations(location.endsWith("/") ? location : location + "/");
-    }
 }
@@ -5,11 +5,16 @@ import io.swagger.v3.oas.annotations.tags.Tag;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 import teektok.dto.analysis.VideoAnalysisVO;
+import teektok.dto.analysis.VideoRankVO;
+import teektok.dto.analysis.VideoTrendPointVO;
 import teektok.dto.commen.Result;
 import teektok.service.IAnalysisService;
 
+import java.util.List;
+
 @Tag(name = "数据分析模块", description = "提供全站或个人的数据统计服务")
 @RestController
 @RequestMapping("/api/analysis")
@@ -29,4 +34,31 @@ public class AnalysisController {
         VideoAnalysisVO vo = analysisService.getVideoAnalysis();
         return Result.success(vo);
     }
+
+    /**
+     * 全站计数趋势
+     * 接口: GET /analysis/trend?granularity=hour&size=24
+     * 返回: 每小时 (或每天) 一个点，包含该时间桶内的播放/点赞/评论/分享/收藏增量
+     */
+    @Operation(summary = "获取全站计数趋势 (按小时/按天)")
+    @GetMapping("/trend")
+    public Result<List<VideoTrendPointVO>> getTrend(
+            @RequestParam(value = "granularity", defaultValue = "hour") String granularity,
+            @RequestParam(value = "size", required = false) Integer size) {
+        return Result.success(analysisService.getTrend(granularity, size));
+    }
+
+    /**
+     * 时间窗口内的视频排行
+     * 接口: GET /analysis/top?counter=play&window=day&limit=10
+     * window: hour 当前小时 / day 最近 24 小时 / week 最近 7 天
+     */
+    @Operation(summary = "获取时间窗口内播放/点赞最多的视频")
+    @GetMapping("/top")
+    public Result<List<VideoRankVO>> getTopVideos(
+            @RequestParam(value = "counter", defaultValue = "play") String counter,
+            @RequestParam(value = "window", defaultValue = "day") String window,
+            @RequestParam(value = "limit", defaultValue = "10") Integer limit) {
+        return Result.success(analysisService.getTopVideos(counter, window, limit));
+    }
 }
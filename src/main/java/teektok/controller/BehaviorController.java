@@ -2,6 +2,7 @@ package teektok.controller;
 
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.extern.slf4j.Slf4j;
 import org.apache.kafka.common.serialization.VoidDeserializer;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.web.bind.annotation.*;
@@ -13,6 +14,7 @@ import teektok.dto.comment.CommentCreateDTO;
 import teektok.service.IBehaviorService;
 import teektok.utils.BaseContext;
 
+@Slf4j
 @Tag(name = "用户行为模块", description = "处理点赞、评论、转发等互动行为")
 @RestController
 @RequestMapping("/api/behavior")
@@ -38,7 +40,7 @@ public class BehaviorController {
     @Operation(summary = "点赞视频")
     @PostMapping("/like")
     public Result<Void> like(@RequestBody BehaviorDTO dto) {
-        System.out.println("收到点赞请求: videoId=" + dto.getVideoId()); // 临时日志
+        log.debug("收到点赞请求: videoId={}", dto.getVideoId());
         behaviorService.like(dto.getVideoId(), getCurrentUserId());
         return Result.success();
     }
@@ -86,7 +88,7 @@ public class BehaviorController {
     @Operation(summary = "收藏视频")
     @PostMapping("/favorite")
     public Result<Void> favorite(@RequestBody BehaviorDTO dto) {
-        System.out.println("收到收藏请求: videoId=" + dto.getVideoId()); // 临时日志
+        log.debug("收到收藏请求: videoId={}", dto.getVideoId());
         behaviorService.favorite(dto.getVideoId(), getCurrentUserId());
         return Result.success();
     }
@@ -4,9 +4,12 @@ import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.web.bind.annotation.*;
+import teektok.VO.CursorResult;
+import teektok.VO.DmInboxVO;
 import teektok.VO.PageResult;
 import teektok.dto.commen.Result;
 import teektok.dto.dm.DmSendDTO;
+import teektok.entity.DmInbox;
 import teektok.entity.DmMessage;
 import teektok.entity.User;
 import teektok.entity.Video;
@@ -18,6 +21,9 @@ import teektok.utils.BaseContext;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Tag(name = "私信模块", description = "用户私信（文字/分享视频）")
 @RestController
@@ -111,5 +117,76 @@ public class DmController {
         Collections.reverse(ordered);
         return Result.success(new PageResult<>(ordered, result.getTotal()));
     }
-}
 
+    @Operation(summary = "获取与某用户的私信会话（游标分页，按时间正序）")
+    @GetMapping("/session/{targetId}/messages")
+    public Result<CursorResult<DmMessage>> sessionByCursor(
+            @PathVariable("targetId") Long targetId,
+            @RequestParam(required = false) Long cursor,
+            @RequestParam(defaultValue = "50") int size
+    ) {
+        Long userId = getCurrentUserId();
+        if (userId == null) return Result.fail(401, "未登录");
+        if (targetId == null) return Result.fail(400, "参数错误");
+        size = Math.max(1, Math.min(size, 100));
+
+        return Result.success(dmService.listSessionMessagesByCursor(userId, targetId, cursor, size));
+    }
+
+    @Operation(summary = "私信收件箱（会话列表）")
+    @GetMapping("/inbox")
+    public Result<PageResult<DmInboxVO>> inbox(
+            @RequestParam(defaultValue = "1") int page,
+            @RequestParam(defaultValue = "20") int size
+    ) {
+        Long userId = getCurrentUserId();
+        if (userId == null) return Result.fail(401, "未登录");
+
+        PageResult<DmInbox> result = dmService.listInbox(userId, page, size);
+        List<DmInbox> records = result.getList();
+        if (records == null || records.isEmpty()) {
+            return Result.success(new PageResult<>(Collections.emptyList(), result.getTotal()));
+        }
+
+        List<Long> peerIds = records.stream().map(DmInbox::getPeerId).distinct().toList();
+        Map<Long, User> userMap = userMapper.selectBatchIds(peerIds).stream()
+                .collect(Collectors.toMap(User::getId, Function.identity()));
+
+        List<DmInboxVO> voList = new ArrayList<>(records.size());
+        for (DmInbox inbox : records) {
+            DmInboxVO vo = new DmInboxVO();
+            vo.setPeerId(inbox.getPeerId());
+            User peer = userMap.get(inbox.getPeerId());
+            if (peer != null) {
+                vo.setPeerUsername(peer.getUsername());
+                vo.setPeerAvatar(peer.getAvatar());
+            }
+            vo.setLastSeq(inbox.getLastSeq());
+            vo.setLastSenderId(inbox.getLastSenderId());
+            vo.setLastMsgType(inbox.getLastMsgType());
+            vo.setLastPreview(inbox.getLastPreview());
+            vo.setUnreadCount(inbox.getUnreadCount());
+            vo.setUpdateTime(inbox.getUpdateTime());
+            voList.add(vo);
+        }
+        return Result.success(new PageResult<>(voList, result.getTotal()));
+    }
+
+    @Operation(summary = "私信未读数量")
+    @GetMapping("/unread/count")
+    public Result<Long> unreadCount() {
+        Long userId = getCurrentUserId();
+        if (userId == null) return Result.fail(401, "未登录");
+        return Result.success(dmService.countUnread(userId));
+    }
+
+    @Operation(summary = "将与某用户的会话标记为已读")
+    @PostMapping("/session/{targetId}/read")
+    public Result<Void> markSessionRead(@PathVariable("targetId") Long targetId) {
+        Long userId = getCurrentUserId();
+        if (userId == null) return Result.fail(401, "未登录");
+        if (targetId == null) return Result.fail(400, "参数错误");
+        dmService.markSessionRead(userId, targetId);
+        return Result.success();
+    }
+}
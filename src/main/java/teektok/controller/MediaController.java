@@ -0,0 +1,215 @@
+package teektok.controller;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpRange;
+import org.springframework.http.MediaType;
+import org.springframework.http.MediaTypeFactory;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.HandlerMapping;
+import teektok.config.MediaProperties;
+import teektok.utils.MediaFileCache;
+
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.List;
+
+/**
+ * 本地存储 (teektok.media.storage=local) 的视频文件访问：/uploads/**
+ * 支持单段 Range (播放器拖动进度)、ETag / Last-Modified 协商缓存；
+ * Tomcat 支持时交给 sendfile 零拷贝发送，否则用缓存的 FileChannel.transferTo 写出
+ */
+@Slf4j
+@Tag(name = "媒体文件", description = "本地存储的视频文件访问")
+@RestController
+public class MediaController {
+
+    private static final String PREFIX = "/uploads/";
+
+    // Tomcat sendfile 约定的请求属性 (org.apache.catalina.Globals)
+    private static final String SENDFILE_SUPPORTED = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+
+    // 小于该大小直接写出，sendfile 的额外开销不划算 (与 Tomcat DefaultServlet 默认值一致)
+    private static final long SENDFILE_MIN_SIZE = 48 * 1024;
+
+    @Autowired
+    private MediaProperties mediaProperties;
+
+    @Autowired
+    private MediaFileCache mediaFileCache;
+
+    @Operation(summary = "获取本地存储的媒体文件（支持 Range）")
+    @RequestMapping(value = "/uploads/**", method = {RequestMethod.GET, RequestMethod.HEAD})
+    public void serve(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        Path file = resolve(request);
+        BasicFileAttributes attrs;
+        try {
+            attrs = file == null ? null : Files.readAttributes(file, BasicFileAttributes.class);
+        } catch (NoSuchFileException e) {
+            attrs = null;
+        }
+        if (attrs == null || !attrs.isRegularFile()) {
+            response.sendError(HttpServletResponse.SC_NOT_FOUND);
+            return;
+        }
+
+        long size = attrs.size();
+        long lastModified = attrs.lastModifiedTime().toMillis();
+        String etag = "\"" + Long.toHexString(size) + "-" + Long.toHexString(lastModified) + "\"";
+
+        response.setHeader(HttpHeaders.ACCEPT_RANGES, "bytes");
+        response.setHeader(HttpHeaders.ETAG, etag);
+        response.setDateHeader(HttpHeaders.LAST_MODIFIED, lastModified);
+        response.setHeader(HttpHeaders.CACHE_CONTROL, "public, max-age=" + mediaProperties.getCacheMaxAgeSeconds());
+
+        if (notModified(request, etag, lastModified)) {
+            response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+            return;
+        }
+
+        long start = 0;
+        long end = size - 1;
+        String rangeHeader = request.getHeader(HttpHeaders.RANGE);
+        if (rangeHeader != null && ifRangeMatches(request, etag, lastModified)) {
+            HttpRange range = parseSingleRange(rangeHeader);
+            if (range != null) {
+                try {
+                    start = range.getRangeStart(size);
+                    end = range.getRangeEnd(size);
+                } catch (IllegalArgumentException e) {
+                    start = size;
+                }
+                // HttpRange 不校验起点是否越过文件末尾
+                if (start >= size || start > end) {
+                    response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes */" + size);
+                    response.sendError(HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE);
+                    return;
+                }
+                response.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+                response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes " + start + "-" + end + "/" + size);
+            }
+        }
+
+        long length = end - start + 1;
+        response.setContentType(MediaTypeFactory.getMediaType(file.getFileName().toString())
+                .orElse(MediaType.APPLICATION_OCTET_STREAM).toString());
+        response.setContentLengthLong(length);
+        if ("HEAD".equals(request.getMethod()) || length <= 0) {
+            return;
+        }
+
+        if (length >= SENDFILE_MIN_SIZE && Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORTED))) {
+            // 由容器在请求处理结束后直接从文件发送到 socket (sendfile)，不经过用户态缓冲区
+            request.setAttribute(SENDFILE_FILENAME, file.toString());
+            request.setAttribute(SENDFILE_START, start);
+            request.setAttribute(SENDFILE_END, end + 1);
+            return;
+        }
+
+        try (MediaFileCache.Handle handle = mediaFileCache.acquire(file, attrs)) {
+            // 按位置 transferTo 不修改 channel 的 position，同一个句柄可以被多个请求并发使用
+            FileChannel channel = handle.channel();
+            WritableByteChannel out = Channels.newChannel(response.getOutputStream());
+            long pos = start;
+            long remaining = length;
+            while (remaining > 0) {
+                long n = channel.transferTo(pos, remaining, out);
+                if (n <= 0) break;
+                pos += n;
+                remaining -= n;
+            }
+        } catch (IOException e) {
+            // 拖动进度时播放器会主动断开之前的请求，属于正常情况
+            log.debug("媒体文件发送中断 {}: {}", file, e.getMessage());
+        }
+    }
+
+    /**
+     * 解析出 localDir 下的文件；越界路径、隐藏文件 (.staging 暂存分片) 和未写完的 .part 文件一律返回 null
+     */
+    private Path resolve(HttpServletRequest request) {
+        String localDir = mediaProperties.getLocalDir();
+        if (localDir == null || localDir.isBlank()) return null;
+
+        Object attr = request.getAttribute(HandlerMapping.PATH_WITHIN_HANDLER_MAPPING_ATTRIBUTE);
+        String path = attr != null ? attr.toString() : request.getRequestURI();
+        if (!path.startsWith(PREFIX)) return null;
+        String relative = path.substring(PREFIX.length());
+        if (relative.isEmpty() || relative.contains("\\") || relative.endsWith(".part")) return null;
+        for (String segment : relative.split("/")) {
+            if (segment.isEmpty() || segment.startsWith(".")) return null;
+        }
+
+        Path root = Paths.get(localDir).normalize().toAbsolutePath();
+        Path file = root.resolve(relative).normalize();
+        return file.startsWith(root) ? file : null;
+    }
+
+    private boolean notModified(HttpServletRequest request, String etag, long lastModified) {
+        String ifNoneMatch = request.getHeader(HttpHeaders.IF_NONE_MATCH);
+        if (ifNoneMatch != null) {
+            // 有 If-None-Match 时忽略 If-Modified-Since
+            return etagMatches(ifNoneMatch, etag);
+        }
+        long ifModifiedSince = dateHeader(request, HttpHeaders.IF_MODIFIED_SINCE);
+        return ifModifiedSince >= 0 && lastModified / 1000 <= ifModifiedSince / 1000;
+    }
+
+    // If-Range 不匹配 (文件已变化) 时忽略 Range，返回完整内容
+    private boolean ifRangeMatches(HttpServletRequest request, String etag, long lastModified) {
+        String ifRange = request.getHeader(HttpHeaders.IF_RANGE);
+        if (ifRange == null) return true;
+        if (ifRange.startsWith("\"") || ifRange.startsWith("W/")) {
+            return ifRange.trim().equals(etag);
+        }
+        long date = dateHeader(request, HttpHeaders.IF_RANGE);
+        return date >= 0 && lastModified / 1000 <= date / 1000;
+    }
+
+    /**
+     * 只处理单段 Range；多段或格式错误时返回 null，按 RFC 7233 忽略 Range 返回完整内容
+     */
+    private HttpRange parseSingleRange(String header) {
+        try {
+            List<HttpRange> ranges = HttpRange.parseRanges(header);
+            return ranges.size() == 1 ? ranges.get(0) : null;
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    private static boolean etagMatches(String header, String etag) {
+        for (String candidate : header.split(",")) {
+            String tag = candidate.trim();
+            if (tag.equals("*") || tag.equals(etag) || tag.equals("W/" + etag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static long dateHeader(HttpServletRequest request, String name) {
+        try {
+            return request.getDateHeader(name);
+        } catch (IllegalArgumentException e) {
+            return -1;
+        }
+    }
+}
@@ -42,10 +42,13 @@ public class NotificationController {
         PageResult<Notification> pageResult = notificationService.listNotifications(getCurrentUserId(), page, size);
         List<Notification> records = pageResult.getList();
 
-        Set<Long> actorIds = records.stream()
-                .map(Notification::getActorId)
-                .filter(Objects::nonNull)
-                .collect(Collectors.toSet());
+        Set<Long> actorIds = new HashSet<>();
+        for (Notification notification : records) {
+            if (notification.getActorId() != null) {
+                actorIds.add(notification.getActorId());
+            }
+            actorIds.addAll(parseActorIds(notification.getLatestActorIds()));
+        }
 
         Map<Long, User> userMap = Collections.emptyMap();
         if (!actorIds.isEmpty()) {
@@ -62,12 +65,32 @@ public class NotificationController {
                 vo.setActorUsername(actor.getUsername());
                 vo.setActorAvatar(actor.getAvatar());
             }
+            vo.setActorCount(notification.getActorCount() == null ? 1 : notification.getActorCount());
+
+            List<String> latestActorNames = new ArrayList<>();
+            for (Long latestId : parseActorIds(notification.getLatestActorIds())) {
+                User latest = userMap.get(latestId);
+                latestActorNames.add(latest != null ? latest.getUsername() : "用户" + latestId);
+            }
+            vo.setLatestActorNames(latestActorNames);
             voList.add(vo);
         }
 
         return Result.success(new PageResult<>(voList, pageResult.getTotal()));
     }
 
+    private List<Long> parseActorIds(String ids) {
+        if (ids == null || ids.isBlank()) return Collections.emptyList();
+        List<Long> result = new ArrayList<>();
+        for (String s : ids.split(",")) {
+            try {
+                result.add(Long.valueOf(s.trim()));
+            } catch (NumberFormatException ignored) {
+            }
+        }
+        return result;
+    }
+
     @Operation(summary = "未读数量")
     @GetMapping("/unread/count")
     public Result<Long> unreadCount() {
@@ -0,0 +1,38 @@
+package teektok.controller;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import teektok.service.IPushService;
+import teektok.utils.BaseContext;
+
+@Tag(name = "推送模块", description = "SSE 实时推送（通知/私信）")
+@RestController
+@RequestMapping("/api/push")
+public class PushController {
+
+    @Autowired
+    private IPushService pushService;
+
+    /**
+     * EventSource 无法设置请求头，token 通过 ?token= 传递（见 TokenInterceptor）
+     * 事件：connected / notification {unread} / dm {senderId, messageId, msgType, preview, unread}
+     */
+    @Operation(summary = "订阅实时推送（text/event-stream）")
+    @GetMapping(value = "/subscribe", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter subscribe() {
+        Long userId = BaseContext.getCurrentId();
+        if (userId == null) {
+            // 拦截器已校验登录，这里只是兜底：直接结束流
+            SseEmitter emitter = new SseEmitter(0L);
+            emitter.complete();
+            return emitter;
+        }
+        return pushService.subscribe(userId);
+    }
+}
@@ -0,0 +1,89 @@
+package teektok.controller;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import teektok.VO.SearchResult;
+import teektok.dto.commen.Result;
+import teektok.dto.search.SearchSuggestVO;
+import teektok.dto.user.UserSearchVO;
+import teektok.dto.video.VideoSearchVO;
+import teektok.service.IUserService;
+import teektok.service.IVideoService;
+import teektok.service.impl.SearchIndexService;
+import teektok.utils.BaseContext;
+import teektok.utils.SearchIndex;
+
+import java.util.List;
+
+@Tag(name = "搜索模块", description = "用户名/视频标题全文搜索与输入联想")
+@RestController
+@RequestMapping("/api/search")
+public class SearchController {
+
+    private static final int MAX_SUGGEST_SIZE = 20;
+
+    @Autowired
+    private IUserService userService;
+
+    @Autowired
+    private IVideoService videoService;
+
+    @Autowired
+    private SearchIndexService searchIndexService;
+
+    /**
+     * 搜索用户
+     * 接口: GET /search/users?keyword=张&size=20&cursor=
+     * 返回: 完全匹配 > 前缀匹配 > 包含，同档内新用户在前；下一页把 nextCursor 原样带回
+     */
+    @Operation(summary = "按用户名/ID搜索用户 (游标分页)")
+    @GetMapping("/users")
+    public Result<SearchResult<UserSearchVO>> searchUsers(
+            @RequestParam String keyword,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false, defaultValue = "20") Integer size) {
+        Long userId = BaseContext.getCurrentId();
+        if (userId == null) {
+            return Result.fail(401, "未登录");
+        }
+        return Result.success(userService.searchUsers(userId, keyword, cursor, size));
+    }
+
+    /**
+     * 搜索视频 (只返回审核通过的)
+     * 接口: GET /search/videos?keyword=猫&size=20&cursor=
+     */
+    @Operation(summary = "按标题搜索视频 (游标分页)")
+    @GetMapping("/videos")
+    public Result<SearchResult<VideoSearchVO>> searchVideos(
+            @RequestParam String keyword,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false, defaultValue = "20") Integer size) {
+        return Result.success(videoService.searchVideos(keyword, cursor, size));
+    }
+
+    /**
+     * 输入联想：用户名或标题以 keyword 开头的前 size 条
+     * 接口: GET /search/suggest?type=user&keyword=张&size=10
+     */
+    @Operation(summary = "搜索输入联想")
+    @GetMapping("/suggest")
+    public Result<List<SearchSuggestVO>> suggest(
+            @RequestParam(defaultValue = SearchIndex.USER) String type,
+            @RequestParam String keyword,
+            @RequestParam(required = false, defaultValue = "10") Integer size) {
+        if (!SearchIndex.USER.equals(type) && !SearchIndex.VIDEO.equals(type)) {
+            return Result.fail(400, "不支持的搜索类型: " + type);
+        }
+        int limit = size == null || size < 1 ? 10 : Math.min(size, MAX_SUGGEST_SIZE);
+        List<SearchSuggestVO> list = searchIndexService.suggest(type, keyword, limit).stream()
+                .map(hit -> new SearchSuggestVO(hit.id(), hit.text()))
+                .toList();
+        return Result.success(list);
+    }
+}
@@ -2,15 +2,19 @@ package teektok.controller;
 
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletRequest;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.MediaType;
 import org.springframework.web.bind.annotation.*;
 import teektok.VO.PageResult;
 import teektok.dto.behavior.PlayDTO;
 import teektok.dto.commen.Result;
+import teektok.dto.video.UploadSessionInitDTO;
+import teektok.dto.video.UploadSessionVO;
 import teektok.dto.video.VideoQueryDTO;
 import teektok.dto.video.VideoUploadDTO;
 import teektok.dto.video.VideoVO;
+import teektok.service.IUploadSessionService;
 import teektok.service.IVideoService;
 import teektok.utils.AliyunOSSOperator;
 import teektok.utils.BaseContext;
@@ -25,6 +29,9 @@ public class VideoController {
     @Autowired
     private AliyunOSSOperator ossOperator;
 
+    @Autowired
+    private IUploadSessionService uploadSessionService;
+
     public VideoController(IVideoService videoService) {
         this.videoService = videoService;
     }
@@ -47,6 +54,87 @@ public class VideoController {
         }
     }
 
+    // ==================== 分片上传（可续传） ====================
+    @Operation(summary = "初始化分片上传")
+    @PostMapping("/upload/session")
+    public Result<UploadSessionVO> initUploadSession(@RequestBody UploadSessionInitDTO dto) {
+        Long userId = BaseContext.getCurrentId();
+        if (userId == null) {
+            return Result.fail(401, "未登录");
+        }
+        try {
+            return Result.success(uploadSessionService.init(userId, dto));
+        } catch (RuntimeException e) {
+            return Result.fail(500, e.getMessage());
+        }
+    }
+
+    /**
+     * 请求体为分片的原始字节 (application/octet-stream)，不同分片可并行上传，失败的分片单独重传
+     */
+    @Operation(summary = "上传第 N 个分片")
+    @PutMapping("/upload/session/{uploadId}/part/{partNumber}")
+    public Result<Void> uploadPart(@PathVariable String uploadId,
+                                   @PathVariable int partNumber,
+                                   HttpServletRequest request) {
+        Long userId = BaseContext.getCurrentId();
+        if (userId == null) {
+            return Result.fail(401, "未登录");
+        }
+        try {
+            uploadSessionService.uploadPart(userId, uploadId, partNumber,
+                    request.getInputStream(), request.getContentLengthLong());
+            return Result.success();
+        } catch (RuntimeException e) {
+            return Result.fail(500, e.getMessage());
+        } catch (Exception e) {
+            return Result.fail(500, "上传分片失败");
+        }
+    }
+
+    @Operation(summary = "查询分片上传进度（断点续传时获取已上传的分片）")
+    @GetMapping("/upload/session/{uploadId}")
+    public Result<UploadSessionVO> uploadSessionStatus(@PathVariable String uploadId) {
+        Long userId = BaseContext.getCurrentId();
+        if (userId == null) {
+            return Result.fail(401, "未登录");
+        }
+        try {
+            return Result.success(uploadSessionService.status(userId, uploadId));
+        } catch (RuntimeException e) {
+            return Result.fail(500, e.getMessage());
+        }
+    }
+
+    @Operation(summary = "完成分片上传并创建视频")
+    @PostMapping("/upload/session/{uploadId}/complete")
+    public Result<UploadSessionVO> completeUploadSession(@PathVariable String uploadId) {
+        Long userId = BaseContext.getCurrentId();
+        if (userId == null) {
+            return Result.fail(401, "未登录");
+        }
+        try {
+            return Result.success(uploadSessionService.complete(userId, uploadId));
+        } catch (RuntimeException e) {
+            return Result.fail(500, e.getMessage());
+        }
+    }
+
+    @Operation(summary = "取消分片上传")
+    @DeleteMapping("/upload/session/{uploadId}")
+    public Result<Void> abortUploadSession(@PathVariable String uploadId) {
+        Long userId = BaseContext.getCurrentId();
+        if (userId == null) {
+            return Result.fail(401, "未登录");
+        }
+        try {
+            uploadSessionService.abort(userId, uploadId);
+            return Result.success();
+        } catch (RuntimeException e) {
+            return Result.fail(500, e.getMessage());
+        }
+    }
+
     // ==================== 视频列表 ====================
 
     @Operation(summary = "获取视频列表")
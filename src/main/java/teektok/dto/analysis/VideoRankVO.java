@@ -0,0 +1,14 @@
+package teektok.dto.analysis;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Data;
+
+@Data
+@Schema(description = "时间窗口内的视频排行")
+public class VideoRankVO {
+    private Long videoId;
+    private String title;
+    private String coverUrl;
+    @Schema(description = "窗口内的播放数/点赞数增量")
+    private Long count;
+}
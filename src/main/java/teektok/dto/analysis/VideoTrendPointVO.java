@@ -0,0 +1,20 @@
+package teektok.dto.analysis;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+@Data
+@Schema(description = "全站计数趋势中的一个时间桶 (该小时/该天内的增量)")
+public class VideoTrendPointVO {
+    @Schema(description = "时间桶起点")
+    @JsonFormat(pattern = "yyyy-MM-dd HH:mm:ss", timezone = "GMT+8")
+    private LocalDateTime time;
+    private Long playCount;
+    private Long likeCount;
+    private Long commentCount;
+    private Long shareCount;
+    private Long favoriteCount;
+}
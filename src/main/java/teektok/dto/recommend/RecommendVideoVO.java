@@ -18,6 +18,12 @@ public class RecommendVideoVO {
     @Schema(description = "封面图地址")
     private String coverUrl;
 
+    @Schema(description = "HLS 播放列表地址（未切片时为空，播放 videoUrl）")
+    private String hlsUrl;
+
+    @Schema(description = "时长（毫秒）")
+    private Long durationMs;
+
     @Schema(description = "视频描述")
     private String description;
 
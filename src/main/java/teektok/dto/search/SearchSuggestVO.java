@@ -0,0 +1,16 @@
+package teektok.dto.search;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+@Data
+@AllArgsConstructor
+@Schema(description = "搜索联想项")
+public class SearchSuggestVO {
+    @Schema(description = "用户ID或视频ID")
+    private Long id;
+
+    @Schema(description = "用户名或视频标题")
+    private String text;
+}
@@ -0,0 +1,27 @@
+package teektok.dto.video;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Data;
+
+@Data
+@Schema(description = "分片上传初始化请求")
+public class UploadSessionInitDTO {
+
+    @Schema(description = "原始文件名")
+    private String fileName;
+
+    @Schema(description = "文件 MIME 类型")
+    private String contentType;
+
+    @Schema(description = "文件总大小（字节）")
+    private Long fileSize;
+
+    @Schema(description = "期望的分片大小（字节），不传使用服务端默认值")
+    private Integer partSize;
+
+    @Schema(description = "视频标题")
+    private String title;
+
+    @Schema(description = "视频简介")
+    private String description;
+}
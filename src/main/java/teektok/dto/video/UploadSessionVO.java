@@ -0,0 +1,32 @@
+package teektok.dto.video;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+@Schema(description = "分片上传会话状态")
+public class UploadSessionVO {
+
+    @Schema(description = "上传会话ID")
+    private String uploadId;
+
+    @Schema(description = "分片大小（字节），除最后一片外每片必须等于该值")
+    private Integer partSize;
+
+    @Schema(description = "分片总数")
+    private Integer totalParts;
+
+    @Schema(description = "已上传的分片序号（从 1 开始）")
+    private List<Integer> uploadedParts;
+
+    @Schema(description = "状态：uploading / completed")
+    private String status;
+
+    @Schema(description = "完成后生成的视频ID")
+    private Long videoId;
+
+    @Schema(description = "完成后的视频地址")
+    private String videoUrl;
+}
@@ -0,0 +1,18 @@
+package teektok.dto.video;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Data;
+
+@Data
+@Schema(description = "视频搜索结果")
+public class VideoSearchVO {
+    private Long videoId;
+    private String title;
+    private String coverUrl;
+
+    @Schema(description = "时长（毫秒）")
+    private Long durationMs;
+
+    @Schema(description = "上传者ID")
+    private Long uploaderId;
+}
@@ -10,6 +10,18 @@ public class VideoVO {
     private String title;
     private String videoUrl;
     private String coverUrl;
+
+    @Schema(description = "HLS 播放列表地址（未切片时为空，播放 videoUrl）")
+    private String hlsUrl;
+
+    @Schema(description = "时长（毫秒）")
+    private Long durationMs;
+
+    @Schema(description = "宽度")
+    private Integer width;
+
+    @Schema(description = "高度")
+    private Integer height;
     private Long playCount;
     private Long likeCount;
     private Long commentCount;
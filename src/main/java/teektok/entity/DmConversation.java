@@ -0,0 +1,41 @@
+package teektok.entity;
+
+import com.baomidou.mybatisplus.annotation.IdType;
+import com.baomidou.mybatisplus.annotation.TableId;
+import com.baomidou.mybatisplus.annotation.TableName;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * 私信会话：两个用户之间唯一一行，id 为 "较小uid_较大uid"
+ */
+@Data
+@TableName("dm_conversation")
+public class DmConversation {
+    @TableId(type = IdType.INPUT)
+    private String id;
+
+    private Long userLow;
+
+    private Long userHigh;
+
+    /**
+     * 会话内最新消息的序号，消息 seq 从 1 开始连续递增
+     */
+    private Long lastSeq;
+
+    /**
+     * user_low 发出的消息数 (用于“未关注只能发一条”的判断)
+     */
+    private Integer lowSentCount;
+
+    /**
+     * user_high 发出的消息数
+     */
+    private Integer highSentCount;
+
+    private Long lastMessageId;
+
+    private LocalDateTime updateTime;
+}
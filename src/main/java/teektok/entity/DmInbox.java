@@ -0,0 +1,40 @@
+package teektok.entity;
+
+import com.baomidou.mybatisplus.annotation.IdType;
+import com.baomidou.mybatisplus.annotation.TableId;
+import com.baomidou.mybatisplus.annotation.TableName;
+import com.fasterxml.jackson.annotation.JsonFormat;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * 私信收件箱：每个用户的每个会话一行，(user_id, peer_id) 唯一
+ */
+@Data
+@TableName("dm_inbox")
+public class DmInbox {
+    @TableId(type = IdType.AUTO)
+    private Long id;
+
+    private Long userId;
+
+    private Long peerId;
+
+    private String conversationId;
+
+    private Long lastSeq;
+
+    private Long lastMessageId;
+
+    private Long lastSenderId;
+
+    private Integer lastMsgType;
+
+    private String lastPreview;
+
+    private Integer unreadCount;
+
+    @JsonFormat(pattern = "yyyy-MM-dd HH:mm:ss", timezone = "GMT+8")
+    private LocalDateTime updateTime;
+}
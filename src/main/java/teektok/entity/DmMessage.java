@@ -18,6 +18,16 @@ public class DmMessage {
 
     private Long receiverId;
 
+    /**
+     * 会话ID "较小uid_较大uid"
+     */
+    private String conversationId;
+
+    /**
+     * 会话内序号，从 1 开始连续递增，用作游标
+     */
+    private Long seq;
+
     private Integer msgType;
 
     private String content;
@@ -0,0 +1,39 @@
+package teektok.entity;
+
+import com.baomidou.mybatisplus.annotation.IdType;
+import com.baomidou.mybatisplus.annotation.TableId;
+import com.baomidou.mybatisplus.annotation.TableName;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * 已存储的媒体文件，按内容哈希去重：同一存储后端内相同内容只保存一份
+ */
+@Data
+@TableName("media_object")
+public class MediaObject {
+    @TableId(type = IdType.AUTO)
+    private Long id;
+
+    /**
+     * 存储后端：oss / local
+     */
+    private String storage;
+
+    /**
+     * 文件内容哈希 (ContentHash，小写十六进制)
+     */
+    private String contentHash;
+
+    private Long size;
+
+    private String url;
+
+    /**
+     * 引用该文件的视频数 (视频目前是逻辑删除，文件不随视频删除)
+     */
+    private Integer refCount;
+
+    private LocalDateTime createTime;
+}
@@ -20,6 +20,22 @@ public class Notification {
     private Long targetId;
     private String content;
     private Integer isRead;
+
+    /**
+     * 聚合的操作人数 (非聚合通知为 1)
+     */
+    private Integer actorCount;
+
+    /**
+     * 最近的操作人ID，逗号分隔，最新的在前
+     */
+    private String latestActorIds;
+
+    /**
+     * 聚合键：userId:type:targetType:targetId:windowIndex，非聚合通知为 null
+     */
+    private String aggKey;
+
     @JsonFormat(pattern = "yyyy-MM-dd HH:mm:ss", timezone = "GMT+8")
     private LocalDateTime createTime;
 }
@@ -0,0 +1,37 @@
+package teektok.entity;
+
+import com.baomidou.mybatisplus.annotation.IdType;
+import com.baomidou.mybatisplus.annotation.TableId;
+import com.baomidou.mybatisplus.annotation.TableName;
+import com.fasterxml.jackson.annotation.JsonFormat;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * 用户行为汇总：每个 (用户, 行为类型, 视频) 一行，(user_id, behavior_type, video_id) 唯一
+ * 由 AsyncLogService 在写流水时同步累加；流水 (user_behavior) 过期归档后汇总仍保留
+ */
+@Data
+@TableName("user_behavior_rollup")
+public class UserBehaviorRollup {
+    @TableId(type = IdType.AUTO)
+    private Long id;
+
+    private Long userId;
+
+    /**
+     * 行为类型：1播放 2点赞 3收藏 4评论 5转发
+     */
+    private Integer behaviorType;
+
+    private Long videoId;
+
+    private Integer eventCount;
+
+    @JsonFormat(pattern = "yyyy-MM-dd HH:mm:ss", timezone = "GMT+8")
+    private LocalDateTime firstTime;
+
+    @JsonFormat(pattern = "yyyy-MM-dd HH:mm:ss", timezone = "GMT+8")
+    private LocalDateTime lastTime;
+}
@@ -37,6 +37,35 @@ public class Video {
      */
     private Integer isHot;
 
+    /**
+     * 文件内容哈希 (ContentHash)，相同内容的视频共用同一个存储文件
+     */
+    private String contentHash;
+
+    /**
+     * 转码处理状态：0待处理 1处理中 2已完成 3失败
+     */
+    private Integer processStatus;
+
+    /**
+     * 已尝试处理次数
+     */
+    private Integer processAttempts;
+
+    /**
+     * 时长（毫秒）与分辨率，由 ffprobe 解析
+     */
+    private Long durationMs;
+
+    private Integer width;
+
+    private Integer height;
+
+    /**
+     * HLS 主播放列表地址（未切片时为空，播放原文件）
+     */
+    private String hlsUrl;
+
     /**
      * 逻辑删除：0未删除 1已删除
      * 加了 @TableLogic 后，调用 deleteById 会自动变成 update is_deleted=1
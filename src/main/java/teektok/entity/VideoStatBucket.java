@@ -0,0 +1,43 @@
+package teektok.entity;
+
+import com.baomidou.mybatisplus.annotation.IdType;
+import com.baomidou.mybatisplus.annotation.TableId;
+import com.baomidou.mybatisplus.annotation.TableName;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * 全站计数汇总：(granularity, bucket_time) 唯一
+ * 由 SyncBufferToDBUtil 随 video_stat 一起增量累加，见 docs/sql/create_video_stat_bucket.sql
+ */
+@Data
+@TableName("video_stat_bucket")
+public class VideoStatBucket {
+
+    /**
+     * 累计总数，bucket_time 固定为 TOTAL_TIME
+     */
+    public static final int TOTAL = 0;
+    public static final int DAY = 1;
+    public static final int HOUR = 2;
+
+    public static final LocalDateTime TOTAL_TIME = LocalDateTime.of(1970, 1, 1, 0, 0);
+
+    @TableId(type = IdType.AUTO)
+    private Long id;
+
+    private Integer granularity;
+
+    private LocalDateTime bucketTime;
+
+    private Long playCount;
+
+    private Long likeCount;
+
+    private Long commentCount;
+
+    private Long shareCount;
+
+    private Long favoriteCount;
+}
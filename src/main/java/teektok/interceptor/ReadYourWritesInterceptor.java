@@ -0,0 +1,34 @@
+package teektok.interceptor;
+
+import org.apache.ibatis.executor.Executor;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.plugin.Interceptor;
+import org.apache.ibatis.plugin.Intercepts;
+import org.apache.ibatis.plugin.Invocation;
+import org.apache.ibatis.plugin.Signature;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import teektok.utils.BaseContext;
+import teektok.utils.ReplicaRoutingDataSource;
+
+/**
+ * MyBatis 插件：当前用户每执行一条 INSERT / UPDATE / DELETE，就让他接下来一段时间的只读事务走主库 (读自己的写)
+ * 只在开启读写分离时注册；异步任务等没有当前用户的写不记录
+ */
+@Component
+@ConditionalOnProperty(prefix = "teektok.datasource.routing", name = "enabled", havingValue = "true")
+@Intercepts({
+        @Signature(type = Executor.class, method = "update", args = {MappedStatement.class, Object.class})
+})
+public class ReadYourWritesInterceptor implements Interceptor {
+
+    @Autowired
+    private ReplicaRoutingDataSource replicaRoutingDataSource;
+
+    @Override
+    public Object intercept(Invocation invocation) throws Throwable {
+        replicaRoutingDataSource.markWrite(BaseContext.getCurrentId());
+        return invocation.proceed();
+    }
+}
@@ -0,0 +1,41 @@
+package teektok.interceptor;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.MethodParameter;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.http.server.ServerHttpResponse;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyAdvice;
+import teektok.config.RequestMetricsProperties;
+import teektok.utils.RequestMetrics;
+
+/**
+ * 开发环境：在写出响应体前把当前请求的 SQL / Redis 统计放进响应头 X-Request-Metrics
+ * (请求结束后响应已提交，无法再加响应头，因此在这里加；写出响应体之后的调用不计入)
+ */
+@RestControllerAdvice
+public class RequestMetricsHeaderAdvice implements ResponseBodyAdvice<Object> {
+
+    public static final String HEADER = "X-Request-Metrics";
+
+    @Autowired
+    private RequestMetricsProperties properties;
+
+    @Override
+    public boolean supports(MethodParameter returnType, Class<? extends HttpMessageConverter<?>> converterType) {
+        return properties.isResponseHeader();
+    }
+
+    @Override
+    public Object beforeBodyWrite(Object body, MethodParameter returnType, MediaType selectedContentType,
+                                  Class<? extends HttpMessageConverter<?>> selectedConverterType,
+                                  ServerHttpRequest request, ServerHttpResponse response) {
+        RequestMetrics metrics = RequestMetrics.current();
+        if (metrics != null) {
+            response.getHeaders().set(HEADER, metrics.toString());
+        }
+        return body;
+    }
+}
@@ -0,0 +1,90 @@
+package teektok.interceptor;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.HandlerMapping;
+import teektok.config.RequestMetricsProperties;
+import teektok.utils.RequestMetrics;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 统计每个请求的 SQL / Redis 调用，请求结束时按接口记录指标，超出往返预算时打印告警
+ * teektok.request.sql              : 每个请求执行的 SQL 条数 (tag: method, uri)
+ * teektok.request.sql.time         : 每个请求的 SQL 总耗时
+ * teektok.request.redis.commands   : 每个请求发出的 Redis 命令数
+ * teektok.request.redis.roundtrips : 每个请求的 Redis 往返次数 (一个 Pipeline 算一次)
+ * teektok.request.redis.time       : 每个请求的 Redis 总耗时
+ * teektok.request.budget.exceeded  : 超出预算的请求数 (tag: method, uri, resource=sql/redis)
+ */
+@Slf4j
+@Component
+public class RequestMetricsInterceptor implements HandlerInterceptor {
+
+    @Autowired
+    private RequestMetricsProperties properties;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        if (properties.isEnabled()) {
+            RequestMetrics.begin();
+        }
+        return true;
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+        RequestMetrics metrics = RequestMetrics.end();
+        if (metrics == null) {
+            return;
+        }
+        String method = request.getMethod();
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        String uri = pattern == null ? "UNKNOWN" : pattern.toString();
+
+        summary("teektok.request.sql", "每个请求执行的 SQL 条数", method, uri).record(metrics.getSqlCount());
+        timer("teektok.request.sql.time", "每个请求的 SQL 总耗时", method, uri).record(metrics.getSqlNanos(), TimeUnit.NANOSECONDS);
+        summary("teektok.request.redis.commands", "每个请求发出的 Redis 命令数", method, uri).record(metrics.getRedisCommands());
+        summary("teektok.request.redis.roundtrips", "每个请求的 Redis 往返次数", method, uri).record(metrics.getRedisRoundTrips());
+        timer("teektok.request.redis.time", "每个请求的 Redis 总耗时", method, uri).record(metrics.getRedisNanos(), TimeUnit.NANOSECONDS);
+
+        boolean sqlExceeded = properties.getSqlBudget() > 0 && metrics.getSqlCount() > properties.getSqlBudget();
+        boolean redisExceeded = properties.getRedisRoundTripBudget() > 0
+                && metrics.getRedisRoundTrips() > properties.getRedisRoundTripBudget();
+        if (sqlExceeded) {
+            meterRegistry.counter("teektok.request.budget.exceeded", "method", method, "uri", uri, "resource", "sql").increment();
+        }
+        if (redisExceeded) {
+            meterRegistry.counter("teektok.request.budget.exceeded", "method", method, "uri", uri, "resource", "redis").increment();
+        }
+        if (sqlExceeded || redisExceeded) {
+            log.warn("请求超出往返预算 {} {}: SQL {} 条 (预算 {}), Redis 往返 {} 次 / 命令 {} 条 (预算 {})",
+                    method, uri, metrics.getSqlCount(), properties.getSqlBudget(),
+                    metrics.getRedisRoundTrips(), metrics.getRedisCommands(), properties.getRedisRoundTripBudget());
+        }
+    }
+
+    private DistributionSummary summary(String name, String description, String method, String uri) {
+        return DistributionSummary.builder(name)
+                .description(description)
+                .tags("method", method, "uri", uri)
+                .register(meterRegistry);
+    }
+
+    private Timer timer(String name, String description, String method, String uri) {
+        return Timer.builder(name)
+                .description(description)
+                .tags("method", method, "uri", uri)
+                .register(meterRegistry);
+    }
+}
@@ -0,0 +1,46 @@
+package teektok.interceptor;
+
+import org.apache.ibatis.executor.Executor;
+import org.apache.ibatis.executor.statement.StatementHandler;
+import org.apache.ibatis.plugin.Interceptor;
+import org.apache.ibatis.plugin.Intercepts;
+import org.apache.ibatis.plugin.Invocation;
+import org.apache.ibatis.plugin.Signature;
+import org.apache.ibatis.session.ResultHandler;
+import org.springframework.stereotype.Component;
+import teektok.utils.RequestMetrics;
+
+import java.sql.Statement;
+import java.util.List;
+
+/**
+ * MyBatis 插件：把每次 SQL 执行的次数和耗时 (含结果映射) 记入当前请求的 RequestMetrics
+ * 批量执行 (BatchExecutor) 时 addBatch 不访问数据库，在 flushStatements 时按实际发出的批次计数
+ */
+@Component
+@Intercepts({
+        @Signature(type = StatementHandler.class, method = "query", args = {Statement.class, ResultHandler.class}),
+        @Signature(type = StatementHandler.class, method = "queryCursor", args = {Statement.class}),
+        @Signature(type = StatementHandler.class, method = "update", args = {Statement.class}),
+        @Signature(type = Executor.class, method = "flushStatements", args = {})
+})
+public class SqlMetricsInterceptor implements Interceptor {
+
+    @Override
+    public Object intercept(Invocation invocation) throws Throwable {
+        RequestMetrics metrics = RequestMetrics.current();
+        if (metrics == null) {
+            return invocation.proceed();
+        }
+        long start = System.nanoTime();
+        Object result = invocation.proceed();
+        long elapsed = System.nanoTime() - start;
+        if (!(invocation.getTarget() instanceof Executor)) {
+            metrics.recordSql(1, elapsed);
+        } else if (result instanceof List<?> batches && !batches.isEmpty()) {
+            // 每个 BatchResult 对应一次 executeBatch
+            metrics.recordSql(batches.size(), elapsed);
+        }
+        return result;
+    }
+}
@@ -16,7 +16,7 @@ import java.io.PrintWriter;
 public class TokenInterceptor implements HandlerInterceptor {
     @Override
     public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) throws Exception {
-        log.info("TokenInterceptor 拦截到请求: {} {}", request.getMethod(), request.getRequestURI()); // 新增日志
+        log.debug("TokenInterceptor 拦截到请求: {} {}", request.getMethod(), request.getRequestURI());
 
         if ("OPTIONS".equalsIgnoreCase(request.getMethod())) {
             return true;
@@ -26,7 +26,7 @@ public class TokenInterceptor implements HandlerInterceptor {
         String requestURI = request.getRequestURI();
         //2.排除登录接口
         if(requestURI.contains("/login")){
-            log.info("登录请求，放行");
+            log.debug("登录请求，放行");
             return true;
         }
         //3.判断是否为可选鉴权接口 (游客可访问，但带Token需解析)
@@ -43,11 +43,15 @@ public class TokenInterceptor implements HandlerInterceptor {
 
         //4.获取请求头中的token
         String token = request.getHeader("token");
+        // SSE (EventSource) 无法自定义请求头，推送接口允许通过查询参数携带 token
+        if ((token == null || token.isEmpty()) && requestURI.contains("/api/push/")) {
+            token = request.getParameter("token");
+        }
 
         //5.Token为空的处理
         if(token==null||token.isEmpty()){
             if (isOptionalAuth) {
-                log.info("可选鉴权接口且无Token，游客放行");
+                log.debug("可选鉴权接口且无Token，游客放行");
                 return true;
             }
             log.info("令牌不存在，响应401");
@@ -74,7 +78,7 @@ public class TokenInterceptor implements HandlerInterceptor {
             return false;
         }
         //放行
-        log.info("令牌合法，放行");
+        log.debug("令牌合法，放行");
         return true;
     }
 
@@ -0,0 +1,22 @@
+package teektok.mapper;
+
+import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+import teektok.entity.DmConversation;
+
+@Mapper
+public interface DmConversationMapper extends BaseMapper<DmConversation> {
+
+    // 会话不存在时创建 (并发首发消息时只有一个插入成功)
+    void insertIgnore(@Param("id") String id, @Param("userLow") Long userLow, @Param("userHigh") Long userHigh);
+
+    // 锁定会话行，串行化同一会话内的发送以分配 seq
+    DmConversation selectForUpdate(@Param("id") String id);
+
+    // 追加一条消息：推进 seq、累加发送方计数
+    void appendMessage(@Param("id") String id,
+                       @Param("seq") Long seq,
+                       @Param("messageId") Long messageId,
+                       @Param("senderIsLow") boolean senderIsLow);
+}
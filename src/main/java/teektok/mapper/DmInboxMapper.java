@@ -0,0 +1,24 @@
+package teektok.mapper;
+
+import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+import teektok.entity.DmInbox;
+import teektok.entity.DmMessage;
+
+@Mapper
+public interface DmInboxMapper extends BaseMapper<DmInbox> {
+
+    // 写入/更新一侧的收件箱摘要，unreadDelta 为该侧未读数的增量 (发送方 0，接收方 1)
+    void upsertLatest(@Param("userId") Long userId,
+                      @Param("peerId") Long peerId,
+                      @Param("message") DmMessage message,
+                      @Param("preview") String preview,
+                      @Param("unreadDelta") int unreadDelta);
+
+    // 清零某个会话的未读数
+    int clearUnread(@Param("userId") Long userId, @Param("peerId") Long peerId);
+
+    // 用户的私信未读总数
+    Long sumUnread(@Param("userId") Long userId);
+}
@@ -0,0 +1,15 @@
+package teektok.mapper;
+
+import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+import teektok.entity.MediaObject;
+
+@Mapper
+public interface MediaObjectMapper extends BaseMapper<MediaObject> {
+
+    // (storage, content_hash) 唯一；并发上传同一内容时只有一个插入成功，返回影响行数
+    int insertIgnore(MediaObject object);
+
+    void incrRef(@Param("id") Long id);
+}
@@ -2,7 +2,18 @@ package teektok.mapper;
 
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
 import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
 import teektok.entity.Notification;
 
+import java.util.List;
+
 @Mapper
-public interface NotificationMapper extends BaseMapper<Notification> {}
+public interface NotificationMapper extends BaseMapper<Notification> {
+
+    // 批量插入通知 (多值 INSERT，一次往返)
+    void batchInsert(@Param("list") List<Notification> list);
+
+    // 批量合并聚合通知：actor_count 累加增量，其余字段覆盖为最新值
+    // 入参中 actorCount 表示本次的增量，而非合并后的总数
+    void batchMergeAggregated(@Param("list") List<Notification> list);
+}
@@ -0,0 +1,18 @@
+package teektok.mapper;
+
+import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+import teektok.entity.UserBehaviorRollup;
+
+import java.time.LocalDateTime;
+
+@Mapper
+public interface UserBehaviorRollupMapper extends BaseMapper<UserBehaviorRollup> {
+
+    // 记一次行为：次数 +1，最近时间取较晚者 (异步写入可能乱序)
+    void upsert(@Param("userId") Long userId,
+                @Param("behaviorType") int behaviorType,
+                @Param("videoId") Long videoId,
+                @Param("occurredAt") LocalDateTime occurredAt);
+}
@@ -0,0 +1,18 @@
+package teektok.mapper;
+
+import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+import teektok.entity.VideoStatBucket;
+
+import java.time.LocalDateTime;
+
+@Mapper
+public interface VideoStatBucketMapper extends BaseMapper<VideoStatBucket> {
+
+    /**
+     * 把一次落库的增量同时加到累计、当天、当前小时三个桶 (field 为 video_stat 的计数列名，内部常量)
+     */
+    void addDelta(@Param("field") String field, @Param("delta") long delta,
+                  @Param("day") LocalDateTime day, @Param("hour") LocalDateTime hour);
+}
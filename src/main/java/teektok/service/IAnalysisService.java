@@ -1,6 +1,10 @@
 package teektok.service;
 
 import teektok.dto.analysis.VideoAnalysisVO;
+import teektok.dto.analysis.VideoRankVO;
+import teektok.dto.analysis.VideoTrendPointVO;
+
+import java.util.List;
 
 public interface IAnalysisService {
     /**
@@ -9,4 +13,17 @@ public interface IAnalysisService {
      * @return 统计结果 VO
      */
     VideoAnalysisVO getVideoAnalysis();
+
+    /**
+     * 全站计数趋势：最近 size 个小时/天，每个时间桶一个点 (没有数据的桶为 0)
+     * @param granularity hour / day
+     */
+    List<VideoTrendPointVO> getTrend(String granularity, Integer size);
+
+    /**
+     * 时间窗口内播放/点赞增量最多的视频
+     * @param counter play / like
+     * @param window  hour (当前小时) / day (最近 24 小时) / week (最近 7 天)
+     */
+    List<VideoRankVO> getTopVideos(String counter, String window, Integer limit);
 }
@@ -1,6 +1,8 @@
 package teektok.service;
 
+import teektok.VO.CursorResult;
 import teektok.VO.PageResult;
+import teektok.entity.DmInbox;
 import teektok.entity.DmMessage;
 
 public interface IDmService {
@@ -9,4 +11,21 @@ public interface IDmService {
     void sendVideo(Long senderId, Long targetId, Long videoId);
 
     PageResult<DmMessage> listSessionMessages(Long userId, Long targetId, int page, int size);
+
+    /**
+     * 按会话序号向前翻页，cursor 为空时取最新的一页；返回结果按时间正序
+     */
+    CursorResult<DmMessage> listSessionMessagesByCursor(Long userId, Long targetId, Long cursor, int size);
+
+    /**
+     * 收件箱：每个会话一行，按最近消息时间倒序
+     */
+    PageResult<DmInbox> listInbox(Long userId, int page, int size);
+
+    long countUnread(Long userId);
+
+    /**
+     * 将对方发给我的消息全部标记为已读
+     */
+    void markSessionRead(Long userId, Long targetId);
 }
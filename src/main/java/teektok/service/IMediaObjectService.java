@@ -0,0 +1,16 @@
+package teektok.service;
+
+public interface IMediaObjectService {
+
+    /**
+     * 当前存储后端已有相同内容 (哈希与大小都一致) 时返回其地址并增加引用，否则返回 null
+     * contentHash 必须由服务端根据收到的字节计算，不能使用客户端声明的值：知道哈希不代表持有文件
+     */
+    String reuse(String contentHash, long size);
+
+    /**
+     * 登记新写入的文件，返回最终使用的地址
+     * 并发上传了相同内容时，以先登记的为准，删除刚写入的重复文件
+     */
+    String register(String contentHash, long size, String url);
+}
@@ -0,0 +1,14 @@
+package teektok.service;
+
+public interface IMediaProcessingService {
+
+    /**
+     * 视频记录已创建 (事务已提交) 后提交处理；线程池繁忙时留给定时扫描处理
+     */
+    void submit(Long videoId);
+
+    /**
+     * 同步处理一个视频 (领取失败时直接返回)
+     */
+    void process(Long videoId);
+}
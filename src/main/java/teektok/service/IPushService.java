@@ -0,0 +1,18 @@
+package teektok.service;
+
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+public interface IPushService {
+
+    /**
+     * 建立当前用户的 SSE 推送连接
+     */
+    SseEmitter subscribe(Long userId);
+
+    /**
+     * 向用户推送一个事件（经 Redis 广播，用户连在哪个节点都能收到）
+     * @param event 事件名，如 notification / dm
+     * @param data  事件数据，序列化为 JSON
+     */
+    void push(Long userId, String event, Object data);
+}
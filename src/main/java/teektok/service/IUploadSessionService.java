@@ -0,0 +1,27 @@
+package teektok.service;
+
+import teektok.dto.video.UploadSessionInitDTO;
+import teektok.dto.video.UploadSessionVO;
+
+import java.io.InputStream;
+
+/**
+ * 可续传的分片上传：初始化 -> 逐片上传（可并行、可重传）-> 完成
+ * 分片进度记录在 Redis，视频记录只在完成时创建
+ */
+public interface IUploadSessionService {
+
+    UploadSessionVO init(Long userId, UploadSessionInitDTO dto);
+
+    /**
+     * 上传第 partNumber 片，请求体按流转存，不在内存中缓冲
+     * @param contentLength 请求体长度，必须等于该分片的应有大小
+     */
+    void uploadPart(Long userId, String uploadId, int partNumber, InputStream in, long contentLength);
+
+    UploadSessionVO status(Long userId, String uploadId);
+
+    UploadSessionVO complete(Long userId, String uploadId);
+
+    void abort(Long userId, String uploadId);
+}
@@ -1,5 +1,6 @@
 package teektok.service;
 
+import teektok.VO.SearchResult;
 import teektok.dto.user.UserLoginDTO;
 import teektok.dto.user.UserLoginVO;
 import teektok.dto.user.UserMeVO;
@@ -39,7 +40,12 @@ public interface IUserService {
     User getUserCached(Long userId);
 
     /**
-     * 按用户名/用户ID搜索用户（用于关注页搜索）
+     * 按用户名/用户ID搜索用户（用于关注页搜索），页码分页
      */
     List<UserSearchVO> searchUsers(Long currentUserId, String keyword, Integer page, Integer size);
+
+    /**
+     * 按用户名/用户ID搜索用户，游标分页（cursor 为空取第一页）
+     */
+    SearchResult<UserSearchVO> searchUsers(Long currentUserId, String keyword, String cursor, Integer size);
 }
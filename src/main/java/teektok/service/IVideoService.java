@@ -2,13 +2,16 @@ package teektok.service;
 
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
 import teektok.VO.PageResult;
+import teektok.VO.SearchResult;
 import teektok.dto.behavior.PlayDTO;
 import teektok.dto.recommend.RecommendVideoVO;
 import teektok.dto.video.VideoListVO;
 import teektok.dto.video.VideoQueryDTO;
+import teektok.dto.video.VideoSearchVO;
 import teektok.dto.video.VideoUploadDTO;
 import teektok.dto.video.VideoVO;
 import teektok.entity.User;
+import teektok.entity.Video;
 
 import java.util.List;
 
@@ -18,6 +21,12 @@ public interface IVideoService {
      * */
     String upload(VideoUploadDTO videoUploadDTO,Long uploaderId) throws Exception;
 
+    /**
+     * 文件已写入存储后，创建视频记录与统计记录 (单次上传和分片上传共用)
+     * @param contentHash 服务端计算的文件内容哈希 (ContentHash)，未知时传 null
+     */
+    Video saveUploadedVideo(String title, String description, String url, Long uploaderId, String contentHash);
+
     /*
      * 获取视频列表(分页)
      * */
@@ -68,4 +77,8 @@ public interface IVideoService {
      */
     void deleteHistoryVideo(Long userId, Long videoId);
 
+    /**
+     * 按标题搜索已审核通过的视频，游标分页（cursor 为空取第一页）
+     */
+    SearchResult<VideoSearchVO> searchVideos(String keyword, String cursor, Integer size);
 }
@@ -8,6 +8,7 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.redis.core.RedisTemplate;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 import teektok.VO.PageResult;
 import teektok.dto.audit.AdminLoginDTO;
 import teektok.dto.audit.AdminLoginVO;
@@ -24,6 +25,7 @@ import teektok.mapper.VideoStatMapper;
 import teektok.service.IAdminService;
 import teektok.utils.JwtUtils;
 
+import java.time.LocalDateTime;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -46,6 +48,9 @@ public class AdminServiceImpl extends ServiceImpl<AdminMapper, Admin> implements
     @Autowired
     private RedisTemplate<String, Object> redisTemplate;
 
+    @Autowired
+    private SearchIndexService searchIndexService; // 修改用户、视频审核/删除后同步搜索索引
+
     // 定义 Key 前缀 (需与 User/Video 模块保持一致)
     private static final String USER_INFO_KEY = "user:info:";
     private static final String VIDEO_INFO_KEY = "video:info:";
@@ -90,6 +95,7 @@ public class AdminServiceImpl extends ServiceImpl<AdminMapper, Admin> implements
         userMapper.updateById(user);
 
         redisTemplate.delete(USER_INFO_KEY + userId);
+        searchIndexService.userChanged(userId);
     }
 
     @Override
@@ -104,11 +110,15 @@ public class AdminServiceImpl extends ServiceImpl<AdminMapper, Admin> implements
         } else {
             video.setStatus(2);
         }
+        // 搜索索引的定时补齐按 update_time 扫描变更过的视频
+        video.setUpdateTime(LocalDateTime.now());
 
         videoMapper.updateById(video);
 
         // 【关键修复】删除视频详情缓存
         redisTemplate.delete(VIDEO_INFO_KEY + dto.getVideoId());
+        // 审核通过的视频才进搜索索引，驳回时移除
+        searchIndexService.videoChanged(video.getId());
 
         // 如果审核不通过，可能还需要从热门列表、推荐列表中移除 (看业务需求)
         if (dto.getStatus() != 1) {
@@ -154,16 +164,18 @@ public class AdminServiceImpl extends ServiceImpl<AdminMapper, Admin> implements
 
         // 3. 删除视频统计表数据 (VideoStat)
         videoStatMapper.deleteById(videoId);
+        searchIndexService.videoChanged(videoId);
 
         // 4. 如果有“热门列表”缓存，也要清理，防止列表里还能刷出这个已删视频
         redisTemplate.delete("recommend:hot:ids");
 
         // 5. 【新增】删除 Redis 中的视频详情缓存
-        // 这样下次 getDetail 会查库，发现没了，然后缓存“空对象”
-        redisTemplate.delete("video:info:" + videoId);
+        // 下次 getDetail 回源查不到，会缓存 data=null 的空值条目 (nullTtlSeconds)，之后的请求不再查库
+        redisTemplate.delete(VIDEO_INFO_KEY + videoId);
     }
 
     @Override
+    @Transactional(readOnly = true)
     public PageResult<User> getUserList(Integer page, Integer pageSize) {
         // 1. 创建 MyBatis-Plus 分页对象
         Page<User> pageInfo = new Page<>(page, pageSize);
@@ -176,6 +188,7 @@ public class AdminServiceImpl extends ServiceImpl<AdminMapper, Admin> implements
     }
 
     @Override
+    @Transactional(readOnly = true)
     public PageResult<AdminVideoVO> getVideoList(Integer page, Integer pageSize, Integer status, Integer isHot) {
         try {
             Page<Video> pageInfo = new Page<>(page, pageSize);
@@ -244,6 +257,7 @@ public class AdminServiceImpl extends ServiceImpl<AdminMapper, Admin> implements
     }
 
     @Override
+    @Transactional(readOnly = true)
     public AdminVideoVO getVideoDetail(Long videoId) {
         Video video = videoMapper.selectById(videoId);
         if (video == null) {
@@ -1,19 +1,65 @@
 package teektok.service.impl;
 
+import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 import teektok.dto.analysis.VideoAnalysisVO;
+import teektok.dto.analysis.VideoRankVO;
+import teektok.dto.analysis.VideoTrendPointVO;
+import teektok.entity.Video;
+import teektok.entity.VideoStatBucket;
+import teektok.mapper.VideoMapper;
+import teektok.mapper.VideoStatBucketMapper;
 import teektok.mapper.VideoStatMapper;
 import teektok.service.IAnalysisService;
+import teektok.utils.VideoRanking;
 
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * 看板数据都来自增量维护的汇总 (video_stat_bucket 与 Redis 排行)，读取只按主键或小范围查询，不扫 video_stat
+ */
 @Service
 public class AnalysisServiceImpl implements IAnalysisService {
 
+    private static final int MAX_HOURS = 168;
+    private static final int MAX_DAYS = 90;
+    private static final int MAX_TOP = 50;
+
     @Autowired
     private VideoStatMapper videoStatMapper;
 
+    @Autowired
+    private VideoStatBucketMapper videoStatBucketMapper;
+
+    @Autowired
+    private VideoMapper videoMapper;
+
+    @Autowired
+    private VideoRanking videoRanking;
+
     @Override
+    @Transactional(readOnly = true)
     public VideoAnalysisVO getVideoAnalysis() {
+        VideoStatBucket total = videoStatBucketMapper.selectOne(new LambdaQueryWrapper<VideoStatBucket>()
+                .eq(VideoStatBucket::getGranularity, VideoStatBucket.TOTAL)
+                .eq(VideoStatBucket::getBucketTime, VideoStatBucket.TOTAL_TIME));
+        if (total != null) {
+            VideoAnalysisVO vo = new VideoAnalysisVO();
+            vo.setPlayCount(total.getPlayCount());
+            vo.setLikeCount(total.getLikeCount());
+            vo.setCommentCount(total.getCommentCount());
+            return vo;
+        }
+
+        // 汇总表还没有初始化 (未执行 docs/sql/create_video_stat_bucket.sql)：退回全表求和
         VideoAnalysisVO vo = videoStatMapper.sumAll();
         if (vo == null) {
             vo = new VideoAnalysisVO();
@@ -23,4 +69,77 @@ public class AnalysisServiceImpl implements IAnalysisService {
         }
         return vo;
     }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<VideoTrendPointVO> getTrend(String granularity, Integer size) {
+        int type;
+        ChronoUnit unit;
+        int count;
+        if ("hour".equals(granularity)) {
+            type = VideoStatBucket.HOUR;
+            unit = ChronoUnit.HOURS;
+            count = size == null || size < 1 ? 24 : Math.min(size, MAX_HOURS);
+        } else if ("day".equals(granularity)) {
+            type = VideoStatBucket.DAY;
+            unit = ChronoUnit.DAYS;
+            count = size == null || size < 1 ? 30 : Math.min(size, MAX_DAYS);
+        } else {
+            throw new RuntimeException("不支持的时间粒度: " + granularity);
+        }
+
+        LocalDateTime start = LocalDateTime.now().truncatedTo(unit).minus(count - 1L, unit);
+        Map<LocalDateTime, VideoStatBucket> buckets = videoStatBucketMapper.selectList(new LambdaQueryWrapper<VideoStatBucket>()
+                        .eq(VideoStatBucket::getGranularity, type)
+                        .ge(VideoStatBucket::getBucketTime, start))
+                .stream().collect(Collectors.toMap(VideoStatBucket::getBucketTime, Function.identity(), (a, b) -> a));
+
+        List<VideoTrendPointVO> points = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            LocalDateTime time = start.plus(i, unit);
+            VideoStatBucket bucket = buckets.get(time);
+            VideoTrendPointVO point = new VideoTrendPointVO();
+            point.setTime(time);
+            point.setPlayCount(bucket == null ? 0L : bucket.getPlayCount());
+            point.setLikeCount(bucket == null ? 0L : bucket.getLikeCount());
+            point.setCommentCount(bucket == null ? 0L : bucket.getCommentCount());
+            point.setShareCount(bucket == null ? 0L : bucket.getShareCount());
+            point.setFavoriteCount(bucket == null ? 0L : bucket.getFavoriteCount());
+            points.add(point);
+        }
+        return points;
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<VideoRankVO> getTopVideos(String counter, String window, Integer limit) {
+        if (!VideoRanking.COUNTERS.contains(counter)) {
+            throw new RuntimeException("不支持的排行类型: " + counter);
+        }
+        if (!VideoRanking.WINDOWS.contains(window)) {
+            throw new RuntimeException("不支持的时间窗口: " + window);
+        }
+        int size = limit == null || limit < 1 ? 10 : Math.min(limit, MAX_TOP);
+
+        Map<Long, Long> ranking = videoRanking.top(counter, window, size, LocalDateTime.now());
+        if (ranking.isEmpty()) {
+            return List.of();
+        }
+
+        // 已删除的视频 (逻辑删除) 查不到，不出现在排行里
+        Map<Long, Video> videos = videoMapper.selectBatchIds(ranking.keySet()).stream()
+                .collect(Collectors.toMap(Video::getId, Function.identity(), (a, b) -> a));
+        List<VideoRankVO> list = new ArrayList<>(ranking.size());
+        ranking.forEach((videoId, value) -> {
+            Video video = videos.get(videoId);
+            if (video == null) return;
+            VideoRankVO vo = new VideoRankVO();
+            vo.setVideoId(videoId);
+            vo.setTitle(video.getTitle());
+            vo.setCoverUrl(video.getCoverUrl());
+            vo.setCount(value);
+            list.add(vo);
+        });
+        return list;
+    }
 }
@@ -1,14 +1,23 @@
 package teektok.service.impl;
 
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Service;
 import teektok.entity.UserBehavior;
 import teektok.mapper.UserBehaviorMapper;
+import teektok.mapper.UserBehaviorRollupMapper;
 
+import java.time.Duration;
 import java.time.LocalDateTime;
 
+/**
+ * 行为流水 (user_behavior，按月分区，过期归档) 与汇总 (user_behavior_rollup，在线查询用) 在同一个异步任务里先后写入
+ * 指标：
+ * teektok.behavior.log.lag      : 行为发生到流水落库的延迟 (排队 + 写库)，持续升高说明 commonExecutor 处理不过来
+ * teektok.behavior.log.failures : 写库失败次数
+ */
 @Slf4j
 @Service
 public class AsyncLogService {
@@ -16,25 +25,33 @@ public class AsyncLogService {
     @Autowired
     private UserBehaviorMapper userBehaviorMapper;
 
+    @Autowired
+    private UserBehaviorRollupMapper userBehaviorRollupMapper;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
     /**
      * 异步记录用户行为
      * 使用 "commonExecutor" 线程池 (对应 ThreadPoolConfig 中的 Bean 名)
+     * @param occurredAt 行为发生时间 (调用方提交任务时的时间)，作为流水的创建时间
      */
     @Async("commonExecutor")
-    public void saveUserBehavior(Long userId, Long videoId, Integer type) {
+    public void saveUserBehavior(Long userId, Long videoId, Integer type, LocalDateTime occurredAt) {
         try {
-            log.info("异步线程 [{}] 开始记录日志...", Thread.currentThread().getName());
-
             UserBehavior behavior = new UserBehavior();
             behavior.setUserId(userId);
             behavior.setVideoId(videoId);
             behavior.setBehaviorType(type);
-            behavior.setCreateTime(LocalDateTime.now());
+            behavior.setCreateTime(occurredAt);
 
             userBehaviorMapper.insert(behavior);
+            userBehaviorRollupMapper.upsert(userId, type, videoId, occurredAt);
 
-            log.info("异步记录完成");
+            meterRegistry.timer("teektok.behavior.log.lag").record(Duration.between(occurredAt, LocalDateTime.now()));
+            log.debug("异步记录完成: uid={}, vid={}, type={}", userId, videoId, type);
         } catch (Exception e) {
+            meterRegistry.counter("teektok.behavior.log.failures").increment();
             log.error("写入行为日志失败: uid={}, vid={}", userId, videoId, e);
         }
     }
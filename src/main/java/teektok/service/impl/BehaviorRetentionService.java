@@ -0,0 +1,219 @@
+package teektok.service.impl;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import teektok.config.BehaviorStorageProperties;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * 行为流水 user_behavior 的分区维护 (表结构见 docs/sql/partition_user_behavior.sql)：
+ * 1. 从 pmax 中拆出未来几个月的分区，保证新数据不会落进 pmax
+ * 2. 超过保留期的分区整个导出为 gzip 压缩的 TSV (带表头，供离线推荐的 Spark 任务读取)，行数核对一致后 DROP PARTITION
+ * 在线查询只读 user_behavior_rollup，删除流水分区不影响观看历史
+ * 指标：
+ * teektok.behavior.archive.rows       : 已归档的流水行数
+ * teektok.behavior.archive.partitions : 已归档并删除的分区数
+ */
+@Slf4j
+@Service
+public class BehaviorRetentionService {
+
+    static final String TABLE = "user_behavior";
+    static final String PARTITIONS_SQL = "SELECT partition_name, partition_description FROM information_schema.partitions "
+            + "WHERE table_schema = DATABASE() AND table_name = '" + TABLE + "' AND partition_name IS NOT NULL "
+            + "ORDER BY partition_ordinal_position";
+    static final String ARCHIVE_HEADER = "id\tuser_id\tvideo_id\tbehavior_type\tcreate_time";
+
+    private static final String LOCK_KEY = "behavior:retention:lock";
+    private static final Pattern PARTITION_NAME = Pattern.compile("^[A-Za-z0-9_]+$");
+    private static final DateTimeFormatter MONTH = DateTimeFormatter.ofPattern("yyyyMM");
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private StringRedisTemplate stringRedisTemplate;
+
+    @Autowired
+    private BehaviorStorageProperties properties;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    /**
+     * 多实例部署时只由拿到锁的实例执行；单个分区导出可能较久，锁的有效期按小时给
+     */
+    @Scheduled(cron = "${teektok.behavior.storage.maintenance-cron:0 30 3 * * ?}")
+    public void maintain() {
+        if (!properties.isMaintenanceEnabled()) return;
+        Boolean locked = stringRedisTemplate.opsForValue().setIfAbsent(LOCK_KEY, "1", 6, TimeUnit.HOURS);
+        if (!Boolean.TRUE.equals(locked)) return;
+        try {
+            maintain(LocalDate.now());
+        } catch (Exception e) {
+            log.error("行为流水分区维护失败", e);
+        } finally {
+            stringRedisTemplate.delete(LOCK_KEY);
+        }
+    }
+
+    /**
+     * @return 本次归档并删除的分区数
+     */
+    int maintain(LocalDate today) throws IOException {
+        List<Partition> partitions = jdbcTemplate.query(PARTITIONS_SQL,
+                (rs, i) -> new Partition(rs.getString(1), parseUpperBound(rs.getString(2))));
+        if (partitions.isEmpty()) {
+            log.info("{} 未分区，跳过维护 (分区脚本见 docs/sql/partition_user_behavior.sql)", TABLE);
+            return 0;
+        }
+
+        addFuturePartitions(partitions, today);
+
+        LocalDate cutoff = today.withDayOfMonth(1).minusMonths(properties.getRetentionMonths());
+        int archived = 0;
+        for (Partition p : partitions) {
+            if (p.upperBound() != null && !p.upperBound().isAfter(cutoff) && archiveAndDrop(p)) {
+                archived++;
+            }
+        }
+        return archived;
+    }
+
+    /**
+     * 把 MAXVALUE 分区拆成缺少的月份分区 + 新的 MAXVALUE 分区。pmax 正常情况下没有数据，拆分只改元数据
+     */
+    void addFuturePartitions(List<Partition> partitions, LocalDate today) {
+        Partition max = null;
+        LocalDate last = null;
+        for (Partition p : partitions) {
+            if (p.upperBound() == null) {
+                max = p;
+            } else if (last == null || p.upperBound().isAfter(last)) {
+                last = p.upperBound();
+            }
+        }
+        if (max == null || last == null) {
+            log.warn("{} 分区结构不符合预期 (缺少 MAXVALUE 分区或月份分区)，不自动建分区", TABLE);
+            return;
+        }
+
+        LocalDate target = today.withDayOfMonth(1).plusMonths(properties.getFutureMonths() + 1L);
+        List<String> defs = new ArrayList<>();
+        while (last.isBefore(target)) {
+            LocalDate next = last.plusMonths(1);
+            defs.add("PARTITION p" + last.format(MONTH) + " VALUES LESS THAN ('" + next + "')");
+            last = next;
+        }
+        if (defs.isEmpty()) return;
+
+        String name = checkName(max.name());
+        defs.add("PARTITION " + name + " VALUES LESS THAN (MAXVALUE)");
+        jdbcTemplate.execute("ALTER TABLE " + TABLE + " REORGANIZE PARTITION " + name + " INTO (" + String.join(", ", defs) + ")");
+        log.info("{} 新增 {} 个月份分区，最新上界 {}", TABLE, defs.size() - 1, last);
+    }
+
+    /**
+     * 先写临时文件，行数与分区当前行数一致才改名并删除分区；不一致 (导出期间有迟到的写入) 时保留分区，下次重试
+     */
+    boolean archiveAndDrop(Partition partition) throws IOException {
+        String name = checkName(partition.name());
+        Path dir = Paths.get(properties.getArchiveDir(), TABLE);
+        Files.createDirectories(dir);
+        Path target = dir.resolve(name + ".tsv.gz");
+        Path tmp = dir.resolve(name + ".tsv.gz.tmp");
+
+        long written;
+        try (BufferedWriter writer = new BufferedWriter(new OutputStreamWriter(
+                new GZIPOutputStream(Files.newOutputStream(tmp), 64 * 1024), StandardCharsets.UTF_8))) {
+            writer.write(ARCHIVE_HEADER);
+            writer.newLine();
+            written = export(name, writer);
+        }
+
+        Long count = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM " + TABLE + " PARTITION (" + name + ")", Long.class);
+        if (count == null || count != written) {
+            Files.deleteIfExists(tmp);
+            log.warn("{} 分区 {} 导出 {} 行，当前 {} 行，本次不删除", TABLE, name, written, count);
+            return false;
+        }
+
+        Files.move(tmp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        jdbcTemplate.execute("ALTER TABLE " + TABLE + " DROP PARTITION " + name);
+
+        meterRegistry.counter("teektok.behavior.archive.rows").increment(written);
+        meterRegistry.counter("teektok.behavior.archive.partitions").increment();
+        log.info("{} 分区 {} 已归档到 {} ({} 行) 并删除", TABLE, name, target, written);
+        return true;
+    }
+
+    // 按分区顺序读取，fetchSize = Integer.MIN_VALUE 让 MySQL 驱动逐行流式返回，不把整个分区读进内存
+    private long export(String name, BufferedWriter writer) throws IOException {
+        long[] rows = {0};
+        IOException[] failure = {null};
+        jdbcTemplate.query(con -> {
+            PreparedStatement ps = con.prepareStatement(
+                    "SELECT id, user_id, video_id, behavior_type, create_time FROM " + TABLE + " PARTITION (" + name + ")",
+                    ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            ps.setFetchSize(Integer.MIN_VALUE);
+            return ps;
+        }, (RowCallbackHandler) rs -> {
+            if (failure[0] != null) return;
+            try {
+                Timestamp time = rs.getTimestamp(5);
+                writer.write(rs.getLong(1) + "\t" + rs.getLong(2) + "\t" + rs.getLong(3) + "\t" + rs.getInt(4) + "\t"
+                        + (time == null ? "" : time.toLocalDateTime().toString()));
+                writer.newLine();
+                rows[0]++;
+            } catch (IOException e) {
+                failure[0] = e;
+            }
+        });
+        if (failure[0] != null) throw failure[0];
+        return rows[0];
+    }
+
+    // 分区名来自 information_schema，拼进 DDL 前仍做一次校验
+    private static String checkName(String name) {
+        if (name == null || !PARTITION_NAME.matcher(name).matches()) {
+            throw new RuntimeException("非法分区名: " + name);
+        }
+        return name;
+    }
+
+    /**
+     * RANGE COLUMNS 分区的 partition_description 形如 '2026-05-01' 或 '2026-05-01 00:00:00'，MAXVALUE 返回 null
+     */
+    static LocalDate parseUpperBound(String description) {
+        if (description == null || "MAXVALUE".equalsIgnoreCase(description.trim())) return null;
+        String value = description.replace("'", "").trim();
+        return LocalDate.parse(value.substring(0, 10));
+    }
+
+    record Partition(String name, LocalDate upperBound) {
+    }
+}
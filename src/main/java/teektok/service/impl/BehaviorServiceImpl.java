@@ -17,6 +17,9 @@ import teektok.service.BehaviorEventPubliser;
 import teektok.service.IBehaviorService;
 import teektok.service.INotificationService;
 import teektok.utils.BaseContext;
+import teektok.utils.HotKeyCache;
+import teektok.utils.RedisKeyMigration;
+import teektok.utils.RedisKeys;
 
 import java.time.LocalDateTime;
 
@@ -60,13 +63,14 @@ import java.util.function.Function;
     @Autowired
     private StringRedisTemplate redisTemplate;
 
+    @Autowired
+    private HotKeyCache hotKeyCache;
+
+    @Autowired
+    private RedisKeyMigration redisKeyMigration;
+
     // Redis Key 前缀
     private static final String VIDEO_STAT_KEY = "video:stat:";
-    private static final String USER_LIKE_KEY = "user:like:";
-    private static final String USER_FAVORITE_KEY = "user:favorite:";
-    private static final String USER_COMMENT_KEY = "user:comment:";
-    private static final String USER_SHARE_KEY = "user:share:";
-    private static final String USER_COMMENT_LIKE_KEY = "user:comment_like:";
 
     // 行为类型常量 (对应数据库注释)
     private static final int TYPE_PLAY = 1;
@@ -76,11 +80,11 @@ import java.util.function.Function;
     private static final int TYPE_SHARE = 5;
 
     // 新增缓冲 Key
-    private static final String BUFFER_PLAY_KEY = "buffer:video:play";
-    private static final String BUFFER_LIKE_KEY = "buffer:video:like";
-    private static final String BUFFER_FAVORITE_KEY = "buffer:video:favorite";
-    private static final String BUFFER_COMMENT_KEY = "buffer:video:comment";
-    private static final String BUFFER_SHARE_KEY = "buffer:video:share";
+    private static final String BUFFER_PLAY_KEY = RedisKeys.BUFFER_PLAY;
+    private static final String BUFFER_LIKE_KEY = RedisKeys.BUFFER_LIKE;
+    private static final String BUFFER_FAVORITE_KEY = RedisKeys.BUFFER_FAVORITE;
+    private static final String BUFFER_COMMENT_KEY = RedisKeys.BUFFER_COMMENT;
+    private static final String BUFFER_SHARE_KEY = RedisKeys.BUFFER_SHARE;
     private static final String BUFFER_COMMENT_LIKE_KEY = "buffer:co    mment:like";
 
 
@@ -96,7 +100,7 @@ import java.util.function.Function;
 
         // 3. 异步记录行为流水
         if (userId != null && userId > 0) {
-            asyncLogService.saveUserBehavior(userId, videoId, TYPE_PLAY);
+            asyncLogService.saveUserBehavior(userId, videoId, TYPE_PLAY, LocalDateTime.now());
         }
 
         // 4. 发布kafka事件
@@ -108,7 +112,7 @@ import java.util.function.Function;
     @Override
     @Transactional(rollbackFor = Exception.class)
     public void like(Long videoId, Long userId) {
-        String userLikeKey = USER_LIKE_KEY + userId;
+        String userLikeKey = RedisKeys.userLike(userId);
 
         // 1. Redis 预检查 (防重复)
         // Boolean isMember = redisTemplate.opsForSet().isMember(userLikeKey, videoId.toString());
@@ -138,7 +142,7 @@ import java.util.function.Function;
         updateVideoStatSafe(videoId, "likeCount", 1);
 
         // 5. 异步记录流水
-        asyncLogService.saveUserBehavior(userId, videoId, TYPE_LIKE);
+        asyncLogService.saveUserBehavior(userId, videoId, TYPE_LIKE, LocalDateTime.now());
 
         // 6. 发布事件
         eventPublisher.publishLikeEvent(videoId, userId);
@@ -155,7 +159,7 @@ import java.util.function.Function;
     public void unlike(Long videoId, Long userId) {
         // 取消点赞通常不记录在 user_behavior (它是“正向”行为表)，
 
-        String userLikeKey = USER_LIKE_KEY + userId;
+        String userLikeKey = RedisKeys.userLike(userId);
 
         // 1. 删除 DB 中的点赞记录 (同步执行，保证状态强一致性)
         // 使用 LambdaQueryWrapper 构造删除条件
@@ -170,7 +174,7 @@ import java.util.function.Function;
             redisTemplate.opsForHash().increment(BUFFER_LIKE_KEY, videoId.toString(), -1);
 
             // 3. 更新 Redis 缓存状态 (移除 Set 中的 videoId)
-            redisTemplate.opsForSet().remove(userLikeKey, videoId.toString());
+            redisKeyMigration.removeMember(userLikeKey, videoId.toString());
 
             // 4. 更新 Redis 实时计数 (给前端展示用，立即 -1)
 //            redisTemplate.opsForHash().increment(VIDEO_STAT_KEY + videoId, "likeCount", -1);
@@ -178,7 +182,7 @@ import java.util.function.Function;
 
         } else {
             // 5. 兜底：如果 DB 没删掉记录，但 Redis 可能有脏数据，尝试清理一下
-            redisTemplate.opsForSet().remove(userLikeKey, videoId.toString());
+            redisKeyMigration.removeMember(userLikeKey, videoId.toString());
         }
     }
 
@@ -186,7 +190,7 @@ import java.util.function.Function;
     @Override
     @Transactional(rollbackFor = Exception.class)
     public void favorite(Long videoId, Long userId) {
-        String userFavKey = USER_FAVORITE_KEY + userId;
+        String userFavKey = RedisKeys.userFavorite(userId);
 
         // 1. Redis 预检查 (防重复)
         Boolean isMember = redisTemplate.opsForSet().isMember(userFavKey, videoId.toString());
@@ -215,7 +219,7 @@ import java.util.function.Function;
         updateVideoStatSafe(videoId, "favoriteCount", 1);
 
         // 5. 异步记录流水
-        asyncLogService.saveUserBehavior(userId, videoId, TYPE_FAVORITE);
+        asyncLogService.saveUserBehavior(userId, videoId, TYPE_FAVORITE, LocalDateTime.now());
 
         // 6. 发布事件
         eventPublisher.publishFavoriteEvent(videoId, userId);
@@ -227,7 +231,7 @@ import java.util.function.Function;
     public void unfavorite(Long videoId, Long userId) {
         // 取消收藏通常不记录在 user_behavior (它是“正向”行为表)，
 
-        String userFavKey = USER_FAVORITE_KEY + userId;
+        String userFavKey = RedisKeys.userFavorite(userId);
 
         // 1. 检查删除记录数
         int rows = videoFavoriteMapper.delete(new LambdaQueryWrapper<VideoFavorite>()
@@ -236,21 +240,18 @@ import java.util.function.Function;
 
         // 只有确实删除了记录（即之前确实有收藏），才进行后续的计数扣减
         if (rows > 0) {
-            // 2. 【同步更新】直接更新 DB 统计数据
-            videoStatMapper.incrCollectCount(videoId, -1);
-
-            // 【暂存】Redis 缓冲计数 -1
-            // redisTemplate.opsForHash().increment(BUFFER_FAVORITE_KEY, videoId.toString(), -1);
+            // 2. Redis 缓冲计数 -1，与收藏 +1 一样由定时任务批量落库 (同时计入全站汇总)
+            redisTemplate.opsForHash().increment(BUFFER_FAVORITE_KEY, videoId.toString(), -1);
 
             // 3. 更新 Redis 缓存状态 (移除 Set 中的 videoId)
-            redisTemplate.opsForSet().remove(userFavKey, videoId.toString());
+            redisKeyMigration.removeMember(userFavKey, videoId.toString());
 
             // 4. 更新 Redis 实时计数 (给前端展示用，立即 -1)
 //            redisTemplate.opsForHash().increment(VIDEO_STAT_KEY + videoId, "favoriteCount", -1);
             updateVideoStatSafe(videoId, "favoriteCount", -1);
         } else {
             // 5. 兜底：如果 DB 没删掉记录，但 Redis 可能有脏数据，尝试清理一下
-            redisTemplate.opsForSet().remove(userFavKey, videoId.toString());
+            redisKeyMigration.removeMember(userFavKey, videoId.toString());
         }
     }
 
@@ -258,7 +259,7 @@ import java.util.function.Function;
     @Override
     @Transactional(rollbackFor = Exception.class)
     public void comment(CommentCreateDTO dto, Long userId) {
-        String userCommentKey = USER_COMMENT_KEY + userId;
+        String userCommentKey = RedisKeys.userComment(userId);
 
         // 1. 插入评论
         Comment comment = new Comment();
@@ -279,7 +280,7 @@ import java.util.function.Function;
         updateVideoStatSafe(dto.getVideoId(), "commentCount", 1);
 
         // 4. 异步记录流水
-        asyncLogService.saveUserBehavior(userId, dto.getVideoId(), TYPE_COMMENT);
+        asyncLogService.saveUserBehavior(userId, dto.getVideoId(), TYPE_COMMENT, LocalDateTime.now());
 
         // 5. 发布事件
         eventPublisher.publishCommentEvent(dto.getVideoId(), userId, dto.getContent());
@@ -309,7 +310,7 @@ import java.util.function.Function;
 
         // 3. 记录行为流水 (行为类型 5)
         if (userId != null && userId > 0) {
-            asyncLogService.saveUserBehavior(userId, videoId, TYPE_SHARE);
+            asyncLogService.saveUserBehavior(userId, videoId, TYPE_SHARE, LocalDateTime.now());
         }
 
         // 4. 发布事件
@@ -353,12 +354,12 @@ import java.util.function.Function;
         Long currentUserId = BaseContext.getCurrentId();
 
         if (currentUserId != null) {
-            String userCommentLikeKey = USER_COMMENT_LIKE_KEY + currentUserId;
+            String userCommentLikeKey = RedisKeys.userCommentLike(currentUserId);
             // 既然我们在 like/unlike 时维护了 Redis Set，这里可以直接利用
             // 检查当前页的 commentIds 有哪些在这个 Set 里
             List<Object> isMembers = redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
                 for (String cid : commentIdsStr) {
-                    connection.sIsMember(userCommentLikeKey.getBytes(), cid.getBytes());
+                    connection.setCommands().sIsMember(userCommentLikeKey.getBytes(), cid.getBytes());
                 }
                 return null;
             });
@@ -398,7 +399,7 @@ import java.util.function.Function;
     @Override
     @Transactional(rollbackFor = Exception.class)
     public void likeComment(Long commentId, Long userId) {
-        String userCommentLikeKey = USER_COMMENT_LIKE_KEY + userId;
+        String userCommentLikeKey = RedisKeys.userCommentLike(userId);
 
         // 1. Redis 预检查 (防重复)
         // 这一步能拦截绝大多数重复点击，减轻 DB 压力
@@ -446,7 +447,7 @@ import java.util.function.Function;
 
     @Override
     public void unlikeComment(Long commentId, Long userId) {
-        String userCommentLikeKey = USER_COMMENT_LIKE_KEY + userId;
+        String userCommentLikeKey = RedisKeys.userCommentLike(userId);
 
         // 1. 删除 DB 记录 (同步)
         int rows = commentLikeMapper.delete(new LambdaQueryWrapper<CommentLike>()
@@ -458,10 +459,10 @@ import java.util.function.Function;
             commentMapper.incrLikeCount(commentId, -1);
 
             // 3. 移除 Redis 状态
-            redisTemplate.opsForSet().remove(userCommentLikeKey, commentId.toString());
+            redisKeyMigration.removeMember(userCommentLikeKey, commentId.toString());
         } else {
             // 兜底清理
-            redisTemplate.opsForSet().remove(userCommentLikeKey, commentId.toString());
+            redisKeyMigration.removeMember(userCommentLikeKey, commentId.toString());
         }
     }
 
@@ -482,7 +483,7 @@ import java.util.function.Function;
      */
     @Scheduled(fixedRate = 5000)
     public void syncVideoStatsToDB() {
-        log.info("开始同步视频统计数据...");
+        log.debug("开始同步视频统计数据...");
         try { syncBufferToDBUtil.syncBufferToDB(BUFFER_PLAY_KEY, "play_count"); } catch (Exception e) { log.error("同步播放数失败", e); }
         try { syncBufferToDBUtil.syncBufferToDB(BUFFER_LIKE_KEY, "like_count"); } catch (Exception e) { log.error("同步点赞数失败", e); }
         try { syncBufferToDBUtil.syncBufferToDB(BUFFER_FAVORITE_KEY, "favorite_count"); } catch (Exception e) { log.error("同步收藏数失败", e); }
@@ -520,18 +521,22 @@ import java.util.function.Function;
      * 【核心修复】安全更新 Redis 统计数据
      * 如果 Key 不存在，先从 DB 加载完整数据，再应用增量。
      * 防止 Key 过期后直接 increment 导致数据丢失（变成 1）。
+     * 重建只写入不存在的字段 (HSETNX)，并发重建时不会覆盖其他请求已经累加的增量；同一实例内同一视频只回源一次。
      */
     private void updateVideoStatSafe(Long videoId, String field, long delta) {
         String key = VIDEO_STAT_KEY + videoId;
 
-        // 1. 如果 Key 存在，直接累加
-        if (Boolean.TRUE.equals(redisTemplate.hasKey(key))) {
-            redisTemplate.opsForHash().increment(key, field, delta);
-            return;
+        // 1. 如果 Key 不存在，说明过期了，需要“查库重建”
+        if (!Boolean.TRUE.equals(redisTemplate.hasKey(key))) {
+            hotKeyCache.singleFlight("video-stat", key, () -> rebuildVideoStat(videoId, key));
         }
 
-        // 2. 如果 Key 不存在，说明过期了，需要“查库重建 + 应用增量”
-        VideoStat stat = videoStatMapper.selectById(videoId);
+        // 2. 应用增量
+        redisTemplate.opsForHash().increment(key, field, delta);
+    }
+
+    private VideoStat rebuildVideoStat(Long videoId, String key) {
+        VideoStat stat = hotKeyCache.timedLoad("video-stat", () -> videoStatMapper.selectById(videoId));
         if (stat == null) {
             // 防御性编程：如果 DB 也没记录（极少见），初始化一个 0
             stat = new VideoStat();
@@ -544,7 +549,6 @@ import java.util.function.Function;
             // 可以在这里 insert stat，视业务需求而定
         }
 
-        // 3. 组装完整 Map
         Map<String, String> map = new HashMap<>();
         map.put("playCount", String.valueOf(stat.getPlayCount()));
         map.put("likeCount", String.valueOf(stat.getLikeCount()));
@@ -552,13 +556,10 @@ import java.util.function.Function;
         map.put("shareCount", String.valueOf(stat.getShareCount()));
         map.put("favoriteCount", String.valueOf(stat.getFavoriteCount()));
 
-        // 4. 【关键】在写入 Redis 前，手动应用当前的增量
-        // 例如：DB 里是 10，这次操作是 +1，那么写入 Redis 的应该是 11
-        long originalVal = Long.parseLong(map.getOrDefault(field, "0"));
-        map.put(field, String.valueOf(originalVal + delta));
-
-        // 5. 写入 Redis 并设置过期时间
-        redisTemplate.opsForHash().putAll(key, map);
+        for (Map.Entry<String, String> e : map.entrySet()) {
+            redisTemplate.opsForHash().putIfAbsent(key, e.getKey(), e.getValue());
+        }
         redisTemplate.expire(key, 24, java.util.concurrent.TimeUnit.HOURS);
+        return stat;
     }
 }
@@ -1,19 +1,38 @@
 package teektok.service.impl;
 
 import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.baomidou.mybatisplus.core.conditions.update.LambdaUpdateWrapper;
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
 import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import teektok.VO.CursorResult;
 import teektok.VO.PageResult;
+import teektok.entity.DmConversation;
+import teektok.entity.DmInbox;
 import teektok.entity.DmMessage;
+import teektok.mapper.DmConversationMapper;
+import teektok.mapper.DmInboxMapper;
 import teektok.mapper.DmMessageMapper;
 import teektok.service.IDmService;
 import teektok.service.INotificationService;
+import teektok.service.IPushService;
 import teektok.service.IRelationService;
+import teektok.utils.UnreadCountCache;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 
+@Slf4j
 @Service
 public class DmServiceImpl extends ServiceImpl<DmMessageMapper, DmMessage> implements IDmService {
 
@@ -23,16 +42,37 @@ public class DmServiceImpl extends ServiceImpl<DmMessageMapper, DmMessage> imple
     @Autowired
     private INotificationService notificationService;
 
+    @Autowired
+    private UnreadCountCache unreadCountCache;
+
+    @Autowired
+    private IPushService pushService;
+
+    @Autowired
+    private DmConversationMapper conversationMapper;
+
+    @Autowired
+    private DmInboxMapper inboxMapper;
+
     @Override
+    @Transactional(rollbackFor = Exception.class)
     public void sendText(Long senderId, Long targetId, String content) {
         sendInternal(senderId, targetId, 1, content, null);
     }
 
     @Override
+    @Transactional(rollbackFor = Exception.class)
     public void sendVideo(Long senderId, Long targetId, Long videoId) {
         sendInternal(senderId, targetId, 2, null, videoId);
     }
 
+    /**
+     * 会话ID：两个用户ID小的在前，保证双方看到的是同一个会话
+     */
+    public static String conversationId(Long a, Long b) {
+        return Math.min(a, b) + "_" + Math.max(a, b);
+    }
+
     private void sendInternal(Long senderId, Long targetId, Integer msgType, String content, Long videoId) {
         if (senderId == null || targetId == null) {
             throw new RuntimeException("参数错误");
@@ -41,19 +81,28 @@ public class DmServiceImpl extends ServiceImpl<DmMessageMapper, DmMessage> imple
             throw new RuntimeException("不能给自己发送私信");
         }
 
+        String conversationId = conversationId(senderId, targetId);
+        boolean senderIsLow = senderId < targetId;
+
+        // 锁住会话行：同一会话的发送串行化，seq 连续且“只能发一条”的判断没有竞态
+        conversationMapper.insertIgnore(conversationId, Math.min(senderId, targetId), Math.max(senderId, targetId));
+        DmConversation conversation = conversationMapper.selectForUpdate(conversationId);
+
         boolean targetFollowsMe = relationService.isFollowing(targetId, senderId);
         if (!targetFollowsMe) {
-            long sentCount = count(new LambdaQueryWrapper<DmMessage>()
-                    .eq(DmMessage::getSenderId, senderId)
-                    .eq(DmMessage::getReceiverId, targetId));
-            if (sentCount >= 1) {
+            Integer sentCount = senderIsLow ? conversation.getLowSentCount() : conversation.getHighSentCount();
+            if (sentCount != null && sentCount >= 1) {
                 throw new RuntimeException("对方未关注你，最多只能发送一条私信");
             }
         }
 
+        long seq = (conversation.getLastSeq() == null ? 0L : conversation.getLastSeq()) + 1;
+
         DmMessage message = new DmMessage();
         message.setSenderId(senderId);
         message.setReceiverId(targetId);
+        message.setConversationId(conversationId);
+        message.setSeq(seq);
         message.setMsgType(msgType);
         message.setContent(content);
         message.setVideoId(videoId);
@@ -68,7 +117,51 @@ public class DmServiceImpl extends ServiceImpl<DmMessageMapper, DmMessage> imple
         if (msgType != null && msgType == 2) {
             preview = "分享了一个视频";
         }
+
+        conversationMapper.appendMessage(conversationId, seq, message.getId(), senderIsLow);
+        inboxMapper.upsertLatest(senderId, targetId, message, preview, 0);
+        inboxMapper.upsertLatest(targetId, senderId, message, preview, 1);
+
         notificationService.createNotification(targetId, senderId, 4, 1, senderId, preview);
+
+        String finalPreview = preview;
+        Runnable afterSend = () -> afterSend(message, finalPreview);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    afterSend.run();
+                }
+            });
+        } else {
+            afterSend.run();
+        }
+    }
+
+    /**
+     * 事务提交后更新未读计数并推送给接收方
+     */
+    private void afterSend(DmMessage message, String preview) {
+        Long targetId = message.getReceiverId();
+        Long unread = null;
+        try {
+            unread = unreadCountCache.incr(UnreadCountCache.DM, targetId, 1);
+        } catch (Exception e) {
+            log.warn("更新私信未读计数失败: {}", e.getMessage());
+        }
+
+        try {
+            Map<String, Object> data = new HashMap<>();
+            data.put("senderId", message.getSenderId());
+            data.put("messageId", message.getId());
+            data.put("seq", message.getSeq());
+            data.put("msgType", message.getMsgType());
+            data.put("preview", preview);
+            data.put("unread", unread);
+            pushService.push(targetId, "dm", data);
+        } catch (Exception e) {
+            log.warn("推送私信事件失败: {}", e.getMessage());
+        }
     }
 
     private String truncateContent(String content) {
@@ -84,14 +177,123 @@ public class DmServiceImpl extends ServiceImpl<DmMessageMapper, DmMessage> imple
             return new PageResult<>(java.util.Collections.emptyList(), 0);
         }
 
-        Page<DmMessage> pageParam = new Page<>(page, size);
+        // 按会话ID + seq 走 uk_conv_seq 索引；总数直接取会话的 last_seq，不再 COUNT
+        String conversationId = conversationId(userId, targetId);
+        DmConversation conversation = conversationMapper.selectById(conversationId);
+        if (conversation == null || conversation.getLastSeq() == null || conversation.getLastSeq() == 0) {
+            return new PageResult<>(Collections.emptyList(), 0);
+        }
+
+        Page<DmMessage> pageParam = new Page<>(page, size, false);
         LambdaQueryWrapper<DmMessage> wrapper = new LambdaQueryWrapper<DmMessage>()
-                .and(w -> w.eq(DmMessage::getSenderId, userId).eq(DmMessage::getReceiverId, targetId)
-                        .or()
-                        .eq(DmMessage::getSenderId, targetId).eq(DmMessage::getReceiverId, userId))
-                .orderByDesc(DmMessage::getCreateTime);
+                .eq(DmMessage::getConversationId, conversationId)
+                .orderByDesc(DmMessage::getSeq);
 
         Page<DmMessage> result = page(pageParam, wrapper);
+        return new PageResult<>(result.getRecords(), conversation.getLastSeq());
+    }
+
+    @Override
+    public CursorResult<DmMessage> listSessionMessagesByCursor(Long userId, Long targetId, Long cursor, int size) {
+        if (userId == null || targetId == null) {
+            return new CursorResult<>(Collections.emptyList(), null, false);
+        }
+
+        // 多取一条判断是否还有更早的消息
+        List<DmMessage> records = list(new LambdaQueryWrapper<DmMessage>()
+                .eq(DmMessage::getConversationId, conversationId(userId, targetId))
+                .lt(cursor != null, DmMessage::getSeq, cursor)
+                .orderByDesc(DmMessage::getSeq)
+                .last("LIMIT " + (size + 1)));
+
+        boolean hasMore = records.size() > size;
+        List<DmMessage> ordered = new ArrayList<>(hasMore ? records.subList(0, size) : records);
+        Collections.reverse(ordered);
+        Long nextCursor = ordered.isEmpty() ? null : ordered.get(0).getSeq();
+        return new CursorResult<>(ordered, nextCursor, hasMore);
+    }
+
+    @Override
+    public PageResult<DmInbox> listInbox(Long userId, int page, int size) {
+        if (userId == null) {
+            return new PageResult<>(Collections.emptyList(), 0);
+        }
+        Page<DmInbox> result = inboxMapper.selectPage(new Page<>(page, size), new LambdaQueryWrapper<DmInbox>()
+                .eq(DmInbox::getUserId, userId)
+                .orderByDesc(DmInbox::getUpdateTime));
         return new PageResult<>(result.getRecords(), result.getTotal());
     }
+
+    @Override
+    public long countUnread(Long userId) {
+        if (userId == null) return 0;
+        try {
+            Long cached = unreadCountCache.get(UnreadCountCache.DM, userId);
+            if (cached != null) {
+                return cached;
+            }
+        } catch (Exception e) {
+            log.warn("读取私信未读计数失败，回源数据库: {}", e.getMessage());
+            return countUnreadFromDB(userId);
+        }
+
+        long count = countUnreadFromDB(userId);
+        try {
+            unreadCountCache.set(UnreadCountCache.DM, userId, count);
+        } catch (Exception ignored) {
+        }
+        return count;
+    }
+
+    @Override
+    @Transactional(rollbackFor = Exception.class)
+    public void markSessionRead(Long userId, Long targetId) {
+        if (userId == null || targetId == null) return;
+        int rows = baseMapper.update(null, new LambdaUpdateWrapper<DmMessage>()
+                .eq(DmMessage::getSenderId, targetId)
+                .eq(DmMessage::getReceiverId, userId)
+                .eq(DmMessage::getIsRead, 0)
+                .set(DmMessage::getIsRead, 1));
+        inboxMapper.clearUnread(userId, targetId);
+        if (rows == 0) return;
+
+        // 消息和收件箱一起提交后再扣减缓存中的未读数，回滚时不扣
+        Runnable afterRead = () -> {
+            try {
+                unreadCountCache.incr(UnreadCountCache.DM, userId, -rows);
+            } catch (Exception e) {
+                log.warn("扣减私信未读计数失败: {}", e.getMessage());
+            }
+        };
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    afterRead.run();
+                }
+            });
+        } else {
+            afterRead.run();
+        }
+    }
+
+    // 收件箱每个会话一行，按用户求和即可，不扫消息表
+    private long countUnreadFromDB(Long userId) {
+        Long sum = inboxMapper.sumUnread(userId);
+        return sum == null ? 0 : sum;
+    }
+
+    /**
+     * 定时按 MySQL 校准最近有变动用户的私信未读计数
+     */
+    @Scheduled(fixedDelayString = "${teektok.notification.unread-reconcile-interval-ms:60000}")
+    public void reconcileUnreadCounters() {
+        try {
+            for (Long userId : unreadCountCache.popDirty(UnreadCountCache.DM, 500)) {
+                unreadCountCache.set(UnreadCountCache.DM, userId, countUnreadFromDB(userId));
+            }
+        } catch (Exception e) {
+            log.warn("校准私信未读计数失败: {}", e.getMessage());
+        }
+    }
 }
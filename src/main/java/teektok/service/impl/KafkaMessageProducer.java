@@ -1,6 +1,9 @@
 package teektok.service.impl;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
 import teektok.entity.UserBehavior;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.kafka.core.KafkaTemplate;
@@ -65,6 +68,9 @@ public class KafkaMessageProducer {
 }*/
 
 
+/**
+ * 指标：teektok.kafka.send (topic, outcome=success/failure)，从调用 send 到 Broker 确认 (acks=all) 的耗时
+ */
 @Slf4j
 @Service
 public class KafkaMessageProducer {
@@ -76,18 +82,30 @@ public class KafkaMessageProducer {
     @Value("${kafka.topic.behavior}")
     private String behaviorTopic;
 
+    @Autowired
+    private MeterRegistry meterRegistry;
+
     /**
      * 通用发送方法
      * @param eventData 可以是 Map, UserBehavior 实体, 或者任何对象
      */
     public void sendEvent(Object eventData) {
-        // 发送消息
-        CompletableFuture<SendResult<String, Object>> future = kafkaTemplate.send(behaviorTopic, eventData);
+        Timer.Sample sample = Timer.start(meterRegistry);
+        // 发送消息 (元数据拉取超时、序列化失败等会直接抛出)
+        CompletableFuture<SendResult<String, Object>> future;
+        try {
+            future = kafkaTemplate.send(behaviorTopic, eventData);
+        } catch (RuntimeException e) {
+            sample.stop(meterRegistry.timer("teektok.kafka.send", "topic", behaviorTopic, "outcome", "failure"));
+            throw e;
+        }
 
         // 统一处理回调
         future.whenComplete((result, ex) -> {
+            sample.stop(meterRegistry.timer("teektok.kafka.send", "topic", behaviorTopic,
+                    "outcome", ex == null ? "success" : "failure"));
             if (ex == null) {
-                log.info("Kafka消息发送成功 Topic: {} Partition: {}",
+                log.debug("Kafka消息发送成功 Topic: {} Partition: {}",
                         result.getRecordMetadata().topic(),
                         result.getRecordMetadata().partition());
             } else {
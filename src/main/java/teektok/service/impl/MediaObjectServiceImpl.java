@@ -0,0 +1,70 @@
+package teektok.service.impl;
+
+import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import teektok.entity.MediaObject;
+import teektok.mapper.MediaObjectMapper;
+import teektok.service.IMediaObjectService;
+import teektok.utils.ContentHash;
+import teektok.utils.MediaStorage;
+
+@Slf4j
+@Service
+public class MediaObjectServiceImpl implements IMediaObjectService {
+
+    @Autowired
+    private MediaObjectMapper mediaObjectMapper;
+
+    @Autowired
+    private MediaStorage mediaStorage;
+
+    @Override
+    public String reuse(String contentHash, long size) {
+        if (!ContentHash.isValid(contentHash)) return null;
+        MediaObject existing = find(contentHash);
+        if (existing == null || existing.getSize() == null || existing.getSize() != size) {
+            return null;
+        }
+        mediaObjectMapper.incrRef(existing.getId());
+        return existing.getUrl();
+    }
+
+    @Override
+    public String register(String contentHash, long size, String url) {
+        if (!ContentHash.isValid(contentHash) || url == null) return url;
+
+        MediaObject object = new MediaObject();
+        object.setStorage(mediaStorage.name());
+        object.setContentHash(contentHash);
+        object.setSize(size);
+        object.setUrl(url);
+        if (mediaObjectMapper.insertIgnore(object) == 1) {
+            return url;
+        }
+
+        MediaObject existing = find(contentHash);
+        if (existing == null || url.equals(existing.getUrl())) {
+            return url;
+        }
+        if (existing.getSize() == null || existing.getSize() != size) {
+            log.warn("内容哈希相同但大小不同 hash={}, {} != {}", contentHash, existing.getSize(), size);
+            return url;
+        }
+
+        try {
+            mediaStorage.delete(url);
+        } catch (Exception e) {
+            log.warn("删除重复文件失败 {}: {}", url, e.getMessage());
+        }
+        mediaObjectMapper.incrRef(existing.getId());
+        return existing.getUrl();
+    }
+
+    private MediaObject find(String contentHash) {
+        return mediaObjectMapper.selectOne(new LambdaQueryWrapper<MediaObject>()
+                .eq(MediaObject::getStorage, mediaStorage.name())
+                .eq(MediaObject::getContentHash, contentHash));
+    }
+}
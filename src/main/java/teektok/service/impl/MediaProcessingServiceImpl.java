@@ -0,0 +1,276 @@
+package teektok.service.impl;
+
+import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.baomidou.mybatisplus.core.conditions.update.LambdaUpdateWrapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import teektok.config.MediaProcessingProperties;
+import teektok.entity.Video;
+import teektok.mapper.VideoMapper;
+import teektok.service.IMediaProcessingService;
+import teektok.utils.LocalMediaOperator;
+import teektok.utils.MediaTranscoder;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.stream.Stream;
+
+/**
+ * 上传后的视频处理：以 video.process_status 作为任务队列
+ * 上传完成后立即提交到 mediaExecutor；线程池满、实例重启或处理失败的视频由定时扫描重新领取。
+ * 领取是一条带状态条件的 UPDATE，多实例部署时同一个视频只会被一个实例处理。
+ */
+@Slf4j
+@Service
+public class MediaProcessingServiceImpl implements IMediaProcessingService {
+
+    private static final int STATUS_PENDING = 0;
+    private static final int STATUS_PROCESSING = 1;
+    private static final int STATUS_DONE = 2;
+    private static final int STATUS_FAILED = 3;
+
+    private static final String VIDEO_INFO_KEY = "video:info:";
+
+    @Autowired
+    private VideoMapper videoMapper;
+
+    @Autowired
+    private MediaProcessingProperties properties;
+
+    @Autowired
+    private MediaTranscoder transcoder;
+
+    @Autowired
+    private LocalMediaOperator localMediaOperator;
+
+    @Autowired
+    private StringRedisTemplate stringRedisTemplate;
+
+    @Autowired
+    @Qualifier("mediaExecutor")
+    private ThreadPoolExecutor mediaExecutor;
+
+    @Override
+    public void submit(Long videoId) {
+        if (videoId == null) return;
+        if (!properties.isEnabled()) {
+            videoMapper.update(null, new LambdaUpdateWrapper<Video>()
+                    .eq(Video::getId, videoId)
+                    .eq(Video::getProcessStatus, STATUS_PENDING)
+                    .set(Video::getProcessStatus, STATUS_DONE));
+            return;
+        }
+        try {
+            mediaExecutor.execute(() -> process(videoId));
+        } catch (RejectedExecutionException e) {
+            log.info("视频处理队列已满，videoId={} 等待定时扫描", videoId);
+        }
+    }
+
+    @Override
+    public void process(Long videoId) {
+        if (!claim(videoId)) return;
+        Video video = videoMapper.selectById(videoId);
+        if (video == null) return;
+
+        try {
+            Video update = new Video();
+            if (transcoder.isAvailable()) {
+                // 本地存储直接读文件；OSS 只解析元数据 (ffprobe 支持 http 输入，封面由 OSS 截帧)
+                Path local = localMediaOperator.resolveUrl(video.getVideoUrl());
+                String input = local != null ? local.toString() : video.getVideoUrl();
+
+                MediaTranscoder.ProbeResult probe = transcoder.probe(input);
+                update.setDurationMs(probe.getDurationMs());
+                update.setWidth(probe.getWidth());
+                update.setHeight(probe.getHeight());
+
+                if (local != null) {
+                    if (video.getCoverUrl() == null || video.getCoverUrl().isBlank()) {
+                        update.setCoverUrl(generateCover(local, probe));
+                    }
+                    if (properties.isHlsEnabled()) {
+                        update.setHlsUrl(generateHls(local, probe));
+                    }
+                }
+            }
+            finish(videoId, update);
+        } catch (Exception e) {
+            if (e instanceof InterruptedException) {
+                Thread.currentThread().interrupt();
+            }
+            fail(video, e);
+        }
+    }
+
+    /**
+     * 补处理：待处理的视频，以及处理中但长时间没有完成 (实例宕机) 的视频
+     */
+    @Scheduled(fixedDelayString = "${teektok.media.processing.poll-interval-ms:30000}")
+    public void pollPending() {
+        if (!properties.isEnabled()) return;
+        int free = mediaExecutor.getQueue().remainingCapacity();
+        if (free <= 0) return;
+
+        try {
+            LocalDateTime staleBefore = LocalDateTime.now().minusMinutes(properties.getStaleMinutes());
+            List<Video> pending = videoMapper.selectList(new LambdaQueryWrapper<Video>()
+                    .select(Video::getId)
+                    .and(w -> w.eq(Video::getProcessStatus, STATUS_PENDING)
+                            .or(o -> o.eq(Video::getProcessStatus, STATUS_PROCESSING)
+                                    .lt(Video::getUpdateTime, staleBefore)))
+                    .orderByAsc(Video::getId)
+                    .last("LIMIT " + Math.min(properties.getBatchSize(), free)));
+            for (Video video : pending) {
+                submit(video.getId());
+            }
+        } catch (Exception e) {
+            log.warn("扫描待处理视频失败: {}", e.getMessage());
+        }
+    }
+
+    private boolean claim(Long videoId) {
+        LocalDateTime staleBefore = LocalDateTime.now().minusMinutes(properties.getStaleMinutes());
+        int rows = videoMapper.update(null, new LambdaUpdateWrapper<Video>()
+                .eq(Video::getId, videoId)
+                .and(w -> w.eq(Video::getProcessStatus, STATUS_PENDING)
+                        .or(o -> o.eq(Video::getProcessStatus, STATUS_PROCESSING)
+                                .lt(Video::getUpdateTime, staleBefore)))
+                .set(Video::getProcessStatus, STATUS_PROCESSING)
+                .setSql("process_attempts = IFNULL(process_attempts, 0) + 1")
+                .set(Video::getUpdateTime, LocalDateTime.now()));
+        return rows == 1;
+    }
+
+    private void finish(Long videoId, Video update) {
+        update.setProcessStatus(STATUS_DONE);
+        update.setUpdateTime(LocalDateTime.now());
+        videoMapper.update(update, new LambdaUpdateWrapper<Video>()
+                .eq(Video::getId, videoId)
+                .eq(Video::getProcessStatus, STATUS_PROCESSING));
+        evictCache(videoId);
+    }
+
+    private void fail(Video video, Exception e) {
+        int attempts = video.getProcessAttempts() == null ? 1 : video.getProcessAttempts();
+        boolean giveUp = attempts >= properties.getMaxAttempts();
+        log.warn("视频处理失败 videoId={}, 第 {} 次{}: {}", video.getId(), attempts, giveUp ? "，不再重试" : "", e.getMessage());
+        videoMapper.update(null, new LambdaUpdateWrapper<Video>()
+                .eq(Video::getId, video.getId())
+                .eq(Video::getProcessStatus, STATUS_PROCESSING)
+                .set(Video::getProcessStatus, giveUp ? STATUS_FAILED : STATUS_PENDING)
+                .set(Video::getUpdateTime, LocalDateTime.now()));
+    }
+
+    private void evictCache(Long videoId) {
+        try {
+            stringRedisTemplate.delete(VIDEO_INFO_KEY + videoId);
+        } catch (Exception e) {
+            log.warn("删除视频缓存失败 videoId={}: {}", videoId, e.getMessage());
+        }
+    }
+
+    /**
+     * 封面与视频放在同一目录：{uuid}.jpg；先写隐藏文件再改名，未写完的封面不会被访问到
+     */
+    private String generateCover(Path source, MediaTranscoder.ProbeResult probe) throws Exception {
+        String base = baseName(source);
+        Path cover = source.resolveSibling(base + ".jpg");
+        Path tmp = source.resolveSibling("." + base + ".jpg");
+
+        double offset = properties.getCoverOffsetSeconds();
+        if (probe.getDurationMs() != null) {
+            offset = Math.min(offset, probe.getDurationMs() / 2000.0);
+        }
+        try {
+            transcoder.snapshot(source.toString(), offset, tmp);
+            Files.move(tmp, cover, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+        return localMediaOperator.urlOf(cover);
+    }
+
+    /**
+     * 切片目录：{uuid}_hls/master.m3u8 + {height}p/index.m3u8；整个目录生成完再改名
+     */
+    private String generateHls(Path source, MediaTranscoder.ProbeResult probe) throws Exception {
+        String base = baseName(source);
+        Path target = source.resolveSibling(base + "_hls");
+        Path tmp = source.resolveSibling("." + base + "_hls");
+        deleteRecursively(tmp);
+
+        try {
+            StringBuilder master = new StringBuilder("#EXTM3U\n#EXT-X-VERSION:3\n");
+            for (MediaProcessingProperties.Rendition rendition : pickRenditions(probe.getHeight())) {
+                String name = rendition.getHeight() + "p";
+                transcoder.segmentHls(source.toString(), tmp.resolve(name), rendition);
+
+                long bandwidth = (rendition.getVideoBitrate() + 128L) * 1000;
+                master.append("#EXT-X-STREAM-INF:BANDWIDTH=").append(bandwidth);
+                if (probe.getWidth() != null && probe.getHeight() != null && probe.getHeight() > 0) {
+                    long width = Math.round((double) probe.getWidth() * rendition.getHeight() / probe.getHeight()) / 2 * 2;
+                    master.append(",RESOLUTION=").append(width).append("x").append(rendition.getHeight());
+                }
+                master.append("\n").append(name).append("/index.m3u8\n");
+            }
+            Files.writeString(tmp.resolve("master.m3u8"), master.toString(), StandardCharsets.UTF_8);
+
+            deleteRecursively(target);
+            Files.move(tmp, target, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            deleteRecursively(tmp);
+        }
+        return localMediaOperator.urlOf(target.resolve("master.m3u8"));
+    }
+
+    /**
+     * 跳过高于源分辨率的档位 (不做放大)；都高于源分辨率时按源分辨率切最低码率的一档
+     */
+    private List<MediaProcessingProperties.Rendition> pickRenditions(Integer sourceHeight) {
+        List<MediaProcessingProperties.Rendition> all = new ArrayList<>(properties.getRenditions());
+        all.sort(Comparator.comparingInt(MediaProcessingProperties.Rendition::getHeight).reversed());
+        if (all.isEmpty()) {
+            throw new RuntimeException("未配置 HLS 清晰度");
+        }
+        if (sourceHeight == null) return all;
+
+        List<MediaProcessingProperties.Rendition> picked = new ArrayList<>();
+        for (MediaProcessingProperties.Rendition r : all) {
+            if (r.getHeight() <= sourceHeight) picked.add(r);
+        }
+        if (picked.isEmpty()) {
+            MediaProcessingProperties.Rendition lowest = all.get(all.size() - 1);
+            picked.add(new MediaProcessingProperties.Rendition(sourceHeight / 2 * 2, lowest.getVideoBitrate()));
+        }
+        return picked;
+    }
+
+    private static String baseName(Path file) {
+        String name = file.getFileName().toString();
+        int idx = name.lastIndexOf('.');
+        return idx > 0 ? name.substring(0, idx) : name;
+    }
+
+    private static void deleteRecursively(Path dir) throws IOException {
+        if (!Files.exists(dir)) return;
+        try (Stream<Path> files = Files.walk(dir)) {
+            for (Path p : files.sorted(Comparator.reverseOrder()).toList()) {
+                Files.deleteIfExists(p);
+            }
+        }
+    }
+}
@@ -4,17 +4,81 @@ import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
 import com.baomidou.mybatisplus.core.conditions.update.LambdaUpdateWrapper;
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
 import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 import teektok.VO.PageResult;
+import teektok.config.NotificationProperties;
 import teektok.entity.Notification;
 import teektok.mapper.NotificationMapper;
 import teektok.service.INotificationService;
+import teektok.service.IPushService;
+import teektok.utils.RedisKeys;
+import teektok.utils.SlotPipeline;
+import teektok.utils.UnreadCountCache;
 
 import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
+/**
+ * 通知先进入内存缓冲，定时批量落库；聚合通知按窗口合并为“A 等 N 人”
+ * 落库失败的通知重新入队，重试 MAX_FLUSH_ATTEMPTS 次或缓冲区已满时丢弃并计数
+ * 指标：teektok.notification.dropped (kind=single/aggregate)
+ */
+@Slf4j
 @Service
 public class NotificationServiceImpl extends ServiceImpl<NotificationMapper, Notification> implements INotificationService {
 
+    // 可聚合的通知类型：1关注 2点赞 (评论、私信的内容各不相同，逐条保留)
+    private static final int TYPE_FOLLOW = 1;
+    private static final Set<Integer> AGGREGATE_TYPES = Set.of(TYPE_FOLLOW, 2);
+
+    // 单条 SQL 最多携带的行数
+    private static final int BATCH_SIZE = 500;
+
+    // 全部已读时每条 UPDATE 最多修改的行数，避免一次锁住大量行
+    private static final int MARK_READ_BATCH = 1000;
+
+    // 每次校准的最大用户数
+    private static final int RECONCILE_BATCH = 500;
+
+    // 一条 (或一桶) 通知最多尝试落库的次数
+    private static final int MAX_FLUSH_ATTEMPTS = 5;
+
+    @Autowired
+    private NotificationProperties notificationProperties;
+
+    @Autowired
+    private UnreadCountCache unreadCountCache;
+
+    @Autowired
+    private IPushService pushService;
+
+    @Autowired
+    private SlotPipeline slotPipeline;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    // 待落库的聚合桶：aggKey -> 桶 (同一窗口内的同类事件只占一个桶)
+    private final ConcurrentHashMap<String, PendingAggregate> pendingAggregates = new ConcurrentHashMap<>();
+
+    // 不聚合的通知 (评论、私信)，按到达顺序批量写入
+    private final ConcurrentLinkedQueue<PendingSingle> pendingSingles = new ConcurrentLinkedQueue<>();
+
+    private final AtomicInteger pendingSize = new AtomicInteger();
+
     @Override
     public void createNotification(
             Long userId,
@@ -27,6 +91,333 @@ public class NotificationServiceImpl extends ServiceImpl<NotificationMapper, Not
         if (userId == null || actorId == null) return;
         if (userId.equals(actorId)) return;
 
+        LocalDateTime now = LocalDateTime.now();
+        Runnable enqueue = () -> enqueue(userId, actorId, type, targetType, targetId, content, now);
+
+        // 调用方通常处于点赞/评论的事务中：等事务提交后再入队，回滚的操作不产生通知
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    enqueue.run();
+                }
+            });
+        } else {
+            enqueue.run();
+        }
+    }
+
+    private void enqueue(Long userId, Long actorId, Integer type, Integer targetType, Long targetId,
+                         String content, LocalDateTime time) {
+        // 缓冲区已满 (落库持续失败或流量异常)：退化为同步写入，保证不丢也不撑爆内存
+        if (pendingSize.get() >= notificationProperties.getMaxPending()) {
+            Notification notification = buildNotification(userId, actorId, type, targetType, targetId, content, time);
+            notification.setLatestActorIds(String.valueOf(actorId));
+            save(notification);
+            incrUnread(List.of(notification));
+            return;
+        }
+
+        if (type != null && AGGREGATE_TYPES.contains(type)) {
+            // 关注通知的 targetId 就是操作人本身，按接收人聚合即可
+            Long aggTargetId = type == TYPE_FOLLOW ? Long.valueOf(0L) : targetId;
+            String aggKey = buildAggKey(userId, type, targetType, aggTargetId, time);
+            pendingAggregates.compute(aggKey, (k, bucket) -> {
+                if (bucket == null) {
+                    bucket = new PendingAggregate(k, userId, type, targetType);
+                    pendingSize.incrementAndGet();
+                }
+                bucket.add(actorId, targetId, time, notificationProperties.getLatestActorLimit());
+                return bucket;
+            });
+            return;
+        }
+
+        Notification notification = buildNotification(userId, actorId, type, targetType, targetId, content, time);
+        notification.setLatestActorIds(String.valueOf(actorId));
+        pendingSingles.offer(new PendingSingle(notification, 0));
+        pendingSize.incrementAndGet();
+    }
+
+    /**
+     * 定时将缓冲的通知批量落库
+     * 聚合通知：命中同窗口内未读的旧行则合并 (一条 CASE WHEN UPDATE)，否则批量插入
+     * 批量写入失败时逐条重试，仍失败的重新入队，下个周期再写
+     */
+    @Scheduled(fixedDelayString = "${teektok.notification.flush-interval-ms:2000}")
+    public void flushPendingNotifications() {
+        List<PendingSingle> singles = new ArrayList<>();
+        PendingSingle single;
+        while ((single = pendingSingles.poll()) != null) {
+            singles.add(single);
+            pendingSize.decrementAndGet();
+        }
+
+        // 逐个 remove：被移除的桶不会再被 compute 修改，之后到达的事件会进入新桶，下个周期落库
+        List<PendingAggregate> aggregates = new ArrayList<>();
+        for (String key : pendingAggregates.keySet()) {
+            PendingAggregate bucket = pendingAggregates.remove(key);
+            if (bucket != null) {
+                aggregates.add(bucket);
+                pendingSize.decrementAndGet();
+            }
+        }
+
+        if (singles.isEmpty() && aggregates.isEmpty()) {
+            return;
+        }
+
+        for (int i = 0; i < singles.size(); i += BATCH_SIZE) {
+            insertSingles(singles.subList(i, Math.min(i + BATCH_SIZE, singles.size())));
+        }
+
+        for (int i = 0; i < aggregates.size(); i += BATCH_SIZE) {
+            List<PendingAggregate> chunk = aggregates.subList(i, Math.min(i + BATCH_SIZE, aggregates.size()));
+            try {
+                mergeAggregates(chunk);
+            } catch (Exception e) {
+                // 查询旧行失败，还没有写入任何数据，整批重新入队
+                log.error("合并聚合通知失败, 桶数: {}", chunk.size(), e);
+                chunk.forEach(this::requeue);
+            }
+        }
+    }
+
+    private void insertSingles(List<PendingSingle> chunk) {
+        List<Notification> rows = chunk.stream().map(PendingSingle::notification).toList();
+        try {
+            baseMapper.batchInsert(rows);
+            incrUnread(rows);
+            return;
+        } catch (Exception e) {
+            log.error("批量写入通知失败，改为逐条写入, 条数: {}", chunk.size(), e);
+        }
+
+        // 逐条写入：个别行的问题不影响同批其他通知
+        List<Notification> saved = new ArrayList<>(chunk.size());
+        for (PendingSingle pending : chunk) {
+            try {
+                save(pending.notification());
+                saved.add(pending.notification());
+            } catch (Exception e) {
+                log.warn("写入通知失败 userId={}: {}", pending.notification().getUserId(), e.getMessage());
+                requeue(pending);
+            }
+        }
+        if (!saved.isEmpty()) {
+            incrUnread(saved);
+        }
+    }
+
+    private void requeue(PendingSingle pending) {
+        if (pending.attempts() + 1 >= MAX_FLUSH_ATTEMPTS || pendingSize.get() >= notificationProperties.getMaxPending()) {
+            log.error("通知多次写入失败，丢弃 userId={}, type={}", pending.notification().getUserId(), pending.notification().getType());
+            meterRegistry.counter("teektok.notification.dropped", "kind", "single").increment();
+            return;
+        }
+        pendingSingles.offer(new PendingSingle(pending.notification(), pending.attempts() + 1));
+        pendingSize.incrementAndGet();
+    }
+
+    // 失败的桶放回缓冲；期间同一聚合键又有新事件时合并进新桶
+    private void requeue(PendingAggregate bucket) {
+        if (bucket.attempts + 1 >= MAX_FLUSH_ATTEMPTS || pendingSize.get() >= notificationProperties.getMaxPending()) {
+            log.error("聚合通知多次写入失败，丢弃 aggKey={}, 操作人数: {}", bucket.aggKey, bucket.actorIds.size());
+            meterRegistry.counter("teektok.notification.dropped", "kind", "aggregate").increment();
+            return;
+        }
+        bucket.attempts++;
+        int limit = notificationProperties.getLatestActorLimit();
+        pendingAggregates.compute(bucket.aggKey, (k, current) -> {
+            if (current == null) {
+                pendingSize.incrementAndGet();
+                return bucket;
+            }
+            current.absorb(bucket, limit);
+            return current;
+        });
+    }
+
+    @PreDestroy
+    public void flushOnShutdown() {
+        try {
+            flushPendingNotifications();
+        } catch (Exception e) {
+            log.error("停机前写入通知失败", e);
+        }
+    }
+
+    private void mergeAggregates(List<PendingAggregate> buckets) {
+        Set<String> aggKeys = buckets.stream().map(b -> b.aggKey).collect(Collectors.toSet());
+
+        // 同一聚合键只合并到仍未读的那一行；用户读过之后的新事件另起一行
+        Map<String, Notification> existing = list(new LambdaQueryWrapper<Notification>()
+                .select(Notification::getId, Notification::getAggKey, Notification::getLatestActorIds)
+                .in(Notification::getAggKey, aggKeys)
+                .eq(Notification::getIsRead, 0))
+                .stream()
+                .collect(Collectors.toMap(Notification::getAggKey, Function.identity(),
+                        (a, b) -> a.getId() > b.getId() ? a : b));
+
+        List<PendingAggregate> insertBuckets = new ArrayList<>();
+        List<PendingAggregate> mergeBuckets = new ArrayList<>();
+        for (PendingAggregate bucket : buckets) {
+            (existing.containsKey(bucket.aggKey) ? mergeBuckets : insertBuckets).add(bucket);
+        }
+        recordActors(insertBuckets, mergeBuckets);
+
+        List<Notification> inserts = new ArrayList<>(insertBuckets.size());
+        for (PendingAggregate bucket : insertBuckets) {
+            Notification n = buildNotification(bucket.userId, bucket.lastActorId, bucket.type,
+                    bucket.targetType, bucket.lastTargetId, null, bucket.lastTime);
+            n.setActorCount(bucket.actorIds.size());
+            n.setLatestActorIds(joinIds(bucket.latestActors));
+            n.setAggKey(bucket.aggKey);
+            inserts.add(n);
+        }
+
+        List<Notification> merges = new ArrayList<>(mergeBuckets.size());
+        int limit = notificationProperties.getLatestActorLimit();
+        for (PendingAggregate bucket : mergeBuckets) {
+            Notification old = existing.get(bucket.aggKey);
+            Notification n = new Notification();
+            n.setId(old.getId());
+            n.setActorId(bucket.lastActorId);
+            n.setTargetId(bucket.lastTargetId);
+            n.setActorCount(bucket.newActors); // 增量：旧行还没有计入的操作人数
+            n.setLatestActorIds(joinIds(mergeLatest(bucket.latestActors, old.getLatestActorIds(), limit)));
+            n.setCreateTime(bucket.lastTime);
+            merges.add(n);
+        }
+
+        // 插入与合并分别提交，失败的一部分重新入队，已写入的不会重复写
+        // 合并进未读旧行不改变未读条数，只有新插入的行计入
+        if (!inserts.isEmpty()) {
+            try {
+                baseMapper.batchInsert(inserts);
+                incrUnread(inserts);
+            } catch (Exception e) {
+                log.error("批量插入聚合通知失败, 条数: {}", inserts.size(), e);
+                // 操作人已记入集合：重试时如果改为合并进别的实例插入的行，这些人仍要计入增量
+                insertBuckets.forEach(bucket -> bucket.newActors = bucket.actorIds.size());
+                insertBuckets.forEach(this::requeue);
+            }
+        }
+        if (!merges.isEmpty()) {
+            try {
+                baseMapper.batchMergeAggregated(merges);
+            } catch (Exception e) {
+                log.error("合并聚合通知失败, 条数: {}", merges.size(), e);
+                mergeBuckets.forEach(this::requeue);
+                return;
+            }
+            // 合并后的通知内容变了（“A 等 N 人”），同样提醒在线用户刷新
+            mergeBuckets.stream().map(bucket -> bucket.userId).distinct().forEach(uid -> pushUnread(uid, null));
+        }
+    }
+
+    /**
+     * 把桶内的操作人记入该聚合键的 Redis 集合，得到合并时 actor_count 的增量
+     * 同一个人在同一窗口内的多次操作分散在几次落库中时只计一次。
+     * 新插入的行先清空集合 (上一行已读，重新计数)；Redis 不可用时退化为按桶内人数累加
+     */
+    private void recordActors(List<PendingAggregate> insertBuckets, List<PendingAggregate> mergeBuckets) {
+        // 窗口结束后不会再合并进这一行，集合多保留一个窗口后过期
+        long ttlSeconds = Math.max(1, notificationProperties.getAggregateWindowMinutes()) * 120L;
+
+        // SlotPipeline 要求每个 Key 发送的命令数相同，新行与合并分两次执行
+        if (!insertBuckets.isEmpty()) {
+            Map<String, PendingAggregate> byKey = byActorsKey(insertBuckets);
+            try {
+                slotPipeline.execute(new ArrayList<>(byKey.keySet()), (connection, key) -> {
+                    connection.del(key);
+                    connection.sAdd(key, actorMembers(byKey.get(key)));
+                    connection.expire(key, ttlSeconds);
+                });
+            } catch (Exception e) {
+                log.warn("重置聚合通知操作人集合失败: {}", e.getMessage());
+            }
+        }
+        if (mergeBuckets.isEmpty()) return;
+
+        Map<String, PendingAggregate> byKey = byActorsKey(mergeBuckets);
+        List<String> keys = new ArrayList<>(byKey.keySet());
+        List<Object> results;
+        try {
+            results = slotPipeline.execute(keys, (connection, key) -> {
+                connection.sAdd(key, actorMembers(byKey.get(key)));
+                connection.expire(key, ttlSeconds);
+            });
+        } catch (Exception e) {
+            log.warn("记录聚合通知操作人失败，按桶内人数累加: {}", e.getMessage());
+            mergeBuckets.forEach(bucket -> bucket.newActors += bucket.actorIds.size());
+            return;
+        }
+
+        for (int i = 0; i < keys.size(); i++) {
+            PendingAggregate bucket = byKey.get(keys.get(i));
+            Object added = results.get(i) instanceof List<?> list && !list.isEmpty() ? list.get(0) : null;
+            // 重试的桶在上次已记入集合，累加到上次算出的增量上
+            bucket.newActors += added instanceof Number n ? n.intValue() : 0;
+        }
+    }
+
+    private static Map<String, PendingAggregate> byActorsKey(List<PendingAggregate> buckets) {
+        Map<String, PendingAggregate> byKey = new LinkedHashMap<>();
+        for (PendingAggregate bucket : buckets) {
+            byKey.put(RedisKeys.notificationActors(bucket.aggKey), bucket);
+        }
+        return byKey;
+    }
+
+    private static String[] actorMembers(PendingAggregate bucket) {
+        return bucket.actorIds.stream().map(String::valueOf).toArray(String[]::new);
+    }
+
+    private void incrUnread(List<Notification> inserted) {
+        Map<Long, Long> perUser = inserted.stream()
+                .collect(Collectors.groupingBy(Notification::getUserId, Collectors.counting()));
+        perUser.forEach((uid, cnt) -> {
+            Long unread = null;
+            try {
+                unread = unreadCountCache.incr(UnreadCountCache.NOTIFICATION, uid, cnt);
+            } catch (Exception e) {
+                // 计数器失败不影响落库，定时校准/下次读取时查库重建
+                log.warn("更新通知未读计数失败: {}", e.getMessage());
+            }
+            pushUnread(uid, unread);
+        });
+    }
+
+    /**
+     * 推送给在线用户；unread 为 null 表示计数未知，客户端自行拉取
+     */
+    private void pushUnread(Long userId, Long unread) {
+        try {
+            Map<String, Object> data = new HashMap<>();
+            data.put("unread", unread);
+            pushService.push(userId, "notification", data);
+        } catch (Exception e) {
+            log.warn("推送通知事件失败: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * 定时按 MySQL 校准最近有变动用户的未读计数，修正并发或 Redis 故障导致的漂移
+     */
+    @Scheduled(fixedDelayString = "${teektok.notification.unread-reconcile-interval-ms:60000}")
+    public void reconcileUnreadCounters() {
+        try {
+            for (Long userId : unreadCountCache.popDirty(UnreadCountCache.NOTIFICATION, RECONCILE_BATCH)) {
+                unreadCountCache.set(UnreadCountCache.NOTIFICATION, userId, countUnreadFromDB(userId));
+            }
+        } catch (Exception e) {
+            log.warn("校准通知未读计数失败: {}", e.getMessage());
+        }
+    }
+
+    private Notification buildNotification(Long userId, Long actorId, Integer type, Integer targetType,
+                                           Long targetId, String content, LocalDateTime time) {
         Notification notification = new Notification();
         notification.setUserId(userId);
         notification.setActorId(actorId);
@@ -35,8 +426,87 @@ public class NotificationServiceImpl extends ServiceImpl<NotificationMapper, Not
         notification.setTargetId(targetId);
         notification.setContent(content);
         notification.setIsRead(0);
-        notification.setCreateTime(LocalDateTime.now());
-        save(notification);
+        notification.setActorCount(1);
+        notification.setCreateTime(time);
+        return notification;
+    }
+
+    private String buildAggKey(Long userId, Integer type, Integer targetType, Long targetId, LocalDateTime time) {
+        long windowMillis = Math.max(1, notificationProperties.getAggregateWindowMinutes()) * 60_000L;
+        long windowIndex = time.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli() / windowMillis;
+        return userId + ":" + type + ":" + targetType + ":" + targetId + ":" + windowIndex;
+    }
+
+    private static LinkedList<Long> mergeLatest(LinkedList<Long> newest, String oldIds, int limit) {
+        LinkedList<Long> merged = new LinkedList<>(newest);
+        if (oldIds != null && !oldIds.isBlank()) {
+            for (String s : oldIds.split(",")) {
+                if (merged.size() >= limit) break;
+                try {
+                    Long id = Long.valueOf(s.trim());
+                    if (!merged.contains(id)) merged.addLast(id);
+                } catch (NumberFormatException ignored) {
+                }
+            }
+        }
+        return merged;
+    }
+
+    private static String joinIds(List<Long> ids) {
+        return ids.stream().map(String::valueOf).collect(Collectors.joining(","));
+    }
+
+    private record PendingSingle(Notification notification, int attempts) {
+    }
+
+    /**
+     * 一个聚合窗口内尚未落库的事件，在缓冲区中时只在 ConcurrentHashMap.compute 内被修改
+     */
+    private static class PendingAggregate {
+        final String aggKey;
+        final Long userId;
+        final Integer type;
+        final Integer targetType;
+        final Set<Long> actorIds = new HashSet<>();
+        final LinkedList<Long> latestActors = new LinkedList<>();
+        Long lastActorId;
+        Long lastTargetId;
+        LocalDateTime lastTime;
+        // 已记入 Redis 集合、尚未合并进旧行的新操作人数
+        int newActors;
+        int attempts;
+
+        PendingAggregate(String aggKey, Long userId, Integer type, Integer targetType) {
+            this.aggKey = aggKey;
+            this.userId = userId;
+            this.type = type;
+            this.targetType = targetType;
+        }
+
+        void add(Long actorId, Long targetId, LocalDateTime time, int limit) {
+            actorIds.add(actorId);
+            latestActors.remove(actorId);
+            latestActors.addFirst(actorId);
+            while (latestActors.size() > limit) {
+                latestActors.removeLast();
+            }
+            lastActorId = actorId;
+            lastTargetId = targetId;
+            lastTime = time;
+        }
+
+        /**
+         * 并入落库失败的旧桶：本桶的事件更新，最近操作人排在前面
+         */
+        void absorb(PendingAggregate older, int limit) {
+            actorIds.addAll(older.actorIds);
+            for (Long actorId : older.latestActors) {
+                if (latestActors.size() >= limit) break;
+                if (!latestActors.contains(actorId)) latestActors.addLast(actorId);
+            }
+            newActors += older.newActors;
+            attempts = Math.max(attempts, older.attempts);
+        }
     }
 
     @Override
@@ -51,6 +521,25 @@ public class NotificationServiceImpl extends ServiceImpl<NotificationMapper, Not
 
     @Override
     public long countUnread(Long userId) {
+        try {
+            Long cached = unreadCountCache.get(UnreadCountCache.NOTIFICATION, userId);
+            if (cached != null) {
+                return cached;
+            }
+        } catch (Exception e) {
+            log.warn("读取通知未读计数失败，回源数据库: {}", e.getMessage());
+            return countUnreadFromDB(userId);
+        }
+
+        long count = countUnreadFromDB(userId);
+        try {
+            unreadCountCache.set(UnreadCountCache.NOTIFICATION, userId, count);
+        } catch (Exception ignored) {
+        }
+        return count;
+    }
+
+    private long countUnreadFromDB(Long userId) {
         return count(new LambdaQueryWrapper<Notification>()
                 .eq(Notification::getUserId, userId)
                 .eq(Notification::getIsRead, 0));
@@ -58,18 +547,37 @@ public class NotificationServiceImpl extends ServiceImpl<NotificationMapper, Not
 
     @Override
     public void markAllRead(Long userId) {
-        update(new LambdaUpdateWrapper<Notification>()
-                .eq(Notification::getUserId, userId)
-                .eq(Notification::getIsRead, 0)
-                .set(Notification::getIsRead, 1));
+        // 分批更新，每条 UPDATE 最多锁 MARK_READ_BATCH 行
+        int rows;
+        do {
+            rows = baseMapper.update(null, new LambdaUpdateWrapper<Notification>()
+                    .eq(Notification::getUserId, userId)
+                    .eq(Notification::getIsRead, 0)
+                    .set(Notification::getIsRead, 1)
+                    .last("LIMIT " + MARK_READ_BATCH));
+        } while (rows >= MARK_READ_BATCH);
+
+        try {
+            unreadCountCache.set(UnreadCountCache.NOTIFICATION, userId, 0);
+        } catch (Exception e) {
+            log.warn("重置通知未读计数失败: {}", e.getMessage());
+        }
     }
 
     @Override
     public void markRead(Long userId, Long notificationId) {
         if (notificationId == null) return;
-        update(new LambdaUpdateWrapper<Notification>()
+        boolean updated = update(new LambdaUpdateWrapper<Notification>()
                 .eq(Notification::getUserId, userId)
                 .eq(Notification::getId, notificationId)
+                .eq(Notification::getIsRead, 0)
                 .set(Notification::getIsRead, 1));
+        if (updated) {
+            try {
+                unreadCountCache.incr(UnreadCountCache.NOTIFICATION, userId, -1);
+            } catch (Exception e) {
+                log.warn("扣减通知未读计数失败: {}", e.getMessage());
+            }
+        }
     }
 }
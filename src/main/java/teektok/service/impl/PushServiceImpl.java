@@ -0,0 +1,304 @@
+package teektok.service.impl;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import teektok.config.PushProperties;
+import teektok.service.IPushService;
+
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * SSE 推送
+ * 连接建立后只占一个异步请求，不占线程；有事件时由 pushExecutor 借线程写出，空闲连接只有心跳开销。
+ * 事件先发布到 Redis 频道，每个节点收到后投递给连在本节点的用户；Redis 不可用时退化为本节点投递。
+ * pushExecutor 饱和时不在调用线程上写出：事件留在连接队列里，由该连接的下一个事件或心跳再次调度 (teektok.push.drains.rejected)。
+ */
+@Slf4j
+@Service
+public class PushServiceImpl implements IPushService, MessageListener {
+
+    @Autowired
+    private PushProperties pushProperties;
+
+    @Autowired
+    private StringRedisTemplate stringRedisTemplate;
+
+    @Autowired
+    private RedisConnectionFactory redisConnectionFactory;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    @Qualifier("pushExecutor")
+    private ThreadPoolExecutor pushExecutor;
+
+    @Autowired
+    @Qualifier("commonExecutor")
+    private Executor commonExecutor;
+
+    // userId -> 该用户在本节点的连接（可能有多个标签页）
+    private final ConcurrentHashMap<Long, CopyOnWriteArrayList<Connection>> connections = new ConcurrentHashMap<>();
+
+    // 不注册为 Bean：容器 Bean 会在启动时同步订阅，Redis 不可用时拖慢甚至阻断启动
+    private RedisMessageListenerContainer listenerContainer;
+
+    private Counter sentCounter;
+    private Counter droppedCounter;
+    private Counter heartbeatCounter;
+    private Counter errorCounter;
+    private Counter rejectedDrainCounter;
+
+    @PostConstruct
+    public void init() {
+        sentCounter = meterRegistry.counter("teektok.push.events.sent");
+        droppedCounter = meterRegistry.counter("teektok.push.events.dropped");
+        heartbeatCounter = meterRegistry.counter("teektok.push.heartbeats");
+        errorCounter = meterRegistry.counter("teektok.push.errors");
+        rejectedDrainCounter = meterRegistry.counter("teektok.push.drains.rejected");
+        Gauge.builder("teektok.push.connections", this, s -> s.countConnections())
+                .description("本节点的 SSE 连接数")
+                .register(meterRegistry);
+        Gauge.builder("teektok.push.users", connections, Map::size)
+                .description("本节点在线的用户数")
+                .register(meterRegistry);
+        Gauge.builder("teektok.push.queued", this, s -> s.countQueued())
+                .description("所有连接积压的待发送事件数")
+                .register(meterRegistry);
+
+        listenerContainer = new RedisMessageListenerContainer();
+        listenerContainer.setConnectionFactory(redisConnectionFactory);
+        listenerContainer.afterPropertiesSet();
+        listenerContainer.addMessageListener(this, new ChannelTopic(pushProperties.getChannel()));
+    }
+
+    /**
+     * 应用就绪后再异步订阅，Redis 连不上时容器会自行按间隔重试
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void startListening() {
+        commonExecutor.execute(() -> {
+            try {
+                listenerContainer.start();
+            } catch (Exception e) {
+                log.warn("订阅推送频道失败，仅投递本节点连接: {}", e.getMessage());
+            }
+        });
+    }
+
+    @Override
+    public SseEmitter subscribe(Long userId) {
+        SseEmitter emitter = new SseEmitter(pushProperties.getTimeoutMs());
+        Connection connection = new Connection(userId, emitter, pushProperties.getQueueCapacity());
+
+        CopyOnWriteArrayList<Connection> list = connections.computeIfAbsent(userId, k -> new CopyOnWriteArrayList<>());
+        list.add(connection);
+        while (list.size() > pushProperties.getMaxConnectionsPerUser()) {
+            Connection oldest = list.get(0);
+            removeConnection(oldest);
+            oldest.emitter.complete();
+        }
+
+        emitter.onCompletion(() -> removeConnection(connection));
+        emitter.onTimeout(() -> removeConnection(connection));
+        emitter.onError(e -> removeConnection(connection));
+
+        // 首个事件让客户端确认连接已建立
+        connection.offer(SseEmitter.event().name("connected").data("{}"));
+        return emitter;
+    }
+
+    @Override
+    public void push(Long userId, String event, Object data) {
+        if (userId == null || event == null) return;
+
+        String json;
+        try {
+            Map<String, Object> envelope = new HashMap<>();
+            envelope.put("userId", userId);
+            envelope.put("event", event);
+            envelope.put("data", data);
+            json = objectMapper.writeValueAsString(envelope);
+        } catch (Exception e) {
+            log.warn("推送事件序列化失败: {}", e.getMessage());
+            return;
+        }
+
+        try {
+            stringRedisTemplate.convertAndSend(pushProperties.getChannel(), json);
+        } catch (Exception e) {
+            // Redis 不可用：至少投递给本节点的连接
+            log.debug("发布推送事件失败，改为本节点投递: {}", e.getMessage());
+            deliverLocal(json);
+        }
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        deliverLocal(new String(message.getBody(), StandardCharsets.UTF_8));
+    }
+
+    private void deliverLocal(String json) {
+        try {
+            JsonNode node = objectMapper.readTree(json);
+            Long userId = node.path("userId").asLong();
+            List<Connection> list = connections.get(userId);
+            if (list == null || list.isEmpty()) return;
+
+            String event = node.path("event").asText();
+            String data = objectMapper.writeValueAsString(node.path("data"));
+            for (Connection connection : list) {
+                connection.offer(SseEmitter.event().name(event).data(data));
+            }
+        } catch (Exception e) {
+            log.warn("投递推送事件失败: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * 心跳：一行 SSE 注释，顺带清理已断开的连接
+     */
+    @Scheduled(fixedDelayString = "${teektok.push.heartbeat-interval-ms:25000}")
+    public void heartbeat() {
+        for (List<Connection> list : connections.values()) {
+            for (Connection connection : list) {
+                connection.offer(SseEmitter.event().comment("ping"));
+                heartbeatCounter.increment();
+            }
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        try {
+            listenerContainer.destroy();
+        } catch (Exception e) {
+            log.warn("关闭推送订阅失败: {}", e.getMessage());
+        }
+        for (List<Connection> list : connections.values()) {
+            for (Connection connection : list) {
+                connection.close();
+            }
+        }
+        connections.clear();
+    }
+
+    private void removeConnection(Connection connection) {
+        connection.closed = true;
+        connections.computeIfPresent(connection.userId, (k, list) -> {
+            list.remove(connection);
+            return list.isEmpty() ? null : list;
+        });
+    }
+
+    private double countConnections() {
+        return connections.values().stream().mapToInt(List::size).sum();
+    }
+
+    private double countQueued() {
+        return connections.values().stream()
+                .flatMap(List::stream)
+                .mapToInt(c -> c.queue.size())
+                .sum();
+    }
+
+    /**
+     * 单个 SSE 连接：有界队列 + 单写者
+     * 慢客户端只会积压自己的队列，满了丢弃最旧的事件（事件都是“有新消息”的提示，客户端收到后会拉取最新数据）
+     */
+    private class Connection {
+        final Long userId;
+        final SseEmitter emitter;
+        final ArrayBlockingQueue<SseEmitter.SseEventBuilder> queue;
+        final AtomicBoolean draining = new AtomicBoolean(false);
+        volatile boolean closed;
+
+        Connection(Long userId, SseEmitter emitter, int capacity) {
+            this.userId = userId;
+            this.emitter = emitter;
+            this.queue = new ArrayBlockingQueue<>(Math.max(1, capacity));
+        }
+
+        void offer(SseEmitter.SseEventBuilder event) {
+            if (closed) return;
+            while (!queue.offer(event)) {
+                if (queue.poll() != null) {
+                    droppedCounter.increment();
+                }
+            }
+            scheduleDrain();
+        }
+
+        void scheduleDrain() {
+            if (draining.compareAndSet(false, true)) {
+                try {
+                    pushExecutor.execute(this::drain);
+                } catch (RejectedExecutionException e) {
+                    // 线程池已饱和：事件留在队列中，下一个事件或心跳到来时再调度
+                    draining.set(false);
+                    rejectedDrainCounter.increment();
+                }
+            }
+        }
+
+        void drain() {
+            try {
+                SseEmitter.SseEventBuilder event;
+                while (!closed && (event = queue.poll()) != null) {
+                    emitter.send(event);
+                    sentCounter.increment();
+                }
+            } catch (Exception e) {
+                errorCounter.increment();
+                close();
+            } finally {
+                draining.set(false);
+            }
+            // 释放标记后又有新事件入队，由本线程补发
+            if (!closed && !queue.isEmpty()) {
+                scheduleDrain();
+            }
+        }
+
+        void close() {
+            removeConnection(this);
+            queue.clear();
+            try {
+                emitter.complete();
+            } catch (Exception ignored) {
+            }
+        }
+    }
+}
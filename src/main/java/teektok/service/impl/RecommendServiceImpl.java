@@ -4,6 +4,7 @@ import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.data.redis.core.RedisCallback;
 import org.springframework.data.redis.core.RedisTemplate;
 import org.springframework.data.redis.core.StringRedisTemplate;
 import org.springframework.stereotype.Service;
@@ -19,6 +20,9 @@ import teektok.mapper.UserMapper;
 import teektok.mapper.VideoMapper;
 import teektok.mapper.VideoStatMapper;
 import teektok.service.IRecommendService;
+import teektok.utils.HotKeyCache;
+import teektok.utils.RedisKeys;
+import teektok.utils.SlotPipeline;
 
 
 import java.util.*;
@@ -52,6 +56,12 @@ public class RecommendServiceImpl implements IRecommendService {
     @Autowired
     private RedisTemplate<String, Object> redisTemplate;
 
+    @Autowired
+    private HotKeyCache hotKeyCache;
+
+    @Autowired
+    private SlotPipeline slotPipeline;
+
     private static final String REDIS_KEY_PREFIX = "user:recommend:v2:";
 
     @Override
@@ -82,6 +92,15 @@ public class RecommendServiceImpl implements IRecommendService {
             }
         }
 
+        // 未命中时同一实例内同一个 Key 只回源一次 (游客首页是典型热点)，其余请求等待结果
+        if (bypassCache) {
+            return loadPersonalFeed(userId, safePage, safeSize, cacheKey, true);
+        }
+        return hotKeyCache.singleFlight("recommend", cacheKey,
+                () -> loadPersonalFeed(userId, safePage, safeSize, cacheKey, false));
+    }
+
+    private List<RecommendVideoVO> loadPersonalFeed(Long userId, int safePage, int safeSize, String cacheKey, boolean bypassCache) {
         // ================== 2. 查询 MySQL  ==================
         // 计算分页 offset
         int offset = (safePage - 1) * safeSize;
@@ -305,10 +324,10 @@ public class RecommendServiceImpl implements IRecommendService {
         if (currentUserId != null) {
             try {
                 // 使用 stringRedisTemplate 读取，确保读出来的一定是 String
-                Set<String> likes = stringRedisTemplate.opsForSet().members("user:like:" + currentUserId);
+                Set<String> likes = stringRedisTemplate.opsForSet().members(RedisKeys.userLike(currentUserId));
                 if (likes != null) likedVideoIds = likes;
 
-                Set<String> favs = stringRedisTemplate.opsForSet().members("user:favorite:" + currentUserId);
+                Set<String> favs = stringRedisTemplate.opsForSet().members(RedisKeys.userFavorite(currentUserId));
                 if (favs != null) favoritedVideoIds = favs;
             } catch (Exception e) {
                 log.error("获取用户互动状态失败", e);
@@ -330,6 +349,8 @@ public class RecommendServiceImpl implements IRecommendService {
             vo.setTitle(video.getTitle());
             vo.setVideoUrl(video.getVideoUrl());
             vo.setCoverUrl(video.getCoverUrl());
+            vo.setHlsUrl(video.getHlsUrl());
+            vo.setDurationMs(video.getDurationMs());
             vo.setDescription(video.getDescription());
 
             User uploader = video.getUploaderId() == null ? null : userMap.get(video.getUploaderId());
@@ -386,13 +407,7 @@ public class RecommendServiceImpl implements IRecommendService {
             return;
         }
 
-        // 定义常量 Key 前缀 (必须与 BehaviorService/VideoService 保持一致)
-        final String VIDEO_STAT_KEY_PREFIX = "video:stat:";
-        final String USER_LIKE_KEY_PREFIX = "user:like:";
-        final String USER_FAVORITE_KEY_PREFIX = "user:favorite:";
-
-        String userLikeKey = (userId != null) ? USER_LIKE_KEY_PREFIX + userId : null;
-        String userFavoriteKey = (userId != null) ? USER_FAVORITE_KEY_PREFIX + userId : null;
+        List<String> videoIdStrs = videoList.stream().map(vo -> vo.getId().toString()).toList();
 
         Set<Long> uploaderIds = videoList.stream()
                 .map(RecommendVideoVO::getUploaderId)
@@ -406,20 +421,34 @@ public class RecommendServiceImpl implements IRecommendService {
             followedUploaderIds = relations.stream().map(Relation::getTargetId).collect(Collectors.toSet());
         }
 
-        for (RecommendVideoVO vo : videoList) {
-            // RecommendVideoVO 使用 getId() 获取视频ID
-            String videoIdStr = vo.getId().toString();
+        // 用户的点赞/收藏集合带同一个 hash tag，在同一个节点上，一个 Pipeline 查完整页
+        List<Object> interactions = Collections.emptyList();
+        if (userId != null) {
+            String userLikeKey = RedisKeys.userLike(userId);
+            String userFavoriteKey = RedisKeys.userFavorite(userId);
+            interactions = stringRedisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+                for (String vid : videoIdStrs) {
+                    connection.setCommands().sIsMember(userLikeKey.getBytes(), vid.getBytes());
+                    connection.setCommands().sIsMember(userFavoriteKey.getBytes(), vid.getBytes());
+                }
+                return null;
+            });
+        }
+
+        // 统计 Hash 按视频分散在各节点，按节点分组 Pipeline
+        List<Object> stats = slotPipeline.execute(
+                videoIdStrs.stream().map(RedisKeys.VIDEO_STAT::concat).toList(),
+                (connection, key) -> connection.hMGet(key, "likeCount", "commentCount", "shareCount", "favoriteCount"));
+
+        for (int i = 0; i < videoList.size(); i++) {
+            RecommendVideoVO vo = videoList.get(i);
 
             // =================================================
             // 1. 修正用户互动状态 (点赞/收藏)
             // =================================================
             if (userId != null) {
-                // 使用 stringRedisTemplate 判断 Set 中是否存在该 ID
-                Boolean isLiked = stringRedisTemplate.opsForSet().isMember(userLikeKey, videoIdStr);
-                vo.setIsLiked(Boolean.TRUE.equals(isLiked));
-
-                Boolean isFavorited = stringRedisTemplate.opsForSet().isMember(userFavoriteKey, videoIdStr);
-                vo.setIsFavorited(Boolean.TRUE.equals(isFavorited));
+                vo.setIsLiked(Boolean.TRUE.equals(interactions.get(i * 2)));
+                vo.setIsFavorited(Boolean.TRUE.equals(interactions.get(i * 2 + 1)));
             } else {
                 vo.setIsLiked(false);
                 vo.setIsFavorited(false);
@@ -434,20 +463,13 @@ public class RecommendServiceImpl implements IRecommendService {
             // =================================================
             // 2. 修正统计数据 (点赞数/评论数等)
             // =================================================
-            // 从 Redis Hash (video:stat:xxx) 中读取最新值，覆盖缓存中的旧值
-            String statKey = VIDEO_STAT_KEY_PREFIX + videoIdStr;
-
-            // 获取各项实时数据
-            Object likeCount = stringRedisTemplate.opsForHash().get(statKey, "likeCount");
-            Object commentCount = stringRedisTemplate.opsForHash().get(statKey, "commentCount");
-            Object shareCount = stringRedisTemplate.opsForHash().get(statKey, "shareCount");
-            Object favoriteCount = stringRedisTemplate.opsForHash().get(statKey, "favoriteCount");
-
-            // 如果 Redis 有值则覆盖，否则保留原值 (防止 Redis 还没热起来导致显示 0)
-            if (likeCount != null) vo.setLikeCount(parseCount(likeCount));
-            if (commentCount != null) vo.setCommentCount(parseCount(commentCount));
-            if (shareCount != null) vo.setShareCount(parseCount(shareCount));
-            if (favoriteCount != null) vo.setFavoriteCount(parseCount(favoriteCount));
+            // Redis Hash (video:stat:xxx) 中的最新值覆盖缓存中的旧值；没有值则保留原值 (防止 Redis 还没热起来导致显示 0)
+            if (stats.get(i) instanceof List<?> counts && counts.size() == 4) {
+                if (counts.get(0) != null) vo.setLikeCount(parseCount(counts.get(0)));
+                if (counts.get(1) != null) vo.setCommentCount(parseCount(counts.get(1)));
+                if (counts.get(2) != null) vo.setShareCount(parseCount(counts.get(2)));
+                if (counts.get(3) != null) vo.setFavoriteCount(parseCount(counts.get(3)));
+            }
         }
     }
 
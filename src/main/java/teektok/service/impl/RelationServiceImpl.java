@@ -11,6 +11,7 @@ import teektok.mapper.RelationMapper;
 import teektok.mapper.UserMapper;
 import teektok.service.INotificationService;
 import teektok.service.IRelationService;
+import teektok.utils.RedisKeys;
 
 import java.time.LocalDateTime;
 import java.util.Collections;
@@ -35,8 +36,9 @@ public class RelationServiceImpl extends ServiceImpl<RelationMapper, Relation> i
     @Autowired
     private INotificationService notificationService;
 
-    // Redis Key 前缀: user:follow:{userId} -> Set<targetId>
-    private static final String USER_FOLLOW_KEY = "user:follow:";
+    // 关注集合 RedisKeys.userFollow(userId) -> Set<targetId>
+    // 没有关注任何人时写入的占位成员，防止每次都回源查库；读取成员列表时需要过滤掉
+    private static final String EMPTY_MEMBER = "-1";
 
     @Override
     public void follow(Long userId, Long targetId) {
@@ -58,7 +60,7 @@ public class RelationServiceImpl extends ServiceImpl<RelationMapper, Relation> i
 
             // 2. Redis 缓存更新 (Cache Aside Pattern)
             // 策略：只有当缓存 Key 存在时才 add。如果不存在，说明是冷数据，交给读操作去懒加载（防止出现只存了 1 个的假象）。
-            String key = USER_FOLLOW_KEY + userId;
+            String key = RedisKeys.userFollow(userId);
             if (Boolean.TRUE.equals(redisTemplate.hasKey(key))) {
                 redisTemplate.opsForSet().add(key, targetId.toString());
                 // 顺便续期
@@ -78,7 +80,7 @@ public class RelationServiceImpl extends ServiceImpl<RelationMapper, Relation> i
                 .eq(Relation::getTargetId, targetId));
 
         // 2. Redis 缓存更新
-        String key = USER_FOLLOW_KEY + userId;
+        String key = RedisKeys.userFollow(userId);
         if (Boolean.TRUE.equals(redisTemplate.hasKey(key))) {
             redisTemplate.opsForSet().remove(key, targetId.toString());
         }
@@ -87,13 +89,19 @@ public class RelationServiceImpl extends ServiceImpl<RelationMapper, Relation> i
     @Override
     public List<User> getFollowList(Long userId) {
         // 优化：尝试从 Redis 获取关注 ID 列表
-        String key = USER_FOLLOW_KEY + userId;
+        String key = RedisKeys.userFollow(userId);
         Set<String> targetIdsStr = redisTemplate.opsForSet().members(key);
 
         Set<Long> targetIds;
         if (targetIdsStr != null && !targetIdsStr.isEmpty()) {
-            // A. 缓存命中
-            targetIds = targetIdsStr.stream().map(Long::valueOf).collect(Collectors.toSet());
+            // A. 缓存命中 (只有占位成员说明没有关注任何人)
+            targetIds = targetIdsStr.stream()
+                    .filter(id -> !EMPTY_MEMBER.equals(id))
+                    .map(Long::valueOf)
+                    .collect(Collectors.toSet());
+            if (targetIds.isEmpty()) {
+                return Collections.emptyList();
+            }
         } else {
             // B. 缓存未命中，查 DB 并回写 Redis
             List<Relation> relations = relationMapper.selectList(new LambdaQueryWrapper<Relation>()
@@ -167,7 +175,7 @@ public class RelationServiceImpl extends ServiceImpl<RelationMapper, Relation> i
         if (userId == null || targetId == null) return false;
 
         // 优先查 Redis
-        String key = USER_FOLLOW_KEY + userId;
+        String key = RedisKeys.userFollow(userId);
         if (Boolean.TRUE.equals(redisTemplate.hasKey(key))) {
             return Boolean.TRUE.equals(redisTemplate.opsForSet().isMember(key, targetId.toString()));
         }
@@ -180,7 +188,7 @@ public class RelationServiceImpl extends ServiceImpl<RelationMapper, Relation> i
 
     @Override
     public void loadUserFollowCache(Long userId) {
-        String key = USER_FOLLOW_KEY + userId;
+        String key = RedisKeys.userFollow(userId);
 
         // 1. Double Check (再次检查)
         // 因为是异步执行，可能前一个线程已经加载好了，这里再查一下 Redis，避免重复打扰数据库
@@ -195,9 +203,8 @@ public class RelationServiceImpl extends ServiceImpl<RelationMapper, Relation> i
         // 3. 写入 Redis
         if (relations.isEmpty()) {
             // A. 如果该用户没有关注任何人
-            // 为了防止缓存穿透，可以存一个特殊的空标记，或者设置一个较短的过期时间
-            // 存一个空 Set 的占位符 ("-1") 并设置短过期时间(5s)
-            redisTemplate.opsForSet().add(key, "-1");
+            // 为了防止缓存穿透，存一个空 Set 的占位符并设置较短的过期时间 (5 分钟)
+            redisTemplate.opsForSet().add(key, EMPTY_MEMBER);
             redisTemplate.expire(key, 5, TimeUnit.MINUTES);
         } else {
             // B. 正常写入
@@ -0,0 +1,382 @@
+package teektok.service.impl;
+
+import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.lucene.store.FSDirectory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import teektok.config.SearchProperties;
+import teektok.entity.User;
+import teektok.entity.Video;
+import teektok.mapper.UserMapper;
+import teektok.mapper.VideoMapper;
+import teektok.utils.SearchIndex;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
+
+/**
+ * 用户名 / 视频标题全文索引 (SearchIndex) 的维护与查询入口，每个实例在本地目录维护一份完整索引：
+ * 1. 注册、修改用户、上传、审核、删除视频后调用 userChanged / videoChanged，事务提交后把 "类型:id" 发布到 Redis 频道，
+ *    所有实例 (包括自己) 收到后按 id 回查数据库更新索引；发布失败时只更新本实例
+ * 2. 定时补齐：用户按 id 递增扫描新增的行；视频按 (update_time, id) 递增扫描上次补齐之后变更过的行
+ *    (上传、审核都会更新 update_time，漏掉的审核结果都在这个范围内)，只修正与索引不一致的行。
+ *    起点往前回退 CATCH_UP_OVERLAP，补上提交晚于后续行的事务和实例间的时钟偏差。空索引时补齐就是全量构建，首次补齐完成前搜索不可用
+ * 3. 补齐进度随索引一起提交，重启后从上次的进度继续
+ * 只有审核通过且未删除的视频进索引；已删除但索引未及时更新的视频由调用方在回查数据库时过滤
+ * 指标：
+ * teektok.search.docs    : 索引中的文档数 (type=user/video)
+ * teektok.search.updates : 索引更新次数 (source=event/catch-up)
+ * teektok.search.query   : 查询耗时 (op=search/suggest, type=user/video)
+ */
+@Slf4j
+@Service
+public class SearchIndexService implements MessageListener {
+
+    static final String USERS_AFTER = "users.after";
+    static final String VIDEOS_UPDATED = "videos.updated";
+
+    private static final int VIDEO_STATUS_APPROVED = 1;
+
+    private static final LocalDateTime EPOCH = LocalDateTime.of(1970, 1, 1, 0, 0);
+    private static final Duration CATCH_UP_OVERLAP = Duration.ofMinutes(5);
+
+    @Autowired
+    private SearchProperties properties;
+
+    @Autowired
+    private UserMapper userMapper;
+
+    @Autowired
+    private VideoMapper videoMapper;
+
+    @Autowired
+    private StringRedisTemplate stringRedisTemplate;
+
+    @Autowired
+    private RedisConnectionFactory redisConnectionFactory;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    @Qualifier("commonExecutor")
+    private Executor commonExecutor;
+
+    private volatile SearchIndex index;
+    private volatile boolean ready;
+
+    // 补齐进度：已索引的最大用户 id；已扫描到的最大视频 update_time
+    private volatile long usersAfter;
+    private volatile LocalDateTime videosUpdated = EPOCH;
+
+    private final AtomicBoolean catchingUp = new AtomicBoolean();
+
+    // 不注册为 Bean：容器 Bean 会在启动时同步订阅，Redis 不可用时拖慢甚至阻断启动
+    private RedisMessageListenerContainer listenerContainer;
+
+    private Counter eventUpdates;
+    private Counter catchUpUpdates;
+
+    @PostConstruct
+    public void init() {
+        eventUpdates = meterRegistry.counter("teektok.search.updates", "source", "event");
+        catchUpUpdates = meterRegistry.counter("teektok.search.updates", "source", "catch-up");
+        for (String type : List.of(SearchIndex.USER, SearchIndex.VIDEO)) {
+            Gauge.builder("teektok.search.docs", this, s -> s.index == null ? Double.NaN : s.index.count(type))
+                    .tag("type", type)
+                    .register(meterRegistry);
+        }
+        if (!properties.isEnabled()) return;
+
+        try {
+            Path dir = Paths.get(properties.getIndexDir());
+            Files.createDirectories(dir);
+            open(new SearchIndex(FSDirectory.open(dir)));
+        } catch (IOException e) {
+            log.error("打开搜索索引 {} 失败，用户搜索退回数据库查询", properties.getIndexDir(), e);
+            return;
+        }
+
+        listenerContainer = new RedisMessageListenerContainer();
+        listenerContainer.setConnectionFactory(redisConnectionFactory);
+        listenerContainer.afterPropertiesSet();
+        listenerContainer.addMessageListener(this, new ChannelTopic(properties.getChannel()));
+    }
+
+    /**
+     * 接管索引并读回上次提交的补齐进度；有过提交说明至少完整构建过一次，可以直接提供查询
+     */
+    void open(SearchIndex index) {
+        Map<String, String> data = index.commitData();
+        this.usersAfter = Long.parseLong(data.getOrDefault(USERS_AFTER, "0"));
+        this.videosUpdated = data.containsKey(VIDEOS_UPDATED) ? LocalDateTime.parse(data.get(VIDEOS_UPDATED)) : EPOCH;
+        this.ready = data.containsKey(USERS_AFTER);
+        this.index = index;
+    }
+
+    /**
+     * 应用就绪后再异步订阅，Redis 连不上时容器会自行按间隔重试
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void startListening() {
+        if (listenerContainer == null) return;
+        commonExecutor.execute(() -> {
+            try {
+                listenerContainer.start();
+            } catch (Exception e) {
+                log.warn("订阅搜索索引频道失败，其他实例的变更等定时补齐: {}", e.getMessage());
+            }
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (listenerContainer != null) {
+            try {
+                listenerContainer.destroy();
+            } catch (Exception e) {
+                log.warn("关闭搜索索引订阅失败: {}", e.getMessage());
+            }
+        }
+        SearchIndex current = index;
+        if (current == null) return;
+        index = null;
+        try {
+            if (ready) {
+                current.commit(progress());
+            }
+            current.close();
+        } catch (Exception e) {
+            log.warn("关闭搜索索引失败: {}", e.getMessage());
+        }
+    }
+
+    public boolean isReady() {
+        return index != null && ready;
+    }
+
+    public void userChanged(Long userId) {
+        publish(SearchIndex.USER, userId);
+    }
+
+    public void videoChanged(Long videoId) {
+        publish(SearchIndex.VIDEO, videoId);
+    }
+
+    public SearchIndex.Hits search(String type, String keyword, Long excludeId, String cursor, int size) {
+        return timed("search", type, () -> requireIndex().search(type, keyword, excludeId, cursor, size));
+    }
+
+    public List<SearchIndex.Hit> search(String type, String keyword, Long excludeId, int offset, int size) {
+        return timed("search", type, () -> requireIndex().search(type, keyword, excludeId, offset, size));
+    }
+
+    public List<SearchIndex.Hit> suggest(String type, String prefix, int size) {
+        return timed("suggest", type, () -> requireIndex().suggest(type, prefix, size));
+    }
+
+    /**
+     * 定时补齐在 commonExecutor 中执行：首次全量构建耗时较长，不能占住调度线程 (计数落库等任务也在上面)
+     */
+    @Scheduled(fixedDelayString = "${teektok.search.catch-up-interval-ms:60000}")
+    public void scheduleCatchUp() {
+        if (index == null || !catchingUp.compareAndSet(false, true)) return;
+        try {
+            commonExecutor.execute(() -> {
+                try {
+                    catchUp();
+                } catch (Exception e) {
+                    log.warn("搜索索引补齐失败: {}", e.getMessage());
+                } finally {
+                    catchingUp.set(false);
+                }
+            });
+        } catch (RuntimeException e) {
+            catchingUp.set(false);
+            throw e;
+        }
+    }
+
+    /**
+     * @return 本次更新的文档数
+     */
+    int catchUp() {
+        SearchIndex current = index;
+        if (current == null) return 0;
+        int batchSize = properties.getBatchSize();
+        long started = System.currentTimeMillis();
+        int updated = 0;
+
+        long afterId = usersAfter;
+        while (true) {
+            List<User> users = userMapper.selectList(new LambdaQueryWrapper<User>()
+                    .select(User::getId, User::getUsername)
+                    .gt(User::getId, afterId)
+                    .orderByAsc(User::getId)
+                    .last("LIMIT " + batchSize));
+            for (User user : users) {
+                current.upsert(SearchIndex.USER, user.getId(), user.getUsername());
+                afterId = user.getId();
+            }
+            updated += users.size();
+            if (users.size() < batchSize) break;
+        }
+
+        // 回退窗口内的视频大多已经处理过，先查索引再决定，避免每轮都重写
+        LocalDateTime lastTime = videosUpdated == EPOCH ? EPOCH : videosUpdated.minus(CATCH_UP_OVERLAP);
+        long lastId = 0;
+        LocalDateTime maxTime = videosUpdated;
+        while (true) {
+            LocalDateTime time = lastTime;
+            long id = lastId;
+            List<Video> videos = videoMapper.selectList(new LambdaQueryWrapper<Video>()
+                    .select(Video::getId, Video::getTitle, Video::getStatus, Video::getUpdateTime)
+                    .ge(Video::getUpdateTime, time)
+                    .and(w -> w.gt(Video::getUpdateTime, time).or().gt(Video::getId, id))
+                    .orderByAsc(Video::getUpdateTime, Video::getId)
+                    .last("LIMIT " + batchSize));
+            for (Video video : videos) {
+                boolean visible = Objects.equals(video.getStatus(), VIDEO_STATUS_APPROVED);
+                boolean indexed = current.contains(SearchIndex.VIDEO, video.getId());
+                if (visible && !indexed) {
+                    current.upsert(SearchIndex.VIDEO, video.getId(), video.getTitle());
+                    updated++;
+                } else if (!visible && indexed) {
+                    current.delete(SearchIndex.VIDEO, video.getId());
+                    updated++;
+                }
+                lastTime = video.getUpdateTime();
+                lastId = video.getId();
+                if (lastTime.isAfter(maxTime)) {
+                    maxTime = lastTime;
+                }
+            }
+            if (videos.size() < batchSize) break;
+        }
+
+        usersAfter = afterId;
+        videosUpdated = maxTime;
+        current.refresh();
+        current.commit(progress());
+        catchUpUpdates.increment(updated);
+        if (!ready) {
+            ready = true;
+            log.info("搜索索引构建完成：{} 条，耗时 {} ms", updated, System.currentTimeMillis() - started);
+        }
+        return updated;
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        apply(new String(message.getBody(), StandardCharsets.UTF_8));
+    }
+
+    /**
+     * 按 "类型:id" 回查数据库更新本实例的索引
+     */
+    void apply(String change) {
+        SearchIndex current = index;
+        if (current == null) return;
+        try {
+            int split = change.indexOf(':');
+            String type = change.substring(0, split);
+            long id = Long.parseLong(change.substring(split + 1));
+            if (SearchIndex.USER.equals(type)) {
+                User user = userMapper.selectById(id);
+                if (user != null) {
+                    current.upsert(type, id, user.getUsername());
+                } else {
+                    current.delete(type, id);
+                }
+            } else if (SearchIndex.VIDEO.equals(type)) {
+                Video video = videoMapper.selectById(id);
+                if (video != null && Objects.equals(video.getStatus(), VIDEO_STATUS_APPROVED)) {
+                    current.upsert(type, id, video.getTitle());
+                } else {
+                    current.delete(type, id);
+                }
+            } else {
+                return;
+            }
+            current.refresh();
+            eventUpdates.increment();
+        } catch (Exception e) {
+            log.warn("更新搜索索引失败 {}: {}", change, e.getMessage());
+        }
+    }
+
+    private void publish(String type, Long id) {
+        if (!properties.isEnabled() || id == null) return;
+        String change = type + ":" + id;
+        // 实例收到消息后回查数据库，必须在事务提交后再发
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    send(change);
+                }
+            });
+        } else {
+            send(change);
+        }
+    }
+
+    private void send(String change) {
+        try {
+            stringRedisTemplate.convertAndSend(properties.getChannel(), change);
+        } catch (Exception e) {
+            log.warn("发布搜索索引变更失败，只更新本实例: {}", e.getMessage());
+            apply(change);
+        }
+    }
+
+    private Map<String, String> progress() {
+        return Map.of(USERS_AFTER, String.valueOf(usersAfter), VIDEOS_UPDATED, videosUpdated.toString());
+    }
+
+    private SearchIndex requireIndex() {
+        SearchIndex current = index;
+        if (current == null || !ready) {
+            throw new RuntimeException("搜索服务暂不可用，请稍后再试");
+        }
+        return current;
+    }
+
+    private <T> T timed(String op, String type, Supplier<T> query) {
+        return Timer.builder("teektok.search.query")
+                .tag("op", op)
+                .tag("type", type)
+                .register(meterRegistry)
+                .record(query);
+    }
+}
@@ -0,0 +1,330 @@
+package teektok.service.impl;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import teektok.config.MediaProperties;
+import teektok.dto.video.UploadSessionInitDTO;
+import teektok.dto.video.UploadSessionVO;
+import teektok.entity.Video;
+import teektok.service.IMediaObjectService;
+import teektok.service.IUploadSessionService;
+import teektok.service.IVideoService;
+import teektok.utils.ContentHash;
+import teektok.utils.LocalMediaOperator;
+import teektok.utils.MediaStorage;
+import teektok.utils.UploadLimiter;
+
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+@Slf4j
+@Service
+public class UploadSessionServiceImpl implements IUploadSessionService {
+
+    // 会话元数据 (Hash)、已上传分片 (Hash: partNumber -> ETag 或分片大小) 与分片的分块摘要 (Hash: partNumber -> 十六进制)
+    private static final String SESSION_KEY = "upload:session:";
+    private static final String PARTS_SUFFIX = ":parts";
+    private static final String DIGESTS_SUFFIX = ":digests";
+    private static final String LOCK_SUFFIX = ":lock";
+
+    private static final String STATUS_UPLOADING = "uploading";
+    private static final String STATUS_COMPLETED = "completed";
+
+    // OSS 分片上传最多 10000 片，非最后一片不小于 100KB；这里取更保守的下限 (内容哈希的一个分块)
+    private static final int MAX_PARTS = 10000;
+    private static final int MIN_PART_SIZE = ContentHash.BLOCK_SIZE;
+    private static final int MAX_PART_SIZE = 64 * 1024 * 1024;
+
+    // uploadId 由服务端生成，只接受 32 位十六进制
+    private static final Pattern UPLOAD_ID_PATTERN = Pattern.compile("^[0-9a-f]{32}$");
+
+    @Autowired
+    private StringRedisTemplate stringRedisTemplate;
+
+    @Autowired
+    private MediaProperties mediaProperties;
+
+    @Autowired
+    private MediaStorage mediaStorage;
+
+    @Autowired
+    private LocalMediaOperator localMediaOperator;
+
+    @Autowired
+    private UploadLimiter uploadLimiter;
+
+    @Autowired
+    private IVideoService videoService;
+
+    @Autowired
+    private IMediaObjectService mediaObjectService;
+
+    @Override
+    public UploadSessionVO init(Long userId, UploadSessionInitDTO dto) {
+        if (dto == null || dto.getFileSize() == null || dto.getFileSize() <= 0) {
+            throw new RuntimeException("文件大小不能为空");
+        }
+        if (dto.getFileSize() > mediaProperties.getMaxUploadSize()) {
+            throw new RuntimeException("文件过大");
+        }
+
+        int partSize = dto.getPartSize() != null ? dto.getPartSize() : mediaProperties.getPartSize();
+        partSize = Math.max(MIN_PART_SIZE, Math.min(MAX_PART_SIZE, partSize));
+        // 分片边界与内容哈希的分块对齐，各分片的分块摘要拼起来就是整个文件的
+        partSize -= partSize % ContentHash.BLOCK_SIZE;
+        long totalParts = (dto.getFileSize() + partSize - 1) / partSize;
+        if (totalParts > MAX_PARTS) {
+            throw new RuntimeException("分片数过多，请增大分片大小");
+        }
+
+        String uploadId = UUID.randomUUID().toString().replace("-", "");
+
+        Map<String, String> meta = new HashMap<>();
+        meta.put("userId", String.valueOf(userId));
+        meta.put("fileName", dto.getFileName() == null ? "" : dto.getFileName());
+        meta.put("contentType", dto.getContentType() == null ? "" : dto.getContentType());
+        meta.put("fileSize", String.valueOf(dto.getFileSize()));
+        meta.put("partSize", String.valueOf(partSize));
+        meta.put("totalParts", String.valueOf(totalParts));
+        meta.put("title", dto.getTitle() == null ? "" : dto.getTitle());
+        meta.put("description", dto.getDescription() == null ? "" : dto.getDescription());
+        meta.put("storage", mediaStorage.name());
+        meta.put("status", STATUS_UPLOADING);
+
+        // 存储侧同步创建分片上传 (OSS 分片上传 / 本地暂存目录)，之后的分片直接转发
+        try {
+            MediaStorage.MultipartHandle handle = mediaStorage.initMultipart(dto.getFileName(), dto.getContentType());
+            meta.put("objectName", handle.getObjectName());
+            meta.put("storageUploadId", handle.getUploadId());
+        } catch (Exception e) {
+            log.error("初始化分片上传失败", e);
+            throw new RuntimeException("初始化上传失败", e);
+        }
+
+        String key = SESSION_KEY + uploadId;
+        stringRedisTemplate.opsForHash().putAll(key, meta);
+        stringRedisTemplate.expire(key, mediaProperties.getUploadSessionTtlHours(), TimeUnit.HOURS);
+
+        return toVO(uploadId, meta, Collections.emptyList());
+    }
+
+    @Override
+    public void uploadPart(Long userId, String uploadId, int partNumber, InputStream in, long contentLength) {
+        Map<String, String> meta = loadSession(userId, uploadId);
+        if (!STATUS_UPLOADING.equals(meta.get("status"))) {
+            throw new RuntimeException("上传已完成");
+        }
+
+        int totalParts = Integer.parseInt(meta.get("totalParts"));
+        if (partNumber < 1 || partNumber > totalParts) {
+            throw new RuntimeException("分片序号错误");
+        }
+        long expected = expectedPartSize(meta, partNumber);
+        if (contentLength != expected) {
+            throw new RuntimeException("分片大小错误，应为 " + expected + " 字节");
+        }
+
+        checkStorage(meta);
+        // 边写入边计算该分片的分块摘要，合并时不再回读文件
+        ContentHash.DigestingInputStream digesting = ContentHash.digesting(in);
+        String value;
+        uploadLimiter.acquire();
+        try {
+            value = mediaStorage.uploadPart(handleOf(meta), partNumber, digesting, expected);
+        } catch (RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            log.warn("上传分片失败 uploadId={}, part={}: {}", uploadId, partNumber, e.getMessage());
+            throw new RuntimeException("上传分片失败", e);
+        } finally {
+            uploadLimiter.release();
+        }
+
+        // 分片写入成功后才记录；同一分片重传时覆盖
+        // 存储后端没有读完整个分片时摘要不完整，不记录摘要 (合并时不登记去重)
+        String digestsKey = SESSION_KEY + uploadId + DIGESTS_SUFFIX;
+        if (digesting.count() == expected) {
+            stringRedisTemplate.opsForHash().put(digestsKey, String.valueOf(partNumber),
+                    HexFormat.of().formatHex(digesting.blockDigests()));
+        } else {
+            stringRedisTemplate.opsForHash().delete(digestsKey, String.valueOf(partNumber));
+        }
+        stringRedisTemplate.expire(digestsKey, mediaProperties.getUploadSessionTtlHours(), TimeUnit.HOURS);
+        String partsKey = SESSION_KEY + uploadId + PARTS_SUFFIX;
+        stringRedisTemplate.opsForHash().put(partsKey, String.valueOf(partNumber), value);
+        stringRedisTemplate.expire(partsKey, mediaProperties.getUploadSessionTtlHours(), TimeUnit.HOURS);
+    }
+
+    @Override
+    public UploadSessionVO status(Long userId, String uploadId) {
+        Map<String, String> meta = loadSession(userId, uploadId);
+        return toVO(uploadId, meta, uploadedParts(uploadId));
+    }
+
+    @Override
+    public UploadSessionVO complete(Long userId, String uploadId) {
+        Map<String, String> meta = loadSession(userId, uploadId);
+        if (STATUS_COMPLETED.equals(meta.get("status"))) {
+            return toVO(uploadId, meta, Collections.emptyList());
+        }
+
+        // 防止客户端重试导致重复合并、重复创建视频
+        String lockKey = SESSION_KEY + uploadId + LOCK_SUFFIX;
+        Boolean locked = stringRedisTemplate.opsForValue().setIfAbsent(lockKey, "1", 10, TimeUnit.MINUTES);
+        if (!Boolean.TRUE.equals(locked)) {
+            throw new RuntimeException("上传正在合并，请稍后查询");
+        }
+
+        try {
+            int totalParts = Integer.parseInt(meta.get("totalParts"));
+            Map<Object, Object> parts = stringRedisTemplate.opsForHash().entries(SESSION_KEY + uploadId + PARTS_SUFFIX);
+            if (parts.size() < totalParts) {
+                throw new RuntimeException("还有 " + (totalParts - parts.size()) + " 个分片未上传");
+            }
+
+            checkStorage(meta);
+            List<String> partTokens = new ArrayList<>(totalParts);
+            for (int i = 1; i <= totalParts; i++) {
+                partTokens.add((String) parts.get(String.valueOf(i)));
+            }
+
+            String url;
+            try {
+                url = mediaStorage.completeMultipart(handleOf(meta), partTokens);
+            } catch (Exception e) {
+                log.error("合并分片失败 uploadId={}", uploadId, e);
+                throw new RuntimeException("合并分片失败", e);
+            }
+
+            // 由各分片写入时算好的分块摘要得到内容哈希并登记，重复内容只保留一份
+            String contentHash = contentHash(uploadId, totalParts);
+            if (contentHash != null) {
+                url = mediaObjectService.register(contentHash, Long.parseLong(meta.get("fileSize")), url);
+            }
+
+            // 文件就绪后才创建视频与统计记录
+            Video video = videoService.saveUploadedVideo(meta.get("title"), meta.get("description"), url, userId, contentHash);
+
+            String key = SESSION_KEY + uploadId;
+            Map<String, String> done = new HashMap<>();
+            done.put("status", STATUS_COMPLETED);
+            done.put("videoId", String.valueOf(video.getId()));
+            done.put("videoUrl", url);
+            stringRedisTemplate.opsForHash().putAll(key, done);
+            stringRedisTemplate.delete(List.of(SESSION_KEY + uploadId + PARTS_SUFFIX, SESSION_KEY + uploadId + DIGESTS_SUFFIX));
+            meta.putAll(done);
+            return toVO(uploadId, meta, Collections.emptyList());
+        } finally {
+            stringRedisTemplate.delete(lockKey);
+        }
+    }
+
+    @Override
+    public void abort(Long userId, String uploadId) {
+        Map<String, String> meta = loadSession(userId, uploadId);
+        if (STATUS_COMPLETED.equals(meta.get("status"))) {
+            throw new RuntimeException("上传已完成");
+        }
+        try {
+            checkStorage(meta);
+            mediaStorage.abortMultipart(handleOf(meta));
+        } catch (Exception e) {
+            log.warn("取消分片上传失败 uploadId={}: {}", uploadId, e.getMessage());
+        }
+        stringRedisTemplate.delete(List.of(SESSION_KEY + uploadId, SESSION_KEY + uploadId + PARTS_SUFFIX,
+                SESSION_KEY + uploadId + DIGESTS_SUFFIX));
+    }
+
+    /**
+     * 清理过期会话遗留的本地分片 (OSS 侧未完成的分片由 Bucket 生命周期规则清理)
+     */
+    @Scheduled(fixedDelay = 60 * 60 * 1000L)
+    public void cleanExpiredStaging() {
+        if (!mediaProperties.isLocalStorage()) return;
+        try {
+            localMediaOperator.cleanStaging(TimeUnit.HOURS.toMillis(mediaProperties.getUploadSessionTtlHours()));
+        } catch (Exception e) {
+            log.warn("清理过期分片失败: {}", e.getMessage());
+        }
+    }
+
+    private Map<String, String> loadSession(Long userId, String uploadId) {
+        if (uploadId == null || !UPLOAD_ID_PATTERN.matcher(uploadId).matches()) {
+            throw new RuntimeException("上传会话不存在");
+        }
+        Map<Object, Object> raw = stringRedisTemplate.opsForHash().entries(SESSION_KEY + uploadId);
+        if (raw == null || raw.isEmpty()) {
+            throw new RuntimeException("上传会话不存在或已过期");
+        }
+        Map<String, String> meta = new HashMap<>();
+        raw.forEach((k, v) -> meta.put(String.valueOf(k), String.valueOf(v)));
+        if (!String.valueOf(userId).equals(meta.get("userId"))) {
+            throw new RuntimeException("无权操作该上传");
+        }
+        return meta;
+    }
+
+    private MediaStorage.MultipartHandle handleOf(Map<String, String> meta) {
+        return new MediaStorage.MultipartHandle(meta.get("objectName"), meta.get("storageUploadId"));
+    }
+
+    // 会话创建后切换了存储后端：旧会话无法继续
+    private void checkStorage(Map<String, String> meta) {
+        if (!mediaStorage.name().equals(meta.get("storage"))) {
+            throw new RuntimeException("上传会话已失效，请重新上传");
+        }
+    }
+
+    private long expectedPartSize(Map<String, String> meta, int partNumber) {
+        long fileSize = Long.parseLong(meta.get("fileSize"));
+        long partSize = Long.parseLong(meta.get("partSize"));
+        int totalParts = Integer.parseInt(meta.get("totalParts"));
+        return partNumber < totalParts ? partSize : fileSize - partSize * (totalParts - 1);
+    }
+
+    // 按分片顺序拼接分块摘要；缺少任一分片的摘要时返回 null
+    private String contentHash(String uploadId, int totalParts) {
+        Map<Object, Object> digests = stringRedisTemplate.opsForHash().entries(SESSION_KEY + uploadId + DIGESTS_SUFFIX);
+        ByteArrayOutputStream blocks = new ByteArrayOutputStream();
+        for (int i = 1; i <= totalParts; i++) {
+            Object hex = digests.get(String.valueOf(i));
+            if (hex == null) {
+                log.warn("分片摘要缺失，不登记去重 uploadId={}, part={}", uploadId, i);
+                return null;
+            }
+            blocks.writeBytes(HexFormat.of().parseHex(String.valueOf(hex)));
+        }
+        return ContentHash.combine(blocks.toByteArray());
+    }
+
+    private List<Integer> uploadedParts(String uploadId) {
+        Set<Object> keys = stringRedisTemplate.opsForHash().keys(SESSION_KEY + uploadId + PARTS_SUFFIX);
+        if (keys == null || keys.isEmpty()) return Collections.emptyList();
+        List<Integer> parts = new ArrayList<>(keys.size());
+        for (Object k : keys) {
+            parts.add(Integer.valueOf(String.valueOf(k)));
+        }
+        Collections.sort(parts);
+        return parts;
+    }
+
+    private UploadSessionVO toVO(String uploadId, Map<String, String> meta, List<Integer> uploadedParts) {
+        UploadSessionVO vo = new UploadSessionVO();
+        vo.setUploadId(uploadId);
+        vo.setPartSize(Integer.valueOf(meta.get("partSize")));
+        vo.setTotalParts(Integer.valueOf(meta.get("totalParts")));
+        vo.setUploadedParts(uploadedParts);
+        vo.setStatus(meta.get("status"));
+        if (meta.get("videoId") != null) {
+            vo.setVideoId(Long.valueOf(meta.get("videoId")));
+        }
+        vo.setVideoUrl(meta.get("videoUrl"));
+        return vo;
+    }
+}
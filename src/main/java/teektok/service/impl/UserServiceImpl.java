@@ -4,9 +4,10 @@ import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.data.redis.core.RedisTemplate;
 import org.springframework.data.redis.core.StringRedisTemplate;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import teektok.VO.SearchResult;
 import teektok.dto.user.UserLoginDTO;
 import teektok.dto.user.UserLoginVO;
 import teektok.dto.user.UserMeVO;
@@ -22,14 +23,18 @@ import teektok.mapper.UserMapper;
 import teektok.mapper.VideoStatMapper;
 import teektok.mapper.VideoMapper;
 import teektok.service.IUserService;
+import teektok.utils.FanOut;
+import teektok.utils.HotKeyCache;
 import teektok.utils.JwtUtils;
+import teektok.utils.SearchIndex;
 
+import java.time.Duration;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.Random;
+import java.util.Objects;
 import java.util.Set;
-import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 @Slf4j
@@ -44,10 +49,20 @@ public class UserServiceImpl implements IUserService {
     private VideoMapper videoMapper;
     @Autowired
     private VideoStatMapper videoStatMapper;
+
+    @Autowired
+    private HotKeyCache hotKeyCache;
+
     @Autowired
-    private RedisTemplate<String, Object> redisTemplate;
+    private FanOut fanOut;
+
+    @Autowired
+    private SearchIndexService searchIndexService;
 
     private static final String USER_INFO_KEY = "user:info:";
+    private static final Duration USER_INFO_TTL = Duration.ofHours(24);
+    // 页码分页最多翻到的条数，更深的结果请用游标分页
+    private static final int MAX_SEARCH_OFFSET = 1000;
 
     @Override
     public void register(UserRegisterDTO userRegisterDTO) {
@@ -73,6 +88,7 @@ public class UserServiceImpl implements IUserService {
         if(result<=0){
             throw new RuntimeException("注册失败，请稍后重试");
         }
+        searchIndexService.userChanged(user.getId());
 
     }
 
@@ -164,7 +180,7 @@ public class UserServiceImpl implements IUserService {
         }
 
         User user = getUserCached(targetUserId);
-        if (user == null || user.getId() == null) {
+        if (user == null) {
             throw new RuntimeException("用户不存在");
         }
 
@@ -173,75 +189,108 @@ public class UserServiceImpl implements IUserService {
         vo.setUsername(user.getUsername());
         vo.setAvatar(user.getAvatar());
 
-        Long followingCount = relationMapper.selectCount(new LambdaQueryWrapper<Relation>()
-                .eq(Relation::getUserId, targetUserId));
-        vo.setFollowingCount(followingCount);
-
-        Long followerCount = relationMapper.selectCount(new LambdaQueryWrapper<Relation>()
-                .eq(Relation::getTargetId, targetUserId));
-        vo.setFollowerCount(followerCount);
+        // 四个查询互不依赖，并行执行；个别查询超时或失败时该项显示为 0 / 未关注
+        FanOut.Call<Long> followingCount = fanOut.fork("profile.followingCount",
+                () -> relationMapper.selectCount(new LambdaQueryWrapper<Relation>()
+                        .eq(Relation::getUserId, targetUserId)), 0L);
+        FanOut.Call<Long> followerCount = fanOut.fork("profile.followerCount",
+                () -> relationMapper.selectCount(new LambdaQueryWrapper<Relation>()
+                        .eq(Relation::getTargetId, targetUserId)), 0L);
+        FanOut.Call<Long> likeCount = fanOut.fork("profile.likeCount", () -> sumLikeCount(targetUserId), 0L);
+        FanOut.Call<Boolean> isFollowing = currentUserId != null && !currentUserId.equals(targetUserId)
+                ? fanOut.fork("profile.isFollowing", () -> relationMapper.exists(new LambdaQueryWrapper<Relation>()
+                        .eq(Relation::getUserId, currentUserId)
+                        .eq(Relation::getTargetId, targetUserId)), false)
+                : null;
+
+        vo.setFollowingCount(followingCount.join());
+        vo.setFollowerCount(followerCount.join());
+        vo.setLikeCount(likeCount.join());
+        vo.setIsFollowing(isFollowing != null && isFollowing.join());
+        return vo;
+    }
 
+    /**
+     * 用户所有作品的获赞总数
+     */
+    private long sumLikeCount(Long userId) {
         List<Video> videos = videoMapper.selectList(new LambdaQueryWrapper<Video>()
                 .select(Video::getId)
-                .eq(Video::getUploaderId, targetUserId)
+                .eq(Video::getUploaderId, userId)
                 .orderByDesc(Video::getCreateTime));
 
         List<Long> videoIds = videos.stream().map(Video::getId).collect(Collectors.toList());
-        long likeCount = 0L;
-        if (!videoIds.isEmpty()) {
-            List<VideoStat> stats = videoStatMapper.selectBatchIds(videoIds);
-            likeCount = stats.stream()
-                    .map(VideoStat::getLikeCount)
-                    .filter(v -> v != null)
-                    .mapToLong(Long::longValue)
-                    .sum();
+        if (videoIds.isEmpty()) {
+            return 0L;
         }
-        vo.setLikeCount(likeCount);
-
-        boolean isFollowing = false;
-        if (currentUserId != null && !currentUserId.equals(targetUserId)) {
-            isFollowing = relationMapper.exists(new LambdaQueryWrapper<Relation>()
-                    .eq(Relation::getUserId, currentUserId)
-                    .eq(Relation::getTargetId, targetUserId));
-        }
-        vo.setIsFollowing(isFollowing);
-        return vo;
+        List<VideoStat> stats = videoStatMapper.selectBatchIds(videoIds);
+        return stats.stream()
+                .map(VideoStat::getLikeCount)
+                .filter(v -> v != null)
+                .mapToLong(Long::longValue)
+                .sum();
     }
     @Override
     public User getUserCached(Long userId) {
-        String key = USER_INFO_KEY + userId;
+        if (userId == null) return null;
+        // 逻辑过期 + 单飞：热点用户缓存过期时只有一个请求回源，不存在的用户缓存空值
+        return hotKeyCache.get("user", USER_INFO_KEY + userId, USER_INFO_TTL,
+                () -> userMapper.selectById(userId));
+    }
 
-        // 1. 查 Redis
-        User user = (User) redisTemplate.opsForValue().get(key);
-        if (user != null) {
-            return user;
+    @Override
+    @Transactional(readOnly = true)
+    public List<UserSearchVO> searchUsers(Long currentUserId, String keyword, Integer page, Integer size) {
+        String kw = keyword == null ? "" : keyword.trim();
+        if (kw.isEmpty()) {
+            return List.of();
         }
 
-        // 2. 查 DB
-        user = userMapper.selectById(userId);
+        int pageNum = page == null || page < 1 ? 1 : page;
+        int pageSize = size == null || size < 1 ? 20 : Math.min(size, 50);
 
-        // 3. 写 Redis (设置 24 小时过期，防止冷数据长期占用)
-        if (user != null) {
-            long timeout = 24 * 60 * 60 + new Random().nextInt(3600); // 24小时 + 0~1小时随机
-            redisTemplate.opsForValue().set(key, user, timeout, TimeUnit.HOURS);
+        List<User> users;
+        if (searchIndexService.isReady()) {
+            int offset = (pageNum - 1) * pageSize;
+            if (offset >= MAX_SEARCH_OFFSET) {
+                return List.of();
+            }
+            List<SearchIndex.Hit> hits = searchIndexService.search(SearchIndex.USER, kw, currentUserId, offset, pageSize);
+            users = loadInOrder(hits.stream().map(SearchIndex.Hit::id).toList());
         } else {
-            // 防止缓存穿透：存入空值（过期时间短一点，如 5 分钟）
-             redisTemplate.opsForValue().set(key, new User(), 5, TimeUnit.MINUTES);
+            // 索引未就绪 (首次构建中或已关闭) 时退回数据库查询
+            users = likeSearch(currentUserId, kw, pageNum, pageSize);
         }
-
-        return user;
+        return toSearchVOs(currentUserId, users);
     }
 
     @Override
-    public List<UserSearchVO> searchUsers(Long currentUserId, String keyword, Integer page, Integer size) {
+    @Transactional(readOnly = true)
+    public SearchResult<UserSearchVO> searchUsers(Long currentUserId, String keyword, String cursor, Integer size) {
         String kw = keyword == null ? "" : keyword.trim();
         if (kw.isEmpty()) {
-            return List.of();
+            return new SearchResult<>(List.of(), null, false);
         }
-
-        int pageNum = page == null || page < 1 ? 1 : page;
         int pageSize = size == null || size < 1 ? 20 : Math.min(size, 50);
 
+        SearchIndex.Hits hits = searchIndexService.search(SearchIndex.USER, kw, currentUserId, cursor, pageSize);
+        List<User> users = loadInOrder(hits.list().stream().map(SearchIndex.Hit::id).toList());
+        return new SearchResult<>(toSearchVOs(currentUserId, users), hits.nextCursor(), hits.nextCursor() != null);
+    }
+
+    /**
+     * 按索引返回的顺序回查用户
+     */
+    private List<User> loadInOrder(List<Long> ids) {
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        Map<Long, User> byId = userMapper.selectBatchIds(ids).stream()
+                .collect(Collectors.toMap(User::getId, Function.identity()));
+        return ids.stream().map(byId::get).filter(Objects::nonNull).toList();
+    }
+
+    private List<User> likeSearch(Long currentUserId, String kw, int pageNum, int pageSize) {
         LambdaQueryWrapper<User> wrapper = new LambdaQueryWrapper<User>()
                 .select(User::getId, User::getUsername, User::getAvatar)
                 .orderByDesc(User::getId);
@@ -259,8 +308,10 @@ public class UserServiceImpl implements IUserService {
         }
 
         Page<User> mpPage = new Page<>(pageNum, pageSize);
-        List<User> users = userMapper.selectPage(mpPage, wrapper).getRecords();
+        return userMapper.selectPage(mpPage, wrapper).getRecords();
+    }
 
+    private List<UserSearchVO> toSearchVOs(Long currentUserId, List<User> users) {
         if (users == null || users.isEmpty()) {
             return List.of();
         }
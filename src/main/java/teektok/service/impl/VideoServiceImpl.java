@@ -7,39 +7,58 @@ import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.data.redis.connection.StringRedisConnection;
 import org.springframework.data.redis.core.RedisCallback;
 import org.springframework.data.redis.core.RedisTemplate;
 import org.springframework.data.redis.core.StringRedisTemplate;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.multipart.MultipartFile;
 import teektok.VO.PageResult;
+import teektok.VO.SearchResult;
 import teektok.dto.behavior.PlayDTO;
 import teektok.dto.recommend.RecommendVideoVO;
 import teektok.dto.video.VideoListVO;
 import teektok.dto.video.VideoQueryDTO;
+import teektok.dto.video.VideoSearchVO;
 import teektok.dto.video.VideoUploadDTO;
 import teektok.dto.video.VideoVO;
 import teektok.entity.User;
 import teektok.entity.UserBehavior;
+import teektok.entity.UserBehaviorRollup;
 import teektok.entity.Video;
 import teektok.entity.VideoFavorite;
 import teektok.entity.VideoLike;
 import teektok.entity.VideoStat;
 import teektok.entity.Relation;
 import teektok.mapper.UserBehaviorMapper;
+import teektok.mapper.UserBehaviorRollupMapper;
 import teektok.mapper.UserMapper;
 import teektok.mapper.VideoFavoriteMapper;
 import teektok.mapper.VideoLikeMapper;
 import teektok.mapper.VideoMapper;
 import teektok.mapper.VideoStatMapper;
 import teektok.mapper.RelationMapper;
+import teektok.service.IMediaObjectService;
+import teektok.service.IMediaProcessingService;
 import teektok.service.IRelationService;
 import teektok.service.IUserService;
 import teektok.service.IVideoService;
-import teektok.utils.AliyunOSSOperator;
 import teektok.utils.BaseContext;
+import teektok.utils.ContentHash;
+import teektok.utils.FanOut;
+import teektok.utils.HotKeyCache;
+import teektok.utils.MediaStorage;
+import teektok.utils.RedisKeys;
+import teektok.utils.SearchIndex;
+import teektok.utils.SlotPipeline;
+import teektok.utils.UploadLimiter;
 
 import java.io.IOException;
+import java.io.InputStream;
+import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.*;
 import java.util.concurrent.CompletableFuture;
@@ -53,12 +72,16 @@ import java.util.stream.Collectors;
 public class VideoServiceImpl extends ServiceImpl<VideoMapper, Video> implements IVideoService {
 
     @Autowired
-    private AliyunOSSOperator aliyunOSSOperator;
+    private MediaStorage mediaStorage;
+    @Autowired
+    private UploadLimiter uploadLimiter;
     @Autowired
     private VideoStatMapper videoStatMapper;
     @Autowired
     private UserBehaviorMapper userBehaviorMapper;
     @Autowired
+    private UserBehaviorRollupMapper userBehaviorRollupMapper;
+    @Autowired
     private UserMapper userMapper;
     @Autowired
     private VideoLikeMapper videoLikeMapper;
@@ -71,6 +94,20 @@ public class VideoServiceImpl extends ServiceImpl<VideoMapper, Video> implements
     @Autowired
     private IRelationService relationService;
     @Autowired
+    private IMediaProcessingService mediaProcessingService;
+    @Autowired
+    private IMediaObjectService mediaObjectService;
+    @Autowired
+    private HotKeyCache hotKeyCache;
+    @Autowired
+    private SearchIndexService searchIndexService;
+
+    @Autowired
+    private SlotPipeline slotPipeline;
+
+    @Autowired
+    private FanOut fanOut;
+    @Autowired
     @Qualifier("commonExecutor") // 引用 ThreadPoolConfig 中的 bean
     private Executor commonExecutor;
 
@@ -82,11 +119,9 @@ public class VideoServiceImpl extends ServiceImpl<VideoMapper, Video> implements
 
     // Redis Key 常量 (需与 BehaviorService 保持一致)
     private static final String VIDEO_STAT_KEY = "video:stat:";
-    private static final String USER_LIKE_KEY = "user:like:";
-    private static final String USER_FAVORITE_KEY = "user:favorite:";
-    private static final String USER_FOLLOW_KEY = "user:follow:"; // 假设关注也做了缓存
 
     private static final String VIDEO_INFO_KEY = "video:info:";
+    private static final Duration VIDEO_INFO_TTL = Duration.ofHours(24);
 
     private static final int BEHAVIOR_TYPE_PLAY = 1;
 
@@ -96,34 +131,68 @@ public class VideoServiceImpl extends ServiceImpl<VideoMapper, Video> implements
             throw new RuntimeException("上传视频不能为空");
         }
 
-        String url;
+        MultipartFile file = videoUploadDTO.getFile();
 
-        try {
-            // 传递 contentType
-            url = aliyunOSSOperator.upload(
-                    videoUploadDTO.getFile().getBytes(),
-                    videoUploadDTO.getFile().getOriginalFilename(),
-                    videoUploadDTO.getFile().getContentType()
-            );
-        } catch (Exception e) {
-            e.printStackTrace();
-            throw new RuntimeException("上传视频失败", e);
+        // 先对落盘的临时文件计算内容哈希：已存储过相同内容时直接复用，不再上传
+        String contentHash;
+        try (InputStream in = file.getInputStream()) {
+            contentHash = ContentHash.of(in);
         }
+        String url = mediaObjectService.reuse(contentHash, file.getSize());
+
+        if (url == null) {
+            // 限制同时进行的上传数，超出的请求直接拒绝而不是排队占用线程
+            uploadLimiter.acquire();
+            try {
+                // multipart 文件已由容器落盘，这里按流读取，不再 getBytes() 把整个视频读进堆
+                url = mediaStorage.upload(file);
+            } catch (Exception e) {
+                log.error("上传视频失败", e);
+                throw new RuntimeException("上传视频失败", e);
+            } finally {
+                uploadLimiter.release();
+            }
+            url = mediaObjectService.register(contentHash, file.getSize(), url);
+        }
+
+        saveUploadedVideo(videoUploadDTO.getTitle(), videoUploadDTO.getDescription(), url, uploaderId, contentHash);
+        return url;
+    }
 
-        //获取视频封面的url
-        String coverUrl = url + "?x-oss-process=video/snapshot,t_1000,f_jpg,w_0,h_0,m_fast";
+    @Override
+    public Video saveUploadedVideo(String title, String description, String url, Long uploaderId, String contentHash) {
+        //获取视频封面的url (OSS 视频截帧；本地存储的封面由后台处理时截取)
+        String coverUrl = mediaStorage.coverUrl(url);
 
         //将视频元数据保存到数据库
         Video video = new Video();
-        video.setTitle(videoUploadDTO.getTitle());
+        video.setTitle(title);
         video.setVideoUrl(url);
         video.setCoverUrl(coverUrl);
-        video.setDescription(videoUploadDTO.getDescription());
+        video.setDescription(description);
         video.setUploaderId(uploaderId);
         video.setStatus(0);
+        video.setContentHash(contentHash);
+        video.setProcessStatus(0);
+        video.setProcessAttempts(0);
         video.setCreateTime(LocalDateTime.now());
         video.setUpdateTime(LocalDateTime.now());
 
+        // 复用了已有文件：直接沿用已处理完的时长/分辨率/封面/切片，不再重复处理
+        Video processed = contentHash == null ? null : this.getOne(new LambdaQueryWrapper<Video>()
+                .eq(Video::getContentHash, contentHash)
+                .eq(Video::getVideoUrl, url)
+                .eq(Video::getProcessStatus, 2)
+                .last("LIMIT 1"));
+        if (processed != null) {
+            video.setCoverUrl(processed.getCoverUrl() != null ? processed.getCoverUrl() : coverUrl);
+            video.setDurationMs(processed.getDurationMs());
+            video.setWidth(processed.getWidth());
+            video.setHeight(processed.getHeight());
+            video.setHlsUrl(processed.getHlsUrl());
+            video.setProcessStatus(2);
+        }
+
         this.save(video);
 
         // 初始化视频统计数据
@@ -148,7 +217,24 @@ public class VideoServiceImpl extends ServiceImpl<VideoMapper, Video> implements
         long timeout = 24 * 60 * 60 + new Random().nextInt(3600); // 24小时 + 0~1小时随机
         stringRedisTemplate.expire(VIDEO_STAT_KEY + video.getId(), timeout, TimeUnit.SECONDS);
         stringRedisTemplate.expire(VIDEO_STAT_KEY + video.getId(), 24, TimeUnit.HOURS);
-        return url;
+
+        if (processed != null) {
+            return video;
+        }
+
+        // 时长/分辨率/封面/HLS 切片在后台处理，上传请求不等待
+        Long videoId = video.getId();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    mediaProcessingService.submit(videoId);
+                }
+            });
+        } else {
+            mediaProcessingService.submit(videoId);
+        }
+        return video;
     }
 
     @Override
@@ -209,9 +295,9 @@ public class VideoServiceImpl extends ServiceImpl<VideoMapper, Video> implements
             // C. 填充互动状态
             if (currentUserId != null) {
                 // 判断点赞 (查 Redis Set)
-                vo.setIsLiked(safeIsMember(USER_LIKE_KEY + currentUserId, video.getId().toString()));
+                vo.setIsLiked(safeIsMember(RedisKeys.userLike(currentUserId), video.getId().toString()));
                 // 判断收藏 (查 Redis Set)
-                vo.setIsFavorited(safeIsMember(USER_FAVORITE_KEY + currentUserId, video.getId().toString()));
+                vo.setIsFavorited(safeIsMember(RedisKeys.userFavorite(currentUserId), video.getId().toString()));
                 // 判断关注 (查刚刚的 DB 结果)
                 vo.setIsFollowed(finalFollowedUploaderIds.contains(video.getUploaderId()));
             } else {
@@ -232,6 +318,10 @@ public class VideoServiceImpl extends ServiceImpl<VideoMapper, Video> implements
         vo.setTitle(video.getTitle());
         vo.setVideoUrl(video.getVideoUrl());
         vo.setCoverUrl(video.getCoverUrl());
+        vo.setHlsUrl(video.getHlsUrl());
+        vo.setDurationMs(video.getDurationMs());
+        vo.setWidth(video.getWidth());
+        vo.setHeight(video.getHeight());
         vo.setDescription(video.getDescription());
         vo.setUploaderId(video.getUploaderId());
         return vo;
@@ -244,35 +334,10 @@ public class VideoServiceImpl extends ServiceImpl<VideoMapper, Video> implements
 
     @Override
     public VideoVO getDetail(Long videoId) {
-        String key = VIDEO_INFO_KEY + videoId;
-
-        // 1. 查 Redis 缓存
-        Video video = null;
-        Object cachedObj = redisTemplate.opsForValue().get(key);
-
-        if (cachedObj != null) {
-            // 【关键防御】如果缓存的是一个 ID 为空的“空对象”，说明之前已经查过数据库不存在
-            if (video != null && video.getId() == null) {
-                throw new RuntimeException("视频不存在"); // 直接拦截，不查库
-            }
-        }
-
-        // 2. 如果缓存没命中（或者取出的数据异常），回源查数据库
+        // 1. 查缓存：逻辑过期 + 单飞，热点视频缓存过期时只有一个请求回源；不存在的视频缓存空值防穿透
+        Video video = hotKeyCache.get("video", VIDEO_INFO_KEY + videoId, VIDEO_INFO_TTL, () -> this.getById(videoId));
         if (video == null) {
-            video = this.getById(videoId);
-
-            // 3. 【解决穿透的核心】数据库也没查到
-            if (video == null) {
-                // 往 Redis 存一个“空对象”（ID 为 null 的 Video）
-                // 设置较短的过期时间 (如 5 分钟)，防止长期占用内存或后续该 ID 被真的创建了
-                redisTemplate.opsForValue().set(key, new Video(), 5, TimeUnit.MINUTES);
-                throw new RuntimeException("视频不存在");
-            }
-
-            // 4. 数据库查到了，写入 Redis (设置正常过期时间，如 1 天)
-            // 加上随机过期时间防止雪崩：24小时 + 随机 0-60 分钟
-            long timeout = 24 * 60 * 60 + new Random().nextInt(3600);
-            redisTemplate.opsForValue().set(key, video, timeout, TimeUnit.SECONDS);
+            throw new RuntimeException("视频不存在");
         }
 
         // 2. 转换 VO
@@ -297,17 +362,13 @@ public class VideoServiceImpl extends ServiceImpl<VideoMapper, Video> implements
         if (currentUserId != null) {
             // A. 点赞状态：查 Redis Set
             // 注意：Redis Set 中存的是 String 类型的 videoId
-            vo.setIsLiked(safeIsMember(USER_LIKE_KEY + currentUserId, videoId.toString()));
+            vo.setIsLiked(safeIsMember(RedisKeys.userLike(currentUserId), videoId.toString()));
 
             // B. 收藏状态：查 Redis Set
-            vo.setIsFavorited(safeIsMember(USER_FAVORITE_KEY + currentUserId, videoId.toString()));
+            vo.setIsFavorited(safeIsMember(RedisKeys.userFavorite(currentUserId), videoId.toString()));
 
-            // C. 关注状态：目前维持查 DB (因为 Relation 模块尚未实现纯 Redis 缓存)
-            // 单次主键/索引查询性能尚可
-            boolean isFollowed = relationMapper.exists(new LambdaQueryWrapper<Relation>()
-                    .eq(Relation::getUserId, currentUserId)
-                    .eq(Relation::getTargetId, video.getUploaderId()));
-            vo.setIsFollowed(isFollowed);
+            // C. 关注状态：优先查关注 Set (user:follow:{userId})，未加载时才查 DB
+            vo.setIsFollowed(relationService.isFollowing(currentUserId, video.getUploaderId()));
         } else {
             // 未登录全部为 false
             vo.setIsLiked(false);
@@ -384,8 +445,8 @@ public class VideoServiceImpl extends ServiceImpl<VideoMapper, Video> implements
 
             Long currentUserId = BaseContext.getCurrentId();
             if (currentUserId != null) {
-                vo.setIsLiked(safeIsMember(USER_LIKE_KEY + currentUserId, video.getId().toString()));
-                vo.setIsFavorited(safeIsMember(USER_FAVORITE_KEY + currentUserId, video.getId().toString()));
+                vo.setIsLiked(safeIsMember(RedisKeys.userLike(currentUserId), video.getId().toString()));
+                vo.setIsFavorited(safeIsMember(RedisKeys.userFavorite(currentUserId), video.getId().toString()));
             } else {
                 vo.setIsLiked(false);
                 vo.setIsFavorited(false);
@@ -402,7 +463,10 @@ public class VideoServiceImpl extends ServiceImpl<VideoMapper, Video> implements
         int current = Math.max(1, page);
         int pageSize = Math.max(1, size);
 
-        long total = userBehaviorMapper.countDistinctVideoIdsByUserAndType(userId, BEHAVIOR_TYPE_PLAY);
+        // 读汇总表：每个看过的视频一行，不用在流水上 GROUP BY
+        long total = userBehaviorRollupMapper.selectCount(new LambdaQueryWrapper<UserBehaviorRollup>()
+                .eq(UserBehaviorRollup::getUserId, userId)
+                .eq(UserBehaviorRollup::getBehaviorType, BEHAVIOR_TYPE_PLAY));
         if (total <= 0) {
             return new PageResult<>(Collections.emptyList(), 0);
         }
@@ -412,12 +476,13 @@ public class VideoServiceImpl extends ServiceImpl<VideoMapper, Video> implements
             return new PageResult<>(Collections.emptyList(), total);
         }
 
-        List<Long> videoIds = userBehaviorMapper.selectDistinctVideoIdsByUserAndTypeOrderByLatestTime(
-                userId,
-                BEHAVIOR_TYPE_PLAY,
-                offset,
-                pageSize
-        );
+        List<Long> videoIds = userBehaviorRollupMapper.selectList(new LambdaQueryWrapper<UserBehaviorRollup>()
+                        .select(UserBehaviorRollup::getVideoId)
+                        .eq(UserBehaviorRollup::getUserId, userId)
+                        .eq(UserBehaviorRollup::getBehaviorType, BEHAVIOR_TYPE_PLAY)
+                        .orderByDesc(UserBehaviorRollup::getLastTime)
+                        .last("LIMIT " + offset + ", " + pageSize))
+                .stream().map(UserBehaviorRollup::getVideoId).collect(Collectors.toList());
         if (videoIds == null || videoIds.isEmpty()) {
             return new PageResult<>(Collections.emptyList(), total);
         }
@@ -427,6 +492,10 @@ public class VideoServiceImpl extends ServiceImpl<VideoMapper, Video> implements
 
     @Override
     public void clearHistory(Long userId) {
+        userBehaviorRollupMapper.delete(new LambdaQueryWrapper<UserBehaviorRollup>()
+                .eq(UserBehaviorRollup::getUserId, userId)
+                .eq(UserBehaviorRollup::getBehaviorType, BEHAVIOR_TYPE_PLAY));
+        // 流水中尚未归档的部分一并删除，离线推荐不再使用这些记录
         userBehaviorMapper.delete(new LambdaQueryWrapper<UserBehavior>()
                 .eq(UserBehavior::getUserId, userId)
                 .eq(UserBehavior::getBehaviorType, BEHAVIOR_TYPE_PLAY));
@@ -434,12 +503,46 @@ public class VideoServiceImpl extends ServiceImpl<VideoMapper, Video> implements
 
     @Override
     public void deleteHistoryVideo(Long userId, Long videoId) {
+        userBehaviorRollupMapper.delete(new LambdaQueryWrapper<UserBehaviorRollup>()
+                .eq(UserBehaviorRollup::getUserId, userId)
+                .eq(UserBehaviorRollup::getBehaviorType, BEHAVIOR_TYPE_PLAY)
+                .eq(UserBehaviorRollup::getVideoId, videoId));
         userBehaviorMapper.delete(new LambdaQueryWrapper<UserBehavior>()
                 .eq(UserBehavior::getUserId, userId)
                 .eq(UserBehavior::getVideoId, videoId)
                 .eq(UserBehavior::getBehaviorType, BEHAVIOR_TYPE_PLAY));
     }
 
+    @Override
+    public SearchResult<VideoSearchVO> searchVideos(String keyword, String cursor, Integer size) {
+        String kw = keyword == null ? "" : keyword.trim();
+        if (kw.isEmpty()) {
+            return new SearchResult<>(List.of(), null, false);
+        }
+        int pageSize = size == null || size < 1 ? 20 : Math.min(size, 50);
+
+        SearchIndex.Hits hits = searchIndexService.search(SearchIndex.VIDEO, kw, null, cursor, pageSize);
+        List<Long> ids = hits.list().stream().map(SearchIndex.Hit::id).toList();
+        // 回查时再过滤一次：删除/驳回后索引还没来得及更新的视频不返回
+        Map<Long, Video> byId = ids.isEmpty() ? Map.of() : this.listByIds(ids).stream()
+                .filter(v -> Objects.equals(v.getStatus(), 1))
+                .collect(Collectors.toMap(Video::getId, Function.identity()));
+
+        List<VideoSearchVO> list = new ArrayList<>(byId.size());
+        for (Long id : ids) {
+            Video video = byId.get(id);
+            if (video == null) continue;
+            VideoSearchVO vo = new VideoSearchVO();
+            vo.setVideoId(video.getId());
+            vo.setTitle(video.getTitle());
+            vo.setCoverUrl(video.getCoverUrl());
+            vo.setDurationMs(video.getDurationMs());
+            vo.setUploaderId(video.getUploaderId());
+            list.add(vo);
+        }
+        return new SearchResult<>(list, hits.nextCursor(), hits.nextCursor() != null);
+    }
+
     private PageResult<VideoVO> buildVideoVOs(List<Long> videoIds, long total) {
         // 1. 批量查询视频
         List<Video> videos = this.listByIds(videoIds);
@@ -455,87 +558,30 @@ public class VideoServiceImpl extends ServiceImpl<VideoMapper, Video> implements
             return new PageResult<>(Collections.emptyList(), total);
         }
 
-        // 2. 提取 uploaderIds
+        // 2~4 作者信息、统计数据、交互状态互不依赖，并行查询；个别查询超时或失败时按缺省值展示
         List<Long> uploaderIds = orderedVideos.stream().map(Video::getUploaderId).distinct().toList();
-        Map<Long, User> userMap = Collections.emptyMap();
-        ;
-        if (!uploaderIds.isEmpty()) {
-            // 这里也可以优化为循环调用 userService.getUserCached，但批量查库通常性能可以接受
-            userMap = userMapper.selectBatchIds(uploaderIds).stream().collect(Collectors.toMap(User::getId, Function.identity()));
-        }
-
-        // 3. 【优化】批量从 Redis 获取统计数据 (Pipeline)
-        Map<Long, VideoStat> statMap = batchGetVideoStatsFromRedis(videoIds);
-
-        // 4. 【优化】批量从 Redis 获取交互状态 (Pipeline)
         Long currentUserId = BaseContext.getCurrentId();
-        Map<Long, Boolean> likedMap = new HashMap<>();
-        Map<Long, Boolean> favoritedMap = new HashMap<>();
-
-        if (currentUserId != null) {
-            likedMap = batchGetInteractionStatus(USER_LIKE_KEY + currentUserId, videoIds);
-            favoritedMap = batchGetInteractionStatus(USER_FAVORITE_KEY + currentUserId, videoIds);
-        }
-
-        // 5 批量查询关注状态
-        // 关注关系较复杂，暂维持查库，或者需要 RelationService 提供 Redis 接口
-        Set<Long> followedUploaderIds = new HashSet<>();
-        if (currentUserId != null && !uploaderIds.isEmpty()) {
-            String followKey = USER_FOLLOW_KEY + currentUserId;
-
-            // A. 尝试走 Redis Pipeline 查询
-            // 注意：这里我们判断 hasKey。如果 key 存在（哪怕是空集占位符），都算命中缓存
-            if (Boolean.TRUE.equals(stringRedisTemplate.hasKey(followKey))) {
-                List<Object> results = stringRedisTemplate.executePipelined((RedisCallback<Object>) connection -> {
-                    for (Long uploaderId : uploaderIds) {
-                        connection.sIsMember(followKey.getBytes(), uploaderId.toString().getBytes());
-                    }
-                    return null;
-                });
-
-                // 解析 Pipeline 结果
-                // 注意：uploaderIds 是去重后的列表，我们需要按顺序对应
-                for (int i = 0; i < uploaderIds.size(); i++) {
-                    Object res = results.get(i);
-                    if (res instanceof Boolean && (Boolean) res) {
-                        followedUploaderIds.add(uploaderIds.get(i));
-                    }
-                }
-            } else {
-                // B. 缓存未命中 (冷用户)
-                // 1. 【同步兜底】先去 DB 查当前这页需要的作者 (只查这 10 个，保证当前请求速度)
-                List<Relation> relations = relationMapper.selectList(new LambdaQueryWrapper<Relation>()
-                        .eq(Relation::getUserId, currentUserId)
-                        .in(Relation::getTargetId, uploaderIds));
-
-                followedUploaderIds = relations.stream().map(Relation::getTargetId).collect(Collectors.toSet());
-
-                // 2. 【异步全量加载】触发一个后台任务，去把该用户所有的关注列表加载到 Redis
-                // 这样用户翻到下一页时，Redis 里就有数据了
-                CompletableFuture.runAsync(() -> {
-                    try {
-                        // 调用刚才写好的 Service 方法
-                        relationService.loadUserFollowCache(currentUserId);
-                        log.info("异步加载用户关注列表完成 uid:{}", currentUserId);
-                    } catch (Exception e) {
-                        log.error("异步加载关注列表失败", e);
-                    }
-                }, commonExecutor); // 使用线程池
-            }
-        }
-
 
-        // 6. 组装 VO
-        Map<Long, User> finalUserMap = userMap;
-        Map<Long, Boolean> finalLikedMap = likedMap;
-        Map<Long, Boolean> finalFavoritedMap = favoritedMap;
-        Set<Long> finalFollowedUploaderIds = followedUploaderIds;
+        FanOut.Call<Map<Long, User>> users = fanOut.fork("videoList.users",
+                () -> userMapper.selectBatchIds(uploaderIds).stream().collect(Collectors.toMap(User::getId, Function.identity())),
+                Collections.emptyMap());
+        // 批量从 Redis 获取统计数据 (Pipeline)，未命中的按 0 返回并异步预热
+        FanOut.Call<Map<Long, VideoStat>> stats = fanOut.fork("videoList.stats",
+                () -> batchGetVideoStatsFromRedis(videoIds), Collections.emptyMap());
+        FanOut.Call<Interactions> interactions = currentUserId == null ? null
+                : fanOut.fork("videoList.interactions",
+                        () -> getInteractions(currentUserId, videoIds, uploaderIds), Interactions.NONE);
+
+        // 5. 组装 VO
+        Map<Long, User> userMap = users.join();
+        Map<Long, VideoStat> statMap = stats.join();
+        Interactions interaction = interactions == null ? Interactions.NONE : interactions.join();
 
         List<VideoVO> voList = orderedVideos.stream().map(video -> {
             VideoVO vo = toVO(video);
 
             // 用户
-            User user = finalUserMap.get(video.getUploaderId());
+            User user = userMap.get(video.getUploaderId());
             if (user != null) {
                 vo.setUploaderName(user.getUsername());
                 vo.setUploaderAvatar(user.getAvatar());
@@ -558,9 +604,9 @@ public class VideoServiceImpl extends ServiceImpl<VideoMapper, Video> implements
             }
 
             // 用户与视频交互状态
-            vo.setIsLiked(finalLikedMap.getOrDefault(video.getId(), false));
-            vo.setIsFavorited(finalFavoritedMap.getOrDefault(video.getId(), false));
-            vo.setIsFollowed(finalFollowedUploaderIds.contains(video.getUploaderId()));
+            vo.setIsLiked(interaction.liked.getOrDefault(video.getId(), false));
+            vo.setIsFavorited(interaction.favorited.getOrDefault(video.getId(), false));
+            vo.setIsFollowed(interaction.followedUploaderIds.contains(video.getUploaderId()));
 
             return vo;
         }).toList();
@@ -568,6 +614,85 @@ public class VideoServiceImpl extends ServiceImpl<VideoMapper, Video> implements
         return new PageResult<>(voList, total);
     }
 
+    /**
+     * 当前用户对一页视频的点赞、收藏状态以及对作者的关注状态
+     */
+    private static class Interactions {
+        static final Interactions NONE = new Interactions();
+
+        final Map<Long, Boolean> liked = new HashMap<>();
+        final Map<Long, Boolean> favorited = new HashMap<>();
+        Set<Long> followedUploaderIds = new HashSet<>();
+    }
+
+    private Interactions getInteractions(Long currentUserId, List<Long> videoIds, List<Long> uploaderIds) {
+        Interactions result = new Interactions();
+        boolean followCached = false;
+
+        // 同一用户的点赞/收藏/关注集合带同一个 hash tag，在同一个节点上，一个 Pipeline 查完：
+        // [关注集合是否存在, 点赞 x 视频数, 收藏 x 视频数, 关注 x 作者数]
+        byte[] likeKey = RedisKeys.userLike(currentUserId).getBytes();
+        byte[] favoriteKey = RedisKeys.userFavorite(currentUserId).getBytes();
+        byte[] followKey = RedisKeys.userFollow(currentUserId).getBytes();
+        try {
+            List<Object> results = stringRedisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+                connection.keyCommands().exists(followKey);
+                for (Long vid : videoIds) {
+                    connection.setCommands().sIsMember(likeKey, vid.toString().getBytes());
+                }
+                for (Long vid : videoIds) {
+                    connection.setCommands().sIsMember(favoriteKey, vid.toString().getBytes());
+                }
+                for (Long uploaderId : uploaderIds) {
+                    connection.setCommands().sIsMember(followKey, uploaderId.toString().getBytes());
+                }
+                return null;
+            });
+
+            int n = videoIds.size();
+            for (int i = 0; i < n; i++) {
+                result.liked.put(videoIds.get(i), Boolean.TRUE.equals(results.get(1 + i)));
+                result.favorited.put(videoIds.get(i), Boolean.TRUE.equals(results.get(1 + n + i)));
+            }
+            // 关注集合存在 (哪怕只有空集占位符) 才算命中缓存
+            followCached = Boolean.TRUE.equals(results.get(0));
+            if (followCached) {
+                for (int i = 0; i < uploaderIds.size(); i++) {
+                    if (Boolean.TRUE.equals(results.get(1 + 2 * n + i))) {
+                        result.followedUploaderIds.add(uploaderIds.get(i));
+                    }
+                }
+            }
+        } catch (Exception e) {
+            // Redis 不可用时点赞/收藏按未交互处理，关注状态走下面的 DB 兜底
+            log.warn("批量查询交互状态失败: {}", e.getMessage());
+        }
+
+        // 关注集合未加载时查库
+        if (!uploaderIds.isEmpty() && !followCached) {
+            // B. 缓存未命中 (冷用户)
+            // 1. 【同步兜底】先去 DB 查当前这页需要的作者 (只查这 10 个，保证当前请求速度)
+            List<Relation> relations = relationMapper.selectList(new LambdaQueryWrapper<Relation>()
+                    .eq(Relation::getUserId, currentUserId)
+                    .in(Relation::getTargetId, uploaderIds));
+
+            result.followedUploaderIds = relations.stream().map(Relation::getTargetId).collect(Collectors.toSet());
+
+            // 2. 【异步全量加载】触发一个后台任务，去把该用户所有的关注列表加载到 Redis
+            // 这样用户翻到下一页时，Redis 里就有数据了
+            CompletableFuture.runAsync(() -> {
+                try {
+                    // 调用刚才写好的 Service 方法
+                    relationService.loadUserFollowCache(currentUserId);
+                    log.info("异步加载用户关注列表完成 uid:{}", currentUserId);
+                } catch (Exception e) {
+                    log.error("异步加载关注列表失败", e);
+                }
+            }, commonExecutor); // 使用线程池
+        }
+        return result;
+    }
+
     // ================= 辅助方法: Pipeline 批量读取 =================
 
     /**
@@ -581,13 +706,9 @@ public class VideoServiceImpl extends ServiceImpl<VideoMapper, Video> implements
 
         List<Object> results;
         try {
-            results = stringRedisTemplate.executePipelined((RedisCallback<Object>) connection -> {
-                for (Long vid : videoIds) {
-                    String key = VIDEO_STAT_KEY + vid;
-                    connection.hGetAll(key.getBytes());
-                }
-                return null;
-            });
+            // 统计 Key 按视频分散在各节点，按节点分组 Pipeline
+            results = slotPipeline.execute(videoIds.stream().map(vid -> VIDEO_STAT_KEY + vid).toList(),
+                    StringRedisConnection::hGetAll);
         } catch (Exception ignored) {
             List<VideoStat> dbStats = videoStatMapper.selectBatchIds(videoIds);
             if (dbStats == null || dbStats.isEmpty()) return Collections.emptyMap();
@@ -630,36 +751,42 @@ public class VideoServiceImpl extends ServiceImpl<VideoMapper, Video> implements
         }
 
         // 2. 异步处理未命中的数据 (Fire-and-Forget)
-        if (!missIds.isEmpty()) {
+        // 同一批热点视频被并发请求时只预热一次：已有线程在加载的视频跳过
+        List<String> claimed = hotKeyCache.claimLoads("video-stat",
+                missIds.stream().map(vid -> VIDEO_STAT_KEY + vid).toList());
+        if (!claimed.isEmpty()) {
+            List<Long> loadIds = claimed.stream()
+                    .map(k -> Long.valueOf(k.substring(VIDEO_STAT_KEY.length())))
+                    .toList();
             CompletableFuture.runAsync(() -> {
                 try {
                     // A. 查 DB (耗时操作，现在在子线程里，不影响主接口响应)
-                    List<VideoStat> dbStats = videoStatMapper.selectBatchIds(missIds);
+                    List<VideoStat> dbStats = hotKeyCache.timedLoad("video-stat", () -> videoStatMapper.selectBatchIds(loadIds));
 
                     if (dbStats != null && !dbStats.isEmpty()) {
                         // B. 回写 Redis
-                        stringRedisTemplate.executePipelined(new org.springframework.data.redis.core.SessionCallback<Object>() {
-                            @Override
-                            public Object execute(org.springframework.data.redis.core.RedisOperations operations) {
-                                for (VideoStat stat : dbStats) {
-                                    String key = VIDEO_STAT_KEY + stat.getVideoId();
-                                    Map<String, String> map = new HashMap<>();
-                                    map.put("playCount", String.valueOf(stat.getPlayCount()));
-                                    map.put("likeCount", String.valueOf(stat.getLikeCount()));
-                                    map.put("commentCount", String.valueOf(stat.getCommentCount()));
-                                    map.put("shareCount", String.valueOf(stat.getShareCount()));
-                                    map.put("favoriteCount", String.valueOf(stat.getFavoriteCount()));
-
-                                    operations.opsForHash().putAll(key, map);
-                                    operations.expire(key, 24, TimeUnit.HOURS);
-                                }
-                                return null;
-                            }
+                        Map<String, VideoStat> byKey = new HashMap<>();
+                        for (VideoStat stat : dbStats) {
+                            byKey.put(VIDEO_STAT_KEY + stat.getVideoId(), stat);
+                        }
+                        slotPipeline.execute(new ArrayList<>(byKey.keySet()), (connection, key) -> {
+                            VideoStat stat = byKey.get(key);
+                            Map<String, String> map = new HashMap<>();
+                            map.put("playCount", String.valueOf(stat.getPlayCount()));
+                            map.put("likeCount", String.valueOf(stat.getLikeCount()));
+                            map.put("commentCount", String.valueOf(stat.getCommentCount()));
+                            map.put("shareCount", String.valueOf(stat.getShareCount()));
+                            map.put("favoriteCount", String.valueOf(stat.getFavoriteCount()));
+
+                            connection.hMSet(key, map);
+                            connection.expire(key, TimeUnit.HOURS.toSeconds(24));
                         });
                         log.info("异步预热完成，更新了 {} 个视频的统计数据", dbStats.size());
                     }
                 } catch (Exception e) {
                     log.error("异步预热统计数据失败", e);
+                } finally {
+                    hotKeyCache.finishLoads(claimed);
                 }
             }, commonExecutor); // 使用你的线程池
         }
@@ -667,32 +794,6 @@ public class VideoServiceImpl extends ServiceImpl<VideoMapper, Video> implements
         return resultMap;
     }
 
-    /**
-     * 使用 Redis Pipeline 批量检查 Set 成员 (用于点赞/收藏状态)
-     */
-    private Map<Long, Boolean> batchGetInteractionStatus(String key, List<Long> videoIds) {
-        if (videoIds.isEmpty()) return Collections.emptyMap();
-
-        List<Object> results;
-        try {
-            results = redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
-                for (Long vid : videoIds) {
-                    connection.sIsMember(key.getBytes(), vid.toString().getBytes());
-                }
-                return null;
-            });
-        } catch (Exception ignored) {
-            return Collections.emptyMap();
-        }
-
-        Map<Long, Boolean> map = new HashMap<>();
-        for (int i = 0; i < videoIds.size(); i++) {
-            Object res = results.get(i);
-            map.put(videoIds.get(i), res instanceof Boolean && (Boolean) res);
-        }
-        return map;
-    }
-
     // ================= 辅助方法: 从redis中读取统计数据 =================
 
     /**
@@ -714,7 +815,10 @@ public class VideoServiceImpl extends ServiceImpl<VideoMapper, Video> implements
         } catch (Exception ignored) {
         }
 
-        VideoStat stat = videoStatMapper.selectById(vo.getVideoId());
+        // 同一实例内同一视频只有一个线程回源并回写 Redis (统计 Hash 是就地累加的计数器，不做逻辑过期)
+        // 列表预热 (claimLoads) 正在加载这个视频时，等它写完 Redis 再读一次
+        VideoStat stat = hotKeyCache.singleFlight("video-stat", key,
+                () -> loadVideoStat(vo.getVideoId(), key), () -> readVideoStat(vo.getVideoId(), key));
         if (stat == null) {
             vo.setPlayCount(0L);
             vo.setLikeCount(0L);
@@ -729,18 +833,40 @@ public class VideoServiceImpl extends ServiceImpl<VideoMapper, Video> implements
         vo.setCommentCount(stat.getCommentCount() == null ? 0L : stat.getCommentCount());
         vo.setShareCount(stat.getShareCount() == null ? 0L : stat.getShareCount());
         vo.setFavoriteCount(stat.getFavoriteCount() == null ? 0L : stat.getFavoriteCount());
+    }
+
+    private VideoStat readVideoStat(Long videoId, String key) {
+        try {
+            Map<Object, Object> entries = redisTemplate.opsForHash().entries(key);
+            if (entries.isEmpty()) return null;
+            VideoStat stat = new VideoStat();
+            stat.setVideoId(videoId);
+            stat.setPlayCount(getLong(entries.get("playCount")));
+            stat.setLikeCount(getLong(entries.get("likeCount")));
+            stat.setCommentCount(getLong(entries.get("commentCount")));
+            stat.setShareCount(getLong(entries.get("shareCount")));
+            stat.setFavoriteCount(getLong(entries.get("favoriteCount")));
+            return stat;
+        } catch (Exception e) {
+            return null;
+        }
+    }
 
+    private VideoStat loadVideoStat(Long videoId, String key) {
+        VideoStat stat = hotKeyCache.timedLoad("video-stat", () -> videoStatMapper.selectById(videoId));
+        if (stat == null) return null;
         try {
             Map<String, Object> map = new HashMap<>();
-            map.put("playCount", vo.getPlayCount());
-            map.put("likeCount", vo.getLikeCount());
-            map.put("commentCount", vo.getCommentCount());
-            map.put("shareCount", vo.getShareCount());
-            map.put("favoriteCount", vo.getFavoriteCount());
+            map.put("playCount", stat.getPlayCount() == null ? 0L : stat.getPlayCount());
+            map.put("likeCount", stat.getLikeCount() == null ? 0L : stat.getLikeCount());
+            map.put("commentCount", stat.getCommentCount() == null ? 0L : stat.getCommentCount());
+            map.put("shareCount", stat.getShareCount() == null ? 0L : stat.getShareCount());
+            map.put("favoriteCount", stat.getFavoriteCount() == null ? 0L : stat.getFavoriteCount());
             redisTemplate.opsForHash().putAll(key, map);
             redisTemplate.expire(key, 24, TimeUnit.HOURS);
         } catch (Exception ignored) {
         }
+        return stat;
     }
 
     private Long getLong(Object obj) {
@@ -4,59 +4,237 @@ import com.aliyun.oss.*;
 import com.aliyun.oss.common.auth.CredentialsProviderFactory;
 import com.aliyun.oss.common.auth.EnvironmentVariableCredentialsProvider;
 import com.aliyun.oss.common.comm.SignVersion;
-import com.aliyun.oss.model.ObjectMetadata;
+import com.aliyun.oss.model.*;
+import jakarta.annotation.PreDestroy;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
+import teektok.config.MediaProperties;
 
 import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
 import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.UUID;
 
+/**
+ * 阿里云 OSS 存储
+ * OSSClient 线程安全，整个应用共用一个实例 (连接池、TLS 会话复用)；首次使用时才创建，未配置凭证也不影响启动
+ */
 @Component
-public class AliyunOSSOperator {
+public class AliyunOSSOperator implements MediaStorage {
 
     @Autowired
     private AliyunOSSProperties aliyunOSSProperties;
 
+    @Autowired
+    private MediaProperties mediaProperties;
+
+    private volatile OSS ossClient;
+
+    @Override
+    public String name() {
+        return "oss";
+    }
+
     public String upload(byte[] content, String originalFilename, String contentType) throws Exception {
+        return upload(new ByteArrayInputStream(content), content.length, originalFilename, contentType);
+    }
+
+    /**
+     * 流式上传：不把整个文件读进内存
+     * 小文件直接 PutObject；超过阈值的按分片上传，整个过程只复用一个分片大小的缓冲区
+     */
+    @Override
+    public String upload(InputStream in, long size, String originalFilename, String contentType) throws Exception {
+        String bucketName = aliyunOSSProperties.getBucketName();
+        String objectName = buildObjectName(originalFilename);
+        OSS client = getClient();
+
+        // 创建 ObjectMetadata 并设置 Content-Type
+        ObjectMetadata metadata = new ObjectMetadata();
+        if (contentType != null && !contentType.isEmpty()) {
+            metadata.setContentType(contentType);
+        }
+
+        if (size >= 0 && size < mediaProperties.getMultipartThreshold()) {
+            metadata.setContentLength(size);
+            client.putObject(bucketName, objectName, in, metadata);
+        } else {
+            multipartUpload(client, bucketName, objectName, in, metadata);
+        }
+
+        return buildUrl(objectName);
+    }
+
+    // ==================== 分片上传会话 (由客户端逐片上传) ====================
+
+    @Override
+    public MultipartHandle initMultipart(String originalFilename, String contentType) throws Exception {
+        String objectName = buildObjectName(originalFilename);
+        ObjectMetadata metadata = new ObjectMetadata();
+        if (contentType != null && !contentType.isEmpty()) {
+            metadata.setContentType(contentType);
+        }
+        String uploadId = getClient().initiateMultipartUpload(
+                new InitiateMultipartUploadRequest(aliyunOSSProperties.getBucketName(), objectName, metadata)).getUploadId();
+        return new MultipartHandle(objectName, uploadId);
+    }
+
+    /**
+     * 上传一个分片，请求体直接转发给 OSS，返回 ETag
+     */
+    @Override
+    public String uploadPart(MultipartHandle handle, int partNumber, InputStream in, long size) throws Exception {
+        UploadPartRequest partRequest = new UploadPartRequest();
+        partRequest.setBucketName(aliyunOSSProperties.getBucketName());
+        partRequest.setKey(handle.getObjectName());
+        partRequest.setUploadId(handle.getUploadId());
+        partRequest.setPartNumber(partNumber);
+        partRequest.setInputStream(in);
+        partRequest.setPartSize(size);
+        return getClient().uploadPart(partRequest).getETag();
+    }
+
+    /**
+     * @param partTokens 按分片序号 (从 1 开始) 排列的 ETag
+     */
+    @Override
+    public String completeMultipart(MultipartHandle handle, List<String> partTokens) throws Exception {
+        List<PartETag> partETags = new ArrayList<>(partTokens.size());
+        for (int i = 0; i < partTokens.size(); i++) {
+            partETags.add(new PartETag(i + 1, partTokens.get(i)));
+        }
+        getClient().completeMultipartUpload(new CompleteMultipartUploadRequest(
+                aliyunOSSProperties.getBucketName(), handle.getObjectName(), handle.getUploadId(), partETags));
+        return buildUrl(handle.getObjectName());
+    }
+
+    @Override
+    public void abortMultipart(MultipartHandle handle) throws Exception {
+        getClient().abortMultipartUpload(new AbortMultipartUploadRequest(
+                aliyunOSSProperties.getBucketName(), handle.getObjectName(), handle.getUploadId()));
+    }
+
+    @Override
+    public void delete(String url) throws Exception {
+        String prefix = buildUrl("");
+        if (url == null || !url.startsWith(prefix) || url.length() == prefix.length()) return;
+        getClient().deleteObject(aliyunOSSProperties.getBucketName(), url.substring(prefix.length()));
+    }
+
+    /**
+     * OSS 视频截帧作为封面
+     */
+    @Override
+    public String coverUrl(String videoUrl) {
+        return videoUrl + "?x-oss-process=video/snapshot,t_1000,f_jpg,w_0,h_0,m_fast";
+    }
+
+    private String buildUrl(String objectName) {
         String endpoint = aliyunOSSProperties.getEndpoint();
         String bucketName = aliyunOSSProperties.getBucketName();
-        String region = aliyunOSSProperties.getRegion();
-        // 从环境变量中获取访问凭证。运行本代码示例之前，请确保已设置环境变量OSS_ACCESS_KEY_ID和OSS_ACCESS_KEY_SECRET。
-        EnvironmentVariableCredentialsProvider credentialsProvider = CredentialsProviderFactory.newEnvironmentVariableCredentialsProvider();
+        return endpoint.split("//")[0] + "//" + bucketName + "." + endpoint.split("//")[1] + "/" + objectName;
+    }
+
+    private void multipartUpload(OSS client, String bucketName, String objectName,
+                                 InputStream in, ObjectMetadata metadata) throws IOException {
+        InitiateMultipartUploadRequest initRequest = new InitiateMultipartUploadRequest(bucketName, objectName, metadata);
+        String uploadId = client.initiateMultipartUpload(initRequest).getUploadId();
+
+        List<PartETag> partETags = new ArrayList<>();
+        byte[] buffer = new byte[mediaProperties.getPartSize()];
+        try {
+            int partNumber = 1;
+            int read;
+            while ((read = readFully(in, buffer)) > 0) {
+                UploadPartRequest partRequest = new UploadPartRequest();
+                partRequest.setBucketName(bucketName);
+                partRequest.setKey(objectName);
+                partRequest.setUploadId(uploadId);
+                partRequest.setPartNumber(partNumber++);
+                partRequest.setInputStream(new ByteArrayInputStream(buffer, 0, read));
+                partRequest.setPartSize(read);
+                partETags.add(client.uploadPart(partRequest).getPartETag());
+                if (read < buffer.length) break;
+            }
+            client.completeMultipartUpload(new CompleteMultipartUploadRequest(bucketName, objectName, uploadId, partETags));
+        } catch (IOException | RuntimeException e) {
+            // 失败时取消分片上传，否则已上传的分片会一直占用存储
+            try {
+                client.abortMultipartUpload(new AbortMultipartUploadRequest(bucketName, objectName, uploadId));
+            } catch (Exception ignored) {
+            }
+            throw e;
+        }
+    }
+
+    // 尽量填满缓冲区，返回实际读取的字节数 (流结束返回 0)
+    private static int readFully(InputStream in, byte[] buffer) throws IOException {
+        int total = 0;
+        while (total < buffer.length) {
+            int n = in.read(buffer, total, buffer.length - total);
+            if (n < 0) break;
+            total += n;
+        }
+        return total;
+    }
 
+    private String buildObjectName(String originalFilename) {
         // 填写Object完整路径，例如202406/1.png。Object完整路径中不能包含Bucket名称。
         //获取当前系统日期的字符串,格式为 yyyy/MM
         String dir = LocalDate.now().format(DateTimeFormatter.ofPattern("yyyy/MM"));
         //生成一个新的不重复的文件名
-        String newFileName = UUID.randomUUID() + originalFilename.substring(originalFilename.lastIndexOf("."));
-        String objectName = dir + "/" + newFileName;
+        String ext = "";
+        if (originalFilename != null && originalFilename.lastIndexOf(".") >= 0) {
+            ext = originalFilename.substring(originalFilename.lastIndexOf("."));
+        }
+        return dir + "/" + UUID.randomUUID() + ext;
+    }
+
+    private OSS getClient() throws Exception {
+        OSS client = ossClient;
+        if (client == null) {
+            synchronized (this) {
+                client = ossClient;
+                if (client == null) {
+                    client = buildClient();
+                    ossClient = client;
+                }
+            }
+        }
+        return client;
+    }
+
+    private OSS buildClient() throws Exception {
+        // 从环境变量中获取访问凭证。运行本代码示例之前，请确保已设置环境变量OSS_ACCESS_KEY_ID和OSS_ACCESS_KEY_SECRET。
+        EnvironmentVariableCredentialsProvider credentialsProvider = CredentialsProviderFactory.newEnvironmentVariableCredentialsProvider();
 
-        // 创建OSSClient实例。
+        // 创建OSSClient实例：连接池、超时与重试
         ClientBuilderConfiguration clientBuilderConfiguration = new ClientBuilderConfiguration();
         clientBuilderConfiguration.setSignatureVersion(SignVersion.V4);
-        OSS ossClient = OSSClientBuilder.create()
-                .endpoint(endpoint)
+        clientBuilderConfiguration.setMaxConnections(aliyunOSSProperties.getMaxConnections());
+        clientBuilderConfiguration.setConnectionTimeout(aliyunOSSProperties.getConnectionTimeout());
+        clientBuilderConfiguration.setSocketTimeout(aliyunOSSProperties.getSocketTimeout());
+        clientBuilderConfiguration.setMaxErrorRetry(aliyunOSSProperties.getMaxErrorRetry());
+        clientBuilderConfiguration.setIdleConnectionTime(aliyunOSSProperties.getIdleConnectionTime());
+        return OSSClientBuilder.create()
+                .endpoint(aliyunOSSProperties.getEndpoint())
                 .credentialsProvider(credentialsProvider)
                 .clientConfiguration(clientBuilderConfiguration)
-                .region(region)
+                .region(aliyunOSSProperties.getRegion())
                 .build();
+    }
 
-        try {
-            // 创建 ObjectMetadata 并设置 Content-Type
-            ObjectMetadata metadata = new ObjectMetadata();
-            if (contentType != null && !contentType.isEmpty()) {
-                metadata.setContentType(contentType);
-            }
-            metadata.setContentLength(content.length);
-            
-            ossClient.putObject(bucketName, objectName, new ByteArrayInputStream(content), metadata);
-        } finally {
-            ossClient.shutdown();
+    @PreDestroy
+    public void shutdown() {
+        OSS client = ossClient;
+        if (client != null) {
+            client.shutdown();
+            ossClient = null;
         }
-
-        return endpoint.split("//")[0] + "//" + bucketName + "." + endpoint.split("//")[1] + "/" + objectName;
     }
 
 }
@@ -11,4 +11,29 @@ public class AliyunOSSProperties {
     private String endpoint;
     private String bucketName;
     private String region;
+
+    /**
+     * 客户端连接池最大连接数
+     */
+    private int maxConnections = 128;
+
+    /**
+     * 建立连接超时（毫秒）
+     */
+    private int connectionTimeout = 5000;
+
+    /**
+     * 读写超时（毫秒），大分片在慢网络下需要适当调大
+     */
+    private int socketTimeout = 60000;
+
+    /**
+     * 可重试错误的最大重试次数
+     */
+    private int maxErrorRetry = 3;
+
+    /**
+     * 空闲连接回收时间（毫秒）
+     */
+    private long idleConnectionTime = 60000;
 }
@@ -0,0 +1,73 @@
+package teektok.utils;
+
+import org.springframework.core.task.VirtualThreadTaskExecutor;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 虚拟线程执行器 (需要 JDK 21)：每个任务一个虚拟线程，不再复用线程
+ * 任务大多要占用数据库连接，用信号量限制同时执行的任务数；拿不到许可的任务在自己的虚拟线程里等待，不占平台线程
+ * 等待中的任务超过 maxWaiting 时由提交线程自己执行，与线程池的 CallerRunsPolicy 一致
+ */
+public class BoundedVirtualThreadExecutor implements Executor {
+
+    private final ThreadFactory threadFactory;
+    private final int concurrency;
+    private final Semaphore permits;
+    private final int maxWaiting;
+    private final AtomicInteger waiting = new AtomicInteger();
+    private final Runnable onCallerRuns;
+
+    /**
+     * @param onCallerRuns 任务退回提交线程执行时回调 (用于计数)
+     */
+    public BoundedVirtualThreadExecutor(String threadNamePrefix, int concurrency, int maxWaiting, Runnable onCallerRuns) {
+        this.threadFactory = new VirtualThreadTaskExecutor(threadNamePrefix).getVirtualThreadFactory();
+        this.concurrency = concurrency;
+        this.permits = new Semaphore(concurrency);
+        this.maxWaiting = maxWaiting;
+        this.onCallerRuns = onCallerRuns;
+    }
+
+    @Override
+    public void execute(Runnable task) {
+        if (waiting.incrementAndGet() > maxWaiting) {
+            waiting.decrementAndGet();
+            onCallerRuns.run();
+            task.run();
+            return;
+        }
+        threadFactory.newThread(() -> {
+            try {
+                permits.acquire();
+            } catch (InterruptedException e) {
+                waiting.decrementAndGet();
+                Thread.currentThread().interrupt();
+                return;
+            }
+            waiting.decrementAndGet();
+            try {
+                task.run();
+            } finally {
+                permits.release();
+            }
+        }).start();
+    }
+
+    /**
+     * 正在执行的任务数
+     */
+    public int getActiveCount() {
+        return concurrency - permits.availablePermits();
+    }
+
+    /**
+     * 等待许可的任务数
+     */
+    public int getWaitingCount() {
+        return waiting.get();
+    }
+}
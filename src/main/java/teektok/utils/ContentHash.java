@@ -0,0 +1,159 @@
+package teektok.utils;
+
+import java.io.ByteArrayOutputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.regex.Pattern;
+
+/**
+ * 文件内容哈希，按流计算，不把文件读进内存
+ * 文件按 BLOCK_SIZE 分块，每块计算 SHA-256，再对各块摘要依次拼接后计算 SHA-256。
+ * 分片上传的分片大小是 BLOCK_SIZE 的整数倍，每个分片写入时顺带算出自己的分块摘要，
+ * 合并后拼接即可得到与整文件上传相同的哈希，不需要回读合并后的文件
+ */
+public final class ContentHash {
+
+    public static final int BLOCK_SIZE = 1024 * 1024;
+
+    private static final int DIGEST_LENGTH = 32;
+
+    private static final Pattern SHA256_HEX = Pattern.compile("^[0-9a-f]{64}$");
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private ContentHash() {
+    }
+
+    public static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * 读完整个流，返回内容哈希
+     */
+    public static String of(InputStream in) throws IOException {
+        DigestingInputStream digesting = digesting(in);
+        byte[] buffer = new byte[BUFFER_SIZE];
+        while (digesting.read(buffer) > 0) {
+            // 读取即计算
+        }
+        return combine(digesting.blockDigests());
+    }
+
+    /**
+     * 包装输入流：读过的字节按块计算摘要，读完后用 blockDigests() 取出
+     */
+    public static DigestingInputStream digesting(InputStream in) {
+        return new DigestingInputStream(in);
+    }
+
+    /**
+     * 由按顺序拼接的分块摘要得到内容哈希
+     */
+    public static String combine(byte[] blockDigests) {
+        if (blockDigests.length % DIGEST_LENGTH != 0) {
+            throw new IllegalArgumentException("分块摘要长度错误: " + blockDigests.length);
+        }
+        return HexFormat.of().formatHex(newDigest().digest(blockDigests));
+    }
+
+    public static boolean isValid(String hash) {
+        return hash != null && SHA256_HEX.matcher(hash).matches();
+    }
+
+    public static final class DigestingInputStream extends FilterInputStream {
+
+        private final MessageDigest digest = newDigest();
+        private final ByteArrayOutputStream blocks = new ByteArrayOutputStream();
+        // 当前块已读入的字节数
+        private int inBlock;
+        private long count;
+
+        private DigestingInputStream(InputStream in) {
+            super(in);
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = in.read();
+            if (b >= 0) {
+                digest.update((byte) b);
+                advance(1);
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            // 不跨块读取，块满时立即结束该块的摘要
+            int n = in.read(b, off, Math.min(len, BLOCK_SIZE - inBlock));
+            if (n > 0) {
+                digest.update(b, off, n);
+                advance(n);
+            }
+            return n;
+        }
+
+        // 跳过的字节也要计入摘要
+        @Override
+        public long skip(long n) throws IOException {
+            byte[] buffer = new byte[(int) Math.min(n, BUFFER_SIZE)];
+            long skipped = 0;
+            while (skipped < n) {
+                int r = read(buffer, 0, (int) Math.min(buffer.length, n - skipped));
+                if (r < 0) break;
+                skipped += r;
+            }
+            return skipped;
+        }
+
+        @Override
+        public boolean markSupported() {
+            return false;
+        }
+
+        @Override
+        public synchronized void mark(int readlimit) {
+        }
+
+        @Override
+        public synchronized void reset() throws IOException {
+            throw new IOException("不支持 reset");
+        }
+
+        /**
+         * 已读取的字节数
+         */
+        public long count() {
+            return count;
+        }
+
+        /**
+         * 按顺序拼接的分块摘要 (每块 32 字节)；未满的最后一块也计入，调用后不应再读取
+         */
+        public byte[] blockDigests() {
+            if (inBlock > 0) {
+                blocks.writeBytes(digest.digest());
+                inBlock = 0;
+            }
+            return blocks.toByteArray();
+        }
+
+        private void advance(int n) {
+            count += n;
+            inBlock += n;
+            if (inBlock == BLOCK_SIZE) {
+                blocks.writeBytes(digest.digest());
+                inBlock = 0;
+            }
+        }
+    }
+}
@@ -0,0 +1,137 @@
+package teektok.utils;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.stereotype.Component;
+import teektok.config.ExecutorProperties;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+/**
+ * 并行扇出：同一请求里互不依赖的查询并行执行，接口耗时从各部分之和变为其中最慢的一个
+ * <pre>
+ *   FanOut.Call&lt;Long&gt; followers = fanOut.fork("followerCount", () -&gt; countFollowers(uid), 0L);
+ *   FanOut.Call&lt;Long&gt; following = fanOut.fork("followingCount", () -&gt; countFollowing(uid), 0L);
+ *   vo.setFollowerCount(followers.join());
+ *   vo.setFollowingCount(following.join());
+ * </pre>
+ * 1. 子任务在 fanoutExecutor 上执行，带上调用方的当前用户 (BaseContext) 和请求统计 (RequestMetrics)
+ * 2. 每个调用从 fork 开始计超时 (默认 teektok.executor.fanout-timeout-millis)，超时或异常时 join 返回降级值并打印告警；
+ *    超时的任务不会被中断，跑完后结果直接丢弃
+ * 3. 线程池饱和时由调用线程直接执行 (退化为串行)，不会失败
+ * 只用于可以降级的查询；必须成功的查询 (如用户是否存在) 仍在调用线程上执行
+ * 指标：teektok.fanout.call (name, outcome=success/timeout/error)
+ */
+@Slf4j
+@Component
+public class FanOut {
+
+    @Autowired
+    @Qualifier("fanoutExecutor")
+    private Executor fanoutExecutor;
+
+    @Autowired
+    private ExecutorProperties properties;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    /**
+     * 使用默认超时
+     */
+    public <T> Call<T> fork(String name, Supplier<T> task, T fallback) {
+        return fork(name, Duration.ofMillis(properties.getFanoutTimeoutMillis()), task, fallback);
+    }
+
+    public <T> Call<T> fork(String name, Duration timeout, Supplier<T> task, T fallback) {
+        Call<T> call = new Call<>(name, timeout, fallback);
+        Long userId = BaseContext.getCurrentId();
+        RequestMetrics metrics = RequestMetrics.current();
+        fanoutExecutor.execute(() -> {
+            if (call.future.isDone()) {
+                return;
+            }
+            // 饱和时在调用线程上执行，结束后要恢复调用线程原来的上下文
+            Long previousUserId = BaseContext.getCurrentId();
+            RequestMetrics previousMetrics = RequestMetrics.current();
+            setCurrentId(userId);
+            RequestMetrics.set(metrics);
+            try {
+                T value = task.get();
+                call.finishedAt = System.nanoTime();
+                call.future.complete(value);
+            } catch (Throwable e) {
+                call.finishedAt = System.nanoTime();
+                call.future.completeExceptionally(e);
+            } finally {
+                setCurrentId(previousUserId);
+                RequestMetrics.set(previousMetrics);
+            }
+        });
+        return call;
+    }
+
+    private static void setCurrentId(Long userId) {
+        if (userId == null) {
+            BaseContext.removeCurrentId();
+        } else {
+            BaseContext.setCurrentId(userId);
+        }
+    }
+
+    /**
+     * 一个并行调用
+     */
+    public class Call<T> {
+
+        private final String name;
+        private final Duration timeout;
+        private final T fallback;
+        private final long startedAt = System.nanoTime();
+        private final CompletableFuture<T> future = new CompletableFuture<>();
+        private volatile long finishedAt;
+
+        private Call(String name, Duration timeout, T fallback) {
+            this.name = name;
+            this.timeout = timeout;
+            this.fallback = fallback;
+        }
+
+        /**
+         * 等待结果，超时或失败时返回降级值
+         */
+        public T join() {
+            long remaining = startedAt + timeout.toNanos() - System.nanoTime();
+            try {
+                T value = future.get(Math.max(0, remaining), TimeUnit.NANOSECONDS);
+                record("success", finishedAt - startedAt);
+                return value;
+            } catch (TimeoutException e) {
+                future.cancel(false);
+                record("timeout", System.nanoTime() - startedAt);
+                log.warn("并行查询 {} 超时 ({} ms)，使用默认值", name, timeout.toMillis());
+                return fallback;
+            } catch (ExecutionException e) {
+                record("error", finishedAt - startedAt);
+                log.warn("并行查询 {} 失败，使用默认值: {}", name, e.getCause().getMessage());
+                return fallback;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return fallback;
+            }
+        }
+
+        private void record(String outcome, long nanos) {
+            meterRegistry.timer("teektok.fanout.call", "name", name, "outcome", outcome)
+                    .record(Math.max(0, nanos), TimeUnit.NANOSECONDS);
+        }
+    }
+}
@@ -0,0 +1,253 @@
+package teektok.utils;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.stereotype.Component;
+import teektok.config.CacheProperties;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+/**
+ * 热点 Key 防击穿
+ * 1. 逻辑过期：Redis 中保存 {data, expireAt}，物理 TTL 比逻辑过期多 staleSeconds。
+ *    逻辑过期后抢到重建锁 (SET NX) 的一个请求回源，其余请求 (包括其他实例) 直接返回旧值。
+ * 2. 单飞 (single-flight)：Key 完全不存在时，同一实例内同一个 Key 只有一个线程回源，其余线程等待它的结果。
+ * 3. 空值缓存：数据不存在时缓存 data=null 的条目 (nullTtlSeconds)，get 返回 null。
+ * 指标：teektok.cache.requests (cache, result=hit/stale/rebuild/miss/coalesced)、teektok.cache.load (cache)
+ */
+@Slf4j
+@Component
+public class HotKeyCache {
+
+    private static final String LOCK_SUFFIX = ":rebuild";
+
+    // 只删除自己持有的锁
+    private static final DefaultRedisScript<Long> UNLOCK = new DefaultRedisScript<>(
+            "if redis.call('GET', KEYS[1]) == ARGV[1] then return redis.call('DEL', KEYS[1]) end return 0",
+            Long.class);
+
+    // 批量加载登记的占位结果：等待者拿到它说明数据已由批量任务写回 Redis
+    private static final Object BATCH_LOADED = new Object();
+
+    @Autowired
+    private RedisTemplate<String, Object> redisTemplate;
+
+    @Autowired
+    private StringRedisTemplate stringRedisTemplate;
+
+    @Autowired
+    private CacheProperties properties;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private final ConcurrentHashMap<String, CompletableFuture<Object>> inflight = new ConcurrentHashMap<>();
+
+    /**
+     * Redis 中的缓存条目
+     */
+    @Data
+    @NoArgsConstructor
+    public static class Entry {
+        private Object data;
+        private long expireAt;
+    }
+
+    /**
+     * 逻辑过期 + 单飞读取
+     * @param cache  缓存名，用于指标
+     * @param ttl    逻辑有效期 (会加上最多 5% 的随机值，避免同时过期)
+     * @param loader 回源，返回 null 表示数据不存在
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T get(String cache, String key, Duration ttl, Supplier<T> loader) {
+        Object raw;
+        try {
+            raw = redisTemplate.opsForValue().get(key);
+        } catch (Exception e) {
+            log.warn("读取缓存失败，直接回源 {}: {}", key, e.getMessage());
+            return singleFlight(cache, key, loader);
+        }
+
+        if (raw instanceof Entry entry) {
+            if (entry.getExpireAt() > System.currentTimeMillis()) {
+                count(cache, "hit");
+                return (T) entry.getData();
+            }
+            // 逻辑过期：抢到锁的请求重建，其他请求返回旧值
+            String token = tryLock(key);
+            if (token == null) {
+                count(cache, "stale");
+                return (T) entry.getData();
+            }
+            try {
+                count(cache, "rebuild");
+                T value = timedLoad(cache, loader);
+                put(key, value, ttl);
+                return value;
+            } catch (RuntimeException e) {
+                log.warn("重建缓存失败，返回旧值 {}: {}", key, e.getMessage());
+                return (T) entry.getData();
+            } finally {
+                unlock(key, token);
+            }
+        }
+
+        // 不存在 (或旧格式的值)：同实例单飞回源
+        return singleFlight(cache, key, () -> {
+            T value = timedLoad(cache, loader);
+            put(key, value, ttl);
+            return value;
+        });
+    }
+
+    /**
+     * 写入缓存 (数据变更后主动刷新时使用)
+     */
+    public void put(String key, Object value, Duration ttl) {
+        long ttlSeconds = value == null ? properties.getNullTtlSeconds() : jitter(ttl.getSeconds());
+        Entry entry = new Entry();
+        entry.setData(value);
+        entry.setExpireAt(System.currentTimeMillis() + ttlSeconds * 1000);
+        long physical = value == null ? ttlSeconds : ttlSeconds + properties.getStaleSeconds();
+        try {
+            redisTemplate.opsForValue().set(key, entry, physical, TimeUnit.SECONDS);
+        } catch (Exception e) {
+            log.warn("写入缓存失败 {}: {}", key, e.getMessage());
+        }
+    }
+
+    /**
+     * 同一实例内合并对同一个 Key 的并发加载，只有第一个线程执行 loader
+     * 等待超时或加载者抛异常时，等待者自己执行 loader；等到的是批量加载 (claimLoads) 时也自己执行 loader
+     */
+    public <T> T singleFlight(String cache, String key, Supplier<T> loader) {
+        return singleFlight(cache, key, loader, () -> null);
+    }
+
+    /**
+     * 同 singleFlight，等到的是批量加载时先用 batchReader 读取批量任务写回 Redis 的数据，读不到 (返回 null) 再执行 loader
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T singleFlight(String cache, String key, Supplier<T> loader, Supplier<T> batchReader) {
+        CompletableFuture<Object> mine = new CompletableFuture<>();
+        CompletableFuture<Object> existing = inflight.putIfAbsent(key, mine);
+        if (existing != null) {
+            count(cache, "coalesced");
+            try {
+                Object value = existing.get(properties.getLoadWaitMillis(), TimeUnit.MILLISECONDS);
+                if (value != BATCH_LOADED) {
+                    return (T) value;
+                }
+                T loaded = batchReader.get();
+                return loaded != null ? loaded : loader.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return loader.get();
+            } catch (ExecutionException | TimeoutException e) {
+                return loader.get();
+            }
+        }
+
+        count(cache, "miss");
+        try {
+            T value = loader.get();
+            mine.complete(value);
+            return value;
+        } catch (RuntimeException e) {
+            mine.completeExceptionally(e);
+            throw e;
+        } finally {
+            inflight.remove(key, mine);
+        }
+    }
+
+    /**
+     * 批量回源前登记：返回当前没有在加载中的 Key (已登记为加载中)，其余 Key 已有线程在加载，跳过即可
+     * 加载结束后必须调用 finishLoads
+     */
+    public List<String> claimLoads(String cache, Collection<String> keys) {
+        if (keys.isEmpty()) return Collections.emptyList();
+        List<String> claimed = new ArrayList<>(keys.size());
+        for (String key : keys) {
+            if (inflight.putIfAbsent(key, new CompletableFuture<>()) == null) {
+                claimed.add(key);
+            } else {
+                count(cache, "coalesced");
+            }
+        }
+        return claimed;
+    }
+
+    public void finishLoads(Collection<String> keys) {
+        for (String key : keys) {
+            CompletableFuture<Object> future = inflight.remove(key);
+            if (future != null) {
+                future.complete(BATCH_LOADED);
+            }
+        }
+    }
+
+    /**
+     * 加载耗时，单独调用方 (如批量回源) 也可以使用
+     */
+    public <T> T timedLoad(String cache, Supplier<T> loader) {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        try {
+            return loader.get();
+        } finally {
+            sample.stop(Timer.builder("teektok.cache.load").tag("cache", cache).register(meterRegistry));
+        }
+    }
+
+    private String tryLock(String key) {
+        String token = UUID.randomUUID().toString();
+        try {
+            Boolean ok = stringRedisTemplate.opsForValue()
+                    .setIfAbsent(key + LOCK_SUFFIX, token, properties.getRebuildLockSeconds(), TimeUnit.SECONDS);
+            return Boolean.TRUE.equals(ok) ? token : null;
+        } catch (Exception e) {
+            return null;
+        }
+    }
+
+    private void unlock(String key, String token) {
+        try {
+            stringRedisTemplate.execute(UNLOCK, Collections.singletonList(key + LOCK_SUFFIX), token);
+        } catch (Exception ignored) {
+        }
+    }
+
+    private void count(String cache, String result) {
+        Counter.builder("teektok.cache.requests")
+                .tag("cache", cache)
+                .tag("result", result)
+                .register(meterRegistry)
+                .increment();
+    }
+
+    private static long jitter(long seconds) {
+        long bound = Math.max(1, seconds / 20);
+        return seconds + ThreadLocalRandom.current().nextLong(bound);
+    }
+}
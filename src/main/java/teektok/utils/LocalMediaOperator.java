@@ -2,25 +2,183 @@ package teektok.utils;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
+import org.springframework.web.multipart.MultipartFile;
 import teektok.config.MediaProperties;
 
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.channels.FileChannel;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
 import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
+import java.util.Comparator;
+import java.util.List;
 import java.util.UUID;
+import java.util.stream.Stream;
 
+/**
+ * 本地目录存储 (teektok.media.local-dir)，不依赖任何外部服务，离线开发和测试使用
+ */
 @Component
-public class LocalMediaOperator {
+public class LocalMediaOperator implements MediaStorage {
 
     @Autowired
     private MediaProperties mediaProperties;
 
+    @Override
+    public String name() {
+        return "local";
+    }
+
     public String upload(byte[] content, String originalFilename) throws Exception {
-        String baseUrl = mediaProperties.getBaseUrl();
-        String localDir = mediaProperties.getLocalDir();
+        return upload(new ByteArrayInputStream(content), originalFilename);
+    }
+
+    @Override
+    public String upload(InputStream in, long size, String originalFilename, String contentType) throws Exception {
+        return upload(in, originalFilename);
+    }
+
+    /**
+     * multipart 文件已由容器落在临时目录：transferTo 在同一文件系统上直接移动文件，不经过堆内存
+     */
+    @Override
+    public String upload(MultipartFile file) throws Exception {
+        String objectName = buildObjectName(file.getOriginalFilename());
+        Path target = resolve(objectName);
+        Files.createDirectories(target.getParent());
+        file.transferTo(target);
+        return buildUrl(objectName);
+    }
+
+    /**
+     * 从流写入：先写临时文件再原子改名，读到一半失败不会留下残缺的视频
+     */
+    public String upload(InputStream in, String originalFilename) throws Exception {
+        String objectName = buildObjectName(originalFilename);
+        Path target = resolve(objectName);
+        Files.createDirectories(target.getParent());
+
+        Path tmp = target.resolveSibling(target.getFileName() + ".part");
+        try {
+            Files.copy(in, tmp, StandardCopyOption.REPLACE_EXISTING);
+            Files.move(tmp, target, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+        return buildUrl(objectName);
+    }
+
+    // ==================== 分片上传 ====================
+
+    @Override
+    public MultipartHandle initMultipart(String originalFilename, String contentType) throws Exception {
+        String uploadId = UUID.randomUUID().toString().replace("-", "");
+        Files.createDirectories(stagingDir(uploadId));
+        return new MultipartHandle(buildObjectName(originalFilename), uploadId);
+    }
+
+    /**
+     * 暂存一个分片，返回写入的字节数；同一分片重传时直接覆盖
+     */
+    @Override
+    public String uploadPart(MultipartHandle handle, int partNumber, InputStream in, long size) throws Exception {
+        Path dir = stagingDir(handle.getUploadId());
+        Files.createDirectories(dir);
+        Path part = dir.resolve(partNumber + ".part");
+        Path tmp = dir.resolve(partNumber + ".part.tmp");
+        try {
+            long written = Files.copy(in, tmp, StandardCopyOption.REPLACE_EXISTING);
+            if (size >= 0 && written != size) {
+                throw new RuntimeException("分片数据不完整");
+            }
+            Files.move(tmp, part, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            return String.valueOf(written);
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+    }
+
+    /**
+     * 按序拼接所有分片 (FileChannel.transferTo，内核态拷贝)，完成后删除暂存目录
+     */
+    @Override
+    public String completeMultipart(MultipartHandle handle, List<String> partTokens) throws Exception {
+        Path target = resolve(handle.getObjectName());
+        Files.createDirectories(target.getParent());
+        Path tmp = target.resolveSibling(target.getFileName() + ".part");
+
+        Path dir = stagingDir(handle.getUploadId());
+        try {
+            try (FileChannel out = FileChannel.open(tmp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.TRUNCATE_EXISTING)) {
+                for (int i = 1; i <= partTokens.size(); i++) {
+                    try (FileChannel in = FileChannel.open(dir.resolve(i + ".part"), StandardOpenOption.READ)) {
+                        long size = in.size();
+                        long pos = 0;
+                        while (pos < size) {
+                            pos += in.transferTo(pos, size - pos, out);
+                        }
+                    }
+                }
+            }
+            Files.move(tmp, target, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
 
+        discardStaging(handle.getUploadId());
+        return buildUrl(handle.getObjectName());
+    }
+
+    @Override
+    public void abortMultipart(MultipartHandle handle) throws Exception {
+        discardStaging(handle.getUploadId());
+    }
+
+    @Override
+    public void delete(String url) throws Exception {
+        Path file = resolveUrl(url);
+        if (file != null) {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    public void discardStaging(String uploadId) throws Exception {
+        Path dir = stagingDir(uploadId);
+        if (!Files.exists(dir)) return;
+        try (Stream<Path> files = Files.walk(dir)) {
+            for (Path p : files.sorted(Comparator.reverseOrder()).toList()) {
+                Files.deleteIfExists(p);
+            }
+        }
+    }
+
+    /**
+     * 删除最后修改时间早于 maxAgeMillis 的暂存目录 (会话过期、客户端放弃的上传)
+     */
+    public void cleanStaging(long maxAgeMillis) throws Exception {
+        Path root = Paths.get(mediaProperties.getLocalDir()).resolve(".staging").normalize().toAbsolutePath();
+        if (!Files.isDirectory(root)) return;
+        long deadline = System.currentTimeMillis() - maxAgeMillis;
+        try (Stream<Path> dirs = Files.list(root)) {
+            for (Path dir : dirs.toList()) {
+                if (Files.getLastModifiedTime(dir).toMillis() < deadline) {
+                    discardStaging(dir.getFileName().toString());
+                }
+            }
+        }
+    }
+
+    private Path stagingDir(String uploadId) {
+        return Paths.get(mediaProperties.getLocalDir()).resolve(".staging").resolve(uploadId).normalize().toAbsolutePath();
+    }
+
+    private String buildObjectName(String originalFilename) {
         String dir = LocalDate.now().format(DateTimeFormatter.ofPattern("yyyy/MM"));
         String ext = "";
         if (originalFilename != null) {
@@ -30,14 +188,38 @@ public class LocalMediaOperator {
             }
         }
         String newFileName = UUID.randomUUID() + ext;
-        String objectName = dir + "/" + newFileName;
+        return dir + "/" + newFileName;
+    }
 
-        Path target = Paths.get(localDir).resolve(objectName).normalize().toAbsolutePath();
-        Files.createDirectories(target.getParent());
-        Files.write(target, content);
+    /**
+     * 把本地存储生成的访问地址还原为文件路径；不是本地存储的地址 (如 OSS) 返回 null
+     */
+    public Path resolveUrl(String url) {
+        if (url == null) return null;
+        int idx = url.indexOf("/uploads/");
+        if (idx < 0 || !url.startsWith(buildUrl(""))) return null;
+        String objectName = url.substring(idx + "/uploads/".length());
+        Path root = Paths.get(mediaProperties.getLocalDir()).normalize().toAbsolutePath();
+        Path file = root.resolve(objectName).normalize();
+        return file.startsWith(root) && !file.equals(root) ? file : null;
+    }
 
+    /**
+     * 存储目录下某个文件 (封面、HLS 播放列表等派生文件) 的访问地址
+     */
+    public String urlOf(Path file) {
+        Path root = Paths.get(mediaProperties.getLocalDir()).normalize().toAbsolutePath();
+        String objectName = root.relativize(file.normalize().toAbsolutePath()).toString().replace('\\', '/');
+        return buildUrl(objectName);
+    }
+
+    private Path resolve(String objectName) {
+        return Paths.get(mediaProperties.getLocalDir()).resolve(objectName).normalize().toAbsolutePath();
+    }
+
+    private String buildUrl(String objectName) {
+        String baseUrl = mediaProperties.getBaseUrl();
         String normalizedBaseUrl = baseUrl == null ? "" : baseUrl.replaceAll("/+$", "");
         return normalizedBaseUrl + "/uploads/" + objectName;
     }
 }
-
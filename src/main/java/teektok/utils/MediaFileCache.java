@@ -0,0 +1,164 @@
+package teektok.utils;
+
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import teektok.config.MediaProperties;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 已打开文件句柄的 LRU 缓存 (带引用计数)
+ * 播放器拖动进度时会对同一个文件连续发起大量 Range 请求，复用 FileChannel 省去反复 open/close。
+ * 被淘汰的句柄要等最后一个使用者 release 之后才真正关闭；文件被替换 (大小或修改时间变化) 时重新打开。
+ */
+@Component
+public class MediaFileCache {
+
+    private final int capacity;
+
+    private final LinkedHashMap<Path, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+
+    @Autowired
+    public MediaFileCache(MediaProperties mediaProperties) {
+        this.capacity = Math.max(1, mediaProperties.getOpenFileCacheSize());
+    }
+
+    /**
+     * 获取文件句柄，使用完必须 close (归还引用)
+     */
+    public Handle acquire(Path path) throws IOException {
+        return acquire(path, Files.readAttributes(path, BasicFileAttributes.class));
+    }
+
+    /**
+     * 调用方已经 stat 过文件时直接传入属性，省一次系统调用
+     */
+    public Handle acquire(Path path, BasicFileAttributes attrs) throws IOException {
+        long size = attrs.size();
+        long lastModified = attrs.lastModifiedTime().toMillis();
+
+        synchronized (this) {
+            Entry entry = entries.get(path);
+            if (entry != null && (entry.size != size || entry.lastModified != lastModified)) {
+                entries.remove(path);
+                entry.evicted = true;
+                entry.closeIfUnused();
+                entry = null;
+            }
+            if (entry != null) {
+                entry.refs++;
+                return new Handle(entry);
+            }
+        }
+
+        // 打开文件不持锁
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.READ);
+        Entry created = new Entry(channel, size, lastModified);
+        synchronized (this) {
+            Entry existing = entries.get(path);
+            if (existing != null && existing.size == size && existing.lastModified == lastModified) {
+                // 并发打开了同一个文件，用已缓存的那个
+                created.evicted = true;
+                created.closeIfUnused();
+                existing.refs++;
+                return new Handle(existing);
+            }
+            if (existing != null) {
+                existing.evicted = true;
+                existing.closeIfUnused();
+            }
+            created.refs++;
+            entries.put(path, created);
+            evictIfNeeded();
+            return new Handle(created);
+        }
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    private void evictIfNeeded() {
+        Iterator<Map.Entry<Path, Entry>> it = entries.entrySet().iterator();
+        while (entries.size() > capacity && it.hasNext()) {
+            Entry eldest = it.next().getValue();
+            it.remove();
+            eldest.evicted = true;
+            eldest.closeIfUnused();
+        }
+    }
+
+    private synchronized void release(Entry entry) {
+        entry.refs--;
+        entry.closeIfUnused();
+    }
+
+    @PreDestroy
+    public synchronized void closeAll() {
+        for (Entry entry : entries.values()) {
+            entry.evicted = true;
+            entry.closeIfUnused();
+        }
+        entries.clear();
+    }
+
+    private static class Entry {
+        final FileChannel channel;
+        final long size;
+        final long lastModified;
+        int refs;
+        boolean evicted;
+
+        Entry(FileChannel channel, long size, long lastModified) {
+            this.channel = channel;
+            this.size = size;
+            this.lastModified = lastModified;
+        }
+
+        void closeIfUnused() {
+            if (evicted && refs == 0) {
+                try {
+                    channel.close();
+                } catch (IOException ignored) {
+                }
+            }
+        }
+    }
+
+    public class Handle implements AutoCloseable {
+        private final Entry entry;
+        private boolean closed;
+
+        private Handle(Entry entry) {
+            this.entry = entry;
+        }
+
+        public FileChannel channel() {
+            return entry.channel;
+        }
+
+        public long size() {
+            return entry.size;
+        }
+
+        public long lastModified() {
+            return entry.lastModified;
+        }
+
+        @Override
+        public void close() {
+            if (closed) return;
+            closed = true;
+            release(entry);
+        }
+    }
+}
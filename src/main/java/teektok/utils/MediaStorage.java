@@ -0,0 +1,76 @@
+package teektok.utils;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.InputStream;
+import java.util.List;
+
+/**
+ * 视频存储后端 (SPI)
+ * 阿里云 OSS 与本地目录两种实现，由 teektok.media.storage 选择；业务代码只依赖该接口
+ */
+public interface MediaStorage {
+
+    /**
+     * 后端名称：oss / local
+     */
+    String name();
+
+    /**
+     * 流式写入一个完整文件，返回访问地址
+     */
+    String upload(InputStream in, long size, String originalFilename, String contentType) throws Exception;
+
+    /**
+     * 写入容器已落盘的 multipart 文件；默认按流读取，实现可以改为直接移动文件
+     */
+    default String upload(MultipartFile file) throws Exception {
+        try (InputStream in = file.getInputStream()) {
+            return upload(in, file.getSize(), file.getOriginalFilename(), file.getContentType());
+        }
+    }
+
+    /**
+     * 开始一次分片上传
+     */
+    MultipartHandle initMultipart(String originalFilename, String contentType) throws Exception;
+
+    /**
+     * 写入一个分片 (序号从 1 开始)，返回完成时需要回传的分片凭证
+     */
+    String uploadPart(MultipartHandle handle, int partNumber, InputStream in, long size) throws Exception;
+
+    /**
+     * @param partTokens 按分片序号排列的分片凭证
+     * @return 文件访问地址
+     */
+    String completeMultipart(MultipartHandle handle, List<String> partTokens) throws Exception;
+
+    void abortMultipart(MultipartHandle handle) throws Exception;
+
+    /**
+     * 删除本后端生成的文件 (按访问地址)；不属于本后端的地址忽略
+     */
+    void delete(String url) throws Exception;
+
+    /**
+     * 视频封面地址，后端不支持截帧时返回 null
+     */
+    default String coverUrl(String videoUrl) {
+        return null;
+    }
+
+    /**
+     * 分片上传句柄：objectName 为最终文件路径，uploadId 为后端内部的上传标识
+     */
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    class MultipartHandle {
+        private String objectName;
+        private String uploadId;
+    }
+}
@@ -0,0 +1,161 @@
+package teektok.utils;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.Data;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import teektok.config.MediaProcessingProperties;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 调用本机 ffprobe / ffmpeg 处理视频
+ * 子进程输出写到临时文件而不是管道，避免输出过多把管道写满导致子进程阻塞
+ */
+@Slf4j
+@Component
+public class MediaTranscoder {
+
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+    @Autowired
+    private MediaProcessingProperties properties;
+
+    private volatile Boolean available;
+
+    @Data
+    public static class ProbeResult {
+        private Long durationMs;
+        private Integer width;
+        private Integer height;
+    }
+
+    /**
+     * ffprobe 与 ffmpeg 是否都可用 (首次调用时检测一次)
+     */
+    public boolean isAvailable() {
+        Boolean result = available;
+        if (result == null) {
+            result = check(properties.getFfprobePath()) && check(properties.getFfmpegPath());
+            if (!result) {
+                log.info("未检测到 ffmpeg/ffprobe，视频处理将跳过封面截取与切片");
+            }
+            available = result;
+        }
+        return result;
+    }
+
+    /**
+     * 解析时长与第一路视频流的分辨率；input 可以是本地路径或 http(s) 地址
+     */
+    public ProbeResult probe(String input) throws IOException, InterruptedException {
+        String json = run(List.of(properties.getFfprobePath(), "-v", "error",
+                "-select_streams", "v:0",
+                "-show_entries", "stream=width,height:format=duration",
+                "-of", "json", input));
+
+        JsonNode root = OBJECT_MAPPER.readTree(json);
+        ProbeResult result = new ProbeResult();
+        JsonNode duration = root.path("format").path("duration");
+        if (duration.isTextual() || duration.isNumber()) {
+            result.setDurationMs(Math.round(duration.asDouble() * 1000));
+        }
+        JsonNode stream = root.path("streams").path(0);
+        if (stream.has("width")) result.setWidth(stream.get("width").asInt());
+        if (stream.has("height")) result.setHeight(stream.get("height").asInt());
+        return result;
+    }
+
+    /**
+     * 截取一帧作为封面 (宽度不超过 720)
+     */
+    public void snapshot(String input, double offsetSeconds, Path target) throws IOException, InterruptedException {
+        run(List.of(properties.getFfmpegPath(), "-y", "-v", "error",
+                "-ss", String.format(Locale.ROOT, "%.3f", offsetSeconds),
+                "-i", input,
+                "-frames:v", "1",
+                "-vf", "scale='min(720,iw)':-2",
+                "-q:v", "3",
+                target.toString()));
+    }
+
+    /**
+     * 切出一个清晰度的 HLS：outDir/index.m3u8 + seg_00000.ts ...
+     * 关键帧按切片时长强制对齐，保证各清晰度的切片边界一致，播放器可以无缝切换
+     */
+    public void segmentHls(String input, Path outDir, MediaProcessingProperties.Rendition rendition)
+            throws IOException, InterruptedException {
+        Files.createDirectories(outDir);
+        int segment = Math.max(1, properties.getHlsSegmentSeconds());
+        int bitrate = rendition.getVideoBitrate();
+
+        List<String> cmd = new ArrayList<>(List.of(properties.getFfmpegPath(), "-y", "-v", "error",
+                "-i", input,
+                "-map", "0:v:0", "-map", "0:a:0?",
+                "-vf", "scale=-2:" + rendition.getHeight(),
+                "-c:v", "libx264", "-preset", "veryfast", "-profile:v", "main",
+                "-b:v", bitrate + "k", "-maxrate", (bitrate * 107 / 100) + "k", "-bufsize", (bitrate * 3 / 2) + "k",
+                "-force_key_frames", "expr:gte(t,n_forced*" + segment + ")", "-sc_threshold", "0",
+                "-c:a", "aac", "-b:a", "128k", "-ac", "2",
+                "-f", "hls",
+                "-hls_time", String.valueOf(segment),
+                "-hls_playlist_type", "vod",
+                "-hls_segment_filename", outDir.resolve("seg_%05d.ts").toString(),
+                outDir.resolve("index.m3u8").toString()));
+        run(cmd);
+    }
+
+    /**
+     * 运行命令，返回标准输出；超时或退出码非 0 时抛异常 (带上 stderr 末尾便于排查)
+     */
+    private String run(List<String> cmd) throws IOException, InterruptedException {
+        Path stdout = Files.createTempFile("teektok-media-", ".out");
+        Path stderr = Files.createTempFile("teektok-media-", ".err");
+        try {
+            Process process = new ProcessBuilder(cmd)
+                    .redirectOutput(stdout.toFile())
+                    .redirectError(stderr.toFile())
+                    .start();
+            if (!process.waitFor(properties.getTimeoutSeconds(), TimeUnit.SECONDS)) {
+                process.destroyForcibly();
+                throw new IOException(cmd.get(0) + " 执行超时");
+            }
+            if (process.exitValue() != 0) {
+                throw new IOException(cmd.get(0) + " 退出码 " + process.exitValue() + ": " + tail(stderr));
+            }
+            return Files.readString(stdout, StandardCharsets.UTF_8);
+        } finally {
+            Files.deleteIfExists(stdout);
+            Files.deleteIfExists(stderr);
+        }
+    }
+
+    private static String tail(Path file) throws IOException {
+        String text = Files.readString(file, StandardCharsets.UTF_8).trim();
+        return text.length() <= 500 ? text : text.substring(text.length() - 500);
+    }
+
+    private static boolean check(String executable) {
+        try {
+            Process process = new ProcessBuilder(executable, "-version")
+                    .redirectOutput(ProcessBuilder.Redirect.DISCARD)
+                    .redirectError(ProcessBuilder.Redirect.DISCARD)
+                    .start();
+            return process.waitFor(10, TimeUnit.SECONDS) && process.exitValue() == 0;
+        } catch (IOException e) {
+            return false;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+}
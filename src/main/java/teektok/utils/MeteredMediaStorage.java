@@ -0,0 +1,104 @@
+package teektok.utils;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.InputStream;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 为存储后端记录耗时与字节数
+ * teektok.media.upload        : 每次操作的耗时 (tag: storage, op, outcome)
+ * teektok.media.upload.bytes  : 写入的字节数，除以耗时即吞吐 (tag: storage, op)
+ */
+public class MeteredMediaStorage implements MediaStorage {
+
+    private final MediaStorage delegate;
+    private final MeterRegistry registry;
+
+    public MeteredMediaStorage(MediaStorage delegate, MeterRegistry registry) {
+        this.delegate = delegate;
+        this.registry = registry;
+    }
+
+    @Override
+    public String name() {
+        return delegate.name();
+    }
+
+    @Override
+    public String upload(InputStream in, long size, String originalFilename, String contentType) throws Exception {
+        return record("put", size, () -> delegate.upload(in, size, originalFilename, contentType));
+    }
+
+    @Override
+    public String upload(MultipartFile file) throws Exception {
+        return record("put", file.getSize(), () -> delegate.upload(file));
+    }
+
+    @Override
+    public MultipartHandle initMultipart(String originalFilename, String contentType) throws Exception {
+        return record("init", -1, () -> delegate.initMultipart(originalFilename, contentType));
+    }
+
+    @Override
+    public String uploadPart(MultipartHandle handle, int partNumber, InputStream in, long size) throws Exception {
+        return record("part", size, () -> delegate.uploadPart(handle, partNumber, in, size));
+    }
+
+    @Override
+    public String completeMultipart(MultipartHandle handle, List<String> partTokens) throws Exception {
+        return record("complete", -1, () -> delegate.completeMultipart(handle, partTokens));
+    }
+
+    @Override
+    public void abortMultipart(MultipartHandle handle) throws Exception {
+        record("abort", -1, () -> {
+            delegate.abortMultipart(handle);
+            return null;
+        });
+    }
+
+    @Override
+    public void delete(String url) throws Exception {
+        record("delete", -1, () -> {
+            delegate.delete(url);
+            return null;
+        });
+    }
+
+    @Override
+    public String coverUrl(String videoUrl) {
+        return delegate.coverUrl(videoUrl);
+    }
+
+    private <T> T record(String op, long bytes, Callable<T> action) throws Exception {
+        long start = System.nanoTime();
+        String outcome = "success";
+        try {
+            return action.call();
+        } catch (Exception e) {
+            outcome = "error";
+            throw e;
+        } finally {
+            Timer.builder("teektok.media.upload")
+                    .tag("storage", delegate.name())
+                    .tag("op", op)
+                    .tag("outcome", outcome)
+                    .register(registry)
+                    .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            if (bytes > 0 && "success".equals(outcome)) {
+                DistributionSummary.builder("teektok.media.upload.bytes")
+                        .baseUnit("bytes")
+                        .tag("storage", delegate.name())
+                        .tag("op", op)
+                        .register(registry)
+                        .record(bytes);
+            }
+        }
+    }
+}
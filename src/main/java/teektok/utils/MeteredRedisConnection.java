@@ -0,0 +1,108 @@
+package teektok.utils;
+
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.util.ClassUtils;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 为 RedisTemplate 拿到的连接计数计时，结果记入当前请求的 RequestMetrics
+ * 普通命令每条算一次往返；Pipeline 中的命令只计数，closePipeline 时整体算一次往返
+ * stringCommands() / hashCommands() 等返回的子命令对象同样包装，共享同一个 Pipeline 状态
+ */
+public class MeteredRedisConnection implements InvocationHandler {
+
+    // 不产生网络往返的方法
+    private static final Set<String> LOCAL_METHODS = Set.of(
+            "close", "isClosed", "isQueueing", "isPipelined", "isSubscribed", "getSubscription",
+            "getNativeConnection", "getSentinelConnection", "getDelegate", "setDeserializePipelineAndTxResults");
+
+    private static final Map<Class<?>, Class<?>[]> INTERFACES = new ConcurrentHashMap<>();
+
+    private final Object target;
+    private final RequestMetrics metrics;
+    private final PipelineState pipeline;
+
+    private static class PipelineState {
+        boolean open;
+        int commands;
+    }
+
+    private MeteredRedisConnection(Object target, RequestMetrics metrics, PipelineState pipeline) {
+        this.target = target;
+        this.metrics = metrics;
+        this.pipeline = pipeline;
+    }
+
+    /**
+     * 当前线程不在请求统计范围内时原样返回
+     */
+    public static RedisConnection wrap(RedisConnection connection) {
+        RequestMetrics metrics = RequestMetrics.current();
+        if (metrics == null || connection == null || Proxy.isProxyClass(connection.getClass())
+                && Proxy.getInvocationHandler(connection) instanceof MeteredRedisConnection) {
+            return connection;
+        }
+        return (RedisConnection) proxy(connection, new MeteredRedisConnection(connection, metrics, new PipelineState()));
+    }
+
+    private static Object proxy(Object target, MeteredRedisConnection handler) {
+        Class<?>[] interfaces = INTERFACES.computeIfAbsent(target.getClass(), ClassUtils::getAllInterfacesForClass);
+        return Proxy.newProxyInstance(MeteredRedisConnection.class.getClassLoader(), interfaces, handler);
+    }
+
+    @Override
+    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+        String name = method.getName();
+        if (method.getDeclaringClass() == Object.class || LOCAL_METHODS.contains(name)) {
+            return call(method, args);
+        }
+        // 子命令对象：connection.stringCommands().get(key)
+        if ((args == null || args.length == 0) && (name.equals("commands") || name.endsWith("Commands"))) {
+            Object commands = call(method, args);
+            return commands == null || !method.getReturnType().isInterface()
+                    ? commands : proxy(commands, new MeteredRedisConnection(commands, metrics, pipeline));
+        }
+        if (name.equals("openPipeline")) {
+            Object result = call(method, args);
+            pipeline.open = true;
+            pipeline.commands = 0;
+            return result;
+        }
+        if (name.equals("closePipeline")) {
+            long start = System.nanoTime();
+            try {
+                return call(method, args);
+            } finally {
+                if (pipeline.open) {
+                    metrics.recordRedis(pipeline.commands, System.nanoTime() - start);
+                    pipeline.open = false;
+                }
+            }
+        }
+        if (pipeline.open) {
+            pipeline.commands++;
+            return call(method, args);
+        }
+        long start = System.nanoTime();
+        try {
+            return call(method, args);
+        } finally {
+            metrics.recordRedis(1, System.nanoTime() - start);
+        }
+    }
+
+    private Object call(Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getTargetException();
+        }
+    }
+}
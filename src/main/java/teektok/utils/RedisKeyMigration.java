@@ -0,0 +1,106 @@
+package teektok.utils;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.redis.core.Cursor;
+import org.springframework.data.redis.core.ScanOptions;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Component;
+import teektok.config.RedisClusterProperties;
+
+import java.util.concurrent.Executor;
+
+/**
+ * 用户集合 Key 迁移：user:like:123 -> user:like:{123}
+ * 只在单机 Redis 上执行 (Cluster 是新部署，不会有旧 Key)。启动后在后台 SCAN 一遍：
+ * 新 Key 不存在时直接 RENAME；已存在 (新版本已经写过) 时把旧集合并进去再删除旧 Key。
+ * 关注集合是可以重建的缓存，新 Key 已存在时直接删除旧 Key。
+ * 点赞/收藏等集合没有重建逻辑，迁移开启期间删除成员必须走 removeMember：同时从旧 Key 删除，
+ * 否则新版本上线后取消的点赞会在合并时从旧集合里被带回来。
+ */
+@Slf4j
+@Component
+public class RedisKeyMigration {
+
+    @Autowired
+    private StringRedisTemplate stringRedisTemplate;
+
+    @Autowired
+    private SlotPipeline slotPipeline;
+
+    @Autowired
+    private RedisClusterProperties properties;
+
+    @Autowired
+    @Qualifier("commonExecutor")
+    private Executor commonExecutor;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onReady() {
+        if (!properties.isMigrateLegacyKeys()) return;
+        commonExecutor.execute(() -> {
+            try {
+                int migrated = migrate();
+                if (migrated > 0) {
+                    log.info("旧格式 Redis Key 迁移完成，共 {} 个", migrated);
+                }
+            } catch (Exception e) {
+                log.warn("旧格式 Redis Key 迁移失败: {}", e.getMessage());
+            }
+        });
+    }
+
+    /**
+     * 迁移所有旧格式的用户集合，返回迁移的 Key 数
+     */
+    public int migrate() {
+        if (slotPipeline.isCluster()) return 0;
+
+        int migrated = 0;
+        for (String prefix : RedisKeys.USER_SET_PREFIXES) {
+            ScanOptions options = ScanOptions.scanOptions()
+                    .match(prefix + "*")
+                    .count(properties.getMigrationScanCount())
+                    .build();
+            try (Cursor<String> cursor = stringRedisTemplate.scan(options)) {
+                while (cursor.hasNext()) {
+                    String key = cursor.next();
+                    String id = key.substring(prefix.length());
+                    // 新 Key (带 {}) 以及其他格式的 Key 跳过
+                    if (id.isEmpty() || !id.chars().allMatch(Character::isDigit)) continue;
+                    try {
+                        migrateKey(prefix, key, prefix + RedisKeys.tag(id));
+                        migrated++;
+                    } catch (Exception e) {
+                        // 扫描之后被删除/过期的 Key 等，跳过
+                        log.debug("迁移 Key {} 失败: {}", key, e.getMessage());
+                    }
+                }
+            }
+        }
+        return migrated;
+    }
+
+    /**
+     * 从用户集合删除成员
+     * 迁移开启时先删旧 Key 再删新 Key：迁移的 RENAME / 合并无论发生在两次删除之前、之间还是之后，都不会留下这个成员
+     */
+    public void removeMember(String key, String member) {
+        if (properties.isMigrateLegacyKeys() && !slotPipeline.isCluster()) {
+            stringRedisTemplate.opsForSet().remove(RedisKeys.legacy(key), member);
+        }
+        stringRedisTemplate.opsForSet().remove(key, member);
+    }
+
+    private void migrateKey(String prefix, String legacyKey, String newKey) {
+        if (Boolean.TRUE.equals(stringRedisTemplate.renameIfAbsent(legacyKey, newKey))) return;
+
+        if (!RedisKeys.USER_FOLLOW.equals(prefix)) {
+            stringRedisTemplate.opsForSet().unionAndStore(newKey, legacyKey, newKey);
+        }
+        stringRedisTemplate.delete(legacyKey);
+    }
+}
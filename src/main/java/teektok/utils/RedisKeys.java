@@ -0,0 +1,128 @@
+package teektok.utils;
+
+import org.springframework.data.redis.connection.ClusterSlotHashUtil;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * Redis Key 统一定义 (兼容 Redis Cluster)
+ * Cluster 按 Key 的 CRC16 分槽，Key 中有 {} 时只有 {} 内的部分参与计算 (hash tag)。
+ * 1. 同一用户的点赞/收藏/评论/分享/评论点赞/关注集合带 {userId}，落在同一个槽，可以在一个 Pipeline 里一次查完
+ * 2. 计数缓冲整个名字放进 {}，重命名出来的临时 Key 与原 Key 同槽 (RENAME 要求两个 Key 在同一个槽)
+ * 3. 视频统计、视频详情等按视频分散访问的 Key 不加 hash tag，让数据均匀分布到各个节点
+ * 4. 视频排行按计数名 (play / like) 加 hash tag，同一排行的时间桶可以合并
+ */
+public final class RedisKeys {
+
+    public static final String USER_LIKE = "user:like:";
+    public static final String USER_FAVORITE = "user:favorite:";
+    public static final String USER_COMMENT = "user:comment:";
+    public static final String USER_SHARE = "user:share:";
+    public static final String USER_COMMENT_LIKE = "user:comment_like:";
+    public static final String USER_FOLLOW = "user:follow:";
+
+    public static final String VIDEO_STAT = "video:stat:";
+
+    public static final String NOTIFICATION_ACTORS = "notification:actors:";
+    public static final String DATASOURCE_STICKY = "datasource:sticky:";
+    public static final String VIDEO_RANK = "video:rank:";
+
+    public static final String BUFFER_PLAY = "{buffer:video:play}";
+    public static final String BUFFER_LIKE = "{buffer:video:like}";
+    public static final String BUFFER_FAVORITE = "{buffer:video:favorite}";
+    public static final String BUFFER_COMMENT = "{buffer:video:comment}";
+    public static final String BUFFER_SHARE = "{buffer:video:share}";
+
+    /**
+     * 带 hash tag 的用户集合前缀，启动时把旧格式 (前缀 + userId) 的 Key 迁移过来
+     */
+    static final String[] USER_SET_PREFIXES = {
+            USER_LIKE, USER_FAVORITE, USER_COMMENT, USER_SHARE, USER_COMMENT_LIKE, USER_FOLLOW
+    };
+
+    private static final DateTimeFormatter RANK_HOUR = DateTimeFormatter.ofPattern("yyyyMMddHH");
+    private static final DateTimeFormatter RANK_DAY = DateTimeFormatter.ofPattern("yyyyMMdd");
+
+    private RedisKeys() {
+    }
+
+    public static String userLike(Long userId) {
+        return USER_LIKE + tag(userId);
+    }
+
+    public static String userFavorite(Long userId) {
+        return USER_FAVORITE + tag(userId);
+    }
+
+    public static String userComment(Long userId) {
+        return USER_COMMENT + tag(userId);
+    }
+
+    public static String userShare(Long userId) {
+        return USER_SHARE + tag(userId);
+    }
+
+    public static String userCommentLike(Long userId) {
+        return USER_COMMENT_LIKE + tag(userId);
+    }
+
+    public static String userFollow(Long userId) {
+        return USER_FOLLOW + tag(userId);
+    }
+
+    public static String videoStat(Long videoId) {
+        return VIDEO_STAT + videoId;
+    }
+
+    /**
+     * 聚合通知已计入的操作人 (SET)，按聚合键分散
+     */
+    public static String notificationActors(String aggKey) {
+        return NOTIFICATION_ACTORS + aggKey;
+    }
+
+    /**
+     * 用户最近写过主库的标记 (STRING，带过期时间)，各实例据此把该用户的只读事务路由到主库
+     */
+    public static String datasourceSticky(Long userId) {
+        return DATASOURCE_STICKY + userId;
+    }
+
+    /**
+     * 视频排行的小时桶 (ZSET: videoId -> 增量)。同一计数的各个桶与窗口带同一个 hash tag，Cluster 下可以 ZUNIONSTORE
+     */
+    public static String videoRankHour(String counter, LocalDateTime hour) {
+        return VIDEO_RANK + tag(counter) + ":h:" + hour.format(RANK_HOUR);
+    }
+
+    public static String videoRankDay(String counter, LocalDate day) {
+        return VIDEO_RANK + tag(counter) + ":d:" + day.format(RANK_DAY);
+    }
+
+    /**
+     * 由多个桶合并出的窗口排行 (短时间缓存)
+     */
+    public static String videoRankWindow(String counter, String window) {
+        return VIDEO_RANK + tag(counter) + ":w:" + window;
+    }
+
+    public static String tag(Object id) {
+        return "{" + id + "}";
+    }
+
+    /**
+     * Key 所在的槽 (0 ~ 16383)，与 Redis Cluster 的计算方式一致
+     */
+    public static int slot(String key) {
+        return ClusterSlotHashUtil.calculateSlot(key);
+    }
+
+    /**
+     * 去掉 hash tag 的大括号，得到改造前的 Key
+     */
+    public static String legacy(String key) {
+        return key.replace("{", "").replace("}", "");
+    }
+}
@@ -0,0 +1,220 @@
+package teektok.utils;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.scheduling.annotation.Scheduled;
+import teektok.config.DataSourceRoutingProperties;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 只读连接的路由 (LazyConnectionDataSourceProxy 的 readOnlyDataSource，只有只读事务会走到这里，写和非事务语句直接用主库)：
+ * 1. 当前用户 stickyMillis 内写过库 (markWrite) 时用主库，保证读到自己刚写的数据。
+ *    写标记放在 Redis (datasource:sticky:{userId}，带过期时间)，用户在 A 实例写、在 B 实例读也能命中；
+ *    本实例内存里另记一份，本实例写过的用户不用查 Redis。Redis 不可用时只有本实例的写标记生效
+ * 2. 否则在复制延迟不超过 maxLagSeconds 的从库间轮询；没有健康的从库时用主库
+ * 从库延迟由 checkReplicaLag 定时检查，启动时先检查一次，检查通过前所有读都走主库
+ * 指标：
+ * teektok.datasource.read            : 只读连接的去向 (target=replica/primary, reason=replica/sticky/unavailable)
+ * teektok.datasource.replica.lag     : 各从库最近一次检查到的复制延迟 (秒)，查不到时为 NaN
+ * teektok.datasource.replica.healthy : 各从库当前是否接收读请求 (1/0)
+ */
+@Slf4j
+public class ReplicaRoutingDataSource extends AbstractRoutingDataSource {
+
+    private static final String PRIMARY = "primary";
+
+    private final List<Replica> replicas = new ArrayList<>();
+    private final DataSourceRoutingProperties properties;
+    private final StringRedisTemplate stringRedisTemplate;
+    private final ConcurrentHashMap<Long, Long> stickyUntil = new ConcurrentHashMap<>();
+    private final AtomicInteger cursor = new AtomicInteger();
+
+    private final Counter toReplica;
+    private final Counter sticky;
+    private final Counter unavailable;
+
+    public ReplicaRoutingDataSource(DataSource primary, Map<String, DataSource> replicas,
+                                    DataSourceRoutingProperties properties, StringRedisTemplate stringRedisTemplate,
+                                    MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.stringRedisTemplate = stringRedisTemplate;
+        Map<Object, Object> targets = new HashMap<>();
+        targets.put(PRIMARY, primary);
+        replicas.forEach((name, dataSource) -> {
+            Replica replica = new Replica(name, dataSource);
+            this.replicas.add(replica);
+            targets.put(name, dataSource);
+            Gauge.builder("teektok.datasource.replica.lag", replica, r -> r.lagSeconds)
+                    .tag("replica", name)
+                    .register(meterRegistry);
+            Gauge.builder("teektok.datasource.replica.healthy", replica, r -> r.healthy ? 1 : 0)
+                    .tag("replica", name)
+                    .register(meterRegistry);
+        });
+        setTargetDataSources(targets);
+        setDefaultTargetDataSource(primary);
+
+        this.toReplica = meterRegistry.counter("teektok.datasource.read", "target", "replica", "reason", "replica");
+        this.sticky = meterRegistry.counter("teektok.datasource.read", "target", "primary", "reason", "sticky");
+        this.unavailable = meterRegistry.counter("teektok.datasource.read", "target", "primary", "reason", "unavailable");
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        super.afterPropertiesSet();
+        checkReplicaLag();
+    }
+
+    /**
+     * 记录用户的写操作 (由 ReadYourWritesInterceptor 在每条 INSERT / UPDATE / DELETE 前调用)
+     */
+    public void markWrite(Long userId) {
+        if (userId == null) return;
+        long now = System.currentTimeMillis();
+        long stickyMillis = properties.getStickyMillis();
+        Long previous = stickyUntil.put(userId, now + stickyMillis);
+        // 同一请求里连续多条写：Redis 中的标记刚写过 (剩余有效期超过 90%) 时不再重复写
+        if (previous != null && previous - now > stickyMillis * 9 / 10) return;
+        try {
+            stringRedisTemplate.opsForValue().set(RedisKeys.datasourceSticky(userId), "1", Duration.ofMillis(stickyMillis));
+        } catch (Exception e) {
+            log.warn("记录写主库标记失败，只在本实例生效: {}", e.getMessage());
+        }
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        Long userId = BaseContext.getCurrentId();
+        if (userId != null && isSticky(userId)) {
+            sticky.increment();
+            return PRIMARY;
+        }
+
+        int size = replicas.size();
+        int start = cursor.getAndIncrement() & Integer.MAX_VALUE;
+        for (int i = 0; i < size; i++) {
+            Replica replica = replicas.get((start + i) % size);
+            if (replica.healthy) {
+                toReplica.increment();
+                return replica.name;
+            }
+        }
+        unavailable.increment();
+        return PRIMARY;
+    }
+
+    /**
+     * 用户是否刚写过主库：先看本实例的记录，没有时查 Redis (可能是在其他实例写的)
+     */
+    private boolean isSticky(Long userId) {
+        Long until = stickyUntil.get(userId);
+        if (until != null && until > System.currentTimeMillis()) {
+            return true;
+        }
+        try {
+            return Boolean.TRUE.equals(stringRedisTemplate.hasKey(RedisKeys.datasourceSticky(userId)));
+        } catch (Exception e) {
+            log.warn("查询写主库标记失败，按本实例记录路由: {}", e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * 检查各从库的复制延迟；查询失败、复制中断 (延迟为 NULL) 或延迟过大时摘除该从库
+     */
+    @Scheduled(fixedDelayString = "${teektok.datasource.routing.lag-check-interval-ms:5000}")
+    public void checkReplicaLag() {
+        for (Replica replica : replicas) {
+            Long lag = null;
+            try (Connection connection = replica.dataSource.getConnection();
+                 Statement statement = connection.createStatement();
+                 ResultSet rs = statement.executeQuery(properties.getLagQuery())) {
+                lag = readLag(rs);
+            } catch (SQLException e) {
+                log.warn("检查从库 {} 复制延迟失败: {}", replica.name, e.getMessage());
+            }
+
+            boolean healthy = lag != null && lag <= properties.getMaxLagSeconds();
+            if (healthy != replica.healthy) {
+                if (healthy) {
+                    log.info("从库 {} 恢复读流量，复制延迟 {}s", replica.name, lag);
+                } else {
+                    log.warn("从库 {} 摘除读流量，复制延迟 {}", replica.name, lag == null ? "未知" : lag + "s");
+                }
+            }
+            replica.lagSeconds = lag == null ? Double.NaN : lag;
+            replica.healthy = healthy;
+        }
+
+        long now = System.currentTimeMillis();
+        stickyUntil.values().removeIf(until -> until <= now);
+    }
+
+    /**
+     * 取 Seconds_Behind_Source / Seconds_Behind_Master 列；结果只有一列时取该列。没有结果行 (未配置复制) 或值为 NULL 时返回 null
+     */
+    static Long readLag(ResultSet rs) throws SQLException {
+        if (!rs.next()) {
+            return null;
+        }
+        ResultSetMetaData meta = rs.getMetaData();
+        int column = meta.getColumnCount() == 1 ? 1 : 0;
+        for (int i = 1; i <= meta.getColumnCount(); i++) {
+            String label = meta.getColumnLabel(i);
+            if ("Seconds_Behind_Source".equalsIgnoreCase(label) || "Seconds_Behind_Master".equalsIgnoreCase(label)) {
+                column = i;
+                break;
+            }
+        }
+        if (column == 0) {
+            return null;
+        }
+        long lag = rs.getLong(column);
+        return rs.wasNull() ? null : lag;
+    }
+
+    /**
+     * 从库连接池不是 Spring Bean，随本 Bean 一起关闭 (主库连接池由 Spring 关闭)
+     */
+    public void close() {
+        for (Replica replica : replicas) {
+            if (replica.dataSource instanceof AutoCloseable closeable) {
+                try {
+                    closeable.close();
+                } catch (Exception e) {
+                    log.warn("关闭从库 {} 连接池失败: {}", replica.name, e.getMessage());
+                }
+            }
+        }
+    }
+
+    private static class Replica {
+
+        private final String name;
+        private final DataSource dataSource;
+        private volatile boolean healthy;
+        private volatile double lagSeconds = Double.NaN;
+
+        private Replica(String name, DataSource dataSource) {
+            this.name = name;
+            this.dataSource = dataSource;
+        }
+    }
+}
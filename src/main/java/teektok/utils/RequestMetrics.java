@@ -0,0 +1,95 @@
+package teektok.utils;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 当前请求的 SQL / Redis 调用统计，线程局部变量，由 RequestMetricsInterceptor 在请求开始时创建、结束时取出
+ * 不在请求线程上的调用 (定时任务、线程池中的异步任务) 不统计；FanOut 的并行子任务会带上所属请求的统计，计数需线程安全
+ */
+public class RequestMetrics {
+
+    private static final ThreadLocal<RequestMetrics> threadLocal = new ThreadLocal<>();
+
+    private final AtomicInteger sqlCount = new AtomicInteger();
+    private final AtomicLong sqlNanos = new AtomicLong();
+    private final AtomicInteger redisCommands = new AtomicInteger();
+    private final AtomicInteger redisRoundTrips = new AtomicInteger();
+    private final AtomicLong redisNanos = new AtomicLong();
+
+    public static RequestMetrics begin() {
+        RequestMetrics metrics = new RequestMetrics();
+        threadLocal.set(metrics);
+        return metrics;
+    }
+
+    /**
+     * 当前线程不在统计范围内时返回 null
+     */
+    public static RequestMetrics current() {
+        return threadLocal.get();
+    }
+
+    /**
+     * 在其他线程上继续统计同一个请求 (传 null 清除)
+     */
+    public static void set(RequestMetrics metrics) {
+        if (metrics == null) {
+            threadLocal.remove();
+        } else {
+            threadLocal.set(metrics);
+        }
+    }
+
+    public static RequestMetrics end() {
+        RequestMetrics metrics = threadLocal.get();
+        threadLocal.remove();
+        return metrics;
+    }
+
+    /**
+     * 一次 SQL 执行 (批量执行时 statements 为本次发出的批次数)
+     */
+    public void recordSql(int statements, long nanos) {
+        sqlCount.addAndGet(statements);
+        sqlNanos.addAndGet(nanos);
+    }
+
+    /**
+     * 一次 Redis 往返，包含 commands 条命令 (Pipeline 中的命令在 closePipeline 时一起计入)
+     */
+    public void recordRedis(int commands, long nanos) {
+        redisCommands.addAndGet(commands);
+        redisRoundTrips.incrementAndGet();
+        redisNanos.addAndGet(nanos);
+    }
+
+    public int getSqlCount() {
+        return sqlCount.get();
+    }
+
+    public long getSqlNanos() {
+        return sqlNanos.get();
+    }
+
+    public int getRedisCommands() {
+        return redisCommands.get();
+    }
+
+    public int getRedisRoundTrips() {
+        return redisRoundTrips.get();
+    }
+
+    public long getRedisNanos() {
+        return redisNanos.get();
+    }
+
+    /**
+     * 响应头格式：sql=3;sqlMs=1.52;redis=12;redisRt=2;redisMs=0.87
+     */
+    @Override
+    public String toString() {
+        return String.format("sql=%d;sqlMs=%.2f;redis=%d;redisRt=%d;redisMs=%.2f",
+                getSqlCount(), getSqlNanos() / 1_000_000.0, getRedisCommands(), getRedisRoundTrips(), getRedisNanos() / 1_000_000.0);
+    }
+}
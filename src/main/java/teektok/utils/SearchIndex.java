@@ -0,0 +1,416 @@
+package teektok.utils;
+
+import org.apache.lucene.analysis.Analyzer;
+import org.apache.lucene.analysis.LowerCaseFilter;
+import org.apache.lucene.analysis.TokenStream;
+import org.apache.lucene.analysis.Tokenizer;
+import org.apache.lucene.analysis.core.KeywordTokenizer;
+import org.apache.lucene.analysis.ngram.EdgeNGramTokenFilter;
+import org.apache.lucene.analysis.ngram.NGramTokenizer;
+import org.apache.lucene.analysis.tokenattributes.CharTermAttribute;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.Field;
+import org.apache.lucene.document.FieldType;
+import org.apache.lucene.document.NumericDocValuesField;
+import org.apache.lucene.document.StoredField;
+import org.apache.lucene.document.StringField;
+import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.index.IndexOptions;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.index.SegmentInfos;
+import org.apache.lucene.index.StoredFields;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.search.BooleanClause;
+import org.apache.lucene.search.BooleanQuery;
+import org.apache.lucene.search.ConstantScoreQuery;
+import org.apache.lucene.search.FieldDoc;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.PhraseQuery;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.search.ScoreDoc;
+import org.apache.lucene.search.SearcherManager;
+import org.apache.lucene.search.Sort;
+import org.apache.lucene.search.SortField;
+import org.apache.lucene.search.TermQuery;
+import org.apache.lucene.search.TopDocs;
+import org.apache.lucene.store.Directory;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 用户名 / 视频标题的全文索引 (进程内 Lucene)，替代 LIKE '%kw%' 的全表扫描
+ * 每条文本按以下方式建索引 (均先转小写)，中文不需要分词：
+ * 1. text_gram  : 相邻两个字符 (bigram)，位置即起始下标。关键词拆成 bigram 做短语查询，命中条件与 LIKE '%kw%' 相同
+ * 2. text_char  : 单个字符，只用于单字关键词
+ * 3. text_prefix: 整条文本的前缀 (edge n-gram)，用于输入联想和前缀匹配
+ * 4. text_exact : 整条文本，用于完全匹配
+ * 排序：ID 命中 > 完全匹配 > 前缀匹配 > 包含，分档依次查询 (后一档排除前面各档)，同一档内 id 倒序 (新用户/新视频在前)
+ * 索引按 id 倒序存储 (index sort)，每档只按 id 排序，取满一页即停，不需要给所有命中的文档打分排序；
+ * 游标记录上一页最后一条的 (档位, id)，翻到多深都只取 size + 1 条
+ * 写入后 refresh() 才对查询可见；commit() 落盘，并把调用方的补齐进度一起写进提交 (commit user data)
+ */
+public class SearchIndex implements Closeable {
+
+    public static final String USER = "user";
+    public static final String VIDEO = "video";
+
+    /**
+     * 关键词最多取前 32 个字符，前缀索引也只建到 32 个字符
+     */
+    public static final int MAX_KEYWORD_LENGTH = 32;
+
+    private static final String TYPE = "type";
+    private static final String KEY = "key";
+    private static final String ID = "id";
+    private static final String TEXT = "text";
+    private static final String GRAM = "text_gram";
+    private static final String CHAR = "text_char";
+    private static final String PREFIX = "text_prefix";
+    private static final String EXACT = "text_exact";
+
+    private static final Sort ID_DESC = new Sort(new SortField(ID, SortField.Type.LONG, true));
+
+    // 不打分，不需要词频与长度归一化
+    private static final FieldType TERMS = fieldType(IndexOptions.DOCS);
+    private static final FieldType POSITIONS = fieldType(IndexOptions.DOCS_AND_FREQS_AND_POSITIONS);
+
+    private static final Analyzer ANALYZER = new Analyzer(Analyzer.PER_FIELD_REUSE_STRATEGY) {
+        @Override
+        protected TokenStreamComponents createComponents(String fieldName) {
+            Tokenizer tokenizer = switch (fieldName) {
+                case GRAM -> new NGramTokenizer(2, 2);
+                case CHAR -> new NGramTokenizer(1, 1);
+                default -> new KeywordTokenizer();
+            };
+            TokenStream stream = new LowerCaseFilter(tokenizer);
+            if (PREFIX.equals(fieldName)) {
+                stream = new EdgeNGramTokenFilter(stream, 1, MAX_KEYWORD_LENGTH, true);
+            }
+            return new TokenStreamComponents(tokenizer, stream);
+        }
+    };
+
+    public record Hit(long id, String text) {
+    }
+
+    /**
+     * 一页结果；nextCursor 为空表示没有下一页
+     */
+    public record Hits(List<Hit> list, String nextCursor) {
+    }
+
+    private final Directory directory;
+    private final IndexWriter writer;
+    private final SearcherManager searcherManager;
+    private volatile Map<String, String> commitData;
+
+    public SearchIndex(Directory directory) throws IOException {
+        this.directory = directory;
+        this.commitData = DirectoryReader.indexExists(directory)
+                ? Map.copyOf(SegmentInfos.readLatestCommit(directory).getUserData())
+                : Map.of();
+        IndexWriterConfig config = new IndexWriterConfig(ANALYZER);
+        config.setOpenMode(IndexWriterConfig.OpenMode.CREATE_OR_APPEND);
+        config.setRAMBufferSizeMB(64);
+        config.setIndexSort(ID_DESC);
+        this.writer = new IndexWriter(directory, config);
+        this.searcherManager = new SearcherManager(writer, null);
+    }
+
+    /**
+     * 新增或覆盖一条文档；文本为空时删除
+     */
+    public void upsert(String type, long id, String text) {
+        if (text == null || text.isBlank()) {
+            delete(type, id);
+            return;
+        }
+        Document doc = new Document();
+        doc.add(new StringField(TYPE, type, Field.Store.NO));
+        doc.add(new StringField(KEY, key(type, id), Field.Store.NO));
+        doc.add(new NumericDocValuesField(ID, id));
+        doc.add(new StoredField(TEXT, text));
+        doc.add(new Field(GRAM, text, POSITIONS));
+        doc.add(new Field(CHAR, text, TERMS));
+        doc.add(new Field(PREFIX, text, TERMS));
+        doc.add(new Field(EXACT, text, TERMS));
+        try {
+            writer.updateDocument(new Term(KEY, key(type, id)), doc);
+        } catch (IOException e) {
+            throw new RuntimeException("更新搜索索引失败", e);
+        }
+    }
+
+    public void delete(String type, long id) {
+        try {
+            writer.deleteDocuments(new Term(KEY, key(type, id)));
+        } catch (IOException e) {
+            throw new RuntimeException("更新搜索索引失败", e);
+        }
+    }
+
+    /**
+     * 最近一次 refresh 之后的索引里是否有这条文档
+     */
+    public boolean contains(String type, long id) {
+        return count(new TermQuery(new Term(KEY, key(type, id)))) > 0;
+    }
+
+    public int count(String type) {
+        return count(new TermQuery(new Term(TYPE, type)));
+    }
+
+    /**
+     * 关键词搜索，游标翻页 (cursor 为空取第一页)
+     */
+    public Hits search(String type, String keyword, Long excludeId, String cursor, int size) {
+        List<Query> tiers = matchTiers(type, keyword, excludeId);
+        if (tiers.isEmpty()) {
+            return new Hits(List.of(), null);
+        }
+        int startTier = 0;
+        Long afterId = null;
+        if (cursor != null && !cursor.isBlank()) {
+            int split = cursor.indexOf(':');
+            try {
+                startTier = Integer.parseInt(cursor.substring(0, split));
+                afterId = Long.parseLong(cursor.substring(split + 1));
+            } catch (RuntimeException e) {
+                throw new RuntimeException("无效的分页游标");
+            }
+        }
+        List<TieredHit> hits = collect(tiers, startTier, afterId, size + 1);
+        String nextCursor = null;
+        if (hits.size() > size) {
+            TieredHit last = hits.get(size - 1);
+            nextCursor = last.tier() + ":" + last.hit().id();
+        }
+        return new Hits(hits.stream().limit(size).map(TieredHit::hit).toList(), nextCursor);
+    }
+
+    /**
+     * 关键词搜索，按偏移量翻页 (兼容页码分页的接口，offset 由调用方限制)
+     */
+    public List<Hit> search(String type, String keyword, Long excludeId, int offset, int size) {
+        List<Query> tiers = matchTiers(type, keyword, excludeId);
+        if (tiers.isEmpty()) {
+            return List.of();
+        }
+        return collect(tiers, 0, null, offset + size).stream().skip(offset).map(TieredHit::hit).toList();
+    }
+
+    /**
+     * 输入联想：以 prefix 开头的文本，完全匹配的排最前
+     */
+    public List<Hit> suggest(String type, String prefix, int size) {
+        String normalized = normalize(prefix);
+        if (normalized == null) {
+            return List.of();
+        }
+        List<Query> tiers = tiers(type, null, List.of(
+                new TermQuery(new Term(EXACT, normalized)),
+                new TermQuery(new Term(PREFIX, normalized))));
+        return collect(tiers, 0, null, size).stream().map(TieredHit::hit).toList();
+    }
+
+    /**
+     * 让之前的写入对查询可见
+     */
+    public void refresh() {
+        try {
+            searcherManager.maybeRefreshBlocking();
+        } catch (IOException e) {
+            throw new RuntimeException("刷新搜索索引失败", e);
+        }
+    }
+
+    /**
+     * 落盘，data 随本次提交保存，下次打开索引时由 commitData() 读回
+     */
+    public void commit(Map<String, String> data) {
+        try {
+            writer.setLiveCommitData(Map.copyOf(data).entrySet());
+            writer.commit();
+            commitData = Map.copyOf(data);
+        } catch (IOException e) {
+            throw new RuntimeException("提交搜索索引失败", e);
+        }
+    }
+
+    public Map<String, String> commitData() {
+        return commitData;
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            searcherManager.close();
+            writer.close();
+        } finally {
+            directory.close();
+        }
+    }
+
+    /**
+     * 关键词的各档查询，按排名先后：ID 命中 (纯数字关键词)、完全匹配、前缀匹配、包含
+     */
+    private List<Query> matchTiers(String type, String keyword, Long excludeId) {
+        String exact = normalize(keyword);
+        if (exact == null) {
+            return List.of();
+        }
+        String kw = truncate(keyword.trim());
+
+        Query contains;
+        List<String> grams = analyze(GRAM, kw);
+        if (grams.isEmpty()) {
+            contains = new TermQuery(new Term(CHAR, exact));
+        } else {
+            // 分词器按起始下标连续编号，短语查询要求 bigram 首尾相接，即原文包含整个关键词
+            PhraseQuery.Builder phrase = new PhraseQuery.Builder();
+            for (int i = 0; i < grams.size(); i++) {
+                phrase.add(new Term(GRAM, grams.get(i)), i);
+            }
+            contains = phrase.build();
+        }
+
+        List<Query> matches = new ArrayList<>(4);
+        // 纯数字关键词同时按 ID 查找
+        if (kw.length() <= 18 && kw.chars().allMatch(c -> c >= '0' && c <= '9')) {
+            matches.add(new TermQuery(new Term(KEY, key(type, Long.parseLong(kw)))));
+        }
+        matches.add(new TermQuery(new Term(EXACT, exact)));
+        matches.add(new TermQuery(new Term(PREFIX, exact)));
+        matches.add(contains);
+        return tiers(type, excludeId, matches);
+    }
+
+    /**
+     * 第 i 档：命中 matches[i] 且不命中前面任何一档，保证每条文档只在一档中出现
+     */
+    private static List<Query> tiers(String type, Long excludeId, List<Query> matches) {
+        List<Query> tiers = new ArrayList<>(matches.size());
+        for (int i = 0; i < matches.size(); i++) {
+            BooleanQuery.Builder builder = new BooleanQuery.Builder()
+                    .add(new TermQuery(new Term(TYPE, type)), BooleanClause.Occur.FILTER)
+                    .add(matches.get(i), BooleanClause.Occur.FILTER);
+            for (int j = 0; j < i; j++) {
+                builder.add(matches.get(j), BooleanClause.Occur.MUST_NOT);
+            }
+            if (excludeId != null) {
+                builder.add(new TermQuery(new Term(KEY, key(type, excludeId))), BooleanClause.Occur.MUST_NOT);
+            }
+            tiers.add(new ConstantScoreQuery(builder.build()));
+        }
+        return tiers;
+    }
+
+    private record TieredHit(int tier, Hit hit) {
+    }
+
+    /**
+     * 从 startTier 档 id 小于 afterId 的文档开始，依次取各档，凑满 limit 条为止
+     */
+    private List<TieredHit> collect(List<Query> tiers, int startTier, Long afterId, int limit) {
+        List<TieredHit> hits = new ArrayList<>(limit);
+        IndexSearcher searcher = acquire();
+        try {
+            StoredFields storedFields = searcher.storedFields();
+            for (int tier = Math.max(startTier, 0); tier < tiers.size() && hits.size() < limit; tier++) {
+                int n = limit - hits.size();
+                // searchAfter 从“排在 after 之后，或与 after 相同且 doc 更大”的文档开始；id 唯一且倒序，
+                // 以 (id - 1, doc -1) 为起点正好跳过游标那一条本身，且不依赖文档号 (段合并后会变)
+                TopDocs top = tier == startTier && afterId != null
+                        ? searcher.searchAfter(new FieldDoc(-1, Float.NaN, new Object[]{afterId - 1}), tiers.get(tier), n, ID_DESC)
+                        : searcher.search(tiers.get(tier), n, ID_DESC);
+                for (ScoreDoc doc : top.scoreDocs) {
+                    long id = (Long) ((FieldDoc) doc).fields[0];
+                    hits.add(new TieredHit(tier, new Hit(id, storedFields.document(doc.doc).get(TEXT))));
+                }
+            }
+            return hits;
+        } catch (IOException e) {
+            throw new RuntimeException("搜索失败", e);
+        } finally {
+            release(searcher);
+        }
+    }
+
+    private int count(Query query) {
+        IndexSearcher searcher = acquire();
+        try {
+            return searcher.count(query);
+        } catch (IOException e) {
+            throw new RuntimeException("搜索失败", e);
+        } finally {
+            release(searcher);
+        }
+    }
+
+    private IndexSearcher acquire() {
+        try {
+            return searcherManager.acquire();
+        } catch (IOException e) {
+            throw new RuntimeException("搜索索引不可用", e);
+        }
+    }
+
+    private void release(IndexSearcher searcher) {
+        try {
+            searcherManager.release(searcher);
+        } catch (IOException e) {
+            throw new RuntimeException("搜索索引不可用", e);
+        }
+    }
+
+    /**
+     * 关键词转成与 text_exact / text_prefix 相同的形式；空关键词返回 null
+     */
+    private static String normalize(String keyword) {
+        if (keyword == null || keyword.isBlank()) {
+            return null;
+        }
+        List<String> terms = analyze(EXACT, truncate(keyword.trim()));
+        return terms.isEmpty() ? null : terms.get(0);
+    }
+
+    private static String truncate(String keyword) {
+        if (keyword.codePointCount(0, keyword.length()) <= MAX_KEYWORD_LENGTH) {
+            return keyword;
+        }
+        return keyword.substring(0, keyword.offsetByCodePoints(0, MAX_KEYWORD_LENGTH));
+    }
+
+    private static List<String> analyze(String field, String text) {
+        List<String> terms = new ArrayList<>();
+        try (TokenStream stream = ANALYZER.tokenStream(field, text)) {
+            CharTermAttribute term = stream.addAttribute(CharTermAttribute.class);
+            stream.reset();
+            while (stream.incrementToken()) {
+                terms.add(term.toString());
+            }
+            stream.end();
+        } catch (IOException e) {
+            throw new RuntimeException("解析关键词失败", e);
+        }
+        return terms;
+    }
+
+    private static String key(String type, long id) {
+        return type + ":" + id;
+    }
+
+    private static FieldType fieldType(IndexOptions options) {
+        FieldType type = new FieldType();
+        type.setIndexOptions(options);
+        type.setTokenized(true);
+        type.setOmitNorms(true);
+        type.freeze();
+        return type;
+    }
+}
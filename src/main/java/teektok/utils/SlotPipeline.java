@@ -0,0 +1,161 @@
+package teektok.utils;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.data.redis.connection.RedisClusterConnection;
+import org.springframework.data.redis.connection.RedisClusterNode;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.connection.StringRedisConnection;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.BiConsumer;
+
+/**
+ * 按节点分组的 Pipeline
+ * 单机 Redis：所有命令放进一个 Pipeline，等同于 executePipelined。
+ * Redis Cluster：按 Key 的槽找到所在主节点，每个节点一个 Pipeline，多个节点并行执行，结果按 Key 的原顺序拼回。
+ * 某个节点失败时整体抛异常，调用方沿用原来的降级逻辑。
+ */
+@Component
+public class SlotPipeline {
+
+    @Autowired
+    private StringRedisTemplate stringRedisTemplate;
+
+    @Autowired
+    @Qualifier("commonExecutor")
+    private Executor commonExecutor;
+
+    /**
+     * 对每个 Key 执行 command，返回与 keys 一一对应的结果
+     * 每个 Key 只发一条命令时结果就是该命令的返回值；发多条时是这几条命令返回值组成的 List。
+     * Pipeline 的返回值只能按条数切分，每个 Key 必须发送相同数量的命令，条数对不上时抛 IllegalStateException
+     */
+    public List<Object> execute(List<String> keys, BiConsumer<StringRedisConnection, String> command) {
+        if (keys.isEmpty()) return Collections.emptyList();
+
+        List<List<Integer>> groups = groupByNode(keys);
+        Object[] results = new Object[keys.size()];
+        if (groups.size() == 1) {
+            run(keys, groups.get(0), command, results);
+            return Arrays.asList(results);
+        }
+
+        // 第一组在当前线程执行，其余组交给线程池；线程池还没来得及执行的组由当前线程接着做，
+        // 调用方自己就在 commonExecutor 里时也不会因为等待排队的任务而卡住
+        List<GroupTask> tasks = new ArrayList<>(groups.size() - 1);
+        for (List<Integer> group : groups.subList(1, groups.size())) {
+            GroupTask task = new GroupTask(() -> run(keys, group, command, results));
+            tasks.add(task);
+            commonExecutor.execute(task::runOnce);
+        }
+        run(keys, groups.get(0), command, results);
+        for (GroupTask task : tasks) {
+            task.runOnce();
+        }
+        try {
+            for (GroupTask task : tasks) {
+                task.done.join();
+            }
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException re) throw re;
+            throw e;
+        }
+        return Arrays.asList(results);
+    }
+
+    private static class GroupTask {
+        private final Runnable action;
+        private final AtomicBoolean claimed = new AtomicBoolean();
+        private final CompletableFuture<Void> done = new CompletableFuture<>();
+
+        GroupTask(Runnable action) {
+            this.action = action;
+        }
+
+        void runOnce() {
+            if (!claimed.compareAndSet(false, true)) return;
+            try {
+                action.run();
+                done.complete(null);
+            } catch (Throwable e) {
+                done.completeExceptionally(e);
+            }
+        }
+    }
+
+    private void run(List<String> keys, List<Integer> group, BiConsumer<StringRedisConnection, String> command,
+                     Object[] results) {
+        List<Object> raw = stringRedisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            StringRedisConnection conn = (StringRedisConnection) connection;
+            for (Integer idx : group) {
+                command.accept(conn, keys.get(idx));
+            }
+            return null;
+        });
+
+        if (raw.size() % group.size() != 0) {
+            throw new IllegalStateException("Pipeline 返回 " + raw.size() + " 条结果，无法按 " + group.size()
+                    + " 个 Key 切分：每个 Key 必须发送相同数量的命令");
+        }
+        int perKey = raw.size() / group.size();
+        for (int i = 0; i < group.size(); i++) {
+            results[group.get(i)] = perKey == 1 ? raw.get(i) : raw.subList(i * perKey, (i + 1) * perKey);
+        }
+    }
+
+    /**
+     * 是否连接的是 Redis Cluster (spring.data.redis.cluster.nodes)
+     */
+    public boolean isCluster() {
+        RedisConnectionFactory factory = stringRedisTemplate.getConnectionFactory();
+        return factory instanceof LettuceConnectionFactory lettuce && lettuce.isClusterAware();
+    }
+
+    /**
+     * 把 Key 的下标按所在主节点分组；非 Cluster 时只有一组
+     */
+    List<List<Integer>> groupByNode(List<String> keys) {
+        List<Integer> all = new ArrayList<>(keys.size());
+        for (int i = 0; i < keys.size(); i++) all.add(i);
+
+        if (!isCluster()) {
+            return List.of(all);
+        }
+
+        List<RedisClusterNode> masters = new ArrayList<>();
+        try (RedisClusterConnection cluster = stringRedisTemplate.getRequiredConnectionFactory().getClusterConnection()) {
+            for (RedisClusterNode node : cluster.clusterGetNodes()) {
+                if (node.isMaster()) masters.add(node);
+            }
+        }
+
+        Map<Integer, String> nodeOfSlot = new HashMap<>();
+        Map<String, List<Integer>> groups = new LinkedHashMap<>();
+        for (int i = 0; i < keys.size(); i++) {
+            int slot = RedisKeys.slot(keys.get(i));
+            String node = nodeOfSlot.computeIfAbsent(slot, s -> masters.stream()
+                    .filter(m -> m.servesSlot(s))
+                    .map(RedisClusterNode::asString)
+                    .findFirst()
+                    // 拓扑里找不到 (正在迁移槽) 的 Key 单独成组，交给客户端按 MOVED 重定向
+                    .orElse(""));
+            groups.computeIfAbsent(node, n -> new ArrayList<>()).add(i);
+        }
+        return new ArrayList<>(groups.values());
+    }
+}
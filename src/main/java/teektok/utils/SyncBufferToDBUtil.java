@@ -1,20 +1,34 @@
 package teektok.utils;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.redis.core.StringRedisTemplate;
 import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import teektok.mapper.VideoStatBucketMapper;
 import teektok.mapper.VideoStatMapper;
 
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * 通用同步方法
  * bufferKey Redis 缓冲 Key
  * dbField   数据库字段名 (用于拼 SQL，注意防止 SQL 注入，这里是内部常量相对安全)
+ * 指标 (tag counter 为字段名去掉 _count，如 play / like)：
+ * teektok.counter.buffer.size : 最近一次落库时缓冲里待写入的视频数
+ * teektok.counter.flush       : 每次落库的耗时 (outcome=success/failure，failure 的次数即落库失败次数)
+ * teektok.counter.flush.rows  : 每次落库写入的行数 (缓冲为空时不记录)
+ * 同一批增量在一个事务里同时累加到全站汇总 video_stat_bucket (累计/当天/当前小时)，提交后再计入视频排行 (VideoRanking)
  */
 @Component
 public class SyncBufferToDBUtil {
@@ -27,18 +41,61 @@ public class SyncBufferToDBUtil {
     @Autowired
     private VideoStatMapper videoStatMapper;
 
+    @Autowired
+    private VideoStatBucketMapper videoStatBucketMapper;
+
+    @Autowired
+    private VideoRanking videoRanking;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private final Map<String, AtomicLong> bufferSizes = new ConcurrentHashMap<>();
+
     public void syncBufferToDB(String bufferKey, String dbField) {
+        String counter = dbField.replace("_count", "");
+        Timer.Sample sample = Timer.start(meterRegistry);
+        String outcome = "failure";
+        try {
+            int rows = 0;
+            // 改用 hash tag 之前写入的旧缓冲 Key (单机 Redis 升级后可能还有残留)，一并落库
+            String legacyKey = RedisKeys.legacy(bufferKey);
+            if (!legacyKey.equals(bufferKey)) {
+                rows += drain(legacyKey, dbField);
+            }
+            rows += drain(bufferKey, dbField);
+            outcome = "success";
+
+            bufferSizes.computeIfAbsent(counter, c -> meterRegistry.gauge("teektok.counter.buffer.size",
+                    Tags.of("counter", c), new AtomicLong())).set(rows);
+            if (rows > 0) {
+                meterRegistry.summary("teektok.counter.flush.rows", "counter", counter).record(rows);
+                log.debug("计数缓冲落库完成: {} {} 条", counter, rows);
+            }
+        } finally {
+            sample.stop(meterRegistry.timer("teektok.counter.flush", "counter", counter, "outcome", outcome));
+        }
+    }
+
+    /**
+     * 返回写入的行数
+     */
+    private int drain(String bufferKey, String dbField) {
+        // 临时 Key 以缓冲 Key 为前缀，带 hash tag 时与缓冲 Key 在同一个槽，Cluster 下也能 RENAME
         String tempKey = bufferKey + ":temp:" + System.currentTimeMillis();
 
         // 1. 原子重命名
         try {
             if (Boolean.FALSE.equals(redisTemplate.hasKey(bufferKey))) {
-                return;
+                return 0;
             }
             redisTemplate.rename(bufferKey, tempKey);
         } catch (Exception e) {
             // 此时可能被别的线程处理了，或者 Key 不存在
-            return;
+            return 0;
         }
 
         // 2. 【兜底】给临时 Key 设置个过期时间 (如 10分钟)
@@ -56,11 +113,21 @@ public class SyncBufferToDBUtil {
                 } catch (NumberFormatException e) { /* ignore */ }
             });
 
-            // 4. 落库
+            // 4. 落库：视频计数与全站汇总同时成功或失败，汇总始终等于各视频计数之和
             if (!updateMap.isEmpty()) {
-                videoStatMapper.batchInsertIgnore(updateMap.keySet());
-                videoStatMapper.batchUpdateStat(updateMap, dbField);
+                long delta = updateMap.values().stream().mapToLong(Integer::longValue).sum();
+                LocalDateTime now = LocalDateTime.now();
+                transactionTemplate.executeWithoutResult(status -> {
+                    videoStatMapper.batchInsertIgnore(updateMap.keySet());
+                    videoStatMapper.batchUpdateStat(updateMap, dbField);
+                    if (delta != 0) {
+                        videoStatBucketMapper.addDelta(dbField, delta,
+                                now.truncatedTo(ChronoUnit.DAYS), now.truncatedTo(ChronoUnit.HOURS));
+                    }
+                });
+                videoRanking.record(dbField.replace("_count", ""), updateMap, now);
             }
+            return updateMap.size();
         } finally {
             // 5. 确保删除临时 Key
             redisTemplate.delete(tempKey);
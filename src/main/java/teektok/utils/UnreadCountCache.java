@@ -0,0 +1,89 @@
+package teektok.utils;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 未读数计数器 (通知 / 私信)
+ * 轮询接口只读一个 Redis String，不再每次 COUNT(*)。
+ * 计数器只在已初始化时才做增减：不存在时由读操作查库重建，避免 INCR 凭空生成一个偏小的值。
+ * 每次增减都会把用户记入 dirty 集合，由定时任务按 MySQL 校准。
+ */
+@Component
+public class UnreadCountCache {
+
+    public static final String NOTIFICATION = "notification";
+    public static final String DM = "dm";
+
+    private static final long TTL_DAYS = 7;
+
+    // 存在才累加；结果为负时拉回 0 (INCRBY 不会改变 TTL)
+    private static final DefaultRedisScript<Long> INCR_IF_EXISTS = new DefaultRedisScript<>(
+            "if redis.call('EXISTS', KEYS[1]) == 1 then " +
+            "  local v = redis.call('INCRBY', KEYS[1], ARGV[1]) " +
+            "  if v < 0 then redis.call('INCRBY', KEYS[1], -v) v = 0 end " +
+            "  return v " +
+            "end " +
+            "return -1", Long.class);
+
+    @Autowired
+    private StringRedisTemplate redisTemplate;
+
+    private String key(String kind, Long userId) {
+        return kind + ":unread:" + userId;
+    }
+
+    private String dirtyKey(String kind) {
+        return kind + ":unread:dirty";
+    }
+
+    /**
+     * 读取计数，未初始化返回 null
+     */
+    public Long get(String kind, Long userId) {
+        String val = redisTemplate.opsForValue().get(key(kind, userId));
+        if (val == null) return null;
+        try {
+            return Long.valueOf(val);
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    public void set(String kind, Long userId, long count) {
+        redisTemplate.opsForValue().set(key(kind, userId), String.valueOf(Math.max(0, count)), TTL_DAYS, TimeUnit.DAYS);
+    }
+
+    /**
+     * 增减计数，返回增减后的值；计数器未初始化时返回 null
+     */
+    public Long incr(String kind, Long userId, long delta) {
+        if (userId == null || delta == 0) return null;
+        Long val = redisTemplate.execute(INCR_IF_EXISTS, Collections.singletonList(key(kind, userId)), String.valueOf(delta));
+        redisTemplate.opsForSet().add(dirtyKey(kind), userId.toString());
+        return val == null || val < 0 ? null : val;
+    }
+
+    /**
+     * 取出一批需要校准的用户
+     */
+    public List<Long> popDirty(String kind, int count) {
+        List<String> members = redisTemplate.opsForSet().pop(dirtyKey(kind), count);
+        if (members == null || members.isEmpty()) return Collections.emptyList();
+        List<Long> userIds = new ArrayList<>(members.size());
+        for (String m : members) {
+            try {
+                userIds.add(Long.valueOf(m));
+            } catch (NumberFormatException ignored) {
+            }
+        }
+        return userIds;
+    }
+}
@@ -0,0 +1,49 @@
+package teektok.utils;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import teektok.config.MediaProperties;
+
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 上传并发限制
+ * 上传会长时间占用 Tomcat 线程和出口带宽，限制同时进行的数量，避免拖慢同一 JVM 上的其它接口
+ */
+@Component
+public class UploadLimiter {
+
+    private final Semaphore semaphore;
+    private final long acquireTimeoutMs;
+
+    @Autowired
+    public UploadLimiter(MediaProperties mediaProperties) {
+        this.semaphore = new Semaphore(Math.max(1, mediaProperties.getUploadConcurrency()), true);
+        this.acquireTimeoutMs = mediaProperties.getUploadAcquireTimeoutMs();
+    }
+
+    /**
+     * 获取一个上传名额，拿不到时抛出异常；调用方必须在 finally 中 release
+     */
+    public void acquire() {
+        boolean acquired;
+        try {
+            acquired = semaphore.tryAcquire(acquireTimeoutMs, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            acquired = false;
+        }
+        if (!acquired) {
+            throw new RuntimeException("当前上传人数过多，请稍后重试");
+        }
+    }
+
+    public void release() {
+        semaphore.release();
+    }
+
+    public int availablePermits() {
+        return semaphore.availablePermits();
+    }
+}
@@ -0,0 +1,117 @@
+package teektok.utils;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.redis.connection.StringRedisConnection;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ZSetOperations;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 按时间窗口的视频排行 (播放 / 点赞)
+ * 计数缓冲每次落库时，把各视频的增量 ZINCRBY 到当前小时桶和当天桶 (一个 Pipeline)；
+ * 查询时 hour 直接读当前小时桶，day 合并最近 24 个小时桶，week 合并最近 7 个天桶，合并结果缓存 WINDOW_CACHE_SECONDS 秒
+ * 排行只用于展示，写 Redis 失败不影响计数落库
+ */
+@Slf4j
+@Component
+public class VideoRanking {
+
+    /**
+     * 参与排行的计数 (与 SyncBufferToDBUtil 的 counter 名一致)
+     */
+    public static final Set<String> COUNTERS = Set.of("play", "like");
+    public static final Set<String> WINDOWS = Set.of("hour", "day", "week");
+
+    private static final long HOUR_BUCKET_TTL_HOURS = 26;
+    private static final long DAY_BUCKET_TTL_DAYS = 8;
+    private static final long WINDOW_CACHE_SECONDS = 60;
+
+    @Autowired
+    private StringRedisTemplate stringRedisTemplate;
+
+    /**
+     * 记录一次落库的增量 (videoId -> 增量)
+     */
+    public void record(String counter, Map<Long, Integer> deltas, LocalDateTime now) {
+        if (!COUNTERS.contains(counter) || deltas.isEmpty()) return;
+        String hourKey = RedisKeys.videoRankHour(counter, now.truncatedTo(ChronoUnit.HOURS));
+        String dayKey = RedisKeys.videoRankDay(counter, now.toLocalDate());
+        try {
+            // 两个 Key 带同一个 hash tag，Cluster 下也在同一个节点
+            stringRedisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+                StringRedisConnection conn = (StringRedisConnection) connection;
+                deltas.forEach((videoId, delta) -> {
+                    conn.zIncrBy(hourKey, delta, videoId.toString());
+                    conn.zIncrBy(dayKey, delta, videoId.toString());
+                });
+                conn.expire(hourKey, TimeUnit.HOURS.toSeconds(HOUR_BUCKET_TTL_HOURS));
+                conn.expire(dayKey, TimeUnit.DAYS.toSeconds(DAY_BUCKET_TTL_DAYS));
+                return null;
+            });
+        } catch (Exception e) {
+            log.warn("更新视频排行失败: {} {}", counter, e.getMessage());
+        }
+    }
+
+    /**
+     * 窗口内增量最多的视频 (videoId -> 增量，按增量倒序)，增量不大于 0 的不返回
+     */
+    public Map<Long, Long> top(String counter, String window, int limit, LocalDateTime now) {
+        String key = switch (window) {
+            case "hour" -> RedisKeys.videoRankHour(counter, now.truncatedTo(ChronoUnit.HOURS));
+            case "day" -> mergeWindow(counter, window, hourKeys(counter, now));
+            case "week" -> mergeWindow(counter, window, dayKeys(counter, now));
+            default -> throw new RuntimeException("不支持的时间窗口: " + window);
+        };
+
+        Set<ZSetOperations.TypedTuple<String>> tuples =
+                stringRedisTemplate.opsForZSet().reverseRangeByScoreWithScores(key, 1, Double.MAX_VALUE, 0, limit);
+        Map<Long, Long> result = new LinkedHashMap<>();
+        if (tuples != null) {
+            for (ZSetOperations.TypedTuple<String> tuple : tuples) {
+                if (tuple.getValue() != null && tuple.getScore() != null) {
+                    result.put(Long.valueOf(tuple.getValue()), tuple.getScore().longValue());
+                }
+            }
+        }
+        return result;
+    }
+
+    private List<String> hourKeys(String counter, LocalDateTime now) {
+        LocalDateTime hour = now.truncatedTo(ChronoUnit.HOURS);
+        List<String> keys = new ArrayList<>(24);
+        for (int i = 0; i < 24; i++) {
+            keys.add(RedisKeys.videoRankHour(counter, hour.minusHours(i)));
+        }
+        return keys;
+    }
+
+    private List<String> dayKeys(String counter, LocalDateTime now) {
+        List<String> keys = new ArrayList<>(7);
+        for (int i = 0; i < 7; i++) {
+            keys.add(RedisKeys.videoRankDay(counter, now.toLocalDate().minusDays(i)));
+        }
+        return keys;
+    }
+
+    // 合并结果短时间缓存，看板刷新不会每次都 ZUNIONSTORE
+    private String mergeWindow(String counter, String window, List<String> buckets) {
+        String key = RedisKeys.videoRankWindow(counter, window);
+        if (!Boolean.TRUE.equals(stringRedisTemplate.hasKey(key))) {
+            stringRedisTemplate.opsForZSet().unionAndStore(buckets.get(0), buckets.subList(1, buckets.size()), key);
+            stringRedisTemplate.expire(key, WINDOW_CACHE_SECONDS, TimeUnit.SECONDS);
+        }
+        return key;
+    }
+}
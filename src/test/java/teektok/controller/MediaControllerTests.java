@@ -0,0 +1,109 @@
+package teektok.controller;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.util.ReflectionTestUtils;
+import teektok.config.MediaProperties;
+import teektok.utils.MediaFileCache;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MediaControllerTests {
+
+    @TempDir
+    Path dir;
+
+    private MediaController controller;
+    private MediaFileCache cache;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        MediaProperties properties = new MediaProperties();
+        properties.setLocalDir(dir.toString());
+        properties.setOpenFileCacheSize(2);
+        cache = new MediaFileCache(properties);
+        controller = new MediaController();
+        ReflectionTestUtils.setField(controller, "mediaProperties", properties);
+        ReflectionTestUtils.setField(controller, "mediaFileCache", cache);
+
+        Files.createDirectories(dir.resolve("2024/01"));
+        Files.writeString(dir.resolve("2024/01/a.mp4"), "0123456789");
+        Files.createDirectories(dir.resolve(".staging/x"));
+        Files.writeString(dir.resolve(".staging/x/1.part"), "secret");
+    }
+
+    @AfterEach
+    void tearDown() {
+        cache.closeAll();
+    }
+
+    @Test
+    void servesWholeFile() throws Exception {
+        MockHttpServletResponse response = get("/uploads/2024/01/a.mp4", null);
+        assertEquals(200, response.getStatus());
+        assertEquals("0123456789", response.getContentAsString(StandardCharsets.UTF_8));
+        assertEquals("bytes", response.getHeader("Accept-Ranges"));
+        assertEquals("video/mp4", response.getContentType());
+        assertNotNull(response.getHeader("ETag"));
+    }
+
+    @Test
+    void servesSingleRange() throws Exception {
+        MockHttpServletResponse response = get("/uploads/2024/01/a.mp4", "bytes=2-5");
+        assertEquals(206, response.getStatus());
+        assertEquals("2345", response.getContentAsString(StandardCharsets.UTF_8));
+        assertEquals("bytes 2-5/10", response.getHeader("Content-Range"));
+
+        response = get("/uploads/2024/01/a.mp4", "bytes=-3");
+        assertEquals(206, response.getStatus());
+        assertEquals("789", response.getContentAsString(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void rejectsUnsatisfiableRange() throws Exception {
+        MockHttpServletResponse response = get("/uploads/2024/01/a.mp4", "bytes=20-");
+        assertEquals(416, response.getStatus());
+        assertEquals("bytes */10", response.getHeader("Content-Range"));
+    }
+
+    @Test
+    void returnsNotModifiedForMatchingEtag() throws Exception {
+        String etag = get("/uploads/2024/01/a.mp4", null).getHeader("ETag");
+
+        MockHttpServletRequest request = request("/uploads/2024/01/a.mp4");
+        request.addHeader("If-None-Match", etag);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        controller.serve(request, response);
+        assertEquals(304, response.getStatus());
+        assertEquals(0, response.getContentAsByteArray().length);
+    }
+
+    @Test
+    void hidesStagingAndTraversal() throws Exception {
+        assertEquals(404, get("/uploads/.staging/x/1.part", null).getStatus());
+        assertEquals(404, get("/uploads/2024/../../etc/passwd", null).getStatus());
+        assertEquals(404, get("/uploads/2024/01/missing.mp4", null).getStatus());
+    }
+
+    private MockHttpServletResponse get(String uri, String range) throws Exception {
+        MockHttpServletRequest request = request(uri);
+        if (range != null) {
+            request.addHeader("Range", range);
+        }
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        controller.serve(request, response);
+        return response;
+    }
+
+    private MockHttpServletRequest request(String uri) {
+        return new MockHttpServletRequest("GET", uri);
+    }
+}
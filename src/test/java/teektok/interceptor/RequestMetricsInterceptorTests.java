@@ -0,0 +1,117 @@
+package teektok.interceptor;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.connection.RedisStringCommands;
+import org.springframework.data.redis.connection.StringRedisConnection;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.servlet.HandlerMapping;
+import teektok.config.RedisConfig;
+import teektok.config.RequestMetricsProperties;
+import teektok.utils.RequestMetrics;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+/**
+ * 经过 RedisConfig 的 StringRedisTemplate 执行命令，验证命令数 / 往返次数的统计 (Pipeline 算一次往返) 和预算告警指标
+ */
+class RequestMetricsInterceptorTests {
+
+    private RequestMetricsInterceptor interceptor;
+    private RequestMetricsProperties properties;
+    private SimpleMeterRegistry registry;
+    private StringRedisTemplate template;
+    private RedisConnection connection;
+    private MockHttpServletRequest request;
+    private final MockHttpServletResponse response = new MockHttpServletResponse();
+
+    @BeforeEach
+    void setUp() {
+        connection = mock(RedisConnection.class);
+        RedisStringCommands stringCommands = mock(RedisStringCommands.class);
+        when(connection.stringCommands()).thenReturn(stringCommands);
+        when(stringCommands.get(any())).thenReturn("1".getBytes());
+        when(connection.closePipeline()).thenReturn(List.of());
+        RedisConnectionFactory factory = mock(RedisConnectionFactory.class);
+        when(factory.getConnection()).thenReturn(connection);
+        template = new RedisConfig().stringRedisTemplate(factory);
+
+        properties = new RequestMetricsProperties();
+        registry = new SimpleMeterRegistry();
+        interceptor = new RequestMetricsInterceptor();
+        ReflectionTestUtils.setField(interceptor, "properties", properties);
+        ReflectionTestUtils.setField(interceptor, "meterRegistry", registry);
+
+        request = new MockHttpServletRequest("GET", "/api/video/list");
+        request.setAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE, "/api/video/list");
+    }
+
+    @AfterEach
+    void tearDown() {
+        RequestMetrics.end();
+    }
+
+    @Test
+    void pipelineCountsAsOneRoundTrip() {
+        interceptor.preHandle(request, response, null);
+        template.opsForValue().get("a");
+        template.opsForValue().get("b");
+        template.executePipelined((RedisCallback<Object>) c -> {
+            StringRedisConnection conn = (StringRedisConnection) c;
+            for (int i = 0; i < 10; i++) {
+                conn.hGetAll("video:stat:" + i);
+            }
+            return null;
+        });
+
+        RequestMetrics metrics = RequestMetrics.current();
+        assertEquals(12, metrics.getRedisCommands());
+        assertEquals(3, metrics.getRedisRoundTrips());
+        assertEquals(0, metrics.getSqlCount());
+
+        interceptor.afterCompletion(request, response, null, null);
+        assertNull(RequestMetrics.current());
+        assertEquals(12, registry.get("teektok.request.redis.commands").tag("uri", "/api/video/list").summary().totalAmount());
+        assertEquals(3, registry.get("teektok.request.redis.roundtrips").tag("method", "GET").summary().totalAmount());
+        assertNull(registry.find("teektok.request.budget.exceeded").counter());
+    }
+
+    @Test
+    void warnsWhenRoundTripBudgetExceeded() {
+        properties.setRedisRoundTripBudget(2);
+        interceptor.preHandle(request, response, null);
+        for (int i = 0; i < 3; i++) {
+            template.opsForValue().get("k" + i);
+        }
+        interceptor.afterCompletion(request, response, null, null);
+
+        Counter exceeded = registry.get("teektok.request.budget.exceeded").tag("resource", "redis").counter();
+        assertEquals(1, exceeded.count());
+        assertNull(registry.find("teektok.request.budget.exceeded").tag("resource", "sql").counter());
+    }
+
+    @Test
+    void commandsOutsideRequestAreNotWrapped() {
+        template.opsForValue().get("a");
+        assertNull(RequestMetrics.current());
+
+        properties.setEnabled(false);
+        interceptor.preHandle(request, response, null);
+        template.opsForValue().get("a");
+        interceptor.afterCompletion(request, response, null, null);
+        assertNull(registry.find("teektok.request.redis.commands").summary());
+    }
+}
@@ -0,0 +1,487 @@
+package teektok.mapper;
+
+import com.baomidou.mybatisplus.core.MybatisConfiguration;
+import com.baomidou.mybatisplus.core.MybatisSqlSessionFactoryBuilder;
+import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.baomidou.mybatisplus.core.conditions.update.LambdaUpdateWrapper;
+import com.baomidou.mybatisplus.core.toolkit.PluginUtils;
+import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
+import org.apache.ibatis.builder.xml.XMLMapperBuilder;
+import org.apache.ibatis.executor.statement.StatementHandler;
+import org.apache.ibatis.mapping.BoundSql;
+import org.apache.ibatis.mapping.Environment;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.mapping.SqlCommandType;
+import org.apache.ibatis.plugin.Interceptor;
+import org.apache.ibatis.plugin.Intercepts;
+import org.apache.ibatis.plugin.Invocation;
+import org.apache.ibatis.plugin.Signature;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.apache.ibatis.transaction.jdbc.JdbcTransactionFactory;
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+import teektok.config.MybatisPlusConfig;
+import teektok.entity.Comment;
+import teektok.entity.CommentLike;
+import teektok.entity.DmInbox;
+import teektok.entity.DmMessage;
+import teektok.entity.MediaObject;
+import teektok.entity.Notification;
+import teektok.entity.RecommendationResult;
+import teektok.entity.Relation;
+import teektok.entity.User;
+import teektok.entity.UserBehavior;
+import teektok.entity.UserBehaviorRollup;
+import teektok.entity.Video;
+import teektok.entity.VideoFavorite;
+import teektok.entity.VideoLike;
+import teektok.entity.VideoStatBucket;
+
+import java.io.InputStream;
+import java.lang.reflect.Method;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 查询计划回归：在 H2 (MySQL 模式，表结构与索引同 db/schema-h2.sql) 上执行 mapper 查询，对每条 SELECT / UPDATE / DELETE 做 EXPLAIN，出现全表扫描即失败
+ * 1. mapper 接口和 XML 中自定义的语句必须全部在这里执行过 (新增语句忘记补用例时 allCustomStatementsCovered 失败)
+ * 2. 业务代码里用 Wrapper 拼出的热点查询按 Service 中的写法列在 hotQueriesUseIndexes 中，改查询条件时同步修改
+ * 3. 确实需要扫全表的语句 (后台汇总等) 写进 FULL_SCAN_ALLOWED 并说明原因
+ * H2 与 MySQL 的优化器不同，这里只能发现“没有可用索引”，不检查 filesort；线上索引见 docs/sql/add_hot_table_indexes.sql
+ */
+class QueryPlanTests {
+
+    private static final String URL = "jdbc:h2:mem:query_plan;MODE=MySQL;DATABASE_TO_LOWER=TRUE;NON_KEYWORDS=USER,VALUE;DB_CLOSE_DELAY=-1";
+
+    /**
+     * 允许全表扫描的语句 -> 原因
+     */
+    private static final Map<String, String> FULL_SCAN_ALLOWED = Map.of(
+            "teektok.mapper.VideoStatMapper.sumAll", "后台数据总览，对全部视频求和");
+
+    private static JdbcDataSource dataSource;
+    private static SqlSessionFactory sqlSessionFactory;
+    private static PlanRecorder recorder;
+    private static SqlSession session;
+
+    @BeforeAll
+    static void setUp() throws Exception {
+        dataSource = new JdbcDataSource();
+        dataSource.setURL(URL);
+        dataSource.setUser("sa");
+        new ResourceDatabasePopulator(new ClassPathResource("db/schema-h2.sql")).execute(dataSource);
+        seed();
+
+        MybatisConfiguration configuration = new MybatisConfiguration();
+        configuration.setMapUnderscoreToCamelCase(true);
+        configuration.setEnvironment(new Environment("query-plan", new JdbcTransactionFactory(), dataSource));
+        configuration.addInterceptor(new MybatisPlusConfig().mybatisPlusInterceptor());
+        recorder = new PlanRecorder();
+        configuration.addInterceptor(recorder);
+        PathMatchingResourcePatternResolver resolver = new PathMatchingResourcePatternResolver();
+        for (Resource xml : resolver.getResources("classpath*:mapper/*.xml")) {
+            try (InputStream in = xml.getInputStream()) {
+                new XMLMapperBuilder(in, configuration, xml.toString(), configuration.getSqlFragments()).parse();
+            }
+        }
+        for (Class<?> mapper : mapperInterfaces()) {
+            if (!configuration.hasMapper(mapper)) {
+                configuration.addMapper(mapper);
+            }
+        }
+        sqlSessionFactory = new MybatisSqlSessionFactoryBuilder().build(configuration);
+        session = sqlSessionFactory.openSession(true);
+    }
+
+    @AfterAll
+    static void tearDown() throws Exception {
+        if (session != null) {
+            session.close();
+        }
+        try (Connection connection = dataSource.getConnection(); Statement statement = connection.createStatement()) {
+            statement.execute("DROP ALL OBJECTS");
+        }
+    }
+
+    @BeforeEach
+    void clearRecorder() {
+        recorder.executed.clear();
+        recorder.plans.clear();
+    }
+
+    /**
+     * 造一些数据，让 H2 按有数据的表估算代价 (空表上全表扫描最便宜)
+     */
+    private static void seed() throws Exception {
+        try (Connection connection = dataSource.getConnection(); Statement statement = connection.createStatement()) {
+            statement.execute("INSERT INTO `user` (id, username, password) SELECT x, CONCAT('u', x), 'p' FROM SYSTEM_RANGE(1, 500) r(x)");
+            statement.execute("INSERT INTO video (id, title, video_url, uploader_id, is_hot, create_time) " +
+                    "SELECT x, CONCAT('v', x), CONCAT('/v/', x), MOD(x, 500) + 1, MOD(x, 10) = 0, DATEADD('MINUTE', x, TIMESTAMP '2026-01-01 00:00:00') FROM SYSTEM_RANGE(1, 2000) r(x)");
+            statement.execute("INSERT INTO video_stat (video_id) SELECT x FROM SYSTEM_RANGE(1, 2000) r(x)");
+            statement.execute("INSERT INTO user_behavior (user_id, video_id, behavior_type) SELECT MOD(x, 500) + 1, MOD(x, 2000) + 1, MOD(x, 5) + 1 FROM SYSTEM_RANGE(1, 5000) r(x)");
+            statement.execute("INSERT INTO user_behavior_rollup (user_id, behavior_type, video_id, event_count, first_time, last_time) "
+                    + "SELECT user_id, behavior_type, video_id, COUNT(*), MIN(create_time), MAX(create_time) FROM user_behavior GROUP BY user_id, behavior_type, video_id");
+            statement.execute("INSERT INTO video_like (video_id, user_id) SELECT MOD(x, 2000) + 1, MOD(x, 500) + 1 FROM SYSTEM_RANGE(1, 2000) r(x)");
+            statement.execute("INSERT INTO video_favorite (video_id, user_id) SELECT MOD(x, 2000) + 1, MOD(x, 500) + 1 FROM SYSTEM_RANGE(1, 2000) r(x)");
+            statement.execute("INSERT INTO relation (user_id, target_id) SELECT MOD(x, 500) + 1, MOD(x + 1 + (x - 1) / 500, 500) + 1 FROM SYSTEM_RANGE(1, 2000) r(x)");
+            statement.execute("INSERT INTO comment (video_id, user_id, content, like_count) SELECT MOD(x, 2000) + 1, MOD(x, 500) + 1, 'c', MOD(x, 50) FROM SYSTEM_RANGE(1, 3000) r(x)");
+            statement.execute("INSERT INTO comment_like (comment_id, user_id) SELECT x, MOD(x, 500) + 1 FROM SYSTEM_RANGE(1, 2000) r(x)");
+            statement.execute("INSERT INTO notification (user_id, actor_id, type, is_read, agg_key) SELECT MOD(x, 500) + 1, 1, 1, MOD(x, 2), CONCAT('k', x) FROM SYSTEM_RANGE(1, 3000) r(x)");
+            statement.execute("INSERT INTO dm_message (sender_id, receiver_id, conversation_id, seq) SELECT 1, MOD(x, 499) + 2, CONCAT('1_', MOD(x, 499) + 2), x FROM SYSTEM_RANGE(1, 3000) r(x)");
+            statement.execute("INSERT INTO dm_inbox (user_id, peer_id, conversation_id) SELECT 1, x + 1, CONCAT('1_', x + 1) FROM SYSTEM_RANGE(1, 499) r(x)");
+            statement.execute("INSERT INTO dm_conversation (id, user_low, user_high) SELECT CONCAT('1_', x + 1), 1, x + 1 FROM SYSTEM_RANGE(1, 499) r(x)");
+            statement.execute("INSERT INTO recommendation_result (user_id, movie_id, score, type) SELECT MOD(x, 500) + 1, x, x, 'OFFLINE' FROM SYSTEM_RANGE(1, 3000) r(x)");
+            statement.execute("INSERT INTO media_object (storage, content_hash, size, url) SELECT 'local', CONCAT('h', x), 1, CONCAT('/m/', x) FROM SYSTEM_RANGE(1, 500) r(x)");
+            statement.execute("ANALYZE");
+        }
+    }
+
+    private static List<Class<?>> mapperInterfaces() throws Exception {
+        List<Class<?>> mappers = new ArrayList<>();
+        for (Resource resource : new PathMatchingResourcePatternResolver().getResources("classpath*:teektok/mapper/*Mapper.class")) {
+            mappers.add(Class.forName("teektok.mapper." + resource.getFilename().replace(".class", "")));
+        }
+        return mappers;
+    }
+
+    @Test
+    void allCustomStatementsCovered() throws Exception {
+        runCustomStatements();
+
+        Set<String> missing = new TreeSet<>();
+        for (Class<?> mapper : mapperInterfaces()) {
+            for (Method method : mapper.getDeclaredMethods()) {
+                if (!method.isDefault()) {
+                    String id = mapper.getName() + "." + method.getName();
+                    if (!recorder.executed.contains(id)) {
+                        missing.add(id);
+                    }
+                }
+            }
+        }
+        assertTrue(missing.isEmpty(), "以下 mapper 语句没有查询计划用例: " + missing);
+        assertNoFullScan();
+    }
+
+    @Test
+    void hotQueriesUseIndexes() {
+        VideoMapper videoMapper = session.getMapper(VideoMapper.class);
+        // VideoServiceImpl / UserServiceImpl：作品列表
+        videoMapper.selectPage(new Page<>(1, 10), new LambdaQueryWrapper<Video>()
+                .eq(Video::getUploaderId, 7L)
+                .orderByDesc(Video::getCreateTime));
+        videoMapper.selectList(new LambdaQueryWrapper<Video>()
+                .select(Video::getId)
+                .eq(Video::getUploaderId, 7L)
+                .orderByDesc(Video::getCreateTime));
+        // VideoServiceImpl / AdminServiceImpl：全部视频按时间倒序
+        videoMapper.selectPage(new Page<>(1, 10), new LambdaQueryWrapper<Video>()
+                .orderByDesc(Video::getCreateTime));
+        // RecommendServiceImpl：热门兜底
+        videoMapper.selectList(new LambdaQueryWrapper<Video>()
+                .eq(Video::getIsHot, 1)
+                .eq(Video::getIsDeleted, 0)
+                .orderByDesc(Video::getCreateTime)
+                .last("LIMIT 0, 10"));
+        // VideoServiceImpl：按内容哈希复用已处理的视频
+        videoMapper.selectList(new LambdaQueryWrapper<Video>()
+                .eq(Video::getContentHash, "h1")
+                .eq(Video::getVideoUrl, "/v/1")
+                .eq(Video::getProcessStatus, 2)
+                .last("LIMIT 1"));
+        // MediaProcessingServiceImpl：领取待处理视频
+        videoMapper.selectList(new LambdaQueryWrapper<Video>()
+                .select(Video::getId)
+                .and(w -> w.eq(Video::getProcessStatus, 0)
+                        .or(o -> o.eq(Video::getProcessStatus, 1)
+                                .lt(Video::getUpdateTime, LocalDateTime.now())))
+                .orderByAsc(Video::getId)
+                .last("LIMIT 10"));
+
+        // VideoServiceImpl：观看历史
+        UserBehaviorRollupMapper rollupMapper = session.getMapper(UserBehaviorRollupMapper.class);
+        rollupMapper.selectCount(new LambdaQueryWrapper<UserBehaviorRollup>()
+                .eq(UserBehaviorRollup::getUserId, 7L)
+                .eq(UserBehaviorRollup::getBehaviorType, 1));
+        rollupMapper.selectList(new LambdaQueryWrapper<UserBehaviorRollup>()
+                .select(UserBehaviorRollup::getVideoId)
+                .eq(UserBehaviorRollup::getUserId, 7L)
+                .eq(UserBehaviorRollup::getBehaviorType, 1)
+                .orderByDesc(UserBehaviorRollup::getLastTime)
+                .last("LIMIT 0, 10"));
+
+        // VideoServiceImpl：清空/删除观看历史 (汇总与流水都删)
+        rollupMapper.delete(new LambdaQueryWrapper<UserBehaviorRollup>()
+                .eq(UserBehaviorRollup::getUserId, 499L)
+                .eq(UserBehaviorRollup::getBehaviorType, 1)
+                .eq(UserBehaviorRollup::getVideoId, 1L));
+        rollupMapper.delete(new LambdaQueryWrapper<UserBehaviorRollup>()
+                .eq(UserBehaviorRollup::getUserId, 499L)
+                .eq(UserBehaviorRollup::getBehaviorType, 1));
+        UserBehaviorMapper userBehaviorMapper = session.getMapper(UserBehaviorMapper.class);
+        userBehaviorMapper.delete(new LambdaQueryWrapper<UserBehavior>()
+                .eq(UserBehavior::getUserId, 499L)
+                .eq(UserBehavior::getVideoId, 1L)
+                .eq(UserBehavior::getBehaviorType, 1));
+        userBehaviorMapper.delete(new LambdaQueryWrapper<UserBehavior>()
+                .eq(UserBehavior::getUserId, 499L)
+                .eq(UserBehavior::getBehaviorType, 1));
+
+        // VideoServiceImpl：我的点赞/收藏；BehaviorServiceImpl：取消点赞/收藏
+        VideoLikeMapper videoLikeMapper = session.getMapper(VideoLikeMapper.class);
+        videoLikeMapper.selectPage(new Page<>(1, 10), new LambdaQueryWrapper<VideoLike>()
+                .eq(VideoLike::getUserId, 7L)
+                .orderByDesc(VideoLike::getCreateTime));
+        videoLikeMapper.delete(new LambdaQueryWrapper<VideoLike>()
+                .eq(VideoLike::getVideoId, 1L)
+                .eq(VideoLike::getUserId, 499L));
+        VideoFavoriteMapper videoFavoriteMapper = session.getMapper(VideoFavoriteMapper.class);
+        videoFavoriteMapper.selectPage(new Page<>(1, 10), new LambdaQueryWrapper<VideoFavorite>()
+                .eq(VideoFavorite::getUserId, 7L)
+                .orderByDesc(VideoFavorite::getCreateTime));
+        videoFavoriteMapper.delete(new LambdaQueryWrapper<VideoFavorite>()
+                .eq(VideoFavorite::getVideoId, 1L)
+                .eq(VideoFavorite::getUserId, 499L));
+
+        // BehaviorServiceImpl：评论列表按热度；取消评论点赞
+        session.getMapper(CommentMapper.class).selectPage(new Page<>(1, 10), new LambdaQueryWrapper<Comment>()
+                .eq(Comment::getVideoId, 1L)
+                .orderByDesc(Comment::getLikeCount)
+                .orderByDesc(Comment::getCreateTime));
+        session.getMapper(CommentLikeMapper.class).delete(new LambdaQueryWrapper<CommentLike>()
+                .eq(CommentLike::getCommentId, 1L)
+                .eq(CommentLike::getUserId, 499L));
+
+        // RelationServiceImpl / UserServiceImpl：关注、粉丝、是否关注
+        RelationMapper relationMapper = session.getMapper(RelationMapper.class);
+        relationMapper.selectCount(new LambdaQueryWrapper<Relation>().eq(Relation::getUserId, 7L));
+        relationMapper.selectCount(new LambdaQueryWrapper<Relation>().eq(Relation::getTargetId, 7L));
+        relationMapper.exists(new LambdaQueryWrapper<Relation>()
+                .eq(Relation::getUserId, 7L)
+                .eq(Relation::getTargetId, 8L));
+        relationMapper.selectList(new LambdaQueryWrapper<Relation>()
+                .eq(Relation::getUserId, 7L)
+                .in(Relation::getTargetId, List.of(1L, 2L, 3L)));
+        relationMapper.selectList(new LambdaQueryWrapper<Relation>()
+                .eq(Relation::getTargetId, 7L)
+                .in(Relation::getUserId, List.of(1L, 2L, 3L)));
+
+        // UserServiceImpl：用户列表
+        session.getMapper(UserMapper.class).selectPage(new Page<>(1, 10), new LambdaQueryWrapper<User>()
+                .select(User::getId, User::getUsername, User::getAvatar)
+                .ne(User::getId, 7L)
+                .orderByDesc(User::getId));
+
+        // SearchIndexService：搜索索引补齐，用户按主键、视频按 (update_time, id) 分批扫描
+        session.getMapper(UserMapper.class).selectList(new LambdaQueryWrapper<User>()
+                .select(User::getId, User::getUsername)
+                .gt(User::getId, 7L)
+                .orderByAsc(User::getId)
+                .last("LIMIT 1000"));
+        LocalDateTime since = LocalDateTime.now().minusMinutes(5);
+        videoMapper.selectList(new LambdaQueryWrapper<Video>()
+                .select(Video::getId, Video::getTitle, Video::getStatus, Video::getUpdateTime)
+                .ge(Video::getUpdateTime, since)
+                .and(w -> w.gt(Video::getUpdateTime, since).or().gt(Video::getId, 7L))
+                .orderByAsc(Video::getUpdateTime, Video::getId)
+                .last("LIMIT 1000"));
+
+        // NotificationServiceImpl：通知列表、未读数、标记已读、聚合合并
+        NotificationMapper notificationMapper = session.getMapper(NotificationMapper.class);
+        notificationMapper.selectPage(new Page<>(1, 10), new LambdaQueryWrapper<Notification>()
+                .eq(Notification::getUserId, 7L)
+                .orderByDesc(Notification::getCreateTime));
+        notificationMapper.selectCount(new LambdaQueryWrapper<Notification>()
+                .eq(Notification::getUserId, 7L)
+                .eq(Notification::getIsRead, 0));
+        notificationMapper.update(null, new LambdaUpdateWrapper<Notification>()
+                .eq(Notification::getUserId, 7L)
+                .eq(Notification::getIsRead, 0)
+                .set(Notification::getIsRead, 1)
+                .last("LIMIT 500"));
+        notificationMapper.update(null, new LambdaUpdateWrapper<Notification>()
+                .eq(Notification::getUserId, 8L)
+                .eq(Notification::getId, 8L)
+                .eq(Notification::getIsRead, 0)
+                .set(Notification::getIsRead, 1));
+        notificationMapper.selectList(new LambdaQueryWrapper<Notification>()
+                .select(Notification::getId, Notification::getAggKey, Notification::getLatestActorIds)
+                .in(Notification::getAggKey, List.of("k1", "k2"))
+                .eq(Notification::getIsRead, 0));
+
+        // DmServiceImpl：会话消息游标翻页、标记已读、收件箱
+        DmMessageMapper dmMessageMapper = session.getMapper(DmMessageMapper.class);
+        dmMessageMapper.selectList(new LambdaQueryWrapper<DmMessage>()
+                .eq(DmMessage::getConversationId, "1_2")
+                .lt(DmMessage::getSeq, 100L)
+                .orderByDesc(DmMessage::getSeq)
+                .last("LIMIT 21"));
+        dmMessageMapper.update(null, new LambdaUpdateWrapper<DmMessage>()
+                .eq(DmMessage::getSenderId, 2L)
+                .eq(DmMessage::getReceiverId, 1L)
+                .eq(DmMessage::getIsRead, 0)
+                .set(DmMessage::getIsRead, 1));
+        session.getMapper(DmInboxMapper.class).selectPage(new Page<>(1, 10), new LambdaQueryWrapper<DmInbox>()
+                .eq(DmInbox::getUserId, 1L)
+                .orderByDesc(DmInbox::getUpdateTime));
+
+        // AnalysisServiceImpl：全站累计与趋势
+        VideoStatBucketMapper videoStatBucketMapper = session.getMapper(VideoStatBucketMapper.class);
+        videoStatBucketMapper.selectOne(new LambdaQueryWrapper<VideoStatBucket>()
+                .eq(VideoStatBucket::getGranularity, VideoStatBucket.TOTAL)
+                .eq(VideoStatBucket::getBucketTime, VideoStatBucket.TOTAL_TIME));
+        videoStatBucketMapper.selectList(new LambdaQueryWrapper<VideoStatBucket>()
+                .eq(VideoStatBucket::getGranularity, VideoStatBucket.HOUR)
+                .ge(VideoStatBucket::getBucketTime, LocalDateTime.now().minusHours(24)));
+
+        // RecommendServiceImpl：个性化推荐结果
+        session.getMapper(RecommendationResultMapper.class).selectList(new LambdaQueryWrapper<RecommendationResult>()
+                .eq(RecommendationResult::getUserId, 7L)
+                .eq(RecommendationResult::getType, "OFFLINE")
+                .orderByDesc(RecommendationResult::getScore)
+                .last("LIMIT 0, 10"));
+
+        assertNoFullScan();
+    }
+
+    /**
+     * 依次执行所有自定义语句 (参数取种子数据中存在的值)
+     */
+    private void runCustomStatements() {
+        session.getMapper(UserBehaviorRollupMapper.class).upsert(7L, 1, 1L, LocalDateTime.now());
+
+        CommentMapper commentMapper = session.getMapper(CommentMapper.class);
+        commentMapper.incrLikeCount(1L, 1);
+        commentMapper.batchUpdateLikeCount(Map.of(1L, 1, 2L, 2));
+
+        DmConversationMapper dmConversationMapper = session.getMapper(DmConversationMapper.class);
+        dmConversationMapper.insertIgnore("1_2", 1L, 2L);
+        dmConversationMapper.selectForUpdate("1_2");
+        dmConversationMapper.appendMessage("1_2", 1L, 1L, true);
+
+        DmMessage message = new DmMessage();
+        message.setId(1L);
+        message.setConversationId("1_2");
+        message.setSeq(1L);
+        message.setSenderId(2L);
+        message.setMsgType(1);
+        message.setCreateTime(LocalDateTime.now());
+        DmInboxMapper dmInboxMapper = session.getMapper(DmInboxMapper.class);
+        dmInboxMapper.upsertLatest(1L, 2L, message, "hi", 1);
+        dmInboxMapper.clearUnread(1L, 2L);
+        dmInboxMapper.sumUnread(1L);
+
+        MediaObject object = new MediaObject();
+        object.setStorage("local");
+        object.setContentHash("h-new");
+        object.setSize(1L);
+        object.setUrl("/m/new");
+        object.setRefCount(1);
+        MediaObjectMapper mediaObjectMapper = session.getMapper(MediaObjectMapper.class);
+        mediaObjectMapper.insertIgnore(object);
+        mediaObjectMapper.incrRef(1L);
+
+        NotificationMapper notificationMapper = session.getMapper(NotificationMapper.class);
+        Notification notification = new Notification();
+        notification.setUserId(7L);
+        notification.setActorId(1L);
+        notification.setType(1);
+        notification.setIsRead(0);
+        notification.setActorCount(1);
+        notification.setCreateTime(LocalDateTime.now());
+        notificationMapper.batchInsert(List.of(notification));
+        Notification merge = new Notification();
+        merge.setId(1L);
+        merge.setActorId(2L);
+        merge.setActorCount(1);
+        merge.setLatestActorIds("2");
+        merge.setContent("c");
+        merge.setCreateTime(LocalDateTime.now());
+        notificationMapper.batchMergeAggregated(List.of(merge));
+
+        VideoStatMapper videoStatMapper = session.getMapper(VideoStatMapper.class);
+        videoStatMapper.incrLikeCount(1L, 1);
+        videoStatMapper.incrCollectCount(1L, 1);
+        videoStatMapper.incrShareCount(1L, 1);
+        videoStatMapper.incrPlayCount(1L, 1);
+        videoStatMapper.incrCommentCount(1L, 1);
+        videoStatMapper.batchUpdateStat(Map.of(1L, 1, 2L, 2), "play_count");
+        videoStatMapper.batchInsertIgnore(List.of(1L, 2001L));
+        videoStatMapper.sumAll();
+
+        LocalDateTime now = LocalDateTime.now();
+        session.getMapper(VideoStatBucketMapper.class).addDelta("play_count", 3L,
+                now.truncatedTo(ChronoUnit.DAYS), now.truncatedTo(ChronoUnit.HOURS));
+    }
+
+    private void assertNoFullScan() {
+        Map<String, String> scans = new LinkedHashMap<>();
+        recorder.plans.forEach((id, plan) -> {
+            // H2 的计划中全表扫描标记为 /* 库.表.tableScan */
+            if (plan.contains(".tableScan") && !FULL_SCAN_ALLOWED.containsKey(id)) {
+                scans.put(id, plan);
+            }
+        });
+        assertTrue(scans.isEmpty(), () -> {
+            StringBuilder message = new StringBuilder("以下语句走了全表扫描:");
+            scans.forEach((id, plan) -> message.append("\n").append(id).append("\n  ").append(plan.replace("\n", "\n  ")));
+            return message.toString();
+        });
+    }
+
+    /**
+     * 记录每条语句的执行，并对 SELECT / UPDATE / DELETE 用相同参数做一次 EXPLAIN
+     */
+    @Intercepts(@Signature(type = StatementHandler.class, method = "parameterize", args = Statement.class))
+    static class PlanRecorder implements Interceptor {
+
+        final Set<String> executed = new TreeSet<>();
+        final Map<String, String> plans = new LinkedHashMap<>();
+
+        @Override
+        public Object intercept(Invocation invocation) throws Throwable {
+            Object result = invocation.proceed();
+            StatementHandler handler = PluginUtils.realTarget(invocation.getTarget());
+            MappedStatement ms = PluginUtils.mpStatementHandler(handler).mappedStatement();
+            // 分页插件生成的 count 语句 id 为 原id_mpCount
+            String id = ms.getId().replace("_mpCount", "");
+            executed.add(id);
+            if (ms.getSqlCommandType() == SqlCommandType.INSERT) {
+                return result;
+            }
+            BoundSql boundSql = handler.getBoundSql();
+            Connection connection = ((Statement) invocation.getArgs()[0]).getConnection();
+            try (PreparedStatement explain = connection.prepareStatement("EXPLAIN " + boundSql.getSql())) {
+                handler.getParameterHandler().setParameters(explain);
+                StringBuilder plan = new StringBuilder();
+                try (ResultSet rs = explain.executeQuery()) {
+                    while (rs.next()) {
+                        plan.append(rs.getString(1));
+                    }
+                }
+                plans.merge(ms.getId(), plan.toString(), (a, b) -> a + "\n" + b);
+            }
+            return result;
+        }
+    }
+}
@@ -0,0 +1,125 @@
+package teektok.service.impl;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import teektok.dto.analysis.VideoAnalysisVO;
+import teektok.dto.analysis.VideoRankVO;
+import teektok.dto.analysis.VideoTrendPointVO;
+import teektok.entity.Video;
+import teektok.entity.VideoStatBucket;
+import teektok.mapper.VideoMapper;
+import teektok.mapper.VideoStatBucketMapper;
+import teektok.mapper.VideoStatMapper;
+import teektok.utils.VideoRanking;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * 看板读取增量汇总：累计总数按主键读取，趋势补齐空桶，排行过滤已删除视频
+ */
+class AnalysisServiceImplTests {
+
+    private AnalysisServiceImpl service;
+    private VideoStatMapper videoStatMapper;
+    private VideoStatBucketMapper videoStatBucketMapper;
+    private VideoMapper videoMapper;
+    private VideoRanking videoRanking;
+
+    @BeforeEach
+    void setUp() {
+        videoStatMapper = mock(VideoStatMapper.class);
+        videoStatBucketMapper = mock(VideoStatBucketMapper.class);
+        videoMapper = mock(VideoMapper.class);
+        videoRanking = mock(VideoRanking.class);
+        service = new AnalysisServiceImpl();
+        ReflectionTestUtils.setField(service, "videoStatMapper", videoStatMapper);
+        ReflectionTestUtils.setField(service, "videoStatBucketMapper", videoStatBucketMapper);
+        ReflectionTestUtils.setField(service, "videoMapper", videoMapper);
+        ReflectionTestUtils.setField(service, "videoRanking", videoRanking);
+    }
+
+    @Test
+    void readsTotalWithoutScanningVideoStat() {
+        VideoStatBucket total = bucket(VideoStatBucket.TOTAL_TIME, 100L, 20L);
+        total.setCommentCount(3L);
+        when(videoStatBucketMapper.selectOne(any())).thenReturn(total);
+
+        VideoAnalysisVO vo = service.getVideoAnalysis();
+
+        assertEquals(100L, vo.getPlayCount());
+        assertEquals(20L, vo.getLikeCount());
+        assertEquals(3L, vo.getCommentCount());
+        verify(videoStatMapper, never()).sumAll();
+    }
+
+    @Test
+    void fallsBackToSumBeforeInitialized() {
+        VideoAnalysisVO sum = new VideoAnalysisVO();
+        sum.setPlayCount(5L);
+        when(videoStatMapper.sumAll()).thenReturn(sum);
+
+        assertEquals(5L, service.getVideoAnalysis().getPlayCount());
+    }
+
+    @Test
+    void fillsMissingHoursWithZero() {
+        LocalDateTime hour = LocalDateTime.now().truncatedTo(ChronoUnit.HOURS);
+        when(videoStatBucketMapper.selectList(any())).thenReturn(List.of(bucket(hour.minusHours(1), 7L, 2L)));
+
+        List<VideoTrendPointVO> points = service.getTrend("hour", 3);
+
+        assertEquals(List.of(hour.minusHours(2), hour.minusHours(1), hour),
+                points.stream().map(VideoTrendPointVO::getTime).toList());
+        assertEquals(List.of(0L, 7L, 0L), points.stream().map(VideoTrendPointVO::getPlayCount).toList());
+        assertEquals(List.of(0L, 2L, 0L), points.stream().map(VideoTrendPointVO::getLikeCount).toList());
+    }
+
+    @Test
+    void rejectsUnknownGranularity() {
+        assertThrows(RuntimeException.class, () -> service.getTrend("minute", 10));
+    }
+
+    @Test
+    void topVideosKeepRankingOrderAndSkipDeleted() {
+        Map<Long, Long> ranking = new LinkedHashMap<>();
+        ranking.put(3L, 30L);
+        ranking.put(1L, 20L);
+        ranking.put(2L, 10L);
+        when(videoRanking.top(eq("play"), eq("day"), eq(10), any())).thenReturn(ranking);
+        // 视频 1 已删除
+        when(videoMapper.selectBatchIds(anyCollection())).thenReturn(List.of(video(2L), video(3L)));
+
+        List<VideoRankVO> top = service.getTopVideos("play", "day", null);
+
+        assertEquals(List.of(3L, 2L), top.stream().map(VideoRankVO::getVideoId).toList());
+        assertEquals(30L, top.get(0).getCount());
+        assertEquals("v3", top.get(0).getTitle());
+    }
+
+    private static VideoStatBucket bucket(LocalDateTime time, long plays, long likes) {
+        VideoStatBucket bucket = new VideoStatBucket();
+        bucket.setBucketTime(time);
+        bucket.setPlayCount(plays);
+        bucket.setLikeCount(likes);
+        bucket.setCommentCount(0L);
+        bucket.setShareCount(0L);
+        bucket.setFavoriteCount(0L);
+        return bucket;
+    }
+
+    private static Video video(long id) {
+        Video video = new Video();
+        video.setId(id);
+        video.setTitle("v" + id);
+        return video;
+    }
+}
@@ -0,0 +1,164 @@
+package teektok.service.impl;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentMatchers;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementCreator;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.test.util.ReflectionTestUtils;
+import teektok.config.BehaviorStorageProperties;
+
+import java.io.BufferedReader;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.ResultSet;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.startsWith;
+import static org.mockito.Mockito.*;
+
+/**
+ * 行为流水分区维护：补未来分区、过期分区导出后删除、行数不一致时保留分区
+ */
+class BehaviorRetentionServiceTests {
+
+    private static final LocalDate TODAY = LocalDate.of(2026, 10, 19);
+
+    @TempDir
+    Path archiveDir;
+
+    private JdbcTemplate jdbcTemplate;
+    private SimpleMeterRegistry meterRegistry;
+    private BehaviorRetentionService service;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate = mock(JdbcTemplate.class);
+        meterRegistry = new SimpleMeterRegistry();
+        BehaviorStorageProperties properties = new BehaviorStorageProperties();
+        properties.setArchiveDir(archiveDir.toString());
+
+        service = new BehaviorRetentionService();
+        ReflectionTestUtils.setField(service, "jdbcTemplate", jdbcTemplate);
+        ReflectionTestUtils.setField(service, "properties", properties);
+        ReflectionTestUtils.setField(service, "meterRegistry", meterRegistry);
+    }
+
+    @Test
+    void parsesPartitionDescription() {
+        assertEquals(LocalDate.of(2026, 5, 1), BehaviorRetentionService.parseUpperBound("'2026-05-01'"));
+        assertEquals(LocalDate.of(2026, 5, 1), BehaviorRetentionService.parseUpperBound("'2026-05-01 00:00:00'"));
+        assertNull(BehaviorRetentionService.parseUpperBound("MAXVALUE"));
+    }
+
+    @Test
+    void skipsWhenNotPartitioned() throws Exception {
+        stubPartitions(List.of());
+
+        assertEquals(0, service.maintain(TODAY));
+        verify(jdbcTemplate, never()).execute(anyString());
+    }
+
+    @Test
+    void splitsMaxPartitionUpToFutureMonths() throws Exception {
+        // 已有到 11 月的分区，默认提前 2 个月：补 11、12 月
+        stubPartitions(List.of(
+                partition("p202609", "2026-10-01"),
+                partition("p202610", "2026-11-01"),
+                partition("pmax", null)));
+
+        service.maintain(TODAY);
+
+        verify(jdbcTemplate).execute("ALTER TABLE user_behavior REORGANIZE PARTITION pmax INTO ("
+                + "PARTITION p202611 VALUES LESS THAN ('2026-12-01'), "
+                + "PARTITION p202612 VALUES LESS THAN ('2027-01-01'), "
+                + "PARTITION pmax VALUES LESS THAN (MAXVALUE))");
+        verify(jdbcTemplate, never()).execute(startsWith("ALTER TABLE user_behavior DROP"));
+    }
+
+    @Test
+    void archivesAndDropsExpiredPartition() throws Exception {
+        // 保留 6 个整月：上界不晚于 2026-04-01 的分区过期
+        stubPartitions(List.of(
+                partition("p_legacy", "2026-03-01"),
+                partition("p202603", "2026-04-01"),
+                partition("p202604", "2026-05-01"),
+                partition("p202612", "2027-01-01"),
+                partition("pmax", null)));
+        stubRows(2);
+        when(jdbcTemplate.queryForObject(startsWith("SELECT COUNT(*)"), eq(Long.class))).thenReturn(2L);
+
+        assertEquals(2, service.maintain(TODAY));
+
+        verify(jdbcTemplate).execute("ALTER TABLE user_behavior DROP PARTITION p_legacy");
+        verify(jdbcTemplate).execute("ALTER TABLE user_behavior DROP PARTITION p202603");
+        verify(jdbcTemplate, never()).execute("ALTER TABLE user_behavior DROP PARTITION p202604");
+
+        List<String> lines = readArchive(archiveDir.resolve("user_behavior/p202603.tsv.gz"));
+        assertEquals(List.of(BehaviorRetentionService.ARCHIVE_HEADER,
+                "1\t7\t100\t1\t2026-03-15T10:00",
+                "2\t7\t100\t1\t2026-03-15T10:00"), lines);
+        assertFalse(Files.exists(archiveDir.resolve("user_behavior/p202603.tsv.gz.tmp")));
+        assertEquals(4.0, meterRegistry.get("teektok.behavior.archive.rows").counter().count());
+    }
+
+    @Test
+    void keepsPartitionWhenCountMismatch() throws Exception {
+        stubRows(2);
+        when(jdbcTemplate.queryForObject(startsWith("SELECT COUNT(*)"), eq(Long.class))).thenReturn(3L);
+
+        assertFalse(service.archiveAndDrop(partition("p202603", "2026-04-01")));
+
+        verify(jdbcTemplate, never()).execute(anyString());
+        try (var files = Files.list(archiveDir.resolve("user_behavior"))) {
+            assertEquals(0, files.count());
+        }
+    }
+
+    private static BehaviorRetentionService.Partition partition(String name, String upperBound) {
+        return new BehaviorRetentionService.Partition(name, upperBound == null ? null : LocalDate.parse(upperBound));
+    }
+
+    private void stubPartitions(List<BehaviorRetentionService.Partition> partitions) {
+        when(jdbcTemplate.query(eq(BehaviorRetentionService.PARTITIONS_SQL),
+                ArgumentMatchers.<RowMapper<BehaviorRetentionService.Partition>>any())).thenReturn(partitions);
+    }
+
+    // 每个分区导出 rows 行相同的数据
+    private void stubRows(int rows) throws Exception {
+        ResultSet rs = mock(ResultSet.class);
+        when(rs.getLong(1)).thenReturn(1L, 2L, 1L, 2L);
+        when(rs.getLong(2)).thenReturn(7L);
+        when(rs.getLong(3)).thenReturn(100L);
+        when(rs.getInt(4)).thenReturn(1);
+        when(rs.getTimestamp(5)).thenReturn(Timestamp.valueOf(LocalDateTime.of(2026, 3, 15, 10, 0)));
+        doAnswer(invocation -> {
+            RowCallbackHandler handler = invocation.getArgument(1);
+            for (int i = 0; i < rows; i++) {
+                handler.processRow(rs);
+            }
+            return null;
+        }).when(jdbcTemplate).query(any(PreparedStatementCreator.class), any(RowCallbackHandler.class));
+    }
+
+    private static List<String> readArchive(Path file) throws Exception {
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+                new GZIPInputStream(Files.newInputStream(file)), StandardCharsets.UTF_8))) {
+            return reader.lines().collect(Collectors.toList());
+        }
+    }
+}
@@ -0,0 +1,217 @@
+package teektok.service.impl;
+
+import com.baomidou.mybatisplus.core.MybatisConfiguration;
+import com.baomidou.mybatisplus.core.metadata.TableInfoHelper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.ibatis.builder.MapperBuilderAssistant;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.data.redis.connection.StringRedisConnection;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+import teektok.config.NotificationProperties;
+import teektok.entity.Notification;
+import teektok.mapper.NotificationMapper;
+import teektok.service.IPushService;
+import teektok.utils.SlotPipeline;
+import teektok.utils.UnreadCountCache;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+/**
+ * 通知缓冲落库：写入失败不丢通知，聚合通知的操作人数跨多次落库去重
+ * Redis 集合用内存 Map 代替
+ */
+class NotificationServiceImplTests {
+
+    private static final int TYPE_LIKE = 2;
+    private static final int TYPE_COMMENT = 3;
+
+    private NotificationServiceImpl service;
+    private NotificationMapper mapper;
+    private SimpleMeterRegistry registry;
+    private final Map<String, Set<String>> redisSets = new HashMap<>();
+
+    @BeforeAll
+    static void initTableInfo() {
+        TableInfoHelper.initTableInfo(new MapperBuilderAssistant(new MybatisConfiguration(), ""), Notification.class);
+    }
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        mapper = mock(NotificationMapper.class);
+        registry = new SimpleMeterRegistry();
+        // 用真实的 SlotPipeline，Pipeline 的返回值与 Redis 一样是所有命令结果平铺的一个 List
+        StringRedisTemplate template = mock(StringRedisTemplate.class);
+        when(template.executePipelined(any(RedisCallback.class))).thenAnswer(inv -> {
+            List<Object> replies = new ArrayList<>();
+            inv.<RedisCallback<Object>>getArgument(0).doInRedis(connection(replies));
+            return replies;
+        });
+        SlotPipeline slotPipeline = new SlotPipeline();
+        ReflectionTestUtils.setField(slotPipeline, "stringRedisTemplate", template);
+
+        service = new NotificationServiceImpl();
+        ReflectionTestUtils.setField(service, "baseMapper", mapper);
+        ReflectionTestUtils.setField(service, "notificationProperties", new NotificationProperties());
+        ReflectionTestUtils.setField(service, "unreadCountCache", mock(UnreadCountCache.class));
+        ReflectionTestUtils.setField(service, "pushService", mock(IPushService.class));
+        ReflectionTestUtils.setField(service, "slotPipeline", slotPipeline);
+        ReflectionTestUtils.setField(service, "meterRegistry", registry);
+    }
+
+    // 只实现用到的 DEL / SADD / EXPIRE，按 Pipeline 的方式收集返回值
+    private StringRedisConnection connection(List<Object> replies) {
+        return mock(StringRedisConnection.class, inv -> {
+            Object[] args = inv.getArguments();
+            Object reply = switch (inv.getMethod().getName()) {
+                case "del" -> redisSets.remove((String) args[0]) == null ? 0L : 1L;
+                case "sAdd" -> {
+                    Set<String> set = redisSets.computeIfAbsent((String) args[0], k -> new HashSet<>());
+                    long added = 0;
+                    for (int i = 1; i < args.length; i++) {
+                        if (set.add((String) args[i])) added++;
+                    }
+                    yield added;
+                }
+                case "expire" -> true;
+                default -> throw new UnsupportedOperationException(inv.getMethod().getName());
+            };
+            replies.add(reply);
+            return null;
+        });
+    }
+
+    private void like(long userId, long actorId) {
+        service.createNotification(userId, actorId, TYPE_LIKE, 1, 9L, null);
+    }
+
+    @Test
+    void repeatActorInLaterFlushIsCountedOnce() {
+        like(1, 10);
+        service.flushPendingNotifications();
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<Notification>> inserted = ArgumentCaptor.forClass(List.class);
+        verify(mapper).batchInsert(inserted.capture());
+        Notification row = inserted.getValue().get(0);
+        assertEquals(1, row.getActorCount());
+
+        // 同一窗口内 10 再次点赞，11 第一次点赞：合并进未读旧行，只增加 1 人
+        Notification old = new Notification();
+        old.setId(100L);
+        old.setAggKey(row.getAggKey());
+        old.setLatestActorIds("10");
+        when(mapper.selectList(any())).thenReturn(List.of(old));
+        like(1, 10);
+        like(1, 11);
+        service.flushPendingNotifications();
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<Notification>> merged = ArgumentCaptor.forClass(List.class);
+        verify(mapper).batchMergeAggregated(merged.capture());
+        assertEquals(1, merged.getValue().get(0).getActorCount());
+        assertEquals("11,10", merged.getValue().get(0).getLatestActorIds());
+
+        // 只有 10 再来一次：不增加人数
+        like(1, 10);
+        service.flushPendingNotifications();
+        verify(mapper, times(2)).batchMergeAggregated(merged.capture());
+        assertEquals(0, merged.getValue().get(0).getActorCount());
+    }
+
+    @Test
+    void newAndMergedBucketsInOneFlushCountActorsSeparately() {
+        like(1, 10);
+        service.flushPendingNotifications();
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<Notification>> inserted = ArgumentCaptor.forClass(List.class);
+        verify(mapper).batchInsert(inserted.capture());
+
+        Notification old = new Notification();
+        old.setId(100L);
+        old.setAggKey(inserted.getValue().get(0).getAggKey());
+        old.setLatestActorIds("10");
+        when(mapper.selectList(any())).thenReturn(List.of(old));
+        // 用户 1 的桶合并进旧行 (10 已计入)，用户 2、3 的桶新插入：几种桶同一次落库
+        like(1, 10);
+        like(2, 10);
+        like(2, 11);
+        like(3, 12);
+        service.flushPendingNotifications();
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<Notification>> merged = ArgumentCaptor.forClass(List.class);
+        verify(mapper).batchMergeAggregated(merged.capture());
+        assertEquals(0, merged.getValue().get(0).getActorCount());
+        verify(mapper, times(2)).batchInsert(inserted.capture());
+        Map<Long, Integer> counts = new HashMap<>();
+        inserted.getValue().forEach(n -> counts.put(n.getUserId(), n.getActorCount()));
+        assertEquals(Map.of(2L, 2, 3L, 1), counts);
+
+        // 新行的集合已重建：用户 2 的 11 再来一次不增加人数，13 增加 1 人
+        Notification old2 = new Notification();
+        old2.setId(101L);
+        old2.setAggKey(inserted.getValue().stream().filter(n -> n.getUserId() == 2L).findFirst().orElseThrow().getAggKey());
+        when(mapper.selectList(any())).thenReturn(List.of(old2));
+        like(2, 11);
+        like(2, 13);
+        service.flushPendingNotifications();
+        verify(mapper, times(2)).batchMergeAggregated(merged.capture());
+        assertEquals(1, merged.getValue().get(0).getActorCount());
+    }
+
+    @Test
+    void failedMergeIsRetriedWithoutLosingTheIncrement() {
+        like(1, 10);
+        service.flushPendingNotifications();
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<Notification>> captor = ArgumentCaptor.forClass(List.class);
+        verify(mapper).batchInsert(captor.capture());
+
+        Notification old = new Notification();
+        old.setId(100L);
+        old.setAggKey(captor.getValue().get(0).getAggKey());
+        when(mapper.selectList(any())).thenReturn(List.of(old));
+        doThrow(new RuntimeException("lock wait timeout")).doNothing().when(mapper).batchMergeAggregated(anyList());
+        like(1, 11);
+        service.flushPendingNotifications();
+        // 重试时 11 已在集合中，增量沿用上次算出的值
+        like(1, 12);
+        service.flushPendingNotifications();
+
+        verify(mapper, times(2)).batchMergeAggregated(captor.capture());
+        assertEquals(2, captor.getValue().get(0).getActorCount());
+    }
+
+    @Test
+    void failedBatchFallsBackToRowsAndRequeuesFailures() {
+        doThrow(new RuntimeException("batch failed")).when(mapper).batchInsert(anyList());
+        when(mapper.insert(any(Notification.class))).thenAnswer(inv -> {
+            Notification n = inv.getArgument(0);
+            if (n.getUserId() == 2L) throw new RuntimeException("bad row");
+            return 1;
+        });
+        service.createNotification(1L, 10L, TYPE_COMMENT, 1, 9L, "好看");
+        service.createNotification(2L, 10L, TYPE_COMMENT, 1, 9L, "好看");
+
+        service.flushPendingNotifications();
+        verify(mapper, times(2)).insert(any(Notification.class));
+
+        // 失败的一条留在缓冲区里，重试到上限后丢弃并计数
+        for (int i = 0; i < 10; i++) {
+            service.flushPendingNotifications();
+        }
+        verify(mapper, times(6)).insert(any(Notification.class));
+        assertEquals(1, registry.counter("teektok.notification.dropped", "kind", "single").count());
+    }
+}
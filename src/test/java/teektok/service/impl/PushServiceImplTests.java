@@ -0,0 +1,90 @@
+package teektok.service.impl;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+import teektok.config.PushProperties;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+/**
+ * pushExecutor 饱和时不在调用线程 (Redis 订阅线程/请求线程) 上写 SSE，事件留在连接队列里稍后发送
+ */
+class PushServiceImplTests {
+
+    private PushServiceImpl service;
+    private ThreadPoolExecutor pushExecutor;
+    private SimpleMeterRegistry registry;
+    private final CountDownLatch release = new CountDownLatch(1);
+
+    @BeforeEach
+    void setUp() {
+        // 一个线程 + 一个队列位，都被占住
+        pushExecutor = new ThreadPoolExecutor(1, 1, 60, TimeUnit.SECONDS, new ArrayBlockingQueue<>(1),
+                new ThreadPoolExecutor.AbortPolicy());
+        pushExecutor.execute(this::awaitRelease);
+        pushExecutor.execute(() -> {
+        });
+
+        StringRedisTemplate redis = mock(StringRedisTemplate.class);
+        doThrow(new RuntimeException("redis down")).when(redis).convertAndSend(anyString(), anyString());
+        registry = new SimpleMeterRegistry();
+        service = new PushServiceImpl();
+        ReflectionTestUtils.setField(service, "pushProperties", new PushProperties());
+        ReflectionTestUtils.setField(service, "stringRedisTemplate", redis);
+        ReflectionTestUtils.setField(service, "redisConnectionFactory", mock(RedisConnectionFactory.class));
+        ReflectionTestUtils.setField(service, "objectMapper", new ObjectMapper());
+        ReflectionTestUtils.setField(service, "meterRegistry", registry);
+        ReflectionTestUtils.setField(service, "pushExecutor", pushExecutor);
+        service.init();
+    }
+
+    @AfterEach
+    void tearDown() {
+        release.countDown();
+        pushExecutor.shutdownNow();
+    }
+
+    @Test
+    void saturatedExecutorLeavesEventsQueued() throws Exception {
+        service.subscribe(1L);
+        service.push(1L, "notification", null);
+
+        assertEquals(2, registry.counter("teektok.push.drains.rejected").count());
+        assertEquals(0, registry.counter("teektok.push.events.sent").count());
+        assertEquals(2, registry.get("teektok.push.queued").gauge().value());
+
+        // 线程池空出来后，下一个事件把积压的一起发出
+        release.countDown();
+        while (pushExecutor.getQueue().size() + pushExecutor.getActiveCount() > 0) {
+            Thread.sleep(5);
+        }
+        service.heartbeat();
+        long deadline = System.currentTimeMillis() + 5000;
+        while (registry.counter("teektok.push.events.sent").count() < 3 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(5);
+        }
+        assertEquals(3, registry.counter("teektok.push.events.sent").count());
+        assertEquals(0, registry.get("teektok.push.queued").gauge().value());
+    }
+
+    private void awaitRelease() {
+        try {
+            release.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,158 @@
+package teektok.service.impl;
+
+import com.baomidou.mybatisplus.core.MybatisConfiguration;
+import com.baomidou.mybatisplus.core.conditions.AbstractWrapper;
+import com.baomidou.mybatisplus.core.conditions.Wrapper;
+import com.baomidou.mybatisplus.core.metadata.TableInfoHelper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.ibatis.builder.MapperBuilderAssistant;
+import org.apache.lucene.store.ByteBuffersDirectory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.test.util.ReflectionTestUtils;
+import teektok.config.SearchProperties;
+import teektok.entity.User;
+import teektok.entity.Video;
+import teektok.mapper.UserMapper;
+import teektok.mapper.VideoMapper;
+import teektok.utils.SearchIndex;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+/**
+ * 索引补齐：用户按 id 递增，视频从上次扫描到的 update_time (回退一小段) 开始扫，只改与审核状态不一致的文档
+ */
+class SearchIndexServiceTests {
+
+    private SearchIndexService service;
+    private SearchIndex index;
+    private UserMapper userMapper;
+    private VideoMapper videoMapper;
+
+    @BeforeAll
+    static void initTableInfo() {
+        // 补齐查询用 Lambda 指定列，需要实体的表信息 (正常由 MyBatis-Plus 启动时扫描 Mapper 生成)
+        MapperBuilderAssistant assistant = new MapperBuilderAssistant(new MybatisConfiguration(), "");
+        TableInfoHelper.initTableInfo(assistant, User.class);
+        TableInfoHelper.initTableInfo(assistant, Video.class);
+    }
+
+    @BeforeEach
+    void setUp() throws Exception {
+        SearchProperties properties = new SearchProperties();
+        properties.setEnabled(false);
+        properties.setBatchSize(2);
+        userMapper = mock(UserMapper.class);
+        videoMapper = mock(VideoMapper.class);
+        service = new SearchIndexService();
+        ReflectionTestUtils.setField(service, "properties", properties);
+        ReflectionTestUtils.setField(service, "userMapper", userMapper);
+        ReflectionTestUtils.setField(service, "videoMapper", videoMapper);
+        ReflectionTestUtils.setField(service, "meterRegistry", new SimpleMeterRegistry());
+        service.init();
+        index = new SearchIndex(new ByteBuffersDirectory());
+        service.open(index);
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        index.close();
+    }
+
+    private List<Long> search(String type, String keyword) {
+        return service.search(type, keyword, null, null, 10).list().stream().map(SearchIndex.Hit::id).toList();
+    }
+
+    @Test
+    void catchUpBuildsIndexAndTracksProgress() {
+        when(userMapper.selectList(any())).thenReturn(List.of(user(1, "张三"), user(2, "李四")), List.of(user(3, "张小三")));
+        when(videoMapper.selectList(any())).thenReturn(List.of(video(1, "猫咪", 1, 10), video(2, "猫咪待审", 0, 20)), List.of(video(3, "小猫", 1, 25)));
+
+        assertFalse(service.isReady());
+        assertThrows(RuntimeException.class, () -> search(SearchIndex.USER, "张"));
+
+        assertEquals(5, service.catchUp());
+
+        assertTrue(service.isReady());
+        assertEquals(List.of(3L, 1L), search(SearchIndex.USER, "三"));
+        assertEquals(List.of(1L, 3L), search(SearchIndex.VIDEO, "猫"));
+        assertEquals("3", index.commitData().get(SearchIndexService.USERS_AFTER));
+        // 记录扫到的最大 update_time，下一轮只扫之后变更的视频
+        assertEquals(at(25).toString(), index.commitData().get(SearchIndexService.VIDEOS_UPDATED));
+    }
+
+    @Test
+    void rescanAppliesMissedAuditResults() {
+        when(userMapper.selectList(any())).thenReturn(List.of());
+        when(videoMapper.selectList(any())).thenReturn(List.of(video(1, "猫咪", 1, 10), video(2, "小猫", 0, 20)), List.of());
+        service.catchUp();
+
+        // 视频 2 审核通过的消息没收到，审核时更新了 update_time
+        when(videoMapper.selectList(any())).thenReturn(List.of(video(2, "小猫", 1, 30)));
+        assertEquals(1, service.catchUp());
+        assertEquals(List.of(1L, 2L), search(SearchIndex.VIDEO, "猫"));
+        assertEquals(at(30).toString(), index.commitData().get(SearchIndexService.VIDEOS_UPDATED));
+
+        // 下一轮从上次的进度回退 5 分钟开始，不再从头扫
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<Wrapper<Video>> query = ArgumentCaptor.forClass(Wrapper.class);
+        when(videoMapper.selectList(query.capture())).thenReturn(List.of());
+        assertEquals(0, service.catchUp());
+        AbstractWrapper<?, ?, ?> wrapper = (AbstractWrapper<?, ?, ?>) query.getValue();
+        // 参数在生成 SQL 片段时才填入
+        wrapper.getSqlSegment();
+        assertTrue(wrapper.getParamNameValuePairs().containsValue(at(25)));
+
+        // 回退窗口内已索引且状态未变的视频不会重写
+        when(videoMapper.selectList(any())).thenReturn(List.of(video(2, "小猫", 1, 30)));
+        assertEquals(0, service.catchUp());
+    }
+
+    @Test
+    void appliesChangeMessagesFromDatabase() {
+        when(userMapper.selectList(any())).thenReturn(List.of());
+        when(videoMapper.selectList(any())).thenReturn(List.of());
+        service.catchUp();
+
+        when(userMapper.selectById(5L)).thenReturn(user(5, "新用户"));
+        when(videoMapper.selectById(8L)).thenReturn(video(8, "新视频", 1, 0));
+        service.apply("user:5");
+        service.apply("video:8");
+        assertEquals(List.of(5L), search(SearchIndex.USER, "新用户"));
+        assertEquals(List.of(8L), search(SearchIndex.VIDEO, "视频"));
+
+        // 删除 (逻辑删除后查不到) 或驳回后移出索引
+        when(videoMapper.selectById(8L)).thenReturn(null);
+        service.apply("video:8");
+        service.apply("bad message");
+        assertEquals(List.of(), search(SearchIndex.VIDEO, "视频"));
+    }
+
+    private static User user(long id, String name) {
+        User user = new User();
+        user.setId(id);
+        user.setUsername(name);
+        return user;
+    }
+
+    private static Video video(long id, String title, int status, int minute) {
+        Video video = new Video();
+        video.setId(id);
+        video.setTitle(title);
+        video.setStatus(status);
+        video.setUpdateTime(at(minute));
+        return video;
+    }
+
+    private static LocalDateTime at(int minute) {
+        return LocalDateTime.of(2024, 1, 1, 0, 0).plusMinutes(minute);
+    }
+}
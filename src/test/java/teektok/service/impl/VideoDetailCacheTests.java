@@ -0,0 +1,165 @@
+package teektok.service.impl;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.core.HashOperations;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.SetOperations;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.test.util.ReflectionTestUtils;
+import teektok.config.CacheProperties;
+import teektok.config.RedisConfig;
+import teektok.dto.video.VideoVO;
+import teektok.entity.User;
+import teektok.entity.Video;
+import teektok.mapper.RelationMapper;
+import teektok.mapper.VideoMapper;
+import teektok.mapper.VideoStatMapper;
+import teektok.service.IRelationService;
+import teektok.service.IUserService;
+import teektok.utils.BaseContext;
+import teektok.utils.HotKeyCache;
+
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * 视频详情缓存回归：缓存预热后详情请求不应再查库 (包括不存在的视频)
+ * Redis 用内存 Map 模拟，值经过 RedisConfig 配置的 Jackson 序列化器存取 (与线上一致)；
+ * Mapper 用 Mockito 替身，通过交互次数判断是否执行了 SQL
+ */
+class VideoDetailCacheTests {
+
+    private VideoServiceImpl videoService;
+    private VideoMapper videoMapper;
+    private VideoStatMapper videoStatMapper;
+    private RelationMapper relationMapper;
+    private final Map<String, byte[]> redis = new HashMap<>();
+    private RedisSerializer<Object> serializer;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        serializer = (RedisSerializer<Object>) new RedisConfig()
+                .redisTemplate(mock(RedisConnectionFactory.class))
+                .getValueSerializer();
+        RedisTemplate<String, Object> redisTemplate = mock(RedisTemplate.class);
+        StringRedisTemplate stringRedisTemplate = mock(StringRedisTemplate.class);
+        ValueOperations<String, Object> values = mock(ValueOperations.class);
+        HashOperations<String, Object, Object> hashes = mock(HashOperations.class);
+        SetOperations<String, String> sets = mock(SetOperations.class);
+        when(redisTemplate.opsForValue()).thenReturn(values);
+        when(redisTemplate.<Object, Object>opsForHash()).thenReturn(hashes);
+        when(stringRedisTemplate.opsForSet()).thenReturn(sets);
+        when(values.get(anyString())).thenAnswer(inv -> serializer.deserialize(redis.get(inv.<String>getArgument(0))));
+        doAnswer(inv -> redis.put(inv.getArgument(0), serializer.serialize(inv.getArgument(1))))
+                .when(values).set(anyString(), any(), anyLong(), any(TimeUnit.class));
+        when(hashes.entries("video:stat:1")).thenReturn(Map.of("playCount", 10, "likeCount", 2));
+        when(sets.isMember(anyString(), anyString())).thenReturn(false);
+
+        HotKeyCache hotKeyCache = new HotKeyCache();
+        ReflectionTestUtils.setField(hotKeyCache, "redisTemplate", redisTemplate);
+        ReflectionTestUtils.setField(hotKeyCache, "stringRedisTemplate", stringRedisTemplate);
+        ReflectionTestUtils.setField(hotKeyCache, "properties", new CacheProperties());
+        ReflectionTestUtils.setField(hotKeyCache, "meterRegistry", new SimpleMeterRegistry());
+
+        User uploader = new User();
+        uploader.setId(7L);
+        uploader.setUsername("uploader");
+        IUserService userService = mock(IUserService.class);
+        when(userService.getUserCached(7L)).thenReturn(uploader);
+        IRelationService relationService = mock(IRelationService.class);
+        when(relationService.isFollowing(100L, 7L)).thenReturn(true);
+
+        Video video = new Video();
+        video.setId(1L);
+        video.setTitle("t");
+        video.setUploaderId(7L);
+        videoMapper = mock(VideoMapper.class);
+        when(videoMapper.selectById(1L)).thenReturn(video);
+        videoStatMapper = mock(VideoStatMapper.class);
+        relationMapper = mock(RelationMapper.class);
+
+        videoService = new VideoServiceImpl();
+        ReflectionTestUtils.setField(videoService, "baseMapper", videoMapper);
+        ReflectionTestUtils.setField(videoService, "videoStatMapper", videoStatMapper);
+        ReflectionTestUtils.setField(videoService, "relationMapper", relationMapper);
+        ReflectionTestUtils.setField(videoService, "userService", userService);
+        ReflectionTestUtils.setField(videoService, "relationService", relationService);
+        ReflectionTestUtils.setField(videoService, "hotKeyCache", hotKeyCache);
+        ReflectionTestUtils.setField(videoService, "redisTemplate", redisTemplate);
+        ReflectionTestUtils.setField(videoService, "stringRedisTemplate", stringRedisTemplate);
+
+        BaseContext.setCurrentId(100L);
+    }
+
+    @AfterEach
+    void tearDown() {
+        BaseContext.removeCurrentId();
+    }
+
+    @Test
+    void warmDetailDoesNoSql() {
+        videoService.getDetail(1L);
+        verify(videoMapper, times(1)).selectById(1L);
+        clearInvocations(videoMapper);
+
+        for (int i = 0; i < 3; i++) {
+            VideoVO vo = videoService.getDetail(1L);
+            assertEquals("t", vo.getTitle());
+            assertEquals("uploader", vo.getUploaderName());
+            assertEquals(10L, vo.getPlayCount());
+            assertTrue(vo.getIsFollowed());
+        }
+
+        verifyNoInteractions(videoMapper, videoStatMapper, relationMapper);
+    }
+
+    @Test
+    void entryRoundTripsThroughRedisSerializer() {
+        Video video = new Video();
+        video.setId(1L);
+        video.setTitle("t");
+        video.setUploaderId(7L);
+        video.setStatus(1);
+        video.setCreateTime(LocalDateTime.of(2024, 5, 1, 12, 30, 15));
+        HotKeyCache.Entry entry = new HotKeyCache.Entry();
+        entry.setData(video);
+        entry.setExpireAt(1_700_000_000_123L);
+
+        // 反序列化后仍是 Entry (不是 LinkedHashMap)，否则逻辑过期判断不生效，每次都回源
+        Object restored = serializer.deserialize(serializer.serialize(entry));
+        HotKeyCache.Entry copy = assertInstanceOf(HotKeyCache.Entry.class, restored);
+        assertEquals(1_700_000_000_123L, copy.getExpireAt());
+        Video data = assertInstanceOf(Video.class, copy.getData());
+        assertEquals(video, data);
+
+        // 不存在的视频缓存为 data=null 的条目
+        HotKeyCache.Entry empty = new HotKeyCache.Entry();
+        empty.setExpireAt(1L);
+        HotKeyCache.Entry emptyCopy = assertInstanceOf(HotKeyCache.Entry.class,
+                serializer.deserialize(serializer.serialize(empty)));
+        assertNull(emptyCopy.getData());
+    }
+
+    @Test
+    void missingVideoIsCachedAsNull() {
+        assertThrows(RuntimeException.class, () -> videoService.getDetail(2L));
+        verify(videoMapper, times(1)).selectById(2L);
+
+        RuntimeException e = assertThrows(RuntimeException.class, () -> videoService.getDetail(2L));
+        assertEquals("视频不存在", e.getMessage());
+        verify(videoMapper, times(1)).selectById(2L);
+    }
+}
@@ -0,0 +1,82 @@
+package teektok.utils;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledForJreRange;
+import org.junit.jupiter.api.condition.JRE;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 虚拟线程执行器：同时执行的任务数不超过许可数，等待任务超出上限时退回提交线程执行
+ */
+@EnabledForJreRange(min = JRE.JAVA_21)
+class BoundedVirtualThreadExecutorTests {
+
+    @Test
+    void limitsConcurrencyWithPermits() throws Exception {
+        AtomicInteger callerRuns = new AtomicInteger();
+        BoundedVirtualThreadExecutor executor = new BoundedVirtualThreadExecutor("test-vt-", 2, 100, callerRuns::incrementAndGet);
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(5);
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger maxRunning = new AtomicInteger();
+
+        for (int i = 0; i < 5; i++) {
+            executor.execute(() -> {
+                maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                running.decrementAndGet();
+                done.countDown();
+            });
+        }
+
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while ((executor.getActiveCount() < 2 || executor.getWaitingCount() < 3) && System.nanoTime() < deadline) {
+            Thread.sleep(5);
+        }
+        assertEquals(2, executor.getActiveCount());
+        assertEquals(3, executor.getWaitingCount());
+
+        release.countDown();
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        assertEquals(2, maxRunning.get());
+        assertEquals(0, callerRuns.get());
+    }
+
+    @Test
+    void runsInCallerWhenTooManyWaiting() throws Exception {
+        AtomicInteger callerRuns = new AtomicInteger();
+        BoundedVirtualThreadExecutor executor = new BoundedVirtualThreadExecutor("test-vt-", 1, 1, callerRuns::incrementAndGet);
+        CountDownLatch release = new CountDownLatch(1);
+        Runnable blocking = () -> {
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        };
+        executor.execute(blocking);
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (executor.getActiveCount() < 1 && System.nanoTime() < deadline) {
+            Thread.sleep(5);
+        }
+        executor.execute(blocking);
+
+        Thread caller = Thread.currentThread();
+        AtomicInteger ranOnCaller = new AtomicInteger();
+        executor.execute(() -> {
+            if (Thread.currentThread() == caller) ranOnCaller.incrementAndGet();
+        });
+        assertEquals(1, ranOnCaller.get());
+        assertEquals(1, callerRuns.get());
+        release.countDown();
+    }
+}
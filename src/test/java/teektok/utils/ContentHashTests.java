@@ -0,0 +1,65 @@
+package teektok.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 分片上传时各分片边写边算的分块摘要，拼接后与整文件计算的哈希一致
+ */
+class ContentHashTests {
+
+    private static byte[] content(int size) {
+        byte[] bytes = new byte[size];
+        new Random(7).nextBytes(bytes);
+        return bytes;
+    }
+
+    @Test
+    void partDigestsCombineToWholeFileHash() throws Exception {
+        int partSize = 2 * ContentHash.BLOCK_SIZE;
+        byte[] file = content(5 * ContentHash.BLOCK_SIZE + 123);
+        String whole = ContentHash.of(new ByteArrayInputStream(file));
+
+        ByteArrayOutputStream digests = new ByteArrayOutputStream();
+        for (int off = 0; off < file.length; off += partSize) {
+            byte[] part = Arrays.copyOfRange(file, off, Math.min(file.length, off + partSize));
+            ContentHash.DigestingInputStream in = ContentHash.digesting(new ByteArrayInputStream(part));
+            // 存储后端按自己的缓冲区大小读取
+            in.readAllBytes();
+            assertEquals(part.length, in.count());
+            digests.writeBytes(in.blockDigests());
+        }
+
+        assertTrue(ContentHash.isValid(whole));
+        assertEquals(whole, ContentHash.combine(digests.toByteArray()));
+    }
+
+    @Test
+    void differentContentOrLengthGivesDifferentHash() throws Exception {
+        byte[] file = content(ContentHash.BLOCK_SIZE + 1);
+        String hash = ContentHash.of(new ByteArrayInputStream(file));
+
+        byte[] changed = file.clone();
+        changed[ContentHash.BLOCK_SIZE] ^= 1;
+        assertNotEquals(hash, ContentHash.of(new ByteArrayInputStream(changed)));
+        assertNotEquals(hash, ContentHash.of(new ByteArrayInputStream(Arrays.copyOf(file, ContentHash.BLOCK_SIZE))));
+    }
+
+    @Test
+    void skippedBytesAreDigested() throws Exception {
+        byte[] file = content(3000);
+        ContentHash.DigestingInputStream in = ContentHash.digesting(new ByteArrayInputStream(file));
+        assertEquals(1000, in.skip(1000));
+        in.readAllBytes();
+
+        InputStream plain = new ByteArrayInputStream(file);
+        assertEquals(ContentHash.of(plain), ContentHash.combine(in.blockDigests()));
+    }
+}
@@ -0,0 +1,129 @@
+package teektok.utils;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import teektok.config.ExecutorProperties;
+
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 并行扇出：子查询并行执行，超时或失败时返回降级值，当前用户与请求统计带到子线程
+ */
+class FanOutTests {
+
+    private ExecutorService pool;
+    private SimpleMeterRegistry meterRegistry;
+    private FanOut fanOut;
+
+    @BeforeEach
+    void setUp() {
+        pool = Executors.newFixedThreadPool(4);
+        meterRegistry = new SimpleMeterRegistry();
+        fanOut = newFanOut(pool);
+    }
+
+    @AfterEach
+    void tearDown() {
+        pool.shutdownNow();
+        BaseContext.removeCurrentId();
+        RequestMetrics.end();
+    }
+
+    private FanOut newFanOut(Executor executor) {
+        FanOut f = new FanOut();
+        ReflectionTestUtils.setField(f, "fanoutExecutor", executor);
+        ReflectionTestUtils.setField(f, "properties", new ExecutorProperties());
+        ReflectionTestUtils.setField(f, "meterRegistry", meterRegistry);
+        return f;
+    }
+
+    @Test
+    void runsCallsInParallel() {
+        CountDownLatch bothStarted = new CountDownLatch(2);
+        FanOut.Call<Integer> a = fanOut.fork("a", () -> awaitOther(bothStarted, 1), -1);
+        FanOut.Call<Integer> b = fanOut.fork("b", () -> awaitOther(bothStarted, 2), -1);
+
+        // 串行执行时两个任务互相等不到对方，只能超时
+        assertEquals(1, a.join());
+        assertEquals(2, b.join());
+        assertEquals(2, meterRegistry.get("teektok.fanout.call").tag("outcome", "success").timers().size());
+    }
+
+    @Test
+    void returnsFallbackOnTimeout() {
+        CountDownLatch release = new CountDownLatch(1);
+        FanOut.Call<Long> slow = fanOut.fork("slow", Duration.ofMillis(50), () -> {
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return 42L;
+        }, 0L);
+
+        assertEquals(0L, slow.join());
+        release.countDown();
+        assertEquals(1, meterRegistry.get("teektok.fanout.call").tags("name", "slow", "outcome", "timeout").timer().count());
+    }
+
+    @Test
+    void returnsFallbackOnError() {
+        FanOut.Call<String> failing = fanOut.fork("failing", () -> {
+            throw new RuntimeException("查询失败");
+        }, "默认");
+
+        assertEquals("默认", failing.join());
+        assertEquals(1, meterRegistry.get("teektok.fanout.call").tags("name", "failing", "outcome", "error").timer().count());
+    }
+
+    @Test
+    void propagatesContextToWorker() {
+        BaseContext.setCurrentId(7L);
+        RequestMetrics metrics = RequestMetrics.begin();
+        AtomicReference<Long> seenUserId = new AtomicReference<>();
+
+        fanOut.fork("context", () -> {
+            seenUserId.set(BaseContext.getCurrentId());
+            RequestMetrics.current().recordSql(1, 1000);
+            return true;
+        }, false).join();
+
+        assertEquals(7L, seenUserId.get());
+        assertEquals(1, metrics.getSqlCount());
+    }
+
+    @Test
+    void restoresCallerContextWhenRunOnCaller() {
+        // 线程池饱和时任务在调用线程上执行，执行完要还原调用线程自己的上下文
+        FanOut direct = newFanOut(Runnable::run);
+        BaseContext.setCurrentId(7L);
+        RequestMetrics metrics = RequestMetrics.begin();
+
+        assertEquals(7L, direct.fork("direct", BaseContext::getCurrentId, null).join());
+        assertEquals(7L, BaseContext.getCurrentId());
+        assertSame(metrics, RequestMetrics.current());
+    }
+
+    private static int awaitOther(CountDownLatch bothStarted, int value) {
+        bothStarted.countDown();
+        try {
+            if (!bothStarted.await(5, TimeUnit.SECONDS)) {
+                throw new IllegalStateException("未并行执行");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return value;
+    }
+}
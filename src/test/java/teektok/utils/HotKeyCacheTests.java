@@ -0,0 +1,159 @@
+package teektok.utils;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+import org.springframework.test.util.ReflectionTestUtils;
+import teektok.config.CacheProperties;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * 不依赖 Redis：RedisTemplate 用 Mockito 替身
+ */
+class HotKeyCacheTests {
+
+    private HotKeyCache cache;
+    private ValueOperations<String, Object> values;
+    private ValueOperations<String, String> stringValues;
+    private SimpleMeterRegistry registry;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        RedisTemplate<String, Object> redisTemplate = mock(RedisTemplate.class);
+        StringRedisTemplate stringRedisTemplate = mock(StringRedisTemplate.class);
+        values = mock(ValueOperations.class);
+        stringValues = mock(ValueOperations.class);
+        when(redisTemplate.opsForValue()).thenReturn(values);
+        when(stringRedisTemplate.opsForValue()).thenReturn(stringValues);
+
+        registry = new SimpleMeterRegistry();
+        cache = new HotKeyCache();
+        ReflectionTestUtils.setField(cache, "redisTemplate", redisTemplate);
+        ReflectionTestUtils.setField(cache, "stringRedisTemplate", stringRedisTemplate);
+        ReflectionTestUtils.setField(cache, "properties", new CacheProperties());
+        ReflectionTestUtils.setField(cache, "meterRegistry", registry);
+    }
+
+    @Test
+    void concurrentMissesLoadOnce() throws Exception {
+        AtomicInteger loads = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+        int threads = 8;
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<String>> results = new ArrayList<>();
+            for (int i = 0; i < threads; i++) {
+                results.add(pool.submit(() -> cache.get("video", "video:info:1", Duration.ofHours(1), () -> {
+                    loads.incrementAndGet();
+                    await(release);
+                    return "v1";
+                })));
+            }
+            // 等其余线程都进入等待后再放行加载者
+            while (registry.find("teektok.cache.requests").tag("result", "coalesced").counter() == null
+                    || registry.find("teektok.cache.requests").tag("result", "coalesced").counter().count() < threads - 1) {
+                Thread.sleep(5);
+            }
+            release.countDown();
+            for (Future<String> f : results) {
+                assertEquals("v1", f.get(5, TimeUnit.SECONDS));
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+        assertEquals(1, loads.get());
+        verify(values, times(1)).set(eq("video:info:1"), any(HotKeyCache.Entry.class), anyLong(), eq(TimeUnit.SECONDS));
+    }
+
+    @Test
+    void expiredEntryServesStaleWhileAnotherRebuilds() {
+        HotKeyCache.Entry stale = new HotKeyCache.Entry();
+        stale.setData("old");
+        stale.setExpireAt(System.currentTimeMillis() - 1000);
+        when(values.get("video:info:2")).thenReturn(stale);
+        // 重建锁已被其他请求持有
+        when(stringValues.setIfAbsent(eq("video:info:2:rebuild"), anyString(), anyLong(), any())).thenReturn(false);
+
+        String value = cache.get("video", "video:info:2", Duration.ofHours(1), () -> fail("不应回源"));
+
+        assertEquals("old", value);
+    }
+
+    @Test
+    void missingDataIsCachedAsNull() {
+        String value = cache.get("video", "video:info:3", Duration.ofHours(1), () -> null);
+
+        assertNull(value);
+        verify(values).set(eq("video:info:3"), argThat(e -> e instanceof HotKeyCache.Entry entry && entry.getData() == null),
+                eq(new CacheProperties().getNullTtlSeconds()), eq(TimeUnit.SECONDS));
+    }
+
+    @Test
+    void singleFlightWaitingOnBatchLoadDoesNotReturnNull() throws Exception {
+        List<String> claimed = cache.claimLoads("video-stat", List.of("video:stat:{7}", "video:stat:{8}", "video:stat:{9}"));
+        assertEquals(3, claimed.size());
+        AtomicInteger loads = new AtomicInteger();
+        // 批量任务写回 Redis 的数据 (视频 8 在库里不存在，批量没有写回)
+        ConcurrentHashMap<String, Long> redis = new ConcurrentHashMap<>();
+
+        ExecutorService pool = Executors.newFixedThreadPool(3);
+        try {
+            Future<Long> fromBatch = pool.submit(() -> cache.singleFlight("video-stat", "video:stat:{7}",
+                    () -> counted(loads, -1L), () -> redis.get("video:stat:{7}")));
+            Future<Long> notWritten = pool.submit(() -> cache.singleFlight("video-stat", "video:stat:{8}",
+                    () -> counted(loads, 8L), () -> redis.get("video:stat:{8}")));
+            // 不传 batchReader 时自己回源
+            Future<Long> selfLoad = pool.submit(() -> cache.singleFlight("video-stat", "video:stat:{9}",
+                    () -> counted(loads, 9L)));
+            awaitCoalesced(3);
+
+            redis.put("video:stat:{7}", 42L);
+            cache.finishLoads(claimed);
+
+            assertEquals(42L, fromBatch.get(5, TimeUnit.SECONDS));
+            assertEquals(8L, notWritten.get(5, TimeUnit.SECONDS));
+            assertEquals(9L, selfLoad.get(5, TimeUnit.SECONDS));
+        } finally {
+            pool.shutdownNow();
+        }
+        assertEquals(2, loads.get());
+    }
+
+    private static <T> T counted(AtomicInteger loads, T value) {
+        loads.incrementAndGet();
+        return value;
+    }
+
+    private void awaitCoalesced(int count) throws InterruptedException {
+        while (registry.find("teektok.cache.requests").tag("result", "coalesced").counter() == null
+                || registry.find("teektok.cache.requests").tag("result", "coalesced").counter().count() < count) {
+            Thread.sleep(5);
+        }
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
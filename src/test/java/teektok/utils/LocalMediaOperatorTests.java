@@ -0,0 +1,90 @@
+package teektok.utils;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+import teektok.config.MediaProperties;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 本地存储后端不依赖 OSS / 网络，可以直接在测试中使用
+ */
+class LocalMediaOperatorTests {
+
+    @TempDir
+    Path dir;
+
+    private LocalMediaOperator storage;
+
+    @BeforeEach
+    void setUp() {
+        MediaProperties properties = new MediaProperties();
+        properties.setBaseUrl("http://localhost:8080/");
+        properties.setLocalDir(dir.toString());
+        storage = new LocalMediaOperator();
+        ReflectionTestUtils.setField(storage, "mediaProperties", properties);
+    }
+
+    @Test
+    void uploadStreamsToLocalDir() throws Exception {
+        byte[] content = "hello".getBytes(StandardCharsets.UTF_8);
+        String url = storage.upload(new ByteArrayInputStream(content), content.length, "a.mp4", "video/mp4");
+
+        assertTrue(url.startsWith("http://localhost:8080/uploads/"));
+        assertTrue(url.endsWith(".mp4"));
+        assertArrayEquals(content, Files.readAllBytes(fileOf(url)));
+    }
+
+    @Test
+    void multipartPartsAreAssembledInOrder() throws Exception {
+        MediaStorage.MultipartHandle handle = storage.initMultipart("b.mp4", "video/mp4");
+
+        // 乱序上传，第 1 片重传一次
+        String t2 = storage.uploadPart(handle, 2, bytes("world"), 5);
+        storage.uploadPart(handle, 1, bytes("xxxxx"), 5);
+        String t1 = storage.uploadPart(handle, 1, bytes("hello"), 5);
+
+        String url = storage.completeMultipart(handle, List.of(t1, t2));
+
+        assertEquals("helloworld", Files.readString(fileOf(url)));
+        assertFalse(Files.exists(dir.resolve(".staging").resolve(handle.getUploadId())));
+    }
+
+    @Test
+    void incompletePartIsRejected() throws Exception {
+        MediaStorage.MultipartHandle handle = storage.initMultipart("c.mp4", "video/mp4");
+
+        assertThrows(RuntimeException.class, () -> storage.uploadPart(handle, 1, bytes("abc"), 5));
+
+        storage.abortMultipart(handle);
+        assertFalse(Files.exists(dir.resolve(".staging").resolve(handle.getUploadId())));
+    }
+
+    @Test
+    void resolvesOwnUrlsOnly() throws Exception {
+        String url = storage.upload(bytes("hello"), 5, "d.mp4", "video/mp4");
+
+        Path file = storage.resolveUrl(url);
+        assertEquals(fileOf(url).toAbsolutePath().normalize(), file);
+        assertEquals(url, storage.urlOf(file));
+
+        assertNull(storage.resolveUrl("https://bucket.oss-cn-hangzhou.aliyuncs.com/2024/01/a.mp4"));
+        assertNull(storage.resolveUrl("http://localhost:8080/uploads/../secret"));
+    }
+
+    private static ByteArrayInputStream bytes(String s) {
+        return new ByteArrayInputStream(s.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private Path fileOf(String url) {
+        return dir.resolve(url.substring(url.indexOf("/uploads/") + "/uploads/".length()));
+    }
+}
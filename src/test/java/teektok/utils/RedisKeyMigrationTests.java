@@ -0,0 +1,88 @@
+package teektok.utils;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.core.Cursor;
+import org.springframework.data.redis.core.ScanOptions;
+import org.springframework.data.redis.core.SetOperations;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+import teektok.config.RedisClusterProperties;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+/**
+ * 新版本上线后、迁移完成前取消的点赞，不会在合并旧集合时被带回来
+ * Redis 用内存 Map 代替
+ */
+class RedisKeyMigrationTests {
+
+    private final Map<String, Set<String>> sets = new HashMap<>();
+    private RedisKeyMigration migration;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        StringRedisTemplate template = mock(StringRedisTemplate.class);
+        SetOperations<String, String> ops = mock(SetOperations.class);
+        when(template.opsForSet()).thenReturn(ops);
+        when(ops.remove(anyString(), any())).thenAnswer(inv -> {
+            Set<String> set = sets.get(inv.<String>getArgument(0));
+            return set != null && set.remove(inv.<String>getArgument(1)) ? 1L : 0L;
+        });
+        when(ops.unionAndStore(anyString(), anyString(), anyString())).thenAnswer(inv -> {
+            Set<String> union = new HashSet<>(sets.getOrDefault(inv.<String>getArgument(0), Set.of()));
+            union.addAll(sets.getOrDefault(inv.<String>getArgument(1), Set.of()));
+            sets.put(inv.getArgument(2), union);
+            return (long) union.size();
+        });
+        when(template.renameIfAbsent(anyString(), anyString())).thenAnswer(inv -> {
+            if (sets.containsKey(inv.<String>getArgument(1))) return false;
+            sets.put(inv.getArgument(1), sets.remove(inv.<String>getArgument(0)));
+            return true;
+        });
+        when(template.delete(anyString())).thenAnswer(inv -> sets.remove(inv.<String>getArgument(0)) != null);
+        when(template.scan(any(ScanOptions.class))).thenAnswer(inv -> {
+            String pattern = inv.<ScanOptions>getArgument(0).getPattern();
+            String prefix = pattern.substring(0, pattern.length() - 1);
+            Iterator<String> keys = sets.keySet().stream().filter(k -> k.startsWith(prefix)).toList().iterator();
+            Cursor<String> cursor = mock(Cursor.class);
+            when(cursor.hasNext()).thenAnswer(c -> keys.hasNext());
+            when(cursor.next()).thenAnswer(c -> keys.next());
+            return cursor;
+        });
+
+        migration = new RedisKeyMigration();
+        ReflectionTestUtils.setField(migration, "stringRedisTemplate", template);
+        ReflectionTestUtils.setField(migration, "slotPipeline", mock(SlotPipeline.class));
+        ReflectionTestUtils.setField(migration, "properties", new RedisClusterProperties());
+    }
+
+    @Test
+    void removedMemberIsNotResurrectedByMerge() {
+        sets.put("user:like:7", new HashSet<>(Set.of("1", "2")));
+        // 新版本上线后：点赞视频 3 写入新 Key，取消点赞视频 2
+        sets.put(RedisKeys.userLike(7L), new HashSet<>(Set.of("3")));
+        migration.removeMember(RedisKeys.userLike(7L), "2");
+
+        assertEquals(1, migration.migrate());
+
+        assertEquals(Set.of("1", "3"), sets.get(RedisKeys.userLike(7L)));
+        assertFalse(sets.containsKey("user:like:7"));
+    }
+
+    @Test
+    void removeBeforeRenameKeepsMemberRemoved() {
+        sets.put("user:favorite:8", new HashSet<>(Set.of("5", "6")));
+        migration.removeMember(RedisKeys.userFavorite(8L), "5");
+
+        migration.migrate();
+
+        assertEquals(Set.of("6"), sets.get(RedisKeys.userFavorite(8L)));
+    }
+}
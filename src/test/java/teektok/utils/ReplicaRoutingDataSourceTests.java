@@ -0,0 +1,188 @@
+package teektok.utils;
+
+import com.github.fppt.jedismock.RedisServer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.transaction.support.TransactionTemplate;
+import teektok.config.DataSourceRoutingProperties;
+
+import java.io.IOException;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 读写分离：两个 H2 实例分别充当主库和从库 (各自的 node 表里写着自己的名字)，按与 DataSourceRoutingConfig 相同的方式组装
+ * 写主库标记放在进程内 Redis (jedis-mock)，同一个 Redis 上再组装一个路由数据源充当另一个应用实例
+ */
+class ReplicaRoutingDataSourceTests {
+
+    private static RedisServer redisServer;
+    private static LettuceConnectionFactory redisFactory;
+    private static StringRedisTemplate redis;
+
+    private JdbcTemplate primaryJdbc;
+    private JdbcTemplate replicaJdbc;
+    private SimpleMeterRegistry meterRegistry;
+    private ReplicaRoutingDataSource routing;
+    private JdbcTemplate jdbc;
+    private TransactionTemplate readOnlyTx;
+    private TransactionTemplate writeTx;
+    private JdbcDataSource primary;
+    private JdbcDataSource replica;
+    private DataSourceRoutingProperties properties;
+
+    @BeforeAll
+    static void startRedis() throws IOException {
+        redisServer = RedisServer.newRedisServer().start();
+        redisFactory = new LettuceConnectionFactory(redisServer.getHost(), redisServer.getBindPort());
+        redisFactory.afterPropertiesSet();
+        redisFactory.start();
+        redis = new StringRedisTemplate(redisFactory);
+    }
+
+    @AfterAll
+    static void stopRedis() throws IOException {
+        redisFactory.destroy();
+        redisServer.stop();
+    }
+
+    @BeforeEach
+    void setUp() {
+        primary = h2("routing_primary");
+        replica = h2("routing_replica");
+        primaryJdbc = new JdbcTemplate(primary);
+        replicaJdbc = new JdbcTemplate(replica);
+        primaryJdbc.execute("CREATE TABLE node (name VARCHAR(16))");
+        primaryJdbc.execute("INSERT INTO node VALUES ('primary')");
+        replicaJdbc.execute("CREATE TABLE node (name VARCHAR(16))");
+        replicaJdbc.execute("INSERT INTO node VALUES ('replica')");
+        // 模拟复制延迟
+        replicaJdbc.execute("CREATE TABLE replica_lag (seconds INT)");
+        replicaJdbc.execute("INSERT INTO replica_lag VALUES (0)");
+
+        properties = new DataSourceRoutingProperties();
+        properties.setLagQuery("SELECT seconds FROM replica_lag");
+        meterRegistry = new SimpleMeterRegistry();
+        routing = newRouting(meterRegistry);
+
+        LazyConnectionDataSourceProxy proxy = new LazyConnectionDataSourceProxy(primary);
+        proxy.setReadOnlyDataSource(routing);
+        jdbc = new JdbcTemplate(proxy);
+        DataSourceTransactionManager transactionManager = new DataSourceTransactionManager(proxy);
+        readOnlyTx = new TransactionTemplate(transactionManager);
+        readOnlyTx.setReadOnly(true);
+        writeTx = new TransactionTemplate(transactionManager);
+    }
+
+    private ReplicaRoutingDataSource newRouting(SimpleMeterRegistry registry) {
+        ReplicaRoutingDataSource dataSource = new ReplicaRoutingDataSource(primary, Map.of("replica-1", replica),
+                properties, redis, registry);
+        dataSource.afterPropertiesSet();
+        return dataSource;
+    }
+
+    @AfterEach
+    void tearDown() {
+        primaryJdbc.execute("DROP ALL OBJECTS");
+        replicaJdbc.execute("DROP ALL OBJECTS");
+        redis.execute((RedisCallback<Object>) connection -> {
+            connection.serverCommands().flushAll();
+            return null;
+        });
+        BaseContext.removeCurrentId();
+    }
+
+    private static JdbcDataSource h2(String name) {
+        JdbcDataSource dataSource = new JdbcDataSource();
+        dataSource.setURL("jdbc:h2:mem:" + name + ";MODE=MySQL;DB_CLOSE_DELAY=-1");
+        return dataSource;
+    }
+
+    private String readOnly() {
+        return readOnlyTx.execute(status -> currentNode());
+    }
+
+    private String currentNode() {
+        return jdbc.queryForObject("SELECT name FROM node", String.class);
+    }
+
+    @Test
+    void onlyReadOnlyTransactionsUseReplica() {
+        assertEquals("replica", readOnly());
+        assertEquals("primary", writeTx.execute(status -> currentNode()));
+        assertEquals("primary", currentNode());
+        assertEquals(1, meterRegistry.get("teektok.datasource.read").tag("target", "replica").counter().count());
+    }
+
+    @Test
+    void readsOwnWritesFromPrimary() {
+        BaseContext.setCurrentId(7L);
+        routing.markWrite(7L);
+        assertEquals("primary", readOnly());
+
+        BaseContext.setCurrentId(8L);
+        assertEquals("replica", readOnly());
+        assertEquals(1, meterRegistry.get("teektok.datasource.read").tag("reason", "sticky").counter().count());
+    }
+
+    @Test
+    void writeOnOneInstanceIsStickyOnAnother() {
+        // 另一个实例：同一个主从、同一个 Redis，内存里的写标记各自独立
+        SimpleMeterRegistry otherRegistry = new SimpleMeterRegistry();
+        ReplicaRoutingDataSource other = newRouting(otherRegistry);
+        LazyConnectionDataSourceProxy otherProxy = new LazyConnectionDataSourceProxy(primary);
+        otherProxy.setReadOnlyDataSource(other);
+        JdbcTemplate otherJdbc = new JdbcTemplate(otherProxy);
+        TransactionTemplate otherReadOnlyTx = new TransactionTemplate(new DataSourceTransactionManager(otherProxy));
+        otherReadOnlyTx.setReadOnly(true);
+
+        BaseContext.setCurrentId(7L);
+        routing.markWrite(7L);
+        assertEquals("primary", otherReadOnlyTx.execute(status -> otherJdbc.queryForObject("SELECT name FROM node", String.class)));
+        assertEquals(1, otherRegistry.get("teektok.datasource.read").tag("reason", "sticky").counter().count());
+
+        // 标记过期后回到从库
+        redis.delete(RedisKeys.datasourceSticky(7L));
+        assertEquals("replica", otherReadOnlyTx.execute(status -> otherJdbc.queryForObject("SELECT name FROM node", String.class)));
+    }
+
+    @Test
+    void laggingReplicaIsRemovedAndRestored() {
+        replicaJdbc.update("UPDATE replica_lag SET seconds = 10");
+        routing.checkReplicaLag();
+        assertEquals("primary", readOnly());
+        assertEquals(0.0, meterRegistry.get("teektok.datasource.replica.healthy").gauge().value());
+        assertEquals(10.0, meterRegistry.get("teektok.datasource.replica.lag").gauge().value());
+
+        // 复制中断时延迟为 NULL
+        replicaJdbc.update("UPDATE replica_lag SET seconds = NULL");
+        routing.checkReplicaLag();
+        assertEquals("primary", readOnly());
+
+        replicaJdbc.update("UPDATE replica_lag SET seconds = 1");
+        routing.checkReplicaLag();
+        assertEquals("replica", readOnly());
+    }
+
+    @Test
+    void readsLagFromReplicaStatusColumns() {
+        replicaJdbc.execute("CREATE TABLE replica_status (Replica_IO_State VARCHAR(32), Seconds_Behind_Source INT)");
+        replicaJdbc.execute("INSERT INTO replica_status VALUES ('Waiting for source', 2)");
+
+        assertEquals(2L, replicaJdbc.query("SELECT * FROM replica_status", ReplicaRoutingDataSource::readLag));
+        // 不是从库：SHOW REPLICA STATUS 没有结果行
+        assertNull(replicaJdbc.query("SELECT * FROM replica_status WHERE 1 = 0", ReplicaRoutingDataSource::readLag));
+    }
+}
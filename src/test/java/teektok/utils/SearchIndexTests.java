@@ -0,0 +1,139 @@
+package teektok.utils;
+
+import org.apache.lucene.store.ByteBuffersDirectory;
+import org.apache.lucene.store.FSDirectory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 全文索引：命中条件与 LIKE '%kw%' 一致 (含中文)，按 完全匹配 > 前缀 > 包含 > id 倒序 排序，游标翻页不重不漏
+ */
+class SearchIndexTests {
+
+    private SearchIndex index;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        index = new SearchIndex(new ByteBuffersDirectory());
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        index.close();
+    }
+
+    private void users(Object... idAndNames) {
+        for (int i = 0; i < idAndNames.length; i += 2) {
+            index.upsert(SearchIndex.USER, ((Number) idAndNames[i]).longValue(), (String) idAndNames[i + 1]);
+        }
+        index.refresh();
+    }
+
+    private List<Long> search(String keyword) {
+        return ids(index.search(SearchIndex.USER, keyword, null, null, 50).list());
+    }
+
+    private static List<Long> ids(List<SearchIndex.Hit> hits) {
+        return hits.stream().map(SearchIndex.Hit::id).toList();
+    }
+
+    @Test
+    void matchesSameRowsAsLike() {
+        users(1, "张三丰", 2, "小张三", 3, "张丰三", 4, "Alice", 5, "malice", 6, "王五");
+
+        // 张丰三 含有 "张" 和 "三" 但不含连续的 "张三"
+        assertEquals(List.of(1L, 2L), search("张三"));
+        assertEquals(List.of(5L, 4L), search("lic"));
+        // 不区分大小写，Alice 是前缀匹配排在前面
+        assertEquals(List.of(4L, 5L), search("ALI"));
+        // 单字关键词
+        assertEquals(List.of(3L, 1L), search("丰"));
+        assertEquals(List.of(), search("张五"));
+        assertEquals(List.of(), search("  "));
+    }
+
+    @Test
+    void ranksExactThenPrefixThenContains() {
+        users(10, "abc", 11, "abcd", 12, "xabc", 13, "xabcd", 20, "u20", 21, "x20x");
+
+        assertEquals(List.of(10L, 11L, 13L, 12L), search("abc"));
+        // 纯数字同时按 ID 查找，ID 命中排最前
+        assertEquals(List.of(20L, 21L), search("20"));
+        assertEquals(List.of(10L), search("10"));
+    }
+
+    @Test
+    void cursorWalksAllHitsOnce() {
+        for (long id = 1; id <= 25; id++) {
+            index.upsert(SearchIndex.USER, id, "用户" + id);
+        }
+        index.upsert(SearchIndex.VIDEO, 100, "用户指南");
+        index.refresh();
+
+        List<Long> all = new ArrayList<>();
+        String cursor = null;
+        int pages = 0;
+        do {
+            SearchIndex.Hits hits = index.search(SearchIndex.USER, "用户", 7L, cursor, 10);
+            all.addAll(ids(hits.list()));
+            cursor = hits.nextCursor();
+            pages++;
+        } while (cursor != null);
+
+        assertEquals(3, pages);
+        assertEquals(LongStream.rangeClosed(1, 25).boxed().filter(id -> id != 7).sorted((a, b) -> Long.compare(b, a)).toList(), all);
+        assertThrows(RuntimeException.class, () -> index.search(SearchIndex.USER, "用户", null, "bad", 10));
+        // 按偏移量翻页与游标的顺序一致
+        assertEquals(all.subList(10, 20), ids(index.search(SearchIndex.USER, "用户", 7L, 10, 10)));
+    }
+
+    @Test
+    void upsertReplacesAndDeleteRemoves() {
+        users(1, "旧名字", 2, "名字");
+        assertTrue(index.contains(SearchIndex.USER, 1));
+
+        index.upsert(SearchIndex.USER, 1, "新昵称");
+        index.delete(SearchIndex.USER, 2);
+        index.refresh();
+
+        assertEquals(List.of(), search("名字"));
+        assertEquals(List.of(1L), search("昵称"));
+        assertFalse(index.contains(SearchIndex.USER, 2));
+        assertEquals(1, index.count(SearchIndex.USER));
+    }
+
+    @Test
+    void suggestsByPrefixWithExactFirst() {
+        users(1, "小明", 2, "小明同学", 3, "小明明", 4, "大小明", 5, "小红");
+
+        List<SearchIndex.Hit> hits = index.suggest(SearchIndex.USER, "小明", 10);
+
+        assertEquals(List.of(1L, 3L, 2L), ids(hits));
+        assertEquals("小明同学", hits.get(2).text());
+        assertEquals(List.of(), index.suggest(SearchIndex.VIDEO, "小明", 10));
+    }
+
+    @Test
+    void commitDataSurvivesReopen(@TempDir Path dir) throws Exception {
+        try (SearchIndex disk = new SearchIndex(FSDirectory.open(dir))) {
+            assertEquals(Map.of(), disk.commitData());
+            disk.upsert(SearchIndex.VIDEO, 9, "猫咪合集");
+            disk.commit(Map.of("videos.from", "10"));
+        }
+
+        try (SearchIndex reopened = new SearchIndex(FSDirectory.open(dir))) {
+            assertEquals(Map.of("videos.from", "10"), reopened.commitData());
+            assertEquals(List.of(9L), ids(reopened.search(SearchIndex.VIDEO, "猫咪", null, null, 10).list()));
+        }
+    }
+}
@@ -0,0 +1,165 @@
+package teektok.utils;
+
+import com.github.fppt.jedismock.RedisServer;
+import com.github.fppt.jedismock.datastructures.Slice;
+import com.github.fppt.jedismock.operations.server.MockExecutor;
+import com.github.fppt.jedismock.server.Response;
+import com.github.fppt.jedismock.server.ServiceOptions;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.connection.RedisClusterConfiguration;
+import org.springframework.data.redis.connection.StringRedisConnection;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 在三个进程内 Redis (jedis-mock) 组成的 Cluster 替身上跑 SlotPipeline：
+ * 每个实例对 CLUSTER NODES 返回同一份三主节点拓扑，Lettuce 按拓扑把命令路由到各实例，
+ * 从而验证命令按节点分组后真正落到了不同的服务端，结果按 Key 的原顺序拼回
+ * jedis-mock 不校验槽位 (不会回 MOVED)，Key 落在哪个实例完全取决于客户端的路由
+ */
+class SlotPipelineClusterTests {
+
+    private static final int[][] SLOTS = {{0, 5460}, {5461, 10922}, {10923, 16383}};
+
+    private static final List<RedisServer> servers = new ArrayList<>();
+    private static final List<Integer> ports = new ArrayList<>();
+    // 端口 -> 该实例收到的 HGETALL 的 Key
+    private static final Map<Integer, Set<String>> hGetAllKeys = new ConcurrentHashMap<>();
+
+    private static LettuceConnectionFactory factory;
+    private static StringRedisTemplate template;
+    private static ExecutorService executor;
+    private SlotPipeline pipeline;
+
+    @BeforeAll
+    static void startCluster() throws IOException {
+        for (int i = 0; i < SLOTS.length; i++) {
+            ports.add(freePort());
+        }
+        for (int port : ports) {
+            hGetAllKeys.put(port, ConcurrentHashMap.newKeySet());
+            RedisServer server = RedisServer.newRedisServer(port)
+                    .setOptions(ServiceOptions.withInterceptor((state, name, params) -> {
+                        if ("cluster".equalsIgnoreCase(name) && !params.isEmpty()
+                                && "nodes".equalsIgnoreCase(params.get(0).toString())) {
+                            return Response.bulkString(Slice.create(clusterNodes(port)));
+                        }
+                        if ("hgetall".equalsIgnoreCase(name)) {
+                            hGetAllKeys.get(port).add(params.get(0).toString());
+                        }
+                        return MockExecutor.proceed(state, name, params);
+                    }))
+                    .start();
+            servers.add(server);
+        }
+
+        RedisClusterConfiguration cluster = new RedisClusterConfiguration(
+                ports.stream().map(p -> "127.0.0.1:" + p).toList());
+        factory = new LettuceConnectionFactory(cluster);
+        factory.afterPropertiesSet();
+        factory.start();
+        template = new StringRedisTemplate(factory);
+        executor = Executors.newFixedThreadPool(2);
+    }
+
+    @AfterAll
+    static void stopCluster() throws IOException {
+        if (factory != null) {
+            factory.destroy();
+        }
+        if (executor != null) {
+            executor.shutdownNow();
+        }
+        for (RedisServer server : servers) {
+            server.stop();
+        }
+    }
+
+    @BeforeEach
+    void setUp() {
+        hGetAllKeys.values().forEach(Set::clear);
+        pipeline = new SlotPipeline();
+        ReflectionTestUtils.setField(pipeline, "stringRedisTemplate", template);
+        ReflectionTestUtils.setField(pipeline, "commonExecutor", executor);
+    }
+
+    @Test
+    void commandsReachOwningNodesAndResultsKeepKeyOrder() {
+        assertTrue(pipeline.isCluster());
+        List<String> keys = IntStream.range(0, 60).mapToObj(i -> RedisKeys.videoStat((long) i)).toList();
+        for (int i = 0; i < keys.size(); i++) {
+            template.opsForHash().put(keys.get(i), "play_count", String.valueOf(i));
+        }
+
+        List<Object> results = pipeline.execute(keys, StringRedisConnection::hGetAll);
+
+        assertEquals(IntStream.range(0, 60).mapToObj(i -> Map.of("play_count", String.valueOf(i))).toList(), results);
+        // 三个实例都收到了命令，且每个实例只收到自己负责的槽里的 Key
+        for (int n = 0; n < ports.size(); n++) {
+            Set<String> expected = owned(keys, n);
+            assertFalse(expected.isEmpty());
+            assertEquals(expected, hGetAllKeys.get(ports.get(n)), "节点 " + n);
+        }
+    }
+
+    @Test
+    void severalCommandsPerKeyAcrossNodes() {
+        List<String> keys = IntStream.range(100, 130).mapToObj(i -> RedisKeys.videoStat((long) i)).toList();
+        List<String> present = keys.subList(0, 10);
+        present.forEach(key -> template.opsForHash().put(key, "like_count", "1"));
+
+        List<Object> results = pipeline.execute(keys, (connection, key) -> {
+            connection.exists(key);
+            connection.hGet(key, "like_count");
+        });
+
+        for (int i = 0; i < keys.size(); i++) {
+            boolean exists = present.contains(keys.get(i));
+            assertEquals(exists ? List.of(true, "1") : Arrays.asList(false, null), results.get(i), keys.get(i));
+        }
+    }
+
+    private static Set<String> owned(List<String> keys, int node) {
+        return keys.stream()
+                .filter(k -> {
+                    int slot = RedisKeys.slot(k);
+                    return slot >= SLOTS[node][0] && slot <= SLOTS[node][1];
+                })
+                .collect(Collectors.toSet());
+    }
+
+    private static String clusterNodes(int self) {
+        StringBuilder nodes = new StringBuilder();
+        for (int i = 0; i < ports.size(); i++) {
+            int port = ports.get(i);
+            nodes.append(String.format("%040d 127.0.0.1:%d@%d %s - 0 0 %d connected %d-%d\n",
+                    i + 1, port, port + 10000, port == self ? "myself,master" : "master", i + 1, SLOTS[i][0], SLOTS[i][1]));
+        }
+        return nodes.toString();
+    }
+
+    private static int freePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+}
@@ -0,0 +1,163 @@
+package teektok.utils;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.connection.RedisClusterConnection;
+import org.springframework.data.redis.connection.RedisClusterNode;
+import org.springframework.data.redis.connection.RedisClusterNode.SlotRange;
+import org.springframework.data.redis.connection.RedisNode.NodeType;
+import org.springframework.data.redis.connection.StringRedisConnection;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * 用三个主节点的 Cluster 替身验证按节点分组：每个 Pipeline 只包含同一节点的 Key，结果按原顺序返回
+ */
+class SlotPipelineTests {
+
+    private static final List<RedisClusterNode> NODES = List.of(
+            node("a", 7000, 0, 5460),
+            node("b", 7001, 5461, 10922),
+            node("c", 7002, 10923, 16383));
+
+    private SlotPipeline pipeline;
+    private LettuceConnectionFactory factory;
+    private ThreadPoolExecutor executor;
+    private final List<List<String>> pipelines = Collections.synchronizedList(new ArrayList<>());
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        factory = mock(LettuceConnectionFactory.class);
+        RedisClusterConnection cluster = mock(RedisClusterConnection.class);
+        when(factory.getClusterConnection()).thenReturn(cluster);
+        when(cluster.clusterGetNodes()).thenReturn(NODES);
+
+        StringRedisTemplate template = mock(StringRedisTemplate.class);
+        when(template.getConnectionFactory()).thenReturn(factory);
+        when(template.getRequiredConnectionFactory()).thenReturn(factory);
+        when(template.executePipelined(any(RedisCallback.class))).thenAnswer(inv -> {
+            List<String> keys = new ArrayList<>();
+            List<Object> replies = new ArrayList<>();
+            StringRedisConnection connection = mock(StringRedisConnection.class);
+            when(connection.hGetAll(anyString())).thenAnswer(c -> {
+                keys.add(c.getArgument(0));
+                replies.add("v:" + c.getArgument(0));
+                return null;
+            });
+            when(connection.exists(anyString())).thenAnswer(c -> {
+                replies.add("e:" + c.getArgument(0));
+                return null;
+            });
+            inv.<RedisCallback<Object>>getArgument(0).doInRedis(connection);
+            pipelines.add(keys);
+            return replies;
+        });
+
+        executor = new ThreadPoolExecutor(2, 2, 60, TimeUnit.SECONDS, new ArrayBlockingQueue<>(10),
+                new ThreadPoolExecutor.CallerRunsPolicy());
+        pipeline = new SlotPipeline();
+        ReflectionTestUtils.setField(pipeline, "stringRedisTemplate", template);
+        ReflectionTestUtils.setField(pipeline, "commonExecutor", executor);
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void clusterGroupsCommandsPerNode() {
+        when(factory.isClusterAware()).thenReturn(true);
+        List<String> keys = IntStream.range(0, 60).mapToObj(i -> RedisKeys.videoStat((long) i)).toList();
+
+        List<Object> results = pipeline.execute(keys, StringRedisConnection::hGetAll);
+
+        assertEquals(keys.stream().map(k -> "v:" + k).toList(), results);
+        assertEquals(3, pipelines.size());
+        for (List<String> batch : pipelines) {
+            String owner = ownerOf(batch.get(0));
+            assertTrue(batch.stream().allMatch(k -> ownerOf(k).equals(owner)), "Pipeline 跨节点: " + batch);
+        }
+    }
+
+    @Test
+    void standaloneUsesSinglePipeline() {
+        when(factory.isClusterAware()).thenReturn(false);
+        List<String> keys = IntStream.range(0, 10).mapToObj(i -> RedisKeys.videoStat((long) i)).toList();
+
+        List<Object> results = pipeline.execute(keys, StringRedisConnection::hGetAll);
+
+        assertEquals(10, results.size());
+        assertEquals(List.of(keys), pipelines);
+    }
+
+    @Test
+    void severalCommandsPerKeyAreSlicedPerKey() {
+        when(factory.isClusterAware()).thenReturn(true);
+        List<String> keys = IntStream.range(0, 30).mapToObj(i -> RedisKeys.videoStat((long) i)).toList();
+
+        List<Object> results = pipeline.execute(keys, (connection, key) -> {
+            connection.hGetAll(key);
+            connection.exists(key);
+        });
+
+        assertEquals(keys.stream().map(k -> List.of("v:" + k, "e:" + k)).toList(), results);
+    }
+
+    @Test
+    void unevenCommandCountFailsInsteadOfMisaligning() {
+        when(factory.isClusterAware()).thenReturn(false);
+        List<String> keys = IntStream.range(0, 3).mapToObj(i -> RedisKeys.videoStat((long) i)).toList();
+
+        // 第一个 Key 多发一条，共 4 条结果分给 3 个 Key
+        assertThrows(IllegalStateException.class, () -> pipeline.execute(keys, (connection, key) -> {
+            if (key.equals(keys.get(0))) {
+                connection.exists(key);
+            }
+            connection.hGetAll(key);
+        }));
+    }
+
+    @Test
+    void perUserKeysShareOneSlot() {
+        int slot = RedisKeys.slot(RedisKeys.userLike(42L));
+        assertEquals(slot, RedisKeys.slot(RedisKeys.userFavorite(42L)));
+        assertEquals(slot, RedisKeys.slot(RedisKeys.userFollow(42L)));
+        assertEquals(slot, RedisKeys.slot(RedisKeys.userCommentLike(42L)));
+
+        // 缓冲 Key 与重命名出来的临时 Key 同槽
+        String buffer = RedisKeys.BUFFER_PLAY;
+        assertEquals(RedisKeys.slot(buffer), RedisKeys.slot(buffer + ":temp:" + System.currentTimeMillis()));
+        assertEquals("buffer:video:play", RedisKeys.legacy(buffer));
+    }
+
+    private static String ownerOf(String key) {
+        int slot = RedisKeys.slot(key);
+        return NODES.stream().filter(n -> n.servesSlot(slot)).findFirst().orElseThrow().getId();
+    }
+
+    private static RedisClusterNode node(String id, int port, int from, int to) {
+        return RedisClusterNode.newRedisClusterNode()
+                .listeningAt("127.0.0.1", port)
+                .withId(id)
+                .promotedAs(NodeType.MASTER)
+                .serving(new SlotRange(from, to))
+                .build();
+    }
+}
@@ -0,0 +1,91 @@
+package teektok.utils;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.core.HashOperations;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import teektok.mapper.VideoStatBucketMapper;
+import teektok.mapper.VideoStatMapper;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * 计数缓冲落库的指标：缓冲大小、每次写入行数、耗时与失败次数；增量同时计入全站汇总与排行
+ */
+class SyncBufferToDBUtilTests {
+
+    private SyncBufferToDBUtil util;
+    private StringRedisTemplate redisTemplate;
+    private HashOperations<String, Object, Object> hashOps;
+    private VideoStatMapper videoStatMapper;
+    private VideoStatBucketMapper videoStatBucketMapper;
+    private VideoRanking videoRanking;
+    private SimpleMeterRegistry registry;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        redisTemplate = mock(StringRedisTemplate.class);
+        hashOps = mock(HashOperations.class);
+        when(redisTemplate.<Object, Object>opsForHash()).thenReturn(hashOps);
+        // 只有新格式的缓冲 Key 存在
+        when(redisTemplate.hasKey(RedisKeys.BUFFER_PLAY)).thenReturn(true);
+        when(redisTemplate.hasKey(RedisKeys.legacy(RedisKeys.BUFFER_PLAY))).thenReturn(false);
+        when(hashOps.entries(startsWith(RedisKeys.BUFFER_PLAY + ":temp:"))).thenReturn(Map.of("1", "3", "2", "5", "x", "1"));
+
+        videoStatMapper = mock(VideoStatMapper.class);
+        videoStatBucketMapper = mock(VideoStatBucketMapper.class);
+        videoRanking = mock(VideoRanking.class);
+        registry = new SimpleMeterRegistry();
+        util = new SyncBufferToDBUtil();
+        ReflectionTestUtils.setField(util, "redisTemplate", redisTemplate);
+        ReflectionTestUtils.setField(util, "videoStatMapper", videoStatMapper);
+        ReflectionTestUtils.setField(util, "videoStatBucketMapper", videoStatBucketMapper);
+        ReflectionTestUtils.setField(util, "videoRanking", videoRanking);
+        ReflectionTestUtils.setField(util, "transactionTemplate", new TransactionTemplate(mock(PlatformTransactionManager.class)));
+        ReflectionTestUtils.setField(util, "meterRegistry", registry);
+    }
+
+    @Test
+    void recordsRowsAndBufferSize() {
+        util.syncBufferToDB(RedisKeys.BUFFER_PLAY, "play_count");
+
+        verify(videoStatMapper).batchUpdateStat(eq(Map.of(1L, 3, 2L, 5)), eq("play_count"));
+        assertEquals(2, registry.get("teektok.counter.flush.rows").tag("counter", "play").summary().totalAmount());
+        assertEquals(2, registry.get("teektok.counter.buffer.size").tag("counter", "play").gauge().value());
+        assertEquals(1, registry.get("teektok.counter.flush").tags("counter", "play", "outcome", "success").timer().count());
+    }
+
+    @Test
+    void addsDeltasToAggregatesAndRanking() {
+        util.syncBufferToDB(RedisKeys.BUFFER_PLAY, "play_count");
+
+        verify(videoStatBucketMapper).addDelta(eq("play_count"), eq(8L),
+                argThat(day -> day.getHour() == 0 && day.getMinute() == 0),
+                argThat(hour -> hour.getMinute() == 0 && hour.getSecond() == 0));
+        verify(videoRanking).record(eq("play"), eq(Map.of(1L, 3, 2L, 5)), any(LocalDateTime.class));
+    }
+
+    @Test
+    void recordsFailureAndKeepsThrowing() {
+        doThrow(new RuntimeException("db down")).when(videoStatMapper).batchUpdateStat(anyMap(), anyString());
+
+        assertThrows(RuntimeException.class, () -> util.syncBufferToDB(RedisKeys.BUFFER_PLAY, "play_count"));
+        assertEquals(1, registry.get("teektok.counter.flush").tags("counter", "play", "outcome", "failure").timer().count());
+        assertNull(registry.find("teektok.counter.flush.rows").summary());
+        // 视频计数没写成功时汇总与排行都不累加
+        verify(videoStatBucketMapper, never()).addDelta(anyString(), anyLong(), any(), any());
+        verify(videoRanking, never()).record(anyString(), anyMap(), any());
+        // 临时 Key 仍然被删除
+        verify(redisTemplate).delete(startsWith(RedisKeys.BUFFER_PLAY + ":temp:"));
+    }
+}
@@ -0,0 +1,238 @@
+-- H2 (MySQL 模式) 表结构，与线上表保持相同的列和索引；压测 (mvn -Ploadtest) 和 QueryPlanTests 共用
+-- 只保留 H2 能识别的写法；线上表结构的变更以 docs/sql 下的迁移脚本为准，改索引时两边同步修改
+
+CREATE TABLE IF NOT EXISTS `user` (
+  `id` BIGINT NOT NULL AUTO_INCREMENT,
+  `username` VARCHAR(64) NOT NULL,
+  `password` VARCHAR(128) NOT NULL,
+  `avatar` VARCHAR(512) DEFAULT NULL,
+  `status` TINYINT DEFAULT 1,
+  `create_time` DATETIME DEFAULT CURRENT_TIMESTAMP,
+  PRIMARY KEY (`id`)
+);
+CREATE UNIQUE INDEX IF NOT EXISTS `uk_username` ON `user` (`username`);
+
+CREATE TABLE IF NOT EXISTS `admin` (
+  `id` BIGINT NOT NULL AUTO_INCREMENT,
+  `username` VARCHAR(64) NOT NULL,
+  `password` VARCHAR(128) NOT NULL,
+  `create_time` DATETIME DEFAULT CURRENT_TIMESTAMP,
+  PRIMARY KEY (`id`)
+);
+
+CREATE TABLE IF NOT EXISTS `video` (
+  `id` BIGINT NOT NULL AUTO_INCREMENT,
+  `title` VARCHAR(255) NOT NULL,
+  `video_url` VARCHAR(512) NOT NULL,
+  `cover_url` VARCHAR(512) DEFAULT NULL,
+  `content_hash` CHAR(64) DEFAULT NULL,
+  `description` VARCHAR(1024) DEFAULT NULL,
+  `uploader_id` BIGINT NOT NULL,
+  `status` TINYINT DEFAULT 0,
+  `is_hot` TINYINT DEFAULT 0,
+  `process_status` TINYINT NOT NULL DEFAULT 2,
+  `process_attempts` INT NOT NULL DEFAULT 0,
+  `duration_ms` BIGINT DEFAULT NULL,
+  `width` INT DEFAULT NULL,
+  `height` INT DEFAULT NULL,
+  `hls_url` VARCHAR(512) DEFAULT NULL,
+  `is_deleted` TINYINT DEFAULT 0,
+  `create_time` DATETIME DEFAULT CURRENT_TIMESTAMP,
+  `update_time` DATETIME DEFAULT CURRENT_TIMESTAMP,
+  PRIMARY KEY (`id`)
+);
+CREATE INDEX IF NOT EXISTS `idx_uploader_deleted_time` ON `video` (`uploader_id`, `is_deleted`, `create_time`);
+CREATE INDEX IF NOT EXISTS `idx_hot_deleted_time` ON `video` (`is_hot`, `is_deleted`, `create_time`);
+CREATE INDEX IF NOT EXISTS `idx_deleted_time` ON `video` (`is_deleted`, `create_time`);
+CREATE INDEX IF NOT EXISTS `idx_deleted_update_time` ON `video` (`is_deleted`, `update_time`);
+CREATE INDEX IF NOT EXISTS `idx_content_hash` ON `video` (`content_hash`);
+CREATE INDEX IF NOT EXISTS `idx_process_status` ON `video` (`process_status`, `update_time`);
+
+CREATE TABLE IF NOT EXISTS `video_stat` (
+  `video_id` BIGINT NOT NULL,
+  `play_count` BIGINT NOT NULL DEFAULT 0,
+  `like_count` BIGINT NOT NULL DEFAULT 0,
+  `comment_count` BIGINT NOT NULL DEFAULT 0,
+  `share_count` BIGINT NOT NULL DEFAULT 0,
+  `favorite_count` BIGINT NOT NULL DEFAULT 0,
+  PRIMARY KEY (`video_id`)
+);
+
+CREATE TABLE IF NOT EXISTS `video_stat_bucket` (
+  `id` BIGINT NOT NULL AUTO_INCREMENT,
+  `granularity` TINYINT NOT NULL,
+  `bucket_time` DATETIME NOT NULL,
+  `play_count` BIGINT NOT NULL DEFAULT 0,
+  `like_count` BIGINT NOT NULL DEFAULT 0,
+  `comment_count` BIGINT NOT NULL DEFAULT 0,
+  `share_count` BIGINT NOT NULL DEFAULT 0,
+  `favorite_count` BIGINT NOT NULL DEFAULT 0,
+  PRIMARY KEY (`id`)
+);
+CREATE UNIQUE INDEX IF NOT EXISTS `uk_bucket_granularity_time` ON `video_stat_bucket` (`granularity`, `bucket_time`);
+
+CREATE TABLE IF NOT EXISTS `user_behavior` (
+  `id` BIGINT NOT NULL AUTO_INCREMENT,
+  `user_id` BIGINT NOT NULL,
+  `video_id` BIGINT NOT NULL,
+  `behavior_type` TINYINT NOT NULL,
+  `create_time` DATETIME DEFAULT CURRENT_TIMESTAMP,
+  PRIMARY KEY (`id`)
+);
+CREATE INDEX IF NOT EXISTS `idx_user_type_video_time` ON `user_behavior` (`user_id`, `behavior_type`, `video_id`, `create_time`);
+
+CREATE TABLE IF NOT EXISTS `user_behavior_rollup` (
+  `id` BIGINT NOT NULL AUTO_INCREMENT,
+  `user_id` BIGINT NOT NULL,
+  `behavior_type` TINYINT NOT NULL,
+  `video_id` BIGINT NOT NULL,
+  `event_count` INT NOT NULL DEFAULT 0,
+  `first_time` DATETIME NOT NULL,
+  `last_time` DATETIME NOT NULL,
+  PRIMARY KEY (`id`)
+);
+CREATE UNIQUE INDEX IF NOT EXISTS `uk_rollup_user_type_video` ON `user_behavior_rollup` (`user_id`, `behavior_type`, `video_id`);
+CREATE INDEX IF NOT EXISTS `idx_rollup_user_type_last` ON `user_behavior_rollup` (`user_id`, `behavior_type`, `last_time`);
+
+CREATE TABLE IF NOT EXISTS `video_like` (
+  `id` BIGINT NOT NULL AUTO_INCREMENT,
+  `video_id` BIGINT NOT NULL,
+  `user_id` BIGINT NOT NULL,
+  `create_time` DATETIME DEFAULT CURRENT_TIMESTAMP,
+  PRIMARY KEY (`id`)
+);
+CREATE UNIQUE INDEX IF NOT EXISTS `uk_like_user_video` ON `video_like` (`video_id`, `user_id`);
+CREATE INDEX IF NOT EXISTS `idx_like_user_time` ON `video_like` (`user_id`, `create_time`);
+
+CREATE TABLE IF NOT EXISTS `video_favorite` (
+  `id` BIGINT NOT NULL AUTO_INCREMENT,
+  `video_id` BIGINT NOT NULL,
+  `user_id` BIGINT NOT NULL,
+  `create_time` DATETIME DEFAULT CURRENT_TIMESTAMP,
+  PRIMARY KEY (`id`)
+);
+CREATE UNIQUE INDEX IF NOT EXISTS `uk_favorite_user_video` ON `video_favorite` (`video_id`, `user_id`);
+CREATE INDEX IF NOT EXISTS `idx_favorite_user_time` ON `video_favorite` (`user_id`, `create_time`);
+
+CREATE TABLE IF NOT EXISTS `relation` (
+  `id` BIGINT NOT NULL AUTO_INCREMENT,
+  `user_id` BIGINT NOT NULL,
+  `target_id` BIGINT NOT NULL,
+  `create_time` DATETIME DEFAULT CURRENT_TIMESTAMP,
+  PRIMARY KEY (`id`)
+);
+CREATE UNIQUE INDEX IF NOT EXISTS `uk_relation` ON `relation` (`user_id`, `target_id`);
+CREATE INDEX IF NOT EXISTS `idx_target` ON `relation` (`target_id`);
+
+CREATE TABLE IF NOT EXISTS `recommendation_result` (
+  `id` BIGINT NOT NULL AUTO_INCREMENT,
+  `user_id` BIGINT NOT NULL,
+  `movie_id` BIGINT NOT NULL,
+  `score` DOUBLE DEFAULT NULL,
+  `rank` INT DEFAULT NULL,
+  `type` VARCHAR(16) DEFAULT NULL,
+  `reason` VARCHAR(255) DEFAULT NULL,
+  `model_id` VARCHAR(64) DEFAULT NULL,
+  `create_time` DATETIME DEFAULT CURRENT_TIMESTAMP,
+  `update_time` DATETIME DEFAULT CURRENT_TIMESTAMP,
+  PRIMARY KEY (`id`)
+);
+CREATE INDEX IF NOT EXISTS `idx_user_type_score` ON `recommendation_result` (`user_id`, `type`, `score`);
+
+CREATE TABLE IF NOT EXISTS `comment` (
+  `id` BIGINT NOT NULL AUTO_INCREMENT,
+  `video_id` BIGINT NOT NULL,
+  `user_id` BIGINT NOT NULL,
+  `content` VARCHAR(1024) NOT NULL,
+  `status` TINYINT DEFAULT 1,
+  `parent_id` BIGINT DEFAULT NULL,
+  `like_count` BIGINT DEFAULT 0,
+  `create_time` DATETIME DEFAULT CURRENT_TIMESTAMP,
+  PRIMARY KEY (`id`)
+);
+CREATE INDEX IF NOT EXISTS `idx_comment_video_like_time` ON `comment` (`video_id`, `like_count`, `create_time`);
+
+CREATE TABLE IF NOT EXISTS `comment_like` (
+  `id` BIGINT NOT NULL AUTO_INCREMENT,
+  `comment_id` BIGINT NOT NULL,
+  `user_id` BIGINT NOT NULL,
+  `create_time` DATETIME DEFAULT NULL,
+  PRIMARY KEY (`id`)
+);
+CREATE UNIQUE INDEX IF NOT EXISTS `uk_comment_user` ON `comment_like` (`comment_id`, `user_id`);
+
+CREATE TABLE IF NOT EXISTS `notification` (
+  `id` BIGINT NOT NULL AUTO_INCREMENT,
+  `user_id` BIGINT NOT NULL,
+  `actor_id` BIGINT DEFAULT NULL,
+  `type` TINYINT NOT NULL,
+  `target_type` TINYINT DEFAULT NULL,
+  `target_id` BIGINT DEFAULT NULL,
+  `content` VARCHAR(1024) DEFAULT NULL,
+  `is_read` TINYINT NOT NULL DEFAULT 0,
+  `actor_count` INT NOT NULL DEFAULT 1,
+  `latest_actor_ids` VARCHAR(255) DEFAULT NULL,
+  `agg_key` VARCHAR(128) DEFAULT NULL,
+  `create_time` DATETIME DEFAULT CURRENT_TIMESTAMP,
+  PRIMARY KEY (`id`)
+);
+CREATE INDEX IF NOT EXISTS `idx_agg_key` ON `notification` (`agg_key`);
+CREATE INDEX IF NOT EXISTS `idx_user_read_time` ON `notification` (`user_id`, `is_read`, `create_time`);
+CREATE INDEX IF NOT EXISTS `idx_notification_user_time` ON `notification` (`user_id`, `create_time`);
+
+CREATE TABLE IF NOT EXISTS `dm_conversation` (
+  `id` VARCHAR(64) NOT NULL,
+  `user_low` BIGINT NOT NULL,
+  `user_high` BIGINT NOT NULL,
+  `last_seq` BIGINT NOT NULL DEFAULT 0,
+  `low_sent_count` INT NOT NULL DEFAULT 0,
+  `high_sent_count` INT NOT NULL DEFAULT 0,
+  `last_message_id` BIGINT DEFAULT NULL,
+  `update_time` DATETIME DEFAULT CURRENT_TIMESTAMP,
+  PRIMARY KEY (`id`)
+);
+
+CREATE TABLE IF NOT EXISTS `dm_inbox` (
+  `id` BIGINT NOT NULL AUTO_INCREMENT,
+  `user_id` BIGINT NOT NULL,
+  `peer_id` BIGINT NOT NULL,
+  `conversation_id` VARCHAR(64) NOT NULL,
+  `last_seq` BIGINT NOT NULL DEFAULT 0,
+  `last_message_id` BIGINT DEFAULT NULL,
+  `last_sender_id` BIGINT DEFAULT NULL,
+  `last_msg_type` TINYINT DEFAULT NULL,
+  `last_preview` VARCHAR(255) DEFAULT NULL,
+  `unread_count` INT NOT NULL DEFAULT 0,
+  `update_time` DATETIME DEFAULT CURRENT_TIMESTAMP,
+  PRIMARY KEY (`id`)
+);
+CREATE UNIQUE INDEX IF NOT EXISTS `uk_inbox_user_peer` ON `dm_inbox` (`user_id`, `peer_id`);
+CREATE INDEX IF NOT EXISTS `idx_inbox_user_time` ON `dm_inbox` (`user_id`, `update_time`);
+
+CREATE TABLE IF NOT EXISTS `dm_message` (
+  `id` BIGINT NOT NULL AUTO_INCREMENT,
+  `sender_id` BIGINT NOT NULL,
+  `receiver_id` BIGINT NOT NULL,
+  `conversation_id` VARCHAR(64) DEFAULT NULL,
+  `seq` BIGINT DEFAULT NULL,
+  `msg_type` TINYINT DEFAULT 1,
+  `content` VARCHAR(1024) DEFAULT NULL,
+  `video_id` BIGINT DEFAULT NULL,
+  `is_read` TINYINT NOT NULL DEFAULT 0,
+  `create_time` DATETIME DEFAULT CURRENT_TIMESTAMP,
+  PRIMARY KEY (`id`)
+);
+CREATE UNIQUE INDEX IF NOT EXISTS `uk_conv_seq` ON `dm_message` (`conversation_id`, `seq`);
+CREATE INDEX IF NOT EXISTS `idx_receiver_read` ON `dm_message` (`receiver_id`, `is_read`, `sender_id`);
+
+CREATE TABLE IF NOT EXISTS `media_object` (
+  `id` BIGINT NOT NULL AUTO_INCREMENT,
+  `storage` VARCHAR(16) NOT NULL,
+  `content_hash` CHAR(64) NOT NULL,
+  `size` BIGINT NOT NULL,
+  `url` VARCHAR(512) NOT NULL,
+  `ref_count` INT NOT NULL DEFAULT 1,
+  `create_time` DATETIME DEFAULT CURRENT_TIMESTAMP,
+  PRIMARY KEY (`id`)
+);
+CREATE UNIQUE INDEX IF NOT EXISTS `uk_storage_hash` ON `media_object` (`storage`, `content_hash`);